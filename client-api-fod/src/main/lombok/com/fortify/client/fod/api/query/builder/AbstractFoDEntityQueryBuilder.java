@@ -27,20 +27,27 @@ package com.fortify.client.fod.api.query.builder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.FastDateFormat;
 
 import com.fortify.client.fod.api.json.embed.FoDEmbedConfig;
+import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.EmbedType;
 import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.FoDEmbedConfigBuilder;
 import com.fortify.client.fod.api.query.FoDEntityQuery;
 import com.fortify.client.fod.connection.FoDAuthenticatingRestConnection;
 import com.fortify.util.applier.ifblank.IfBlankAction;
+import com.fortify.util.rest.json.JSONList;
 import com.fortify.util.rest.json.embed.StandardEmbedConfig;
+import com.fortify.util.rest.json.embed.StandardEmbedDefinition;
+import com.fortify.util.rest.json.preprocessor.enrich.JSONMapEnrichWithOnDemandRestData;
 import com.fortify.util.rest.query.AbstractRestConnectionQueryBuilder;
 import com.fortify.util.rest.query.IRestConnectionQuery;
 import com.fortify.util.rest.webtarget.IWebTargetUpdater;
@@ -66,6 +73,7 @@ import com.fortify.util.rest.webtarget.WebTargetQueryParamUpdater;
 public abstract class AbstractFoDEntityQueryBuilder<T extends AbstractFoDEntityQueryBuilder<T>> extends AbstractRestConnectionQueryBuilder<FoDAuthenticatingRestConnection, T> {
 	protected static final FastDateFormat FOD_DATE_TIME_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd'T'hh:mm:ss");
 	private FoDParamFilter paramFilter = add(new FoDParamFilter());
+	private final List<JSONMapEnrichWithOnDemandRestData> preloadEmbeds = new ArrayList<>();
 	
 	/**
 	 * Create new instance for given {@link FoDAuthenticatingRestConnection} and indicator whether paging is supported.
@@ -180,13 +188,90 @@ public abstract class AbstractFoDEntityQueryBuilder<T extends AbstractFoDEntityQ
 		public T paramFilterAnd(IfBlankAction ifBlankAction, String filter);
 	}
 	
+	/**
+	 * Subclasses can override this method to return the fields that can be used in the 'filters' 
+	 * parameter of the target FoD endpoint. Client-side equality filters on these fields,
+	 * like {@link com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterRegEx} with
+	 * a literal value, will be pushed down to the 'filters' parameter. By default, no fields 
+	 * are returned.
+	 * @return Fields that can be used in the 'filters' parameter
+	 */
+	protected Set<String> getParamFilterPushdownFields() {
+		return Collections.emptySet();
+	}
+	
+	/**
+	 * Push down equality filters on any of the fields returned by {@link #getParamFilterPushdownFields()}
+	 * to the 'filters' parameter, unless a filter for the same field has already been configured.
+	 */
+	@Override
+	protected String pushDownEquals(String fieldPath, String value) {
+		if ( getParamFilterPushdownFields().contains(fieldPath) && StringUtils.containsNone(value, "+|:") 
+				&& !paramFilter.hasParamFilterAnd(fieldPath) ) {
+			paramFilter.paramFilterAnd(fieldPath, value);
+			return "filters="+fieldPath+":"+value;
+		}
+		return null;
+	}
+	
+	/**
+	 * Allows for embedding additional FoD entities into the resulting JSON objects. 
+	 * Depending on the embedType in given {@link FoDEmbedConfig}, the additional 
+	 * entities are either loaded on demand whenever they are first accessed within 
+	 * a page, or pre-loaded for all results in a page before these results are being 
+	 * pre-processed.
+	 * 
+	 * @param embedConfig describes the entity to be embedded in the results
+	 * @return Self for chaining
+	 */
+	public T embed(FoDEmbedConfig embedConfig) {
+		EmbedType embedType = embedConfig.getEmbedType();
+		switch (embedType) {
+		case ONDEMAND: return super.embed(embedConfig);
+		case PRELOAD: return embedPreload(embedConfig);
+		default: throw new RuntimeException("Unknown embed type: "+embedType.name());
+		}
+	}
+	
 	public T embedSubEntity(String propertyName, String subEntity, String... fields) {
+		return embedSubEntity(propertyName, subEntity, EmbedType.ONDEMAND, fields);
+	}
+	
+	public T embedSubEntity(String propertyName, String subEntity, EmbedType embedType, String... fields) {
 		return embed(createEmbedConfigBuilder()
 				.propertyName(propertyName)
 				.subEntity(subEntity)
+				.embedType(embedType)
 				.param("fields", fields==null?null : String.join(",", fields))
 				.build());
 	}
+	
+	/**
+	 * Add the given {@link FoDEmbedConfig} to the list of embeds to be pre-loaded by
+	 * {@link #preload(JSONList)}, registering {@link #preload(JSONList)} as a page 
+	 * pre-processor when the first pre-loaded embed is added.
+	 * @param embedConfig describes the entity to be embedded in the results
+	 * @return Self for chaining
+	 */
+	protected T embedPreload(FoDEmbedConfig embedConfig) {
+		if ( preloadEmbeds.isEmpty() ) {
+			pagePreProcessor(this::preload);
+		}
+		preloadEmbeds.add(new JSONMapEnrichWithOnDemandRestData(getConn(), new StandardEmbedDefinition(embedConfig)));
+		return _this();
+	}
+	
+	/**
+	 * FoD doesn't provide a bulk API, so this method starts the requests for all pre-loaded
+	 * embeds for all results in the given page before waiting for any of the results. On 
+	 * multi-threaded connections, these requests are executed concurrently, within the limits
+	 * on concurrent requests and FoD rate limits enforced by the connection.
+	 * @param page {@link JSONList} containing the results for which to pre-load embedded entities
+	 */
+	private void preload(JSONList page) {
+		List<Runnable> results = preloadEmbeds.stream().map(embed->embed.startBatch(page)).collect(Collectors.toList());
+		results.forEach(Runnable::run);
+	}
 
 	/**
 	 * Subclasses can override this method to create a builder for an
@@ -218,6 +303,11 @@ public abstract class AbstractFoDEntityQueryBuilder<T extends AbstractFoDEntityQ
 			paramFilterAndsList.add(paramFilterAnd);
 			return this;
 		}
+		
+		public final boolean hasParamFilterAnd(String field) {
+			return paramFilterAndsMap.containsKey(field) 
+					|| paramFilterAndsList.stream().anyMatch(f->f.startsWith(field+":") || f.contains("+"+field+":"));
+		}
 
 		@Override
 		public IWebTargetUpdater build() {
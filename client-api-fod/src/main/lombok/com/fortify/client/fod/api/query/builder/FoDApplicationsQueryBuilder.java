@@ -24,6 +24,11 @@
  ******************************************************************************/
 package com.fortify.client.fod.api.query.builder;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import com.fortify.client.fod.api.json.embed.FoDApplicationEmbedConfig;
 import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.FoDEmbedConfigBuilder;
 import com.fortify.client.fod.api.query.FoDEntityQuery;
@@ -50,6 +55,8 @@ public class FoDApplicationsQueryBuilder extends AbstractFoDEntityQueryBuilder<F
 	           IFoDEntityQueryBuilderParamOrderByWithDirection<FoDApplicationsQueryBuilder> 
 {
 	private static final String[] DEEPLINK_FIELDS = {"applicationId"};
+	private static final Set<String> PARAM_FILTER_PUSHDOWN_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"applicationId", "applicationName", "applicationType")));
 	public FoDApplicationsQueryBuilder(FoDAuthenticatingRestConnection conn) {
 		super(conn, true);
 		appendPath("/api/v3/applications");
@@ -92,6 +99,11 @@ public class FoDApplicationsQueryBuilder extends AbstractFoDEntityQueryBuilder<F
 		return super.paramFilterAnd(ifBlankAction, "applicationType", applicationType);
 	}
 	
+	@Override
+	protected Set<String> getParamFilterPushdownFields() {
+		return PARAM_FILTER_PUSHDOWN_FIELDS;
+	}
+	
 	public FoDApplicationsQueryBuilder onDemandAll() {
 		return onDemandAttributesMap().onDemandBugTracker().onDemandReleases();
 	}
@@ -24,6 +24,7 @@
  ******************************************************************************/
 package com.fortify.client.fod.api.query.builder;
 
+import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.EmbedType;
 import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.FoDEmbedConfigBuilder;
 import com.fortify.client.fod.api.json.embed.FoDReleaseVulnerabilitiesEmbedConfig;
 import com.fortify.client.fod.api.query.FoDEntityQuery;
@@ -94,96 +95,141 @@ public class FoDReleaseVulnerabilitiesQueryBuilder extends AbstractFoDReleaseChi
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandAll() {
-		return onDemandAllData().onDemandAuditOptions().onDemandDetails().onDemandHeaders().onDemandHistory()
-			.onDemandParameters().onDemandRecommendations().onDemandRequestResponse().onDemandScreenshots()
-			.onDemandSummary().onDemandTraces();
+		return embedAll(EmbedType.ONDEMAND);
+	}
+	
+	/**
+	 * Pre-load all vulnerability sub-entities that are also made available through
+	 * {@link #onDemandAll()}, concurrently for all vulnerabilities in a page.
+	 * @return Self for chaining
+	 */
+	public FoDReleaseVulnerabilitiesQueryBuilder preloadAll() {
+		return embedAll(EmbedType.PRELOAD);
+	}
+	
+	/**
+	 * Embed all vulnerability sub-entities that are also made available through the
+	 * individual onDemand methods, like {@link #onDemandDetails()}, using the given
+	 * {@link EmbedType}. Each sub-entity is embedded under the same property name as 
+	 * used by the corresponding onDemand method.
+	 * @param embedType {@link EmbedType} for all sub-entities
+	 * @return Self for chaining
+	 */
+	public FoDReleaseVulnerabilitiesQueryBuilder embedAll(EmbedType embedType) {
+		for ( VulnerabilitySubEntity subEntity : VulnerabilitySubEntity.values() ) {
+			embed(subEntity, subEntity.propertyName, embedType);
+		}
+		return _this();
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandAllData() {
-		return onDemandAllData("allData");
+		return onDemandAllData(VulnerabilitySubEntity.ALL_DATA.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandSummary() {
-		return onDemandSummary("summary");
+		return onDemandSummary(VulnerabilitySubEntity.SUMMARY.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandDetails() {
-		return onDemandDetails("details");
+		return onDemandDetails(VulnerabilitySubEntity.DETAILS.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandRecommendations() {
-		return onDemandRecommendations("recommendations");
+		return onDemandRecommendations(VulnerabilitySubEntity.RECOMMENDATIONS.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandHistory() {
-		return onDemandHistory("history");
+		return onDemandHistory(VulnerabilitySubEntity.HISTORY.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandScreenshots() {
-		return onDemandScreenshots("screenshots");
+		return onDemandScreenshots(VulnerabilitySubEntity.SCREENSHOTS.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandRequestResponse() {
-		return onDemandRequestResponse("requestResponse");
+		return onDemandRequestResponse(VulnerabilitySubEntity.REQUEST_RESPONSE.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandHeaders() {
-		return onDemandHeaders("headers");
+		return onDemandHeaders(VulnerabilitySubEntity.HEADERS.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandParameters() {
-		return onDemandParameters("parameters");
+		return onDemandParameters(VulnerabilitySubEntity.PARAMETERS.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandTraces() {
-		return onDemandTraces("traces");
+		return onDemandTraces(VulnerabilitySubEntity.TRACES.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandAuditOptions() {
-		return onDemandAuditOptions("auditOptions");
+		return onDemandAuditOptions(VulnerabilitySubEntity.AUDIT_OPTIONS.propertyName);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandAllData(String propertyName) {
-		return embedSubEntity(propertyName, "all-data");
+		return embed(VulnerabilitySubEntity.ALL_DATA, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandSummary(String propertyName) {
-		return embedSubEntity(propertyName, "summary");
+		return embed(VulnerabilitySubEntity.SUMMARY, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandDetails(String propertyName) {
-		return embedSubEntity(propertyName, "details");
+		return embed(VulnerabilitySubEntity.DETAILS, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandRecommendations(String propertyName) {
-		return embedSubEntity(propertyName, "recommendations");
+		return embed(VulnerabilitySubEntity.RECOMMENDATIONS, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandHistory(String propertyName) {
-		return embedSubEntity(propertyName, "history");
+		return embed(VulnerabilitySubEntity.HISTORY, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandScreenshots(String propertyName) {
-		return embedSubEntity(propertyName, "screenshots");
+		return embed(VulnerabilitySubEntity.SCREENSHOTS, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandRequestResponse(String propertyName) {
-		return embedSubEntity(propertyName, "response");
+		return embed(VulnerabilitySubEntity.REQUEST_RESPONSE, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandHeaders(String propertyName) {
-		return embedSubEntity(propertyName, "headers");
+		return embed(VulnerabilitySubEntity.HEADERS, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandParameters(String propertyName) {
-		return embedSubEntity(propertyName, "parameters");
+		return embed(VulnerabilitySubEntity.PARAMETERS, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandTraces(String propertyName) {
-		return embedSubEntity(propertyName, "traces");
+		return embed(VulnerabilitySubEntity.TRACES, propertyName, EmbedType.ONDEMAND);
 	}
 	
 	public FoDReleaseVulnerabilitiesQueryBuilder onDemandAuditOptions(String propertyName) {
-		return embedSubEntity(propertyName, "auditOptions");
+		return embed(VulnerabilitySubEntity.AUDIT_OPTIONS, propertyName, EmbedType.ONDEMAND);
+	}
+	
+	private FoDReleaseVulnerabilitiesQueryBuilder embed(VulnerabilitySubEntity subEntity, String propertyName, EmbedType embedType) {
+		return embedSubEntity(propertyName, subEntity.subEntity, embedType);
+	}
+	
+	/**
+	 * Vulnerability sub-entities, with the default property name used by the
+	 * corresponding onDemand method and by {@link FoDReleaseVulnerabilitiesQueryBuilder#embedAll(EmbedType)}
+	 */
+	private static enum VulnerabilitySubEntity {
+		ALL_DATA("allData", "all-data"), AUDIT_OPTIONS("auditOptions", "auditOptions"), DETAILS("details", "details"), 
+		HEADERS("headers", "headers"), HISTORY("history", "history"), PARAMETERS("parameters", "parameters"), 
+		RECOMMENDATIONS("recommendations", "recommendations"), REQUEST_RESPONSE("requestResponse", "response"), 
+		SCREENSHOTS("screenshots", "screenshots"), SUMMARY("summary", "summary"), TRACES("traces", "traces");
+		
+		private final String propertyName;
+		private final String subEntity;
+		
+		private VulnerabilitySubEntity(String propertyName, String subEntity) {
+			this.propertyName = propertyName;
+			this.subEntity = subEntity;
+		}
 	}
 }
@@ -24,10 +24,16 @@
  ******************************************************************************/
 package com.fortify.client.fod.api.query.builder;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.apache.commons.lang.StringUtils;
 
 import com.fortify.client.fod.api.FoDApplicationAPI;
 import com.fortify.client.fod.api.json.embed.FoDEmbedConfig;
+import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.EmbedType;
 import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.FoDEmbedConfigBuilder;
 import com.fortify.client.fod.api.json.embed.FoDReleaseEmbedConfig;
 import com.fortify.client.fod.api.query.FoDEntityQuery;
@@ -55,6 +61,8 @@ public class FoDReleasesQueryBuilder extends AbstractFoDEntityQueryBuilder<FoDRe
 	           IFoDEntityQueryBuilderParamOrderByWithDirection<FoDReleasesQueryBuilder> 
 {
 	private static final String[] DEEPLINK_FIELDS = {"releaseId"};
+	private static final Set<String> PARAM_FILTER_PUSHDOWN_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"releaseId", "releaseName", "applicationId", "applicationName", "rating", "sdlcStatusType", "isPassed")));
 	public FoDReleasesQueryBuilder(FoDAuthenticatingRestConnection conn) {
 		super(conn, true);
 		appendPath("/api/v3/releases");
@@ -155,14 +163,29 @@ public class FoDReleasesQueryBuilder extends AbstractFoDEntityQueryBuilder<FoDRe
 		return super.paramFilterAnd(ifBlankAction, "isPassed", Boolean.toString(isPassed));
 	}
 	
+	/**
+	 * Embed the entity described by the given {@link FoDEmbedConfig}. The 'application' 
+	 * sub-entity is loaded through {@link #onDemandApplication(String)}, which doesn't 
+	 * support pre-loading; an exception is thrown if this sub-entity is requested with
+	 * {@link EmbedType#PRELOAD}.
+	 */
+	@Override
 	public FoDReleasesQueryBuilder embed(FoDEmbedConfig embedConfig) {
 		if ( "application".equals(embedConfig.getSubEntity()) ) {
+			if ( embedConfig.getEmbedType()!=EmbedType.ONDEMAND ) {
+				throw new RuntimeException("Embed type "+embedConfig.getEmbedType().name()+" is not supported for release sub-entity 'application'");
+			}
 			return onDemandApplication(embedConfig.getPropertyName());
 		} else {
 			return super.embed(embedConfig);
 		}
 	}
 	
+	@Override
+	protected Set<String> getParamFilterPushdownFields() {
+		return PARAM_FILTER_PUSHDOWN_FIELDS;
+	}
+	
 	public FoDReleasesQueryBuilder onDemandAll() {
 		return onDemandApplication();
 	}
@@ -182,7 +205,7 @@ public class FoDReleasesQueryBuilder extends AbstractFoDEntityQueryBuilder<FoDRe
 	
 	public FoDReleasesQueryBuilder onDemandSubEntity(String propertyName, String subEntity) {
 		switch (subEntity) {
-		case "application": return onDemandApplication();
+		case "application": return onDemandApplication(propertyName);
 		default: return embedSubEntity(propertyName, subEntity); 
 		}
 	}
@@ -24,13 +24,18 @@
  ******************************************************************************/
 package com.fortify.client.fod.api.query.builder;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang.time.DateUtils;
 
 import com.fortify.client.fod.api.query.FoDEntityQuery;
 import com.fortify.client.fod.api.query.builder.AbstractFoDEntityQueryBuilder.IFoDEntityQueryBuilderParamFields;
 import com.fortify.client.fod.api.query.builder.AbstractFoDEntityQueryBuilder.IFoDEntityQueryBuilderParamOrderByWithDirection;
 import com.fortify.client.fod.connection.FoDAuthenticatingRestConnection;
 import com.fortify.util.applier.ifblank.IfBlankAction;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate.DateComparisonOperator;
 
 /**
  * This class allows for building an {@link FoDEntityQuery} instance that allows for
@@ -73,4 +78,40 @@ public class FoDScansQueryBuilder extends AbstractFoDEntityQueryBuilder<FoDScans
 		return queryParam("completedOnEndDate", FOD_DATE_TIME_FORMAT.format(dateTime));
 	}
 	
+	/**
+	 * Push down date comparisons on the startedDateTime and completedDateTime fields
+	 * to the corresponding start and end date request parameters, unless these have 
+	 * already been configured explicitly. As the exact semantics of the FoD date 
+	 * parameters with regards to time zones and inclusiveness are not well-defined, 
+	 * the dates are widened by two days; the original filter is still evaluated 
+	 * client-side to apply exact date comparisons.
+	 */
+	@Override
+	protected String pushDownDateComparison(String fieldPath, DateComparisonOperator operator, Date date) {
+		String paramPrefix = "startedDateTime".equals(fieldPath) ? "startedOn" 
+				: "completedDateTime".equals(fieldPath) ? "completedOn" : null;
+		List<String> result = new ArrayList<>();
+		if ( paramPrefix != null ) {
+			switch (operator) {
+			case gt: case ge: 
+				pushDownDateParam(paramPrefix+"StartDate", DateUtils.addDays(date, -2), result); break;
+			case lt: case le: 
+				pushDownDateParam(paramPrefix+"EndDate", DateUtils.addDays(date, 2), result); break;
+			case eq:
+				pushDownDateParam(paramPrefix+"StartDate", DateUtils.addDays(date, -2), result);
+				pushDownDateParam(paramPrefix+"EndDate", DateUtils.addDays(date, 2), result); break;
+			default: break;
+			}
+		}
+		return result.isEmpty() ? null : String.join(", ", result);
+	}
+	
+	private void pushDownDateParam(String paramName, Date date, List<String> result) {
+		if ( !getWebTargetQueryParamUpdaterBuilder().hasQueryParam(paramName) ) {
+			String value = FOD_DATE_TIME_FORMAT.format(date);
+			queryParam(paramName, value);
+			result.add(paramName+"="+value);
+		}
+	}
+	
 }
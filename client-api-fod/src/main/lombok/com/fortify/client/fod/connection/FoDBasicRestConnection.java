@@ -24,14 +24,12 @@
  ******************************************************************************/
 package com.fortify.client.fod.connection;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation.Builder;
 import javax.ws.rs.client.WebTarget;
 
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 
 import com.fortify.util.rest.connection.AbstractRestConnection;
 import com.fortify.util.rest.connection.TooManyRequestsRetryStrategy;
@@ -45,19 +43,21 @@ import com.fortify.util.rest.connection.TooManyRequestsRetryStrategy;
  *  <li>Enable a 'service unavailable' strategy to retry requests 
  *      that fail due to FoD rate limiting</li>
  *  <li>Optimize the number of REST requests being sent to FoD
- *      in a multi-threaded application (don't send new request
- *      if another similar request is already waiting for a rate limit
- *      to expire)</li>
+ *      in a multi-threaded application, using a client-side rate
+ *      limiter that is shared by all threads using this connection.
+ *      This rate limiter learns the allowed rate from the FoD rate 
+ *      limit headers, allowing requests to proceed concurrently as 
+ *      long as the rate limit hasn't been reached, and waiting for 
+ *      the rate limit window to be reset otherwise.</li>
  * </ul>
  * 
- * Note that multi-threading optimization is only provided on the 
- * {@link WebTarget}-based execute methods. Clients calling the
- * {@link #executeRequest(String, Builder, Class)} or
- * {@link #executeRequest(String, WebTarget, Entity, Class)} methods
- * must provide their own thread synchronization if applicable.
+ * Note that client-side rate limiting is only provided on the 
+ * {@link WebTarget}-based execute methods. Requests executed through the
+ * {@link #executeRequest(String, Builder, Class)} method are not limited,
+ * but their responses are still used to update the rate limiter.
  */
 public class FoDBasicRestConnection extends AbstractRestConnection {
-	private final Map<String, Object> pathMutexes = new HashMap<>();
+	private final FoDRateLimiter rateLimiter = new FoDRateLimiter();
 	private final int rateLimitMaxRetries;
 
 	protected FoDBasicRestConnection(FoDRestConnectionConfig<?> config) {
@@ -65,18 +65,17 @@ public class FoDBasicRestConnection extends AbstractRestConnection {
 		this.rateLimitMaxRetries = config.getRateLimitMaxRetries();
 	}
 	
-	protected final Object getMutex(final String path) {
-		String pathWithoutIds = path.replaceAll("\\d", "x");
-		return pathMutexes.computeIfAbsent(pathWithoutIds, key->new Object());
-	}
-	
 	@Override
 	protected <T> T executeRequestWithFinalizedWebTarget(String httpMethod, WebTarget webResource, Entity<?> entity, Class<T> returnType) {
 		if ( !isMultiThreaded() ) {
 			return super.executeRequestWithFinalizedWebTarget(httpMethod, webResource, entity, returnType);
 		} else {
-			synchronized (getMutex(webResource.getUri().getPath())) {
+			String path = webResource.getUri().getPath();
+			rateLimiter.acquire(path);
+			try {
 				return super.executeRequestWithFinalizedWebTarget(httpMethod, webResource, entity, returnType);
+			} finally {
+				rateLimiter.release(path);
 			}
 		}
 	}
@@ -90,6 +89,16 @@ public class FoDBasicRestConnection extends AbstractRestConnection {
 				.accept("application/json");
 	}
 	
+	/**
+	 * Update the {@link HttpClientBuilder} to have the rate limiter
+	 * process the FoD rate limit headers for every response.
+	 */
+	@Override
+	protected void updateHttpClientBuilder(HttpClientBuilder httpClientBuilder) {
+		super.updateHttpClientBuilder(httpClientBuilder);
+		httpClientBuilder.addInterceptorLast(rateLimiter);
+	}
+	
 	@Override
 	protected ServiceUnavailableRetryStrategy getServiceUnavailableRetryStrategy() {
 		return new TooManyRequestsRetryStrategy()
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.client.fod.connection;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+/**
+ * This package-private class is used by {@link FoDBasicRestConnection} to
+ * limit the rate at which requests are being sent to FoD. For every endpoint
+ * (request path with all numeric id's replaced), this class maintains a 
+ * token bucket that is updated based on the <code>X-Rate-Limit-Limit</code>, 
+ * <code>X-Rate-Limit-Remaining</code> and <code>X-Rate-Limit-Reset</code>
+ * headers returned by FoD. As long as tokens are available, requests for
+ * the same endpoint are allowed to proceed concurrently; once all tokens 
+ * have been used, callers will wait until the rate limit window has been 
+ * reset.
+ * 
+ * As long as FoD hasn't returned any rate limit information for a given
+ * endpoint, requests for that endpoint are not limited. 
+ * 
+ * @author Ruud Senden
+ *
+ */
+final class FoDRateLimiter implements HttpResponseInterceptor {
+	private static final Log LOG = LogFactory.getLog(FoDRateLimiter.class);
+	private static final Pattern EXPR_NUMBER = Pattern.compile("\\d+");
+	private static final String HEADER_LIMIT = "X-Rate-Limit-Limit";
+	private static final String HEADER_REMAINING = "X-Rate-Limit-Remaining";
+	private static final String HEADER_RESET = "X-Rate-Limit-Reset";
+	private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+	
+	/**
+	 * Acquire a token for the given request path, waiting until the rate
+	 * limit window has been reset if no tokens are available. Every call
+	 * to this method must be followed by a call to {@link #release(String)}
+	 * once the request has completed.
+	 * @param path request path
+	 */
+	public void acquire(String path) {
+		try {
+			getBucket(path).acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for FoD rate limit to reset", e);
+		}
+	}
+	
+	/**
+	 * Indicate that a request for the given path, for which a token was 
+	 * previously acquired through {@link #acquire(String)}, has completed.
+	 * @param path request path
+	 */
+	public void release(String path) {
+		getBucket(path).release();
+	}
+	
+	/**
+	 * Update the token bucket for the current request based on the rate
+	 * limit headers returned by FoD.
+	 */
+	@Override
+	public void process(HttpResponse response, HttpContext context) {
+		Header remainingHeader = response.getFirstHeader(HEADER_REMAINING);
+		Header resetHeader = response.getFirstHeader(HEADER_RESET);
+		boolean tooManyRequests = response.getStatusLine().getStatusCode()==429;
+		String path = getRequestPath(context);
+		if ( path!=null && resetHeader!=null && (remainingHeader!=null || tooManyRequests) ) {
+			int limit = parseInt(response.getFirstHeader(HEADER_LIMIT));
+			int remaining = tooManyRequests ? 0 : parseInt(remainingHeader);
+			int resetSeconds = parseInt(resetHeader);
+			if ( remaining>=0 && resetSeconds>=0 ) {
+				getBucket(path).update(limit, remaining, resetSeconds);
+			}
+		}
+	}
+
+	private final Bucket getBucket(String path) {
+		return buckets.computeIfAbsent(EXPR_NUMBER.matcher(path).replaceAll("x"), Bucket::new);
+	}
+	
+	private static final String getRequestPath(HttpContext context) {
+		HttpRequest request = HttpCoreContext.adapt(context).getRequest();
+		if ( request instanceof HttpUriRequest ) {
+			return ((HttpUriRequest)request).getURI().getPath();
+		} else if ( request != null ) {
+			try {
+				return URI.create(request.getRequestLine().getUri()).getPath();
+			} catch ( IllegalArgumentException e ) {
+				LOG.debug("[FoD] Unable to determine request path for rate limiting", e);
+			}
+		}
+		return null;
+	}
+	
+	private static final int parseInt(Header header) {
+		try {
+			return header==null ? -1 : Integer.parseInt(header.getValue().trim());
+		} catch ( NumberFormatException e ) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * Token bucket for a single endpoint. A negative number of tokens 
+	 * indicates that no rate limit information is available (yet).
+	 */
+	private static final class Bucket {
+		private final String key;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition tokensAvailable = lock.newCondition();
+		private int limit = -1;
+		private int tokens = -1;
+		private long resetAtNanos = 0;
+		private int inFlight = 0;
+		
+		public Bucket(String key) {
+			this.key = key;
+		}
+		
+		public void acquire() throws InterruptedException {
+			lock.lock();
+			try {
+				while ( tokens==0 ) {
+					long waitNanos = resetAtNanos - System.nanoTime();
+					if ( waitNanos <= 0 ) {
+						// Rate limit window has been reset; if we don't know the limit, 
+						// allow requests until FoD tells us otherwise 
+						tokens = limit>0 ? limit : -1;
+					} else {
+						if ( LOG.isDebugEnabled() ) {
+							LOG.debug("[FoD] Waiting "+TimeUnit.NANOSECONDS.toMillis(waitNanos)+" ms for rate limit reset on "+key);
+						}
+						tokensAvailable.awaitNanos(waitNanos);
+					}
+				}
+				if ( tokens>0 ) { tokens--; }
+				inFlight++;
+			} finally {
+				lock.unlock();
+			}
+		}
+		
+		public void release() {
+			lock.lock();
+			try {
+				if ( inFlight>0 ) { inFlight--; }
+			} finally {
+				lock.unlock();
+			}
+		}
+		
+		public void update(int limit, int remaining, int resetSeconds) {
+			lock.lock();
+			try {
+				if ( limit>0 ) { this.limit = limit; }
+				// The remaining count returned by FoD doesn't account for 
+				// other requests that are currently in progress
+				this.tokens = Math.max(0, remaining - Math.max(0, inFlight-1));
+				this.resetAtNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(resetSeconds);
+				if ( tokens>0 ) { tokensAvailable.signalAll(); }
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -55,6 +55,8 @@ public class FoDRestConnectionConfig<T extends FoDRestConnectionConfig<T>> exten
 	private String tenant;
 	private URI    browserBaseUrl;
 	private int    rateLimitMaxRetries = 1;
+	/** Number of seconds before token expiry at which to refresh the token in the background; disabled if 0 */
+	private int    tokenRefreshAheadSeconds = 0;
 	
 	public T clientId(String clientId) {
 		setClientId(clientId);
@@ -81,6 +83,11 @@ public class FoDRestConnectionConfig<T extends FoDRestConnectionConfig<T>> exten
 		return getThis();
 	}
 	
+	public T tokenRefreshAheadSeconds(int tokenRefreshAheadSeconds) {
+		setTokenRefreshAheadSeconds(tokenRefreshAheadSeconds);
+		return getThis();
+	}
+	
 	public String getUserNameWithTenant() {
 		return getTenant() + "\\" + getUserName();
 	}
@@ -38,13 +38,15 @@ import org.apache.commons.logging.LogFactory;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fortify.util.log4j.LogMaskingHelper;
+import com.fortify.util.rest.connection.RefreshingTokenHolder;
 
 /**
  * This class is used to generate FoD tokens for accessing the
  * FoD REST API. Given an {@link FoDBasicRestConnection} and 
  * authentication form data, it will call the FoD /oauth/token
  * API to request a REST token. The token will be automatically
- * refreshed as required.
+ * refreshed as required, optionally in the background before the
+ * current token expires (see {@link FoDRestConnectionConfig#getTokenRefreshAheadSeconds()}).
  */
 public final class FoDTokenFactory implements Closeable {
 	static final Log LOG = LogFactory.getLog(FoDTokenFactory.class);
@@ -53,30 +55,40 @@ public final class FoDTokenFactory implements Closeable {
 	
 	private final FoDBasicRestConnection basicConn;
 	private final Form auth;
-	private FoDTokenFactory.TokenData tokenData = null;
+	private final RefreshingTokenHolder<FoDTokenFactory.TokenData> tokenHolder;
 	
 	public FoDTokenFactory(FoDRestConnectionConfig<?> config) {
 		this.basicConn = new FoDBasicRestConnection(config);
 		this.auth = config.getAuth();
+		this.tokenHolder = new RefreshingTokenHolder<>(this::requestTokenData, FoDTokenFactory.TokenData::getExpiresAt)
+				.logPrefix("[FoD]").refreshAheadMillis(config.getTokenRefreshAheadSeconds()*1000L);
 	}
 	
 	@Override
 	public void close() {
+		this.tokenHolder.close();
 		this.basicConn.close();
 	}
 
-	public synchronized String getTokenSynchronized() {
+	/**
+	 * We don't need to make this method synchronized, as {@link #getToken()}
+	 * is thread-safe and only blocks if the current token has expired.
+	 * @return FoD access token
+	 */
+	public String getTokenSynchronized() {
 		return getToken();
 	}
 
 	public String getToken() {
-		if ( tokenData == null || tokenData.isExpired() ) {
-			LogMaskingHelper.maskByPatternGroups().patterns(EXPR_TOKEN, EXPR_PASSWORD).on(() ->
-				tokenData = basicConn.executeRequest(HttpMethod.POST, basicConn.getBaseResource().path("/oauth/token"), Entity.entity(auth, "application/x-www-form-urlencoded"), FoDTokenFactory.TokenData.class)
-			);
-			LOG.info("[FoD] Obtained access token, expiring at "+new Date(tokenData.getExpiresAt()).toString());
-		}
-		return tokenData.getAccessToken();
+		return tokenHolder.get().getAccessToken();
+	}
+	
+	private FoDTokenFactory.TokenData requestTokenData() {
+		FoDTokenFactory.TokenData tokenData = LogMaskingHelper.maskByPatternGroups().patterns(EXPR_TOKEN, EXPR_PASSWORD).on(() ->
+			basicConn.executeRequest(HttpMethod.POST, basicConn.getBaseResource().path("/oauth/token"), Entity.entity(auth, "application/x-www-form-urlencoded"), FoDTokenFactory.TokenData.class)
+		);
+		LOG.info("[FoD] Obtained access token, expiring at "+new Date(tokenData.getExpiresAt()).toString());
+		return tokenData;
 	}
 	
 	@JsonIgnoreProperties(ignoreUnknown = true)
@@ -97,8 +109,5 @@ public final class FoDTokenFactory implements Closeable {
 		public long getExpiresAt() {
 			return expiresAt;
 		}
-		public boolean isExpired() {
-			return new Date().getTime() > expiresAt;
-		}
 	}
 }
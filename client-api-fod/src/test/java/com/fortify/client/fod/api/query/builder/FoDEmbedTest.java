@@ -0,0 +1,166 @@
+package com.fortify.client.fod.api.query.builder;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.client.fod.TestServer;
+import com.fortify.client.fod.TestServer.Request;
+import com.fortify.client.fod.TestServer.Response;
+import com.fortify.client.fod.api.json.embed.FoDEmbedConfig.EmbedType;
+import com.fortify.client.fod.api.json.embed.FoDReleaseEmbedConfig;
+import com.fortify.client.fod.connection.FoDAuthenticatingRestConnection;
+import com.fortify.util.rest.connection.ProxyConfig;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+
+public class FoDEmbedTest {
+	private static final Pattern VULN_SUB_ENTITY_PATH = Pattern.compile("/api/v3/releases/\\d+/vulnerabilities/(\\w+)/([\\w-]+)");
+	private static final List<String> VULN_PROPERTIES = Arrays.asList("allData", "auditOptions", "details", "headers", 
+			"history", "parameters", "recommendations", "requestResponse", "screenshots", "summary", "traces");
+	private TestServer server;
+	private FoDAuthenticatingRestConnection conn;
+	
+	@BeforeEach
+	public void setup() {
+		server = new TestServer(FoDEmbedTest::handle);
+		// FoD connections require an 'api.' host name, so we use the test server as a proxy
+		ProxyConfig proxy = new ProxyConfig();
+		proxy.setUrl(server.getBaseUri().toString());
+		conn = FoDAuthenticatingRestConnection.builder().baseUrl("http://api.fod.test/").proxy(proxy)
+				.clientId("test").clientSecret("test").build();
+	}
+	
+	@AfterEach
+	public void close() {
+		conn.close();
+		server.close();
+	}
+	
+	@Test public void testEmbedAllMatchesOnDemandAll() {
+		Map<String, Map<String, String>> expected = new LinkedHashMap<>();
+		for ( String vulnId : new String[] {"v1", "v2"} ) {
+			Map<String, String> subEntities = new LinkedHashMap<>();
+			VULN_PROPERTIES.forEach(p -> subEntities.put(p, vulnId+"/"+p));
+			subEntities.put("allData", vulnId+"/all-data");
+			subEntities.put("requestResponse", vulnId+"/response");
+			expected.put(vulnId, subEntities);
+		}
+		assertEquals(expected, getVulnSubEntities(new FoDReleaseVulnerabilitiesQueryBuilder(conn, "1").onDemandAll()));
+		assertEquals(expected, getVulnSubEntities(new FoDReleaseVulnerabilitiesQueryBuilder(conn, "1").embedAll(EmbedType.ONDEMAND)));
+		assertEquals(expected, getVulnSubEntities(new FoDReleaseVulnerabilitiesQueryBuilder(conn, "1").embedAll(EmbedType.PRELOAD)));
+		assertEquals(expected, getVulnSubEntities(new FoDReleaseVulnerabilitiesQueryBuilder(conn, "1").preloadAll()));
+	}
+	
+	@Test public void testOnDemandSubEntityWithPropertyName() {
+		JSONMap vuln = new FoDReleaseVulnerabilitiesQueryBuilder(conn, "1")
+				.onDemandRequestResponse("rr").onDemandAllData("all")
+				.build().getAll().get(0, JSONMap.class);
+		assertEquals("v1/response", vuln.getPath("rr.path", String.class));
+		assertEquals("v1/all-data", vuln.getPath("all.path", String.class));
+	}
+	
+	@Test public void testEmbedApplicationOnDemand() {
+		JSONMap release = new FoDReleasesQueryBuilder(conn)
+				.embed(FoDReleaseEmbedConfig.builder().propertyName("app").subEntity("application").build())
+				.build().getAll().get(0, JSONMap.class);
+		assertEquals("app10", release.getPath("app.applicationName", String.class));
+	}
+	
+	@Test public void testOnDemandSubEntityApplicationWithPropertyName() {
+		JSONMap release = new FoDReleasesQueryBuilder(conn).onDemandSubEntity("app", "application")
+				.build().getAll().get(0, JSONMap.class);
+		assertEquals("app10", release.getPath("app.applicationName", String.class));
+	}
+	
+	@Test public void testEmbedApplicationPreloadRejected() {
+		FoDReleasesQueryBuilder builder = new FoDReleasesQueryBuilder(conn);
+		assertThrows(RuntimeException.class, () -> builder.embed(FoDReleaseEmbedConfig.builder()
+				.subEntity("application").embedType(EmbedType.PRELOAD).build()));
+		assertThrows(RuntimeException.class, () -> builder.embedSubEntity("application", "application", EmbedType.PRELOAD));
+	}
+	
+	/**
+	 * Get the embedded sub-entity paths for each vulnerability, accessing all embedded properties
+	 */
+	private static final Map<String, Map<String, String>> getVulnSubEntities(FoDReleaseVulnerabilitiesQueryBuilder builder) {
+		Map<String, Map<String, String>> result = new LinkedHashMap<>();
+		for ( JSONMap vuln : builder.build().getAll().asValueType(JSONMap.class) ) {
+			Map<String, String> subEntities = new LinkedHashMap<>();
+			VULN_PROPERTIES.forEach(p -> subEntities.put(p, vuln.getPath(p+".path", String.class)));
+			result.put(vuln.get("vulnId", String.class), subEntities);
+		}
+		return result;
+	}
+	
+	private static final Response handle(Request request) {
+		String path = request.getPath();
+		Matcher matcher = VULN_SUB_ENTITY_PATH.matcher(path);
+		if ( "/oauth/token".equals(path) ) {
+			return Response.ok("{\"access_token\":\"test\",\"expires_in\":3600}");
+		} else if ( matcher.matches() ) {
+			JSONMap json = new JSONMap();
+			json.put("path", matcher.group(1)+"/"+matcher.group(2));
+			return Response.ok(json);
+		} else if ( path.endsWith("/vulnerabilities") ) {
+			return results(request, entity("vulnId", "v1", "releaseId", 1), entity("vulnId", "v2", "releaseId", 1));
+		} else if ( path.endsWith("/releases") ) {
+			return results(request, entity("releaseId", 1, "applicationId", 10));
+		} else if ( path.endsWith("/applications") ) {
+			return results(request, entity("applicationId", 10, "applicationName", "app10"));
+		} else {
+			return new Response(404, "{}");
+		}
+	}
+	
+	private static final Response results(Request request, JSONMap... results) {
+		int offset = request.getIntQueryParam("offset", 0);
+		JSONMap json = new JSONMap();
+		json.put("items", new JSONList(Arrays.asList(results).subList(Math.min(offset, results.length), results.length)));
+		json.put("totalCount", results.length);
+		return Response.ok(json);
+	}
+	
+	private static final JSONMap entity(Object... namesAndValues) {
+		JSONMap json = new JSONMap();
+		for ( int i = 0 ; i < namesAndValues.length ; i+=2 ) {
+			json.put((String)namesAndValues[i], namesAndValues[i+1]);
+		}
+		return json;
+	}
+}
@@ -0,0 +1,264 @@
+package com.fortify.client.fod.api.query.builder;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.time.FastDateFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.client.fod.TestServer;
+import com.fortify.client.fod.TestServer.Request;
+import com.fortify.client.fod.TestServer.Response;
+import com.fortify.client.fod.connection.FoDAuthenticatingRestConnection;
+import com.fortify.util.applier.ifblank.IfBlank;
+import com.fortify.util.rest.connection.ProxyConfig;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter.MatchMode;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate.DateComparisonOperator;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterRegEx;
+
+public class FoDQueryBuilderPushDownTest {
+	/** Same format as AbstractFoDEntityQueryBuilder.FOD_DATE_TIME_FORMAT */
+	private static final FastDateFormat FOD_DATE_TIME_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd'T'hh:mm:ss");
+	private static final Date DATE = date("2020-06-15T10:00:00");
+	private TestServer server;
+	private FoDAuthenticatingRestConnection conn;
+	
+	@BeforeEach
+	public void setup() {
+		// The server ignores the 'filters' and date parameters, so any results returned 
+		// by the query must have been filtered client-side
+		server = new TestServer(handler(
+				release(1, "R1", "app1"), release(2, "R2", "app1"), release(3, "R1", "app2"), release(4, "R1+R2", "app2")));
+		// FoD connections require an 'api.' host name, so we use the test server as a proxy
+		ProxyConfig proxy = new ProxyConfig();
+		proxy.setUrl(server.getBaseUri().toString());
+		conn = FoDAuthenticatingRestConnection.builder().baseUrl("http://api.fod.test/").proxy(proxy)
+				.clientId("test").clientSecret("test").build();
+	}
+	
+	@AfterEach
+	public void close() {
+		conn.close();
+		server.close();
+	}
+	
+	@Test public void testPushDownEquals() {
+		FoDReleasesQueryBuilder builder = new FoDReleasesQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder, "releaseId"));
+		assertEquals(set("releaseName:R1"), getFilters());
+		assertEquals(Arrays.asList("releaseName = 'R1' -> filters=releaseName:R1"), builder.getPushedDownFilters());
+	}
+	
+	@Test public void testPushDownMultipleFilters() {
+		FoDReleasesQueryBuilder builder = new FoDReleasesQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1"))
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "applicationName", "app2"));
+		assertEquals(Arrays.asList(3), getIds(builder, "releaseId"));
+		assertEquals(set("releaseName:R1", "applicationName:app2"), getFilters());
+	}
+	
+	@Test public void testPushDownCombinedWithExplicitFilter() {
+		FoDReleasesQueryBuilder builder = new FoDReleasesQueryBuilder(conn)
+				.applicationName(IfBlank.ERROR(), "app1")
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder, "releaseId"));
+		assertEquals(set("applicationName:app1", "releaseName:R1"), getFilters());
+	}
+	
+	@Test public void testExplicitFilterNotOverridden() {
+		testExplicitFilterNotOverridden(new FoDReleasesQueryBuilder(conn).releaseName(IfBlank.ERROR(), "R2"), "releaseName:R2");
+		testExplicitFilterNotOverridden(new FoDReleasesQueryBuilder(conn).paramFilterAnd(IfBlank.ERROR(), "releaseName:R2"), "releaseName:R2");
+		testExplicitFilterNotOverridden(new FoDReleasesQueryBuilder(conn).paramFilterAnd(IfBlank.ERROR(), "applicationName:app1+releaseName:R2"), "applicationName:app1", "releaseName:R2");
+	}
+	
+	private void testExplicitFilterNotOverridden(FoDReleasesQueryBuilder builder, String... expectedFilters) {
+		builder.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder, "releaseId"));
+		assertEquals(set(expectedFilters), getFilters());
+		assertTrue(builder.getPushedDownFilters().isEmpty());
+	}
+	
+	@Test public void testNonLiteralFiltersNotPushedDown() {
+		testNotPushedDown(Arrays.asList(1, 2, 3, 4), new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R.*"));
+		testNotPushedDown(Arrays.asList(1, 2, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1|R2"));
+		testNotPushedDown(Arrays.asList(1, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R[1]"));
+		testNotPushedDown(Arrays.asList(2, 4), new JSONMapFilterRegEx(MatchMode.EXCLUDE, "releaseName", "R1"));
+	}
+	
+	@Test public void testUnsupportedFiltersNotPushedDown() {
+		// Field not listed in getParamFilterPushdownFields()
+		testNotPushedDown(Arrays.asList(1, 2), new JSONMapFilterRegEx(MatchMode.INCLUDE, "sdlcStatus", "Development"));
+		// Values containing FoD filter syntax characters
+		testNotPushedDown(Arrays.asList(4), new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1\\+R2"));
+		testNotPushedDown(Arrays.asList(4), new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", Pattern.quote("R1+R2")));
+		testNotPushedDown(Collections.emptyList(), new JSONMapFilterRegEx(MatchMode.INCLUDE, "releaseName", "R1:R2"));
+	}
+	
+	@Test public void testPushDownDateComparison() {
+		testPushDownDateComparison("startedDateTime", DateComparisonOperator.ge, Arrays.asList(2, 3), "startedOnStartDate="+format(DATE, -2));
+		testPushDownDateComparison("startedDateTime", DateComparisonOperator.gt, Arrays.asList(3), "startedOnStartDate="+format(DATE, -2));
+		testPushDownDateComparison("startedDateTime", DateComparisonOperator.le, Arrays.asList(1, 2), "startedOnEndDate="+format(DATE, 2));
+		testPushDownDateComparison("startedDateTime", DateComparisonOperator.lt, Arrays.asList(1), "startedOnEndDate="+format(DATE, 2));
+		testPushDownDateComparison("startedDateTime", DateComparisonOperator.eq, Arrays.asList(2), "startedOnStartDate="+format(DATE, -2), "startedOnEndDate="+format(DATE, 2));
+		testPushDownDateComparison("completedDateTime", DateComparisonOperator.ge, Arrays.asList(1, 2, 3), "completedOnStartDate="+format(DATE, -2));
+		testPushDownDateComparison("completedDateTime", DateComparisonOperator.lt, Collections.emptyList(), "completedOnEndDate="+format(DATE, 2));
+	}
+	
+	@Test public void testDateComparisonNotPushedDown() {
+		testPushDownDateComparison("startedDateTime", DateComparisonOperator.ne, Arrays.asList(1, 3));
+		testPushDownDateComparison("analysisStatusDate", DateComparisonOperator.ge, Arrays.asList(2, 3));
+		FoDScansQueryBuilder builder = new FoDScansQueryBuilder(conn)
+				.paramStartedOnStartDate(DATE)
+				.preProcessor(new JSONMapFilterCompareDate(MatchMode.INCLUDE, "startedDateTime", DateComparisonOperator.gt, DATE));
+		assertEquals(Arrays.asList(3), getIds(builder, "scanId"));
+		assertEquals(FOD_DATE_TIME_FORMAT.format(DATE), getLastRequest().getQueryParam("startedOnStartDate"));
+		assertTrue(builder.getPushedDownFilters().isEmpty());
+		JSONMapFilterCompareDate exclude = new JSONMapFilterCompareDate(MatchMode.EXCLUDE, "startedDateTime", DateComparisonOperator.gt, DATE);
+		builder = new FoDScansQueryBuilder(conn).preProcessor(exclude);
+		assertEquals(Arrays.asList(1, 2), getIds(builder, "scanId"));
+		assertEquals(set(), getDateParams());
+	}
+	
+	/**
+	 * Scans start one hour before, at, and one hour after {@link #DATE}, 
+	 * and complete 1 day after starting
+	 */
+	private void testPushDownDateComparison(String field, DateComparisonOperator operator, List<Integer> expectedIds, String... expectedParams) {
+		server.setHandler(handler(
+				scan(1, "2020-06-15T09:00:00", "2020-06-16T09:00:00"),
+				scan(2, "2020-06-15T10:00:00", "2020-06-16T10:00:00"),
+				scan(3, "2020-06-15T11:00:00", "2020-06-16T11:00:00")));
+		FoDScansQueryBuilder builder = new FoDScansQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterCompareDate(MatchMode.INCLUDE, field, operator, DATE));
+		String description = field+" "+operator;
+		assertEquals(expectedIds, getIds(builder, "scanId"), description);
+		assertEquals(set(expectedParams), getDateParams(), description);
+		assertEquals(expectedParams.length==0, builder.getPushedDownFilters().isEmpty(), description);
+	}
+	
+	private void testNotPushedDown(List<Integer> expectedIds, AbstractJSONMapFilter filter) {
+		String description = ((JSONMapFilterRegEx)filter).getFieldPathPatternsMap().toString();
+		FoDReleasesQueryBuilder builder = new FoDReleasesQueryBuilder(conn).preProcessor(filter);
+		assertEquals(expectedIds, getIds(builder, "releaseId"), description);
+		assertNull(getLastRequest().getQueryParam("filters"), description);
+		assertTrue(builder.getPushedDownFilters().isEmpty(), description);
+	}
+	
+	private Request getLastRequest() {
+		List<Request> requests = server.getRequests();
+		return requests.get(requests.size()-1);
+	}
+	
+	/**
+	 * Get the individual 'filters' criteria from the last request
+	 */
+	private Set<String> getFilters() {
+		String filters = getLastRequest().getQueryParam("filters");
+		return filters==null ? Collections.emptySet() : set(filters.split("\\+"));
+	}
+	
+	/**
+	 * Get the date-related request parameters from the last request
+	 */
+	private Set<String> getDateParams() {
+		Set<String> result = new HashSet<>();
+		getLastRequest().getQueryParams().forEach((name, value) -> {
+			if ( name.endsWith("Date") ) { result.add(name+"="+value); }
+		});
+		return result;
+	}
+	
+	private static final List<Integer> getIds(AbstractFoDEntityQueryBuilder<?> builder, String idField) {
+		List<Integer> result = new ArrayList<>();
+		builder.build().processAll(json -> result.add(json.get(idField, Integer.class)));
+		return result;
+	}
+	
+	private static final Function<Request, Response> handler(JSONMap... results) {
+		return request -> {
+			if ( "/oauth/token".equals(request.getPath()) ) {
+				return Response.ok("{\"access_token\":\"test\",\"expires_in\":3600}");
+			}
+			int offset = request.getIntQueryParam("offset", 0);
+			JSONMap json = new JSONMap();
+			json.put("items", new JSONList(Arrays.asList(results).subList(Math.min(offset, results.length), results.length)));
+			json.put("totalCount", results.length);
+			return Response.ok(json);
+		};
+	}
+	
+	private static final JSONMap release(int id, String releaseName, String applicationName) {
+		JSONMap json = new JSONMap();
+		json.put("releaseId", id);
+		json.put("releaseName", releaseName);
+		json.put("applicationName", applicationName);
+		json.put("sdlcStatus", id<3 ? "Development" : "Production");
+		return json;
+	}
+	
+	private static final JSONMap scan(int id, String startedDateTime, String completedDateTime) {
+		JSONMap json = new JSONMap();
+		json.put("scanId", id);
+		json.put("startedDateTime", startedDateTime);
+		json.put("completedDateTime", completedDateTime);
+		json.put("analysisStatusDate", startedDateTime);
+		return json;
+	}
+	
+	private static final Date date(String localDateTime) {
+		return Date.from(LocalDateTime.parse(localDateTime).atZone(ZoneId.systemDefault()).toInstant());
+	}
+	
+	private static final String format(Date date, int days) {
+		return FOD_DATE_TIME_FORMAT.format(new Date(date.getTime()+days*24L*60*60*1000));
+	}
+	
+	private static final Set<String> set(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
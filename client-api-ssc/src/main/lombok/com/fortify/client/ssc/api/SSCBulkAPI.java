@@ -24,8 +24,15 @@
  ******************************************************************************/
 package com.fortify.client.ssc.api;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 import javax.ws.rs.HttpMethod;
@@ -36,17 +43,21 @@ import javax.ws.rs.core.MediaType;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.expression.Expression;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fortify.client.ssc.annotation.SSCCopyToConstructors;
 import com.fortify.client.ssc.annotation.SSCRequiredActionsPermitted;
 import com.fortify.client.ssc.api.json.embed.SSCEmbedConfig;
 import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.util.rest.connection.ResponseCache;
 import com.fortify.util.rest.json.JSONList;
 import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
 import com.fortify.util.rest.json.embed.StandardEmbedDefinition;
 import com.fortify.util.rest.query.AbstractRestConnectionQueryBuilder;
 
+import lombok.Getter;
 import lombok.Setter;
-import lombok.experimental.Accessors;
+import lombok.extern.apachecommons.CommonsLog;
 
 /**
  * This class is used to access the SSC bulk API endpoint.
@@ -115,6 +126,13 @@ public class SSCBulkAPI extends AbstractSSCAPI {
 			return addBulkRequest(httpMethod, webTarget, null);
 		}
 		
+		/**
+		 * @return Number of requests that were added to this bulk request
+		 */
+		public int getRequestCount() {
+			return requests.size();
+		}
+		
 		/**
 		 * Execute the bulk requests that were previously added using the 
 		 * {@link #addBulkRequest(String, WebTarget)} or {@link #addBulkRequest(String, WebTarget, Object)}
@@ -125,28 +143,63 @@ public class SSCBulkAPI extends AbstractSSCAPI {
 		 */
 		@SSCRequiredActionsPermitted("POST=/api/v\\d+/bulk")
 		public JSONList execute() {
-			WebTarget bulkTarget = conn.getBaseResource().path("/api/v1/bulk");
-			JSONMap bulkRequest = new JSONMap();
-			bulkRequest.put("requests", this.requests);
 			return conn
-					.executeRequest(HttpMethod.POST, bulkTarget, Entity.entity(bulkRequest, MediaType.APPLICATION_JSON), JSONMap.class)
+					.executeRequest(HttpMethod.POST, getBulkTarget(), getBulkEntity(), JSONMap.class)
 					.getOrCreateJSONList("data");
 		}
+		
+		/**
+		 * Asynchronously execute the bulk requests that were previously added, 
+		 * as described in {@link #execute()}. This requires a multi-threaded
+		 * connection.
+		 * 
+		 * @return {@link CompletableFuture} providing the {@link JSONList} containing the results for each of the requests in the bulk request
+		 */
+		@SSCRequiredActionsPermitted("POST=/api/v\\d+/bulk")
+		public CompletableFuture<JSONList> executeAsync() {
+			return conn
+					.executeRequestAsync(HttpMethod.POST, getBulkTarget(), getBulkEntity(), JSONMap.class)
+					.thenApply(result->result.getOrCreateJSONList("data"));
+		}
+		
+		private WebTarget getBulkTarget() {
+			return conn.getBaseResource().path("/api/v1/bulk");
+		}
+		
+		private Entity<JSONMap> getBulkEntity() {
+			JSONMap bulkRequest = new JSONMap();
+			bulkRequest.put("requests", this.requests);
+			return Entity.entity(bulkRequest, MediaType.APPLICATION_JSON);
+		}
 	}
 	
 	/**
 	 * This class allows for adding extra data to a given {@link JSONList}, using
-	 * a single SSC bulk request to load the extra data for all {@link JSONList} 
-	 * entries passed to the {@link SSCBulkEmbedder#addBulkData(JSONList)} method.
+	 * SSC bulk requests to load the extra data for all {@link JSONList} entries 
+	 * passed to the {@link SSCBulkEmbedder#addBulkData(JSONList)} method. Entries
+	 * that resolve to the same URI share a single bulk request; the result is
+	 * added to each of these entries. The requests for a single {@link JSONList} 
+	 * are split into chunks of at most {@link SSCEmbedConfig#getBulkChunkSize()} 
+	 * requests, and on multi-threaded connections up to 
+	 * {@link SSCEmbedConfig#getBulkParallelism()} chunks are executed concurrently.
+	 * If {@link SSCEmbedConfig#getCacheTimeToLiveMillis()} is configured, results
+	 * are stored in the connection-scoped {@link ResponseCache}, such that URI's 
+	 * shared between pages or queries are loaded only once within the configured
+	 * time-to-live. If a fallback loader is provided through {@link #asBatchLoader(Consumer)}
+	 * or {@link #addBulkData(JSONList, Consumer)}, entries for which the bulk request or the 
+	 * individual bulk sub-request failed are passed to the fallback loader.
 	 *  
 	 * @author Ruud Senden
 	 *
 	 */
-	@Setter @Accessors(fluent=true)
+	@CommonsLog
 	public static final class SSCBulkEmbedder {
-		private Map<String,JSONMap> uriToObjectMap = new HashMap<>();
 		private final SSCAuthenticatingRestConnection conn;
 		private final StandardEmbedDefinition embedDefinition;
+		private final int chunkSize;
+		private final int parallelism;
+		private final long cacheTimeToLiveMillis;
+		private final ResponseCache responseCache;
 		
 		/**
 		 * Create instance using the given {@link SSCAuthenticatingRestConnection}
@@ -156,6 +209,10 @@ public class SSCBulkAPI extends AbstractSSCAPI {
 		public SSCBulkEmbedder(SSCAuthenticatingRestConnection conn, SSCEmbedConfig embedConfig) {
 			this.conn = conn;
 			this.embedDefinition = new StandardEmbedDefinition(embedConfig);
+			this.chunkSize = embedConfig.getBulkChunkSize();
+			this.parallelism = conn.isMultiThreaded() ? embedConfig.getBulkParallelism() : 1;
+			this.cacheTimeToLiveMillis = embedConfig.getCacheTimeToLiveMillis();
+			this.responseCache = cacheTimeToLiveMillis > 0 ? conn.getResponseCache() : null;
 		}
 		
 		/**
@@ -169,37 +226,210 @@ public class SSCBulkAPI extends AbstractSSCAPI {
 		}
 		
 		/**
-		 * For each entry in the given {@link JSONList}, this method will build and execute an SSC bulk request 
+		 * Return the current (configured) instance as a batch loader, for example to be returned by
+		 * {@link AbstractRestConnectionQueryBuilder#embedOnDemandBatchLoader(com.fortify.util.rest.json.embed.StandardEmbedConfig, com.fortify.util.rest.json.preprocessor.enrich.JSONMapEnrichWithOnDemandRestData)}.
+		 * Entries for which the bulk data could not be loaded are passed to the given fallback loader,
+		 * as described in {@link #addBulkData(JSONList, Consumer)}.
+		 * @param fallbackLoader {@link Consumer} for loading the data for entries for which bulk loading failed
+		 * @return Current instance as a {@link JSONList} {@link Consumer}
+		 */
+		public Consumer<JSONList> asBatchLoader(Consumer<JSONList> fallbackLoader) {
+			return jsonList->addBulkData(jsonList, fallbackLoader);
+		}
+		
+		/**
+		 * For each entry in the given {@link JSONList}, this method will build and execute SSC bulk requests 
 		 * for retrieving embedded data according to the configured {@link SSCEmbedConfig} instance. The retrieved
 		 * data is then added to each of the entries in the given {@link JSONList}, using the property name provided
-		 * in the configured {@link SSCEmbedConfig} instance.
+		 * in the configured {@link SSCEmbedConfig} instance. Errors are handled for each individual bulk request
+		 * chunk, so a failing chunk only affects the entries contained in that chunk.
 		 * @param jsonList {@link JSONList} containing the entities for extra data is to be embedded
 		 */
 		@SSCCopyToConstructors
 		public void addBulkData(JSONList jsonList) {
-			SSCBulkRequestBuilder builder = conn.api(SSCBulkAPI.class).bulkRequestBuilder();
-			addBulkRequests(builder, jsonList);
+			addBulkData(jsonList, null);
+		}
+		
+		/**
+		 * Similar to {@link #addBulkData(JSONList)}, but if the given fallback loader is not null, errors 
+		 * are not handled according to the configured {@link SSCEmbedConfig}. Instead, all entries for which 
+		 * the bulk request chunk failed, or for which the bulk sub-request returned an unsuccessful response 
+		 * code, are passed to the given fallback loader after all bulk requests have been processed. This 
+		 * allows for loading the data using individual requests if for example the current user is not 
+		 * permitted to invoke the bulk API. 
+		 * @param jsonList {@link JSONList} containing the entities for extra data is to be embedded
+		 * @param fallbackLoader {@link Consumer} for loading the data for entries for which bulk loading failed, or null
+		 */
+		@SSCCopyToConstructors
+		public void addBulkData(JSONList jsonList, Consumer<JSONList> fallbackLoader) {
+			boolean fallback = fallbackLoader!=null;
+			Map<String, BulkEmbedRequest> uriToRequestMap = getUriToRequestMap(jsonList);
+			List<SSCBulkRequestBuilder> chunks = addBulkRequests(uriToRequestMap);
+			if ( parallelism <= 1 || chunks.size() <= 1 ) {
+				for ( SSCBulkRequestBuilder chunk : chunks ) {
+					try {
+						addResultsToInputList(uriToRequestMap, chunk.execute(), fallback);
+					} catch (RuntimeException e) {
+						handleError(e, fallback);
+					}
+				}
+			} else {
+				Deque<CompletableFuture<JSONList>> inProgress = new ArrayDeque<>(parallelism);
+				try {
+					for ( SSCBulkRequestBuilder chunk : chunks ) {
+						if ( inProgress.size() >= parallelism ) {
+							addResultsToInputList(uriToRequestMap, inProgress.removeFirst(), fallback);
+						}
+						inProgress.addLast(chunk.executeAsync());
+					}
+					while ( !inProgress.isEmpty() ) {
+						addResultsToInputList(uriToRequestMap, inProgress.removeFirst(), fallback);
+					}
+				} finally {
+					// Only non-empty if a chunk failed; don't leave any bulk requests running
+					awaitQuietly(inProgress);
+				}
+			}
+			if ( fallback ) {
+				JSONList failedInputs = getFailedInputs(uriToRequestMap);
+				if ( !failedInputs.isEmpty() ) {
+					fallbackLoader.accept(failedInputs);
+				}
+			}
+		}
+		
+		/**
+		 * This method performs the following for each entry in the given {@link JSONList}:
+		 * <ul>
+		 *  <li>Evaluate the configured URI {@link Expression} using the entry as input</li>
+		 *  <li>Add the entry to the {@link BulkEmbedRequest} for the evaluated URI</li>
+		 * </ul>
+		 * The returned map is local to a single {@link #addBulkData(JSONList)} invocation,
+		 * allowing this {@link SSCBulkEmbedder} instance to be used concurrently.
+		 * 
+		 * @param jsonList {@link JSONList} containing the entities for which extra data is to be embedded
+		 * @return {@link Map} from fully resolved URI to the corresponding {@link BulkEmbedRequest}
+		 */
+		private Map<String, BulkEmbedRequest> getUriToRequestMap(JSONList jsonList) {
+			Map<String, BulkEmbedRequest> result = new LinkedHashMap<>();
+			for ( JSONMap input : jsonList.asValueType(JSONMap.class) ) {
+				if ( embedDefinition.isEnabled(input) ) {
+					String uri = embedDefinition.buildUri(input);
+					if ( StringUtils.isNotBlank(uri) ) {
+						WebTarget target = conn.getResource(uri);
+						result.computeIfAbsent(target.getUri().toString(), k->new BulkEmbedRequest(target)).addInput(input);
+					}
+				}
+			}
+			return result;
+		}
+		
+		/**
+		 * For each entry in the given {@link Map}, this method adds the cached result to the
+		 * original input objects if available, or otherwise adds a corresponding request to 
+		 * an {@link SSCBulkRequestBuilder}, starting a new {@link SSCBulkRequestBuilder} 
+		 * whenever the configured chunk size has been reached.
+		 * 
+		 * @param uriToRequestMap {@link Map} as returned by {@link #getUriToRequestMap(JSONList)}
+		 * @return {@link SSCBulkRequestBuilder} instances, each containing at least one request
+		 */
+		private List<SSCBulkRequestBuilder> addBulkRequests(Map<String, BulkEmbedRequest> uriToRequestMap) {
+			SSCBulkAPI bulkAPI = conn.api(SSCBulkAPI.class);
+			List<SSCBulkRequestBuilder> result = new ArrayList<>();
+			SSCBulkRequestBuilder builder = null;
+			for ( BulkEmbedRequest request : uriToRequestMap.values() ) {
+				if ( !addCachedResultToInputList(request) ) {
+					if ( builder == null || builder.getRequestCount() >= chunkSize ) {
+						builder = bulkAPI.bulkRequestBuilder();
+						result.add(builder);
+					}
+					builder.addBulkRequest(HttpMethod.GET, request.getTarget());
+				}
+			}
+			return result;
+		}
+		
+		/**
+		 * Wait for the given asynchronous bulk request to complete, and add the 
+		 * results to the original input objects. Results are always processed on 
+		 * the calling thread, so the original input objects are never modified
+		 * concurrently.
+		 */
+		private void addResultsToInputList(Map<String, BulkEmbedRequest> uriToRequestMap, CompletableFuture<JSONList> bulkResults, boolean fallback) {
 			try {
-				JSONList bulkResults = builder.execute();
-				bulkResults.asValueType(JSONMap.class).forEach(this::addResultToInputList);
+				addResultsToInputList(uriToRequestMap, bulkResults.join(), fallback);
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause();
+				handleError(cause instanceof RuntimeException ? (RuntimeException)cause : e, fallback);
 			} catch (RuntimeException e) {
+				handleError(e, fallback);
+			}
+		}
+		
+		/**
+		 * Wait for the given asynchronous bulk requests to complete, ignoring
+		 * any results or errors. This is used to make sure that no bulk requests
+		 * are still running once an error has been propagated to the caller.
+		 */
+		private void awaitQuietly(Deque<CompletableFuture<JSONList>> bulkResults) {
+			while ( !bulkResults.isEmpty() ) {
+				try {
+					bulkResults.removeFirst().join();
+				} catch (RuntimeException e) {
+					log.debug("[SSC] Ignoring error from remaining bulk request", e);
+				}
+			}
+		}
+		
+		private void addResultsToInputList(Map<String, BulkEmbedRequest> uriToRequestMap, JSONList bulkResults, boolean fallback) {
+			bulkResults.asValueType(JSONMap.class).forEach(singleBulkResult->addResultToInputList(uriToRequestMap, singleBulkResult, fallback));
+		}
+		
+		/**
+		 * Handle the given bulk request error. If a fallback loader is available, the error is only
+		 * logged at debug level, as the affected entries will be loaded by the fallback loader. 
+		 * Otherwise, the error is handled according to the configured {@link SSCEmbedConfig}.
+		 */
+		private void handleError(RuntimeException e, boolean fallback) {
+			if ( fallback ) {
+				log.debug("[SSC] Error executing bulk request, falling back to individual requests", e);
+			} else {
 				embedDefinition.handleError(e);
 			}
 		}
 		
+		/**
+		 * Get all input objects for which no result has been added, to be passed to the fallback loader.
+		 */
+		private JSONList getFailedInputs(Map<String, BulkEmbedRequest> uriToRequestMap) {
+			JSONList result = new JSONList();
+			for ( BulkEmbedRequest request : uriToRequestMap.values() ) {
+				if ( !request.isLoaded() ) {
+					result.addAll(request.getInputs());
+				}
+			}
+			return result;
+		}
+		
 		/**
 		 * Given the request URI for the single bulk result that we are currently processing,
-		 * this method looks up the corresponding {@link JSONMap} from {@link #uriToObjectMap}
-		 * (which is the {@link JSONMap} entry that was used to generate the bulk request).
-		 * The bulk result contents are then added to this {@link JSONMap} under the property
-		 * name configured in the {@link #embedDefinition}.
+		 * this method looks up the corresponding {@link BulkEmbedRequest} from the given
+		 * {@link Map}. The bulk result contents are then added to each of the {@link JSONMap}
+		 * entries that were used to generate the bulk request, under the property name 
+		 * configured in the {@link #embedDefinition}, and stored in the {@link ResponseCache}
+		 * if enabled.
+		 *   
+		 * If a fallback loader is available, unsuccessful responses are not added to the input
+		 * objects, such that these input objects will be passed to the fallback loader.
 		 *   
+		 * @param uriToRequestMap {@link Map} as returned by {@link #getUriToRequestMap(JSONList)}
 		 * @param singleBulkResult The bulk result currently being processed
+		 * @param fallback indicates whether a fallback loader is available
 		 */
-		private void addResultToInputList(JSONMap singleBulkResult) {
+		private void addResultToInputList(Map<String, BulkEmbedRequest> uriToRequestMap, JSONMap singleBulkResult, boolean fallback) {
 			String uri = singleBulkResult.getPath("request.uri", String.class);
-			JSONMap orgInput = uriToObjectMap.get(uri);
-			if ( orgInput==null ) {
+			BulkEmbedRequest request = uriToRequestMap.get(uri);
+			if ( request==null ) {
 				throw new RuntimeException("Unable to find original input object for bulk URI "+uri);
 			}
 			JSONList responses = singleBulkResult.getPath("responses", JSONList.class);
@@ -207,41 +437,87 @@ public class SSCBulkAPI extends AbstractSSCAPI {
 				throw new RuntimeException("Looping not supported");
 			}
 			if ( responses.size()>0 ) {
-				orgInput.put(embedDefinition.getPropertyName(), embedDefinition.getResult(responses.get(0, JSONMap.class).getPath("body", JSONMap.class)));
+				JSONMap response = responses.get(0, JSONMap.class);
+				if ( fallback && !isSuccess(response) ) {
+					log.debug("[SSC] Bulk request for "+uri+" returned response code "+response.get("responseCode")+", falling back to individual request");
+					return;
+				}
+				JSONMap body = response.getPath("body", JSONMap.class);
+				byte[] bodyBytes = responseCache==null && request.getInputs().size()==1 ? null : serialize(body);
+				if ( responseCache!=null && body!=null && isSuccess(response) ) {
+					responseCache.put(HttpMethod.GET, request.getTarget().getUri(), bodyBytes);
+				}
+				addResultToInputList(request, body, bodyBytes);
 			}
 		}
 		
 		/**
-		 * For each entry in the given {@link JSONList}, this method calls 
-		 * {@link #addBulkRequest(SSCBulkRequestBuilder, JSONMap)} to add 
-		 * a corresponding request to the given {@link SSCBulkRequestBuilder}.
-		 * 
-		 * @param builder {@link SSCBulkRequestBuilder} used to configure the bulk request
-		 * @param jsonList {@link JSONList} containing the entities for which extra data is to be embedded
+		 * Add the result for the given {@link BulkEmbedRequest} from the {@link ResponseCache}
+		 * to the original input objects, if caching is enabled and the cache contains a result
+		 * that is not older than the configured time-to-live.
+		 * @return true if a cached result was added, false otherwise
 		 */
-		private void addBulkRequests(SSCBulkRequestBuilder builder, JSONList jsonList) {
-			jsonList.asValueType(JSONMap.class).forEach(json->addBulkRequest(builder, json));
+		private boolean addCachedResultToInputList(BulkEmbedRequest request) {
+			byte[] bodyBytes = responseCache==null ? null : responseCache.getIfFresh(HttpMethod.GET, request.getTarget().getUri(), cacheTimeToLiveMillis);
+			if ( bodyBytes==null ) { return false; }
+			addResultToInputList(request, null, bodyBytes);
+			return true;
 		}
 		
 		/**
-		 * This method performs the following:
-		 * <ul>
-		 *  <li>Evaluate the configured URI {@link Expression} using the given {@link JSONMap} as input</li>
-		 *  <li>Add a request for the evaluated URI to the given {@link SSCBulkRequestBuilder}</li>
-		 *  <li>Store a mapping from the evaluated URI to the corresponding {@link JSONMap} in {@link #uriToObjectMap}</li>
-		 * </ul>
-		 * @param builder {@link SSCBulkRequestBuilder} used to configure the bulk request
-		 * @param input {@link JSONMap} entity for which to add a bulk request entry
-		 */
-		private void addBulkRequest(SSCBulkRequestBuilder builder, JSONMap input) {
-			if ( embedDefinition.isEnabled(input) ) {
-				String uri = embedDefinition.buildUri(input);
-				if ( StringUtils.isNotBlank(uri) ) {
-					final WebTarget target = conn.getResource(uri);
-					builder.addBulkRequest(HttpMethod.GET, target);
-					uriToObjectMap.put(target.getUri().toString(), input);
-				}
+		 * Add the given result to each of the original input objects for the given 
+		 * {@link BulkEmbedRequest}. The first input object receives the given body 
+		 * (if not null); all other input objects receive their own copy deserialized 
+		 * from the given body bytes, so that input objects can be modified independently.
+		 */
+		private void addResultToInputList(BulkEmbedRequest request, JSONMap body, byte[] bodyBytes) {
+			request.setLoaded(true);
+			for ( JSONMap input : request.getInputs() ) {
+				JSONMap inputBody = body!=null ? body : deserialize(bodyBytes);
+				body = null;
+				input.put(embedDefinition.getPropertyName(), embedDefinition.getResult(inputBody));
+			}
+		}
+		
+		private boolean isSuccess(JSONMap response) {
+			Integer responseCode = response.get("responseCode", Integer.class);
+			return responseCode==null || (responseCode>=200 && responseCode<300);
+		}
+		
+		private byte[] serialize(JSONMap body) {
+			try {
+				return JSONObjectMapperSupplier.getObjectWriter().writeValueAsBytes(body);
+			} catch (JsonProcessingException e) {
+				throw new RuntimeException("Error serializing bulk response body", e);
 			}
 		}
+		
+		private JSONMap deserialize(byte[] bodyBytes) {
+			try {
+				return JSONObjectMapperSupplier.getObjectMapper().readValue(bodyBytes, JSONMap.class);
+			} catch (IOException e) {
+				throw new RuntimeException("Error deserializing bulk response body", e);
+			}
+		}
+	}
+	
+	/**
+	 * Holds the {@link WebTarget} for a single embed URI, together with
+	 * all input objects that resolved to this URI, and whether a result
+	 * has been added to these input objects.
+	 */
+	@Getter
+	private static final class BulkEmbedRequest {
+		private final WebTarget target;
+		private final List<JSONMap> inputs = new ArrayList<>(1);
+		@Setter private boolean loaded = false;
+		
+		private BulkEmbedRequest(WebTarget target) {
+			this.target = target;
+		}
+		
+		private void addInput(JSONMap input) {
+			inputs.add(input);
+		}
 	}
 }
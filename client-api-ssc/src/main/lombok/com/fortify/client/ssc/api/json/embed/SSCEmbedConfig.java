@@ -38,6 +38,10 @@ import lombok.experimental.SuperBuilder;
 public class SSCEmbedConfig extends StandardEmbedConfig {
 	private static final long serialVersionUID = 1L;
 	private EmbedType embedType;
+	/** Maximum number of requests per SSC bulk request for {@link EmbedType#PRELOAD}, default 100 */
+	private Integer bulkChunkSize;
+	/** Maximum number of concurrent SSC bulk requests for {@link EmbedType#PRELOAD} on multi-threaded connections, default 4 */
+	private Integer bulkParallelism;
 	
 	public SSCEmbedConfig() {}
 	
@@ -51,6 +55,14 @@ public class SSCEmbedConfig extends StandardEmbedConfig {
 		return embedType!=null ? embedType : EmbedType.PRELOAD;
 	}
 	
+	public int getBulkChunkSize() {
+		return bulkChunkSize!=null && bulkChunkSize>0 ? bulkChunkSize : 100;
+	}
+	
+	public int getBulkParallelism() {
+		return bulkParallelism!=null && bulkParallelism>0 ? bulkParallelism : 4;
+	}
+	
 	public static enum EmbedType {
 		ONDEMAND, PRELOAD
 	}
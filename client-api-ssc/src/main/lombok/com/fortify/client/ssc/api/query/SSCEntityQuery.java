@@ -68,6 +68,11 @@ public class SSCEntityQuery extends AbstractRestConnectionQuery<JSONMap> {
 		return (data instanceof JSONList) ? (JSONList)data : new JSONList(Arrays.asList(data));
 	}
 	
+	@Override
+	protected String getResultsPropertyName() {
+		return "data";
+	}
+	
 	@Override
 	protected Class<JSONMap> getResponseTypeClass() {
 		return JSONMap.class;
@@ -24,11 +24,19 @@
  ******************************************************************************/
 package com.fortify.client.ssc.api.query.builder;
 
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.time.DateUtils;
+import org.apache.commons.lang.time.FastDateFormat;
 
 import com.fortify.client.ssc.api.SSCBulkAPI;
 import com.fortify.client.ssc.api.json.embed.SSCEmbedConfig;
@@ -38,7 +46,10 @@ import com.fortify.client.ssc.api.query.SSCEntityQuery;
 import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
 import com.fortify.util.applier.ifblank.IfBlank;
 import com.fortify.util.applier.ifblank.IfBlankAction;
+import com.fortify.util.rest.json.JSONList;
 import com.fortify.util.rest.json.embed.StandardEmbedConfig;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate.DateComparisonOperator;
+import com.fortify.util.rest.json.preprocessor.enrich.JSONMapEnrichWithOnDemandRestData;
 import com.fortify.util.rest.query.AbstractRestConnectionQueryBuilder;
 import com.fortify.util.rest.query.IRestConnectionQuery;
 import com.fortify.util.rest.webtarget.IWebTargetUpdater;
@@ -62,7 +73,13 @@ import com.fortify.util.rest.webtarget.WebTargetQueryParamUpdater;
  * @param <T> Concrete builder type
  */
 public abstract class AbstractSSCEntityQueryBuilder<T extends AbstractSSCEntityQueryBuilder<T>> extends AbstractRestConnectionQueryBuilder<SSCAuthenticatingRestConnection, T> {
+	private static final Pattern PARAM_Q_UNQUOTED_VALUE_PATTERN = Pattern.compile("[A-Za-z0-9_.\\-]+");
+	private static final FastDateFormat PARAM_Q_DATE_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", TimeZone.getTimeZone("UTC"));
+	private static final Date PARAM_Q_MIN_DATE = new Date(0L);
+	private static final Date PARAM_Q_MAX_DATE = new Date(253402300799999L); // 9999-12-31T23:59:59.999Z
 	private SSCParamQ paramQ = add(new SSCParamQ());
+	/** Date ranges pushed down to the 'q' parameter, allowing for combining multiple date filters on the same field */
+	private final Map<String, Date[]> paramQDateRanges = new HashMap<>();
 	
 	/**
 	 * Create new instance for given {@link SSCAuthenticatingRestConnection} and indicator whether paging is supported.
@@ -214,6 +231,109 @@ public abstract class AbstractSSCEntityQueryBuilder<T extends AbstractSSCEntityQ
 	private boolean isBlankObject(Object value) {
 		return value==null || (value instanceof String && StringUtils.isBlank((String)value));
 	}
+	
+	/**
+	 * Subclasses can override this method to return the fields that can be used in the 'q' 
+	 * parameter of the target SSC endpoint. Client-side equality filters on these fields,
+	 * like {@link com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterRegEx} with
+	 * a literal value, will be pushed down to the 'q' parameter. By default, no fields are
+	 * returned.
+	 * @return Fields that can be used in the 'q' parameter
+	 */
+	protected Set<String> getParamQPushdownFields() {
+		return Collections.emptySet();
+	}
+	
+	/**
+	 * Subclasses can override this method to return the date fields that can be used in the
+	 * 'q' parameter of the target SSC endpoint. Client-side date comparison filters on these 
+	 * fields, like {@link com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate},
+	 * will be pushed down to a date range in the 'q' parameter. By default, no fields are
+	 * returned.
+	 * @return Date fields that can be used in the 'q' parameter
+	 */
+	protected Set<String> getParamQPushdownDateFields() {
+		return Collections.emptySet();
+	}
+	
+	/**
+	 * Push down equality filters on any of the fields returned by {@link #getParamQPushdownFields()}
+	 * to the 'q' parameter, unless a literal 'q' parameter or a 'q' value for the same field has 
+	 * already been configured.
+	 */
+	@Override
+	protected String pushDownEquals(String fieldPath, String value) {
+		if ( getParamQPushdownFields().contains(fieldPath) && !value.contains("\"") && isParamQPushdownAllowed(fieldPath) ) {
+			paramQ.paramQAnd(fieldPath, value);
+			return "q="+fieldPath+":\""+value+"\"";
+		}
+		return null;
+	}
+	
+	/**
+	 * Push down prefix filters on any of the fields returned by {@link #getParamQPushdownFields()}
+	 * to a 'field:prefix*' wildcard expression in the 'q' parameter; see {@link #pushDownEquals(String, String)}
+	 * for details. SSC only supports wildcards on unquoted values, so prefixes containing any 
+	 * characters other than letters, digits, '_', '.' and '-' are not pushed down.
+	 */
+	@Override
+	protected String pushDownPrefix(String fieldPath, String prefix) {
+		if ( getParamQPushdownFields().contains(fieldPath) && PARAM_Q_UNQUOTED_VALUE_PATTERN.matcher(prefix).matches()
+				&& isParamQPushdownAllowed(fieldPath) ) {
+			paramQ.paramQAndUnquoted(fieldPath, prefix+"*");
+			return "q="+fieldPath+":"+prefix+"*";
+		}
+		return null;
+	}
+	
+	/**
+	 * Push down date comparisons on any of the fields returned by {@link #getParamQPushdownDateFields()}
+	 * to a 'field:[from,to]' date range in the 'q' parameter, unless a literal 'q' parameter or a 
+	 * 'q' value for the same field has already been configured. Multiple date comparisons on the 
+	 * same field are combined into a single date range. Dates are formatted in UTC; as SSC may 
+	 * interpret range bounds in the server time zone, both bounds are widened by one day. The 
+	 * original filter is still evaluated client-side to apply exact date comparisons.
+	 */
+	@Override
+	protected String pushDownDateComparison(String fieldPath, DateComparisonOperator operator, Date date) {
+		if ( !getParamQPushdownDateFields().contains(fieldPath) ) { return null; }
+		Date[] range = paramQDateRanges.get(fieldPath);
+		if ( range == null ) {
+			if ( !isParamQPushdownAllowed(fieldPath) ) { return null; }
+			range = new Date[] {PARAM_Q_MIN_DATE, PARAM_Q_MAX_DATE};
+		}
+		switch (operator) {
+		case gt: case ge: 
+			range[0] = max(range[0], DateUtils.addDays(date, -1)); break;
+		case lt: case le: 
+			range[1] = min(range[1], DateUtils.addDays(date, 1)); break;
+		case eq:
+			range[0] = max(range[0], DateUtils.addDays(date, -1));
+			range[1] = min(range[1], DateUtils.addDays(date, 1)); break;
+		default: return null;
+		}
+		paramQDateRanges.put(fieldPath, range);
+		String value = "["+PARAM_Q_DATE_FORMAT.format(range[0])+","+PARAM_Q_DATE_FORMAT.format(range[1])+"]";
+		paramQ.paramQAndUnquoted(fieldPath, value);
+		return "q="+fieldPath+":"+value;
+	}
+	
+	private static final Date min(Date date1, Date date2) {
+		return date1.before(date2) ? date1 : date2;
+	}
+	
+	private static final Date max(Date date1, Date date2) {
+		return date1.after(date2) ? date1 : date2;
+	}
+	
+	/**
+	 * @return true if filters on the given field may be pushed down to the 'q' parameter, 
+	 *         false if a literal 'q' parameter or a 'q' value for the given field has 
+	 *         already been configured
+	 */
+	private boolean isParamQPushdownAllowed(String fieldPath) {
+		return !paramQ.hasParamQAnd(fieldPath) && !getWebTargetQueryParamUpdaterBuilder().hasQueryParam("q");
+	}
 
 	/**
 	 * This interface is to be implemented by all {@link AbstractSSCEntityQueryBuilder}
@@ -230,7 +350,8 @@ public abstract class AbstractSSCEntityQueryBuilder<T extends AbstractSSCEntityQ
 	/**
 	 * Allows for embedding additional SSC entities into the resulting JSON objects. 
 	 * Depending on the embedType in given {@link SSCEmbedConfig}, the additional 
-	 * entities are either loaded on demand whenever they are accessed, or pre-loaded 
+	 * entities are either loaded on demand whenever they are first accessed within a
+	 * page (using a single SSC bulk request for all entities in that page), or pre-loaded 
 	 * using SSC bulk requests.
 	 * 
 	 * @param embedConfig describes the entity to be embedded in the results
@@ -268,6 +389,19 @@ public abstract class AbstractSSCEntityQueryBuilder<T extends AbstractSSCEntityQ
 		return pagePreProcessor(getConn().api(SSCBulkAPI.class).bulkEmbedder(embedConfig).asPagePreProcessor());
 	}
 	
+	/**
+	 * Load on-demand data for all accepted results in a page using SSC bulk requests, falling back
+	 * to individual requests for any results for which the bulk request failed, for example
+	 * because the current user is not permitted to invoke the bulk API
+	 */
+	@Override
+	protected Consumer<JSONList> embedOnDemandBatchLoader(StandardEmbedConfig embedConfig, JSONMapEnrichWithOnDemandRestData enrich) {
+		Consumer<JSONList> fallbackLoader = super.embedOnDemandBatchLoader(embedConfig, enrich);
+		return embedConfig instanceof SSCEmbedConfig 
+				? getConn().api(SSCBulkAPI.class).bulkEmbedder((SSCEmbedConfig)embedConfig).asBatchLoader(fallbackLoader)
+				: fallbackLoader;
+	}
+	
 	/**
 	 * {@link IWebTargetUpdaterBuilder} implementation for adding the
 	 * SSC 'q' request parameter.
@@ -276,30 +410,26 @@ public abstract class AbstractSSCEntityQueryBuilder<T extends AbstractSSCEntityQ
 	 *
 	 */
 	private static class SSCParamQ implements IWebTargetUpdaterBuilder {
-		private final Map<String, Object> paramQAnds = new HashMap<>();
+		private final Map<String, String> paramQAnds = new HashMap<>();
 		
 		public final SSCParamQ paramQAnd(String field, Object value) {
-			paramQAnds.put(field, value);
+			return paramQAndUnquoted(field, value instanceof String ? "\""+value+"\"" : String.valueOf(value));
+		}
+		
+		public final SSCParamQ paramQAndUnquoted(String field, String value) {
+			paramQAnds.put(field, field+":"+value);
 			return this;
 		}
+		
+		public final boolean hasParamQAnd(String field) {
+			return paramQAnds.containsKey(field);
+		}
 
 		@Override
 		public IWebTargetUpdater build() {
 			String q = null;
 			if ( MapUtils.isNotEmpty(paramQAnds) ) {
-				StringBuffer sb = new StringBuffer();
-				for ( Map.Entry<String, Object> entry : paramQAnds.entrySet() ) {
-					Object value = entry.getValue();
-					String qAppend = value instanceof String 
-							? entry.getKey()+":\""+entry.getValue()+"\""
-							: entry.getKey()+":"+entry.getValue();
-					if ( sb.length() == 0 ) {
-						sb.append(qAppend);
-					} else {
-						sb.append("+and+"+qAppend);
-					}
-				}
-				q = sb.toString();
+				q = String.join("+and+", paramQAnds.values());
 			}
 			return new WebTargetQueryParamUpdater("q", q);
 		}
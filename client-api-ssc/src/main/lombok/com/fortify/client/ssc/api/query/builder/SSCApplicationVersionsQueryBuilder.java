@@ -24,6 +24,11 @@
  ******************************************************************************/
 package com.fortify.client.ssc.api.query.builder;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.apache.commons.lang.StringUtils;
 
 import com.fortify.client.ssc.annotation.SSCRequiredActionsPermitted;
@@ -50,6 +55,8 @@ public final class SSCApplicationVersionsQueryBuilder
 			ISSCEntityQueryBuilderParamQ<SSCApplicationVersionsQueryBuilder>
 {
 	private static final String[] DEEPLINK_FIELDS = {"id"};
+	private static final Set<String> PARAM_Q_PUSHDOWN_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"id", "project.id", "project.name", "name")));
 	@SSCRequiredActionsPermitted({"GET=/api/v\\d+/projectVersions"})
 	public SSCApplicationVersionsQueryBuilder(SSCAuthenticatingRestConnection conn) {
 		super(conn);
@@ -89,6 +96,11 @@ public final class SSCApplicationVersionsQueryBuilder
 		return super.paramQAnd(ifBlankAction, "name", versionName);
 	}
 	
+	@Override
+	protected Set<String> getParamQPushdownFields() {
+		return PARAM_Q_PUSHDOWN_FIELDS;
+	}
+	
 	
 	public SSCApplicationVersionsQueryBuilder applicationAndOrVersionName(IfBlankAction ifBlankAction, String applicationAndOrVersionName) {
 		return applicationAndOrVersionName(ifBlankAction, applicationAndOrVersionName, ":");
@@ -24,6 +24,11 @@
  ******************************************************************************/
 package com.fortify.client.ssc.api.query.builder;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import com.fortify.client.ssc.annotation.SSCRequiredActionsPermitted;
 import com.fortify.client.ssc.api.query.SSCEntityQuery;
 import com.fortify.client.ssc.api.query.builder.AbstractSSCEntityQueryBuilder.ISSCEntityQueryBuilderParamFields;
@@ -44,6 +49,11 @@ public final class SSCJobsQueryBuilder extends AbstractSSCEntityQueryBuilder<SSC
 		ISSCEntityQueryBuilderParamOrderBy<SSCJobsQueryBuilder>,
 		ISSCEntityQueryBuilderParamQ<SSCJobsQueryBuilder>
 {
+	private static final Set<String> PARAM_Q_PUSHDOWN_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"id", "jobClassName", "priority", "state", "projectVersionId")));
+	private static final Set<String> PARAM_Q_PUSHDOWN_DATE_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"startTime", "finishTime")));
+	
 	@SSCRequiredActionsPermitted({"GET=/api/v\\d+/jobs"})
 	public SSCJobsQueryBuilder(SSCAuthenticatingRestConnection conn) {
 		super(conn, true);
@@ -81,4 +91,14 @@ public final class SSCJobsQueryBuilder extends AbstractSSCEntityQueryBuilder<SSC
 	public final SSCJobsQueryBuilder state(IfBlankAction ifBlankAction, String state) {
 		return super.paramQAnd(ifBlankAction, "state", state);
 	}
+	
+	@Override
+	protected Set<String> getParamQPushdownFields() {
+		return PARAM_Q_PUSHDOWN_FIELDS;
+	}
+	
+	@Override
+	protected Set<String> getParamQPushdownDateFields() {
+		return PARAM_Q_PUSHDOWN_DATE_FIELDS;
+	}
 }
\ No newline at end of file
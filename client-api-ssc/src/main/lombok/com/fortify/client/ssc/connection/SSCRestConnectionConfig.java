@@ -43,6 +43,8 @@ import lombok.ToString;
 public class SSCRestConnectionConfig<T extends SSCRestConnectionConfig<T>> extends AbstractRestConnectionWithUsernamePasswordConfig<T> {
 	private String authToken;
 	private String tokenDescription = "Token generated by fortify-client-api";
+	/** Number of seconds before token expiry at which to refresh user credentials-based tokens in the background; disabled if 0 */
+	private int tokenRefreshAheadSeconds = 0;
 	
 	@Override
 	protected void parseUriUserInfo(String userInfo) {
@@ -60,4 +62,8 @@ public class SSCRestConnectionConfig<T extends SSCRestConnectionConfig<T>> exten
 	public T tokenDescription(String tokenDescription) {
 		setTokenDescription(tokenDescription); return getThis();
 	}
+	
+	public T tokenRefreshAheadSeconds(int tokenRefreshAheadSeconds) {
+		setTokenRefreshAheadSeconds(tokenRefreshAheadSeconds); return getThis();
+	}
 }
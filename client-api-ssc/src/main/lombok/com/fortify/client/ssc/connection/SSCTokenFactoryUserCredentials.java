@@ -34,6 +34,7 @@ import org.apache.commons.codec.binary.Base64;
 
 import com.fortify.util.log4j.LogMaskingHelper;
 import com.fortify.util.rest.connection.AbstractRestConnectionConfig;
+import com.fortify.util.rest.connection.RefreshingTokenHolder;
 import com.fortify.util.rest.json.JSONMap;
 
 import lombok.Data;
@@ -44,7 +45,11 @@ import lombok.extern.apachecommons.CommonsLog;
  * SSC REST API. Given an {@link SSCBasicRestConnection} instance
  * and SSC userName and password, it will call the SSC /oauth/token
  * API to request a REST token. The token will be automatically
- * refreshed as required.
+ * refreshed as required, optionally in the background before the
+ * current token expires (see {@link RefreshingTokenHolder}). The
+ * current token is revoked when this token factory is closed. Tokens
+ * that are replaced by a background refresh are not revoked, as these
+ * may still be in use by in-flight requests; they simply expire.
  * 
  * @author Ruud Senden
  *
@@ -56,30 +61,58 @@ public final class SSCTokenFactoryUserCredentials implements ISSCTokenFactory {
 	private final String userName;
 	private final String password;
 	private final String tokenDescription;
-	private SSCTokenFactoryUserCredentials.TokenData tokenData = null;
+	private final RefreshingTokenHolder<SSCTokenFactoryUserCredentials.TokenData> tokenHolder;
+	
 	public SSCTokenFactoryUserCredentials(AbstractRestConnectionConfig<?> config, String userName, String password, String tokenDescription) {
+		this(config, userName, password, tokenDescription, 0);
+	}
+	
+	/**
+	 * Same as {@link #SSCTokenFactoryUserCredentials(AbstractRestConnectionConfig, String, String, String)},
+	 * but additionally refreshing the token in the background the given number of seconds
+	 * before the current token expires. Background refresh is disabled if 
+	 * tokenRefreshAheadSeconds is 0 or negative.
+	 * 
+	 * @param config used to configure the connection to the SSC token API
+	 * @param userName SSC user name
+	 * @param password SSC password
+	 * @param tokenDescription description for the generated tokens
+	 * @param tokenRefreshAheadSeconds number of seconds before token expiry at which to refresh the token
+	 */
+	public SSCTokenFactoryUserCredentials(AbstractRestConnectionConfig<?> config, String userName, String password, String tokenDescription, int tokenRefreshAheadSeconds) {
 		this.conn = new SSCBasicRestConnection(config);
 		this.userName = userName;
 		this.password = password;
 		this.tokenDescription = tokenDescription;
+		this.tokenHolder = new RefreshingTokenHolder<>(this::requestTokenData, tokenData -> tokenData.getTerminalDate().getTime())
+				.logPrefix("[SSC]").refreshAheadMillis(tokenRefreshAheadSeconds*1000L)
+				.unusedTokenHandler(this::revokeToken);
 	}
 	
+	/**
+	 * We don't need to make this method synchronized, as {@link #getToken()}
+	 * is thread-safe and only blocks if the current token has expired.
+	 */
 	@Override
-	public synchronized String getTokenSynchronized() {
+	public String getTokenSynchronized() {
 		return getToken();
 	}
 	
 	@Override
 	public void close() {
+		tokenHolder.close();
 		revokeToken();
 		this.conn.close();
 	}
 	
 	private void revokeToken() {
+		revokeToken(tokenHolder.clear());
+	}
+	
+	private void revokeToken(TokenData tokenData) {
 		if ( tokenData != null ) {
 			JSONMap postData = new JSONMap();
 			postData.putPath("tokens", new String[]{tokenData.getToken()});
-			tokenData = null;
 			try {
 				performTokenRequest("/api/v1/tokens/action/revoke", postData);
 				log.debug("[SSC] Revoked access token");
@@ -91,14 +124,16 @@ public final class SSCTokenFactoryUserCredentials implements ISSCTokenFactory {
 	}
 	
 	public String getToken() {
-		if ( tokenData == null || tokenData.isExpired() ) {
-			JSONMap postData = new JSONMap();
-			postData.putPath("type", "UnifiedLoginToken");
-			postData.putPath("description", tokenDescription);
-			tokenData = getTokenData(performTokenRequest("/api/v1/tokens", postData));
-			log.info("[SSC] Obtained access token, expiring at "+tokenData.getTerminalDate().toString());
-		}
-		return tokenData.getToken();
+		return tokenHolder.get().getToken();
+	}
+	
+	private TokenData requestTokenData() {
+		JSONMap postData = new JSONMap();
+		postData.putPath("type", "UnifiedLoginToken");
+		postData.putPath("description", tokenDescription);
+		TokenData tokenData = getTokenData(performTokenRequest("/api/v1/tokens", postData));
+		log.info("[SSC] Obtained access token, expiring at "+tokenData.getTerminalDate().toString());
+		return tokenData;
 	}
 	
 	private TokenData getTokenData(JSONMap json) {
@@ -118,9 +153,5 @@ public final class SSCTokenFactoryUserCredentials implements ISSCTokenFactory {
 	private static final class TokenData {
 		private final String token;
         private final Date terminalDate;
-        
-		public boolean isExpired() {
-			return new Date().getTime() > getTerminalDate().getTime();
-		}
 	}
 }
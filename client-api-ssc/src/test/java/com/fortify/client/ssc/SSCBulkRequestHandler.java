@@ -0,0 +1,184 @@
+package com.fortify.client.ssc;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.fortify.client.ssc.TestServer.Request;
+import com.fortify.client.ssc.TestServer.Response;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
+
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * {@link TestServer} handler that simulates the SSC /api/v1/bulk endpoint. The body
+ * for each bulk sub-request is generated by the configured body function, based on
+ * the path and query string of the sub-request URI. Bulk requests that contain any 
+ * of the configured failing paths are rejected as a whole, whereas sub-requests for
+ * any of the configured failing sub-request paths return a 403 response code. All 
+ * other requests are passed to the configured fallback handler.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Setter @Accessors(fluent=true)
+public final class SSCBulkRequestHandler implements Function<Request, Response> {
+	private final Function<String, JSONMap> bodyFunction;
+	private final List<List<String>> bulkRequests = Collections.synchronizedList(new ArrayList<>());
+	private final Set<String> failingPaths = ConcurrentHashMap.newKeySet();
+	private final Set<String> failingSubRequestPaths = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger completedBulkRequestCount = new AtomicInteger();
+	private Function<Request, Response> fallbackHandler = request -> new Response(404, "{}");
+	private long delayMillis = 0;
+	
+	public SSCBulkRequestHandler(Function<String, JSONMap> bodyFunction) {
+		this.bodyFunction = bodyFunction;
+	}
+	
+	/**
+	 * @param path for which bulk requests should fail
+	 * @return Self for chaining
+	 */
+	public SSCBulkRequestHandler failingPath(String path) {
+		failingPaths.add(path);
+		return this;
+	}
+	
+	/**
+	 * @param path for which bulk sub-requests should return a 403 response code
+	 * @return Self for chaining
+	 */
+	public SSCBulkRequestHandler failingSubRequestPath(String path) {
+		failingSubRequestPaths.add(path);
+		return this;
+	}
+	
+	/**
+	 * @return Path and query string of the sub-requests contained in each bulk request
+	 */
+	public List<List<String>> getBulkRequests() {
+		synchronized (bulkRequests) {
+			return new ArrayList<>(bulkRequests);
+		}
+	}
+	
+	/**
+	 * @return Number of sub-requests contained in each bulk request
+	 */
+	public List<Integer> getBulkRequestSizes() {
+		List<Integer> result = new ArrayList<>();
+		getBulkRequests().forEach(paths -> result.add(paths.size()));
+		return result;
+	}
+	
+	/**
+	 * @return Total number of bulk sub-requests
+	 */
+	public int getSubRequestCount() {
+		return getBulkRequestSizes().stream().mapToInt(Integer::intValue).sum();
+	}
+	
+	/**
+	 * @return Number of bulk requests for which a response has been generated
+	 */
+	public int getCompletedBulkRequestCount() {
+		return completedBulkRequestCount.get();
+	}
+	
+	@Override
+	public Response apply(Request request) {
+		if ( !("POST".equals(request.getMethod()) && "/api/v1/bulk".equals(request.getPath())) ) {
+			return fallbackHandler.apply(request);
+		}
+		JSONList subRequests = parse(request.getBody()).getOrCreateJSONList("requests");
+		List<String> paths = new ArrayList<>();
+		JSONList results = new JSONList();
+		for ( JSONMap subRequest : subRequests.asValueType(JSONMap.class) ) {
+			String uri = subRequest.get("uri", String.class);
+			String path = getPathAndQuery(uri);
+			paths.add(path);
+			JSONMap response = new JSONMap();
+			if ( failingSubRequestPaths.contains(path) ) {
+				JSONMap body = new JSONMap();
+				body.put("message", "Simulated sub-request failure");
+				response.put("body", body);
+				response.put("responseCode", 403);
+			} else {
+				response.put("body", bodyFunction.apply(path));
+				response.put("responseCode", 200);
+			}
+			JSONMap result = new JSONMap();
+			result.put("request", subRequest);
+			result.put("responses", new JSONList(Collections.singletonList(response)));
+			results.add(result);
+		}
+		bulkRequests.add(paths);
+		if ( paths.stream().anyMatch(failingPaths::contains) ) {
+			completedBulkRequestCount.incrementAndGet();
+			return new Response(500, "{\"message\":\"Simulated bulk request failure\"}");
+		}
+		sleep(delayMillis);
+		JSONMap json = new JSONMap();
+		json.put("data", results);
+		json.put("responseCode", 200);
+		completedBulkRequestCount.incrementAndGet();
+		return Response.ok(json);
+	}
+	
+	private static final String getPathAndQuery(String uri) {
+		URI parsed = URI.create(uri);
+		return parsed.getRawQuery()==null ? parsed.getRawPath() : parsed.getRawPath()+"?"+parsed.getRawQuery();
+	}
+	
+	private static final JSONMap parse(String body) {
+		try {
+			return JSONObjectMapperSupplier.getObjectMapper().readValue(body, JSONMap.class);
+		} catch (IOException e) {
+			throw new RuntimeException("Error parsing bulk request", e);
+		}
+	}
+	
+	private static final void sleep(long millis) {
+		if ( millis > 0 ) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
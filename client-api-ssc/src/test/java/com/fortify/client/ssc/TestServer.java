@@ -0,0 +1,218 @@
+package com.fortify.client.ssc;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Minimal HTTP server listening on the loopback interface, allowing SSC client functionality 
+ * to be tested against canned responses. All requests are recorded, and responses are generated 
+ * by the configured handler.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class TestServer implements Closeable {
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger activeRequests = new AtomicInteger();
+	private final AtomicInteger maxActiveRequests = new AtomicInteger();
+	private volatile Function<Request, Response> handler;
+	
+	public TestServer(Function<Request, Response> handler) {
+		this.handler = handler;
+		try {
+			this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		} catch ( IOException e ) {
+			throw new RuntimeException("Error creating test server", e);
+		}
+		this.server.createContext("/", this::handle);
+		this.server.setExecutor(executor);
+		this.server.start();
+	}
+	
+	public URI getBaseUri() {
+		return URI.create("http://"+server.getAddress().getHostString()+":"+server.getAddress().getPort()+"/");
+	}
+	
+	public void setHandler(Function<Request, Response> handler) {
+		this.handler = handler;
+	}
+	
+	public List<Request> getRequests() {
+		synchronized (requests) {
+			return new ArrayList<>(requests);
+		}
+	}
+	
+	public List<Request> getRequests(String method, String path) {
+		List<Request> result = new ArrayList<>();
+		for ( Request request : getRequests() ) {
+			if ( request.getMethod().equals(method) && request.getPath().equals(path) ) {
+				result.add(request);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @return Maximum number of requests that were being handled concurrently
+	 */
+	public int getMaxActiveRequests() {
+		return maxActiveRequests.get();
+	}
+	
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		Response response;
+		maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+		try {
+			Request request = new Request(exchange.getRequestMethod(), exchange.getRequestURI(), 
+					exchange.getRequestHeaders().getFirst("Authorization"), read(exchange.getRequestBody()));
+			requests.add(request);
+			response = handler.apply(request);
+		} catch ( RuntimeException e ) {
+			response = new Response(500, "{\"message\":\""+e+"\"}");
+		} finally {
+			activeRequests.decrementAndGet();
+		}
+		byte[] bytes = response.getBody().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(response.getStatus(), bytes.length);
+		try ( OutputStream out = exchange.getResponseBody() ) {
+			out.write(bytes);
+		}
+		exchange.close();
+	}
+	
+	private static final String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for ( int read = in.read(buffer) ; read >= 0 ; read = in.read(buffer) ) {
+			out.write(buffer, 0, read);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Recorded request
+	 */
+	@Getter
+	public static final class Request {
+		private final String method;
+		private final URI uri;
+		private final String authorization;
+		private final String body;
+		private final Map<String, String> queryParams = new LinkedHashMap<>();
+		
+		Request(String method, URI uri, String authorization, String body) {
+			this.method = method;
+			this.uri = uri;
+			this.authorization = authorization;
+			this.body = body;
+			if ( uri.getRawQuery() != null ) {
+				for ( String param : uri.getRawQuery().split("&") ) {
+					String[] nameAndValue = param.split("=", 2);
+					queryParams.put(decode(nameAndValue[0]), nameAndValue.length==1 ? "" : decode(nameAndValue[1]));
+				}
+			}
+		}
+		
+		public String getPath() {
+			return uri.getPath();
+		}
+		
+		public String getQueryParam(String name) {
+			return queryParams.get(name);
+		}
+		
+		public int getIntQueryParam(String name, int defaultValue) {
+			String value = getQueryParam(name);
+			return value==null ? defaultValue : Integer.parseInt(value);
+		}
+		
+		/**
+		 * Decode the given query string component; contrary to {@link URLDecoder}, 
+		 * '+' characters are not converted to spaces as Jersey doesn't encode them.
+		 */
+		private static final String decode(String value) {
+			try {
+				return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+			} catch (UnsupportedEncodingException e) {
+				throw new RuntimeException("Error decoding "+value, e);
+			}
+		}
+		
+		@Override
+		public String toString() {
+			return method+" "+uri;
+		}
+	}
+	
+	/**
+	 * Response to be returned by the test server
+	 */
+	@Getter @RequiredArgsConstructor
+	public static final class Response {
+		private final int status;
+		private final String body;
+		
+		public static final Response ok(Object body) {
+			return new Response(200, body.toString());
+		}
+	}
+}
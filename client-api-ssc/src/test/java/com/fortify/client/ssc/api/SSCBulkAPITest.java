@@ -0,0 +1,290 @@
+package com.fortify.client.ssc.api;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.client.ssc.SSCBulkRequestHandler;
+import com.fortify.client.ssc.TestServer;
+import com.fortify.client.ssc.TestServer.Request;
+import com.fortify.client.ssc.TestServer.Response;
+import com.fortify.client.ssc.api.json.embed.SSCEmbedConfig;
+import com.fortify.client.ssc.api.json.embed.SSCEmbedConfig.EmbedType;
+import com.fortify.client.ssc.api.query.builder.SSCApplicationVersionsQueryBuilder;
+import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.embed.StandardEmbedDefinition.OnErrorAction;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter.MatchMode;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterSpEL;
+
+public class SSCBulkAPITest {
+	private SSCBulkRequestHandler handler;
+	private TestServer server;
+	private SSCAuthenticatingRestConnection conn;
+	
+	@BeforeEach
+	public void setup() {
+		handler = new SSCBulkRequestHandler(path -> embedBody(path));
+		server = new TestServer(handler);
+	}
+	
+	@AfterEach
+	public void close() {
+		if ( conn != null ) { conn.close(); }
+		server.close();
+	}
+	
+	@Test public void testChunks() {
+		JSONList list = addBulkData(false, createList(10), embedConfig(3, 4, OnErrorAction.FAIL));
+		assertEquals(Arrays.asList(3, 3, 3, 1), handler.getBulkRequestSizes());
+		assertEmbedded(list, 0, 10);
+		assertEquals(1, server.getMaxActiveRequests());
+	}
+	
+	@Test public void testDefaultChunkSize() {
+		JSONList list = addBulkData(false, createList(250), embedConfig(null, null, OnErrorAction.FAIL));
+		assertEquals(Arrays.asList(100, 100, 50), handler.getBulkRequestSizes());
+		assertEmbedded(list, 0, 250);
+	}
+	
+	@Test public void testSingleChunk() {
+		JSONList list = addBulkData(true, createList(3), embedConfig(3, 4, OnErrorAction.FAIL));
+		assertEquals(Arrays.asList(3), handler.getBulkRequestSizes());
+		assertEmbedded(list, 0, 3);
+	}
+	
+	@Test public void testEmptyList() {
+		addBulkData(true, createList(0), embedConfig(3, 4, OnErrorAction.FAIL));
+		assertTrue(handler.getBulkRequests().isEmpty());
+	}
+	
+	@Test public void testParallelChunks() {
+		handler.delayMillis(100);
+		JSONList list = addBulkData(true, createList(16), embedConfig(2, 3, OnErrorAction.FAIL));
+		assertEquals(Collections.nCopies(8, 2), handler.getBulkRequestSizes());
+		assertEmbedded(list, 0, 16);
+		assertEquals(3, server.getMaxActiveRequests());
+	}
+	
+	@Test public void testNoParallelChunksOnSingleThreadedConnection() {
+		handler.delayMillis(20);
+		JSONList list = addBulkData(false, createList(8), embedConfig(2, 3, OnErrorAction.FAIL));
+		assertEquals(Collections.nCopies(4, 2), handler.getBulkRequestSizes());
+		assertEmbedded(list, 0, 8);
+		assertEquals(1, server.getMaxActiveRequests());
+	}
+	
+	@Test public void testFailingChunk() {
+		testFailingChunk(false);
+	}
+	
+	@Test public void testFailingParallelChunk() {
+		testFailingChunk(true);
+	}
+	
+	private void testFailingChunk(boolean multiThreaded) {
+		handler.failingPath("/api/v1/projectVersions/4/attributes");
+		JSONList list = addBulkData(multiThreaded, createList(10), embedConfig(3, 2, OnErrorAction.LOG_WARN));
+		assertEquals(Arrays.asList(1, 3, 3, 3), sorted(handler.getBulkRequestSizes()));
+		// Only entries in the failing chunk (entries 3-5) shouldn't have the embedded property
+		assertEmbedded(list, 0, 3);
+		for ( JSONMap json : list.asValueType(JSONMap.class).subList(3, 6) ) {
+			assertFalse(json.containsKey("attrs"));
+		}
+		assertEmbedded(list, 6, 10);
+	}
+	
+	@Test public void testFailingChunkWithOnErrorFail() {
+		handler.failingPath("/api/v1/projectVersions/4/attributes");
+		assertThrows(RuntimeException.class, () -> addBulkData(false, createList(10), embedConfig(3, 2, OnErrorAction.FAIL)));
+		assertThrows(RuntimeException.class, () -> addBulkData(true, createList(10), embedConfig(3, 2, OnErrorAction.FAIL)));
+	}
+	
+	@Test public void testFailingParallelChunkWithOnErrorFailAwaitsRemainingChunks() {
+		handler.failingPath("/api/v1/projectVersions/1/attributes").delayMillis(200);
+		assertThrows(RuntimeException.class, () -> addBulkData(true, createList(10), embedConfig(3, 3, OnErrorAction.FAIL)));
+		assertEquals(3, handler.getCompletedBulkRequestCount());
+		assertEquals(Collections.nCopies(3, 3), handler.getBulkRequestSizes());
+	}
+	
+	@Test public void testFallbackForFailingChunk() {
+		testFallbackForFailingChunk(false);
+	}
+	
+	@Test public void testFallbackForFailingParallelChunk() {
+		testFallbackForFailingChunk(true);
+	}
+	
+	private void testFallbackForFailingChunk(boolean multiThreaded) {
+		handler.failingPath("/api/v1/projectVersions/4/attributes");
+		JSONList fallbackInputs = new JSONList();
+		JSONList list = addBulkData(multiThreaded, createList(10), embedConfig(3, 2, OnErrorAction.FAIL), fallbackInputs::addAll);
+		assertEquals(Arrays.asList(4, 5, 6), ids(fallbackInputs));
+		assertEmbedded(list, 0, 3);
+		assertEmbedded(list, 6, 10);
+	}
+	
+	@Test public void testFallbackForFailingSubRequest() {
+		handler.failingSubRequestPath("/api/v1/projectVersions/2/attributes");
+		handler.failingSubRequestPath("/api/v1/projectVersions/7/attributes");
+		JSONList fallbackInputs = new JSONList();
+		JSONList list = addBulkData(false, createList(10), embedConfig(3, 2, OnErrorAction.FAIL), fallbackInputs::addAll);
+		assertEquals(Arrays.asList(2, 7), ids(fallbackInputs));
+		for ( JSONMap json : fallbackInputs.asValueType(JSONMap.class) ) {
+			assertFalse(json.containsKey("attrs"), "Error response should not be embedded");
+		}
+		assertEquals(8, list.asValueType(JSONMap.class).stream().filter(json -> json.containsKey("attrs")).count());
+	}
+	
+	@Test public void testNoFallbackIfSuccessful() {
+		JSONList fallbackInputs = new JSONList();
+		JSONList list = addBulkData(false, createList(10), embedConfig(3, 2, OnErrorAction.FAIL), fallbackInputs::addAll);
+		assertTrue(fallbackInputs.isEmpty());
+		assertEmbedded(list, 0, 10);
+	}
+	
+	@Test public void testOnDemandEmbedFallsBackToIndividualRequests() {
+		// Reject all bulk requests, for example because the user doesn't have bulk permissions
+		for ( int i = 1 ; i <= 10 ; i++ ) {
+			handler.failingPath("/api/v1/projectVersions/"+i+"/attributes");
+		}
+		testOnDemandEmbed(3);
+	}
+	
+	@Test public void testOnDemandEmbedFallsBackForFailingSubRequest() {
+		handler.failingSubRequestPath("/api/v1/projectVersions/4/attributes");
+		testOnDemandEmbed(1);
+	}
+	
+	private void testOnDemandEmbed(int expectedIndividualRequests) {
+		handler.fallbackHandler(request -> request.getPath().endsWith("/attributes")
+				? Response.ok(embedBody(request.getPath()))
+				: Response.ok(versions(request, 10)));
+		conn = SSCAuthenticatingRestConnection.builder().baseUrl(server.getBaseUri().toString()).authToken("test").build();
+		// Filter out odd versions, and limit to 3 results; embedded data should only be loaded for versions 2, 4 and 6
+		JSONList list = new SSCApplicationVersionsQueryBuilder(conn)
+				.embed(embedConfig(null, null, OnErrorAction.FAIL, EmbedType.ONDEMAND))
+				.preProcessor(new JSONMapFilterSpEL(MatchMode.INCLUDE, "id % 2 == 0"))
+				.maxResults(3).build().getAll();
+		assertEquals(Arrays.asList(2, 4, 6), ids(list));
+		assertEmbedded(list, 0, 3);
+		// The first page contains versions 1-3 as limited by maxResults, the second page contains versions 4-10
+		assertEquals(Arrays.asList(
+				Arrays.asList("/api/v1/projectVersions/2/attributes"), 
+				Arrays.asList("/api/v1/projectVersions/4/attributes", "/api/v1/projectVersions/6/attributes")), 
+				handler.getBulkRequests());
+		assertEquals(expectedIndividualRequests, server.getRequests().stream()
+				.filter(request -> "GET".equals(request.getMethod()) && request.getPath().endsWith("/attributes")).count());
+	}
+	
+	private JSONList addBulkData(boolean multiThreaded, JSONList list, SSCEmbedConfig embedConfig) {
+		return addBulkData(multiThreaded, list, embedConfig, null);
+	}
+	
+	private JSONList addBulkData(boolean multiThreaded, JSONList list, SSCEmbedConfig embedConfig, Consumer<JSONList> fallbackLoader) {
+		if ( conn == null ) {
+			conn = SSCAuthenticatingRestConnection.builder().baseUrl(server.getBaseUri().toString())
+					.authToken("test").multiThreaded(multiThreaded).build();
+		}
+		conn.api(SSCBulkAPI.class).bulkEmbedder(embedConfig).addBulkData(list, fallbackLoader);
+		return list;
+	}
+	
+	private static final SSCEmbedConfig embedConfig(Integer chunkSize, Integer parallelism, OnErrorAction onError) {
+		return embedConfig(chunkSize, parallelism, onError, null);
+	}
+	
+	private static final SSCEmbedConfig embedConfig(Integer chunkSize, Integer parallelism, OnErrorAction onError, EmbedType embedType) {
+		return SSCEmbedConfig.builder().propertyName("attrs").uri("/api/v1/projectVersions/${id}/attributes")
+				.bulkChunkSize(chunkSize).bulkParallelism(parallelism).onError(onError).embedType(embedType).build();
+	}
+	
+	private static final JSONMap versions(Request request, int total) {
+		int start = request.getIntQueryParam("start", 0);
+		int end = Math.min(total, start+request.getIntQueryParam("limit", total));
+		JSONMap json = new JSONMap();
+		JSONList data = createList(total);
+		json.put("data", new JSONList(data.subList(Math.min(start, end), end)));
+		json.put("count", total);
+		return json;
+	}
+	
+	/**
+	 * Parallel chunks may arrive at the server in any order 
+	 */
+	private static final List<Integer> sorted(List<Integer> list) {
+		return list.stream().sorted().collect(Collectors.toList());
+	}
+	
+	private static final List<Integer> ids(JSONList list) {
+		return list.asValueType(JSONMap.class).stream().map(json -> json.get("id", Integer.class)).collect(Collectors.toList());
+	}
+	
+	private static final JSONList createList(int size) {
+		JSONList result = new JSONList();
+		for ( int i = 0 ; i < size ; i++ ) {
+			result.addNewJSONMap().put("id", i+1);
+		}
+		return result;
+	}
+	
+	/**
+	 * Generate an SSC response body for the given embed path, containing the 
+	 * project version id and a list of attributes
+	 */
+	static final JSONMap embedBody(String path) {
+		String id = path.replaceAll("/api/v1/projectVersions/(\\d+)/.*", "$1");
+		JSONMap attr = new JSONMap();
+		attr.put("projectVersionId", Integer.valueOf(id));
+		attr.put("path", path);
+		JSONMap body = new JSONMap();
+		body.put("data", new JSONList(Collections.singletonList(attr)));
+		return body;
+	}
+	
+	private static final void assertEmbedded(JSONList list, int fromIndex, int toIndex) {
+		List<JSONMap> entries = list.asValueType(JSONMap.class);
+		for ( JSONMap json : entries.subList(fromIndex, toIndex) ) {
+			JSONList attrs = json.get("attrs", JSONList.class);
+			assertEquals(1, attrs.size(), json.toString());
+			assertEquals(json.get("id", Integer.class), attrs.get(0, JSONMap.class).get("projectVersionId", Integer.class));
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package com.fortify.client.ssc.api.query.builder;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.client.ssc.TestServer;
+import com.fortify.client.ssc.TestServer.Request;
+import com.fortify.client.ssc.TestServer.Response;
+import com.fortify.client.ssc.connection.SSCAuthenticatingRestConnection;
+import com.fortify.util.applier.ifblank.IfBlank;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter.MatchMode;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate.DateComparisonOperator;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterRegEx;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterSpEL;
+
+public class SSCQueryBuilderPushDownTest {
+	private TestServer server;
+	private SSCAuthenticatingRestConnection conn;
+	
+	@BeforeEach
+	public void setup() {
+		// The server ignores the 'q' parameter, so any results returned by the
+		// query must have been filtered client-side
+		server = new TestServer(request -> Response.ok(results(request,
+				job(1, "com.fortify.manager.BLL.jobs.ArtifactUploadJob", "PROCESS_COMPLETE", 10),
+				job(2, "com.fortify.manager.BLL.jobs.ArtifactUploadJob", "CANCELLED", 11),
+				job(3, "com.fortify.manager.BLL.jobs.AuditAssistantJob", "PROCESS_COMPLETE", 11))));
+		conn = SSCAuthenticatingRestConnection.builder().baseUrl(server.getBaseUri().toString()).authToken("test").build();
+	}
+	
+	@AfterEach
+	public void close() {
+		conn.close();
+		server.close();
+	}
+	
+	@Test public void testPushDownEquals() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_COMPLETE"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder));
+		assertEquals(set("state:\"PROCESS_COMPLETE\""), getQ());
+		assertEquals(Arrays.asList("state = 'PROCESS_COMPLETE' -> q=state:\"PROCESS_COMPLETE\""), builder.getPushedDownFilters());
+	}
+	
+	@Test public void testPushDownQuotedLiteral() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "jobClassName", Pattern.quote("com.fortify.manager.BLL.jobs.ArtifactUploadJob")));
+		assertEquals(Arrays.asList(1, 2), getIds(builder));
+		assertEquals(set("jobClassName:\"com.fortify.manager.BLL.jobs.ArtifactUploadJob\""), getQ());
+	}
+	
+	@Test public void testPushDownMultipleFilters() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_COMPLETE"))
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "projectVersionId", "11"));
+		assertEquals(Arrays.asList(3), getIds(builder));
+		assertEquals(set("state:\"PROCESS_COMPLETE\"", "projectVersionId:\"11\""), getQ());
+		assertEquals(2, builder.getPushedDownFilters().size());
+	}
+	
+	@Test public void testPushDownPrefix() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_.*"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder));
+		assertEquals(set("state:PROCESS_*"), getQ());
+		assertEquals(Arrays.asList("state starts with 'PROCESS_' -> q=state:PROCESS_*"), builder.getPushedDownFilters());
+	}
+	
+	@Test public void testPushDownQuotedPrefix() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "jobClassName", Pattern.quote("com.fortify.manager.BLL.jobs.Artifact")+".*"));
+		assertEquals(Arrays.asList(1, 2), getIds(builder));
+		assertEquals(set("jobClassName:com.fortify.manager.BLL.jobs.Artifact*"), getQ());
+	}
+	
+	@Test public void testPushDownDateRange() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterCompareDate(MatchMode.INCLUDE, "startTime", DateComparisonOperator.ge, date("2020-01-15T00:00:00Z")))
+				.preProcessor(new JSONMapFilterCompareDate(MatchMode.INCLUDE, "startTime", DateComparisonOperator.lt, date("2020-02-15T12:00:00Z")));
+		assertEquals(Arrays.asList(2), getIds(builder));
+		assertEquals(set("startTime:[2020-01-14T00:00:00.000Z,2020-02-16T12:00:00.000Z]"), getQ());
+		assertEquals(2, builder.getPushedDownFilters().size());
+	}
+	
+	@Test public void testPushDownDateComparisons() {
+		testPushDownDate(Arrays.asList(2, 3), DateComparisonOperator.gt, "startTime:[2020-01-14T00:00:00.000Z,9999-12-31T23:59:59.999Z]");
+		testPushDownDate(Arrays.asList(1), DateComparisonOperator.le, "startTime:[1970-01-01T00:00:00.000Z,2020-01-16T00:00:00.000Z]");
+		testPushDownDate(Collections.emptyList(), DateComparisonOperator.eq, "startTime:[2020-01-14T00:00:00.000Z,2020-01-16T00:00:00.000Z]");
+	}
+	
+	@Test public void testDateComparisonsNotPushedDown() {
+		Date date = date("2020-01-15T00:00:00Z");
+		testNotPushedDown(Arrays.asList(1, 2, 3), new JSONMapFilterCompareDate(MatchMode.INCLUDE, "startTime", DateComparisonOperator.ne, date));
+		testNotPushedDown(Arrays.asList(1), new JSONMapFilterCompareDate(MatchMode.EXCLUDE, "startTime", DateComparisonOperator.gt, date));
+		// Field not listed in getParamQPushdownDateFields()
+		testNotPushedDown(Collections.emptyList(), new JSONMapFilterCompareDate(MatchMode.INCLUDE, "createTime", DateComparisonOperator.gt, date));
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.paramQ(IfBlank.ERROR(), "priority:1")
+				.preProcessor(new JSONMapFilterCompareDate(MatchMode.INCLUDE, "startTime", DateComparisonOperator.gt, date));
+		assertEquals(Arrays.asList(2, 3), getIds(builder));
+		assertEquals(set("priority:1"), getQ());
+		assertTrue(builder.getPushedDownFilters().isEmpty());
+	}
+	
+	@Test public void testPushDownCombinedWithExplicitQAnd() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.jobClassName(IfBlank.ERROR(), "com.fortify.manager.BLL.jobs.ArtifactUploadJob")
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_COMPLETE"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder));
+		assertEquals(set("jobClassName:\"com.fortify.manager.BLL.jobs.ArtifactUploadJob\"", "state:\"PROCESS_COMPLETE\""), getQ());
+	}
+	
+	@Test public void testExplicitQAndNotOverridden() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.state(IfBlank.ERROR(), "CANCELLED")
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_COMPLETE"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder));
+		assertEquals(set("state:\"CANCELLED\""), getQ());
+		assertTrue(builder.getPushedDownFilters().isEmpty());
+	}
+	
+	@Test public void testExplicitQNotOverridden() {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.paramQ(IfBlank.ERROR(), "priority:1")
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_COMPLETE"));
+		assertEquals(Arrays.asList(1, 3), getIds(builder));
+		assertEquals(set("priority:1"), getQ());
+		assertTrue(builder.getPushedDownFilters().isEmpty());
+	}
+	
+	@Test public void testNonLiteralFiltersNotPushedDown() {
+		testNotPushedDown(Arrays.asList(1, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", ".*COMPLETE"));
+		testNotPushedDown(Arrays.asList(1, 2, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS_COMPLETE|CANCELLED"));
+		testNotPushedDown(Arrays.asList(1, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS[_]COMPLETE"));
+		testNotPushedDown(Arrays.asList(1, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "(?i)process_complete"));
+		testNotPushedDown(Arrays.asList(1, 3), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", Pattern.compile("process_complete", Pattern.CASE_INSENSITIVE)));
+		testNotPushedDown(Arrays.asList(2), new JSONMapFilterRegEx(MatchMode.EXCLUDE, "state", "PROCESS_COMPLETE"));
+		testNotPushedDown(Arrays.asList(1, 3), new JSONMapFilterSpEL(MatchMode.INCLUDE, "state=='PROCESS_COMPLETE'"));
+	}
+	
+	@Test public void testUnsupportedFieldsNotPushedDown() {
+		// Field not listed in getParamQPushdownFields()
+		testNotPushedDown(Arrays.asList(1), new JSONMapFilterRegEx(MatchMode.INCLUDE, "_href", "http://localhost/jobs/1"));
+		// Values containing quotes cannot be represented in 'q'
+		testNotPushedDown(Collections.emptyList(), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS\"COMPLETE"));
+		// Prefixes containing characters that require quoting cannot be used with wildcards
+		testNotPushedDown(Collections.emptyList(), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS COMPLETE.*"));
+		testNotPushedDown(Collections.emptyList(), new JSONMapFilterRegEx(MatchMode.INCLUDE, "state", "PROCESS:.*"));
+	}
+	
+	@Test public void testApplicationVersionsPushDown() {
+		server.setHandler(request -> Response.ok(results(request, 
+				version(1, "v1", "app1"), version(2, "v2", "app1"), version(3, "v1", "app2"))));
+		SSCApplicationVersionsQueryBuilder builder = new SSCApplicationVersionsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "project.name", "app1"))
+				.preProcessor(new JSONMapFilterRegEx(MatchMode.INCLUDE, "name", "v1"));
+		assertEquals(Arrays.asList(1), getIds(builder));
+		assertEquals(set("project.name:\"app1\"", "name:\"v1\""), getQ());
+	}
+	
+	private void testPushDownDate(List<Integer> expectedIds, DateComparisonOperator operator, String expectedQ) {
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn)
+				.preProcessor(new JSONMapFilterCompareDate(MatchMode.INCLUDE, "startTime", operator, date("2020-01-15T00:00:00Z")));
+		assertEquals(expectedIds, getIds(builder), operator.name());
+		assertEquals(set(expectedQ), getQ(), operator.name());
+	}
+	
+	private void testNotPushedDown(List<Integer> expectedIds, AbstractJSONMapFilter filter) {
+		String description = filter instanceof JSONMapFilterRegEx 
+				? ((JSONMapFilterRegEx)filter).getFieldPathPatternsMap().toString() 
+				: filter.getClass().getSimpleName();
+		int requestCount = server.getRequests().size();
+		SSCJobsQueryBuilder builder = new SSCJobsQueryBuilder(conn).preProcessor(filter);
+		assertEquals(expectedIds, getIds(builder), description);
+		assertNull(server.getRequests().get(requestCount).getQueryParam("q"), description);
+		assertTrue(builder.getPushedDownFilters().isEmpty(), description);
+	}
+	
+	/**
+	 * Get the individual 'q' criteria from the last request
+	 */
+	private Set<String> getQ() {
+		List<Request> requests = server.getRequests();
+		String q = requests.get(requests.size()-1).getQueryParam("q");
+		return q==null ? Collections.emptySet() : set(q.split("\\+and\\+"));
+	}
+	
+	private static final List<Integer> getIds(AbstractSSCEntityQueryBuilder<?> builder) {
+		List<Integer> result = new ArrayList<>();
+		builder.build().processAll(json -> result.add(json.get("id", Integer.class)));
+		return result;
+	}
+	
+	private static final JSONMap results(Request request, JSONMap... results) {
+		int start = request.getIntQueryParam("start", 0);
+		JSONMap json = new JSONMap();
+		json.put("data", new JSONList(Arrays.asList(results).subList(Math.min(start, results.length), results.length)));
+		json.put("count", results.length);
+		return json;
+	}
+	
+	private static final JSONMap job(int id, String jobClassName, String state, int projectVersionId) {
+		JSONMap json = new JSONMap();
+		json.put("id", id);
+		json.put("jobClassName", jobClassName);
+		json.put("state", state);
+		json.put("projectVersionId", projectVersionId);
+		json.put("startTime", "2020-0"+id+"-01T10:00:00.000+0000");
+		json.put("_href", "http://localhost/jobs/"+id);
+		return json;
+	}
+	
+	private static final JSONMap version(int id, String name, String applicationName) {
+		JSONMap json = new JSONMap();
+		json.put("id", id);
+		json.put("name", name);
+		json.putPath("project.name", applicationName);
+		return json;
+	}
+	
+	private static final Date date(String isoDateTime) {
+		return Date.from(Instant.parse(isoDateTime));
+	}
+	
+	private static final Set<String> set(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
@@ -0,0 +1,125 @@
+package com.fortify.client.ssc.connection;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.HttpMethod;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.client.ssc.TestServer;
+import com.fortify.client.ssc.TestServer.Request;
+import com.fortify.client.ssc.TestServer.Response;
+import com.fortify.util.rest.json.JSONMap;
+
+public class SSCTokenFactoryUserCredentialsTest {
+	private static final String TOKENS_PATH = "/api/v1/tokens";
+	private static final String REVOKE_PATH = "/api/v1/tokens/action/revoke";
+	private final AtomicInteger tokenCount = new AtomicInteger();
+	private TestServer server;
+	
+	@BeforeEach
+	public void setup() {
+		server = new TestServer(this::handle);
+	}
+	
+	@AfterEach
+	public void close() {
+		server.close();
+	}
+	
+	@Test public void testRevokeOnClose() {
+		SSCAuthenticatingRestConnection conn = createConnection(0);
+		ping(conn);
+		ping(conn);
+		assertEquals(1, tokenCount.get());
+		conn.close();
+		assertEquals(Arrays.asList("{\"tokens\":[\"token-1\"]}"), getRevokeRequestBodies());
+	}
+	
+	@Test public void testSupersededTokenNotRevokedAfterBackgroundRefresh() throws Exception {
+		SSCAuthenticatingRestConnection conn = createConnection(1);
+		ping(conn);
+		// The first token expires after 2.5 seconds, so it is refreshed in the background after ~1.5 seconds
+		for ( int i = 0 ; i < 50 && !"FortifyToken token-2".equals(getLastPingAuthorization()) ; i++ ) {
+			Thread.sleep(100);
+			ping(conn);
+		}
+		assertEquals("FortifyToken token-2", getLastPingAuthorization());
+		assertEquals(2, tokenCount.get());
+		// The superseded token may still be in use by in-flight requests, so it must not be revoked
+		assertEquals(Collections.emptyList(), getRevokeRequestBodies());
+		conn.close();
+		assertEquals(Arrays.asList("{\"tokens\":[\"token-2\"]}"), getRevokeRequestBodies());
+	}
+	
+	private SSCAuthenticatingRestConnection createConnection(int tokenRefreshAheadSeconds) {
+		return SSCAuthenticatingRestConnection.builder().baseUrl(server.getBaseUri().toString())
+				.userName("user").password("password").tokenRefreshAheadSeconds(tokenRefreshAheadSeconds).build();
+	}
+	
+	private static final void ping(SSCAuthenticatingRestConnection conn) {
+		conn.executeRequest(HttpMethod.GET, conn.getBaseResource().path("/api/v1/ping"), JSONMap.class);
+	}
+	
+	private List<String> getRevokeRequestBodies() {
+		return server.getRequests().stream()
+				.filter(request -> REVOKE_PATH.equals(request.getPath()))
+				.map(Request::getBody).collect(Collectors.toList());
+	}
+	
+	private String getLastPingAuthorization() {
+		List<Request> pings = server.getRequests("GET", "/api/v1/ping");
+		return pings.get(pings.size()-1).getAuthorization();
+	}
+	
+	private Response handle(Request request) {
+		if ( TOKENS_PATH.equals(request.getPath()) ) {
+			int id = tokenCount.incrementAndGet();
+			OffsetDateTime terminalDate = OffsetDateTime.now(ZoneOffset.UTC).plusNanos((id==1 ? 2500 : 3600000)*1000000L);
+			JSONMap data = new JSONMap();
+			data.put("token", "token-"+id);
+			data.put("terminalDate", terminalDate.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+			JSONMap json = new JSONMap();
+			json.put("data", data);
+			return Response.ok(json);
+		} else {
+			return Response.ok("{}");
+		}
+	}
+}
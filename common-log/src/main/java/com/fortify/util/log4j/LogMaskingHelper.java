@@ -25,16 +25,15 @@
 package com.fortify.util.log4j;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.core.LogEvent;
 
-// TODO Check/update for thread safety (use concurrent map?)
 /**
  * Applications that want to enable log masking must provide an actual 
  * Log4J plugin class that extends from this class, as follows:
@@ -66,7 +65,7 @@ public final class LogMaskingConverterPlugin extends LogEventPatternConverter {
  */
 public class LogMaskingHelper {
 	public static final String NAME = "mm";
-	private static final Map<UUID, IMasker> MASKS = new HashMap<>();
+	private static final Map<UUID, IMasker> MASKS = new ConcurrentHashMap<>();
 	
 	public static final PatternGroupMasker maskByPatternGroups() {
 		return new PatternGroupMasker();
@@ -40,10 +40,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
 import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.Client;
@@ -67,9 +77,16 @@ import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.glassfish.jersey.apache.connector.ApacheClientProperties;
 import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
 import org.glassfish.jersey.apache.connector.ApacheHttpClientBuilderConfigurator;
@@ -86,6 +103,7 @@ import com.fortify.util.rest.json.JSONObjectMapperSupplier;
 
 import lombok.Getter;
 import lombok.ToString;
+import lombok.extern.apachecommons.CommonsLog;
 
 /**
  * <p>Base class for low-level functionality for accessing REST API's. Concrete implementations
@@ -99,7 +117,7 @@ import lombok.ToString;
  * provide an api() method that provides access to these more high-level functionalities, keeping the
  * actual connection implementation lean and clean.</p>
  */
-@ToString
+@ToString @CommonsLog
 public abstract class AbstractRestConnection implements IRestConnection {
 	private static final Pattern EXPR_AUTH_HEADER = Pattern.compile("Authorization: (.*)", Pattern.CASE_INSENSITIVE);
 	private static final Set<String> DEFAULT_HTTP_METHODS_TO_PRE_AUTHENTICATE = new HashSet<String>(Arrays.asList("POST","PUT","PATCH"));
@@ -112,7 +130,18 @@ public abstract class AbstractRestConnection implements IRestConnection {
 	private final Map<String, Object> connectionProperties;
 	@Getter private final String connectionId;
 	private final CredentialsProvider credentialsProvider;
-	private Client client;
+	private final int maxConnectionsTotal;
+	private final int maxConnectionsPerRoute;
+	private final int validateAfterInactivityMillis;
+	private final long maxIdleTimeMillis;
+	private final Executor configuredAsyncExecutor;
+	private final boolean useVirtualThreads;
+	private final Semaphore asyncRequestPermits;
+	@Getter private final ResponseCache responseCache;
+	private final IRevalidationStore revalidationStore;
+	private volatile ExecutorService defaultAsyncExecutor;
+	private volatile PoolingHttpClientConnectionManager connectionManager;
+	private volatile Client client;
 	
 	protected AbstractRestConnection(AbstractRestConnectionConfig<?> config) {
 		this.baseUrl = config.getBaseUrl();
@@ -121,6 +150,15 @@ public abstract class AbstractRestConnection implements IRestConnection {
 		this.connectionProperties = config.getConnectionProperties();
 		this.connectionId = this.getClass().getName()+config.getConnectionId();
 		this.credentialsProvider = createCredentialsProvider(config);
+		this.maxConnectionsTotal = config.getMaxConnectionsTotal();
+		this.maxConnectionsPerRoute = config.getMaxConnectionsPerRoute();
+		this.validateAfterInactivityMillis = config.getValidateAfterInactivityMillis();
+		this.maxIdleTimeMillis = config.getMaxIdleTimeMillis();
+		this.configuredAsyncExecutor = config.getAsyncExecutor();
+		this.useVirtualThreads = config.isUseVirtualThreads();
+		this.asyncRequestPermits = new Semaphore(getMaxConcurrentRequests());
+		this.responseCache = config.getResponseCacheMaxEntries()>0 ? new ResponseCache(config.getResponseCacheMaxEntries()) : null;
+		this.revalidationStore = config.getRevalidationStore();
 		Connections.register(this);
 	}
 	
@@ -230,6 +268,152 @@ public abstract class AbstractRestConnection implements IRestConnection {
 		}
 	}
 	
+	/**
+	 * Asynchronously execute a request for the given method using the given web resource. 
+	 * See {@link #executeRequestAsync(String, Builder, Entity, Class)} for details.
+	 * @param <T>        The return type for the data returned by the request
+	 * @param httpMethod The HTTP method to be used, as specified by one of the constants
+	 *                   in {@link HttpMethod}
+	 * @param webResource The web resource used to execute the request. Usually this web resource 
+	 * 					  is created using {@link #getBaseResource()}.path(...)...
+	 * @param returnType The return type for the data returned by the request.
+	 * @return {@link CompletableFuture} providing the result of executing the HTTP request.
+	 */
+	public <T> CompletableFuture<T> executeRequestAsync(String httpMethod, WebTarget webResource, Class<T> returnType) {
+		return executeRequestAsync(httpMethod, webResource, null, returnType);
+	}
+	
+	/**
+	 * Asynchronously execute a request for the given method using the given web resource and entity. 
+	 * See {@link #executeRequestAsync(String, Builder, Entity, Class)} for details.
+	 * @param <T>        The return type for the data returned by the request
+	 * @param httpMethod The HTTP method to be used, as specified by one of the constants
+	 *                   in {@link HttpMethod}
+	 * @param webResource The web resource used to execute the request. Usually this web resource 
+	 * 					  is created using {@link #getBaseResource()}.path(...)...
+	 * @param entity The entity to be sent in the request
+	 * @param returnType The return type for the data returned by the request.
+	 * @return {@link CompletableFuture} providing the result of executing the HTTP request.
+	 */
+	public <T> CompletableFuture<T> executeRequestAsync(String httpMethod, WebTarget webResource, Entity<?> entity, Class<T> returnType) {
+		return supplyAsync(()->executeRequest(httpMethod, webResource, entity, returnType));
+	}
+	
+	/**
+	 * Asynchronously execute a request for the given method using the given builder. The
+	 * request is executed by calling the corresponding synchronous executeRequest method
+	 * on the executor returned by {@link #getAsyncExecutor()}, so any connection initialization, 
+	 * request customization and log masking is applied as usual. As this will usually result in
+	 * requests being executed concurrently, this requires a multi-threaded connection.
+	 * @param <T>        The return type for the data returned by the request
+	 * @param httpMethod The HTTP method to be used, as specified by one of the constants
+	 *                   in {@link HttpMethod}
+	 * @param builder	 The builder used to execute the request. Usually this builder is created
+	 *                   using {@link #getBaseResource()}.path(...).builder(...)...
+	 * @param entity     The entity to be submitted, may be null
+	 * @param returnType The return type for the data returned by the request.
+	 * @return {@link CompletableFuture} providing the result of executing the HTTP request.
+	 */
+	public <T> CompletableFuture<T> executeRequestAsync(String httpMethod, Builder builder, Entity<?> entity, Class<T> returnType) {
+		return supplyAsync(()->executeRequest(httpMethod, builder, entity, returnType));
+	}
+	
+	/**
+	 * Asynchronously execute a request and save the response to the given output path.
+	 * See {@link #executeRequestAsync(String, Builder, Entity, Class)} for details.
+	 * @param httpMethod The HTTP method to be used, as specified by one of the constants
+	 *                   in {@link HttpMethod}
+	 * @param webTarget  The web resource used to execute the request.
+	 * @param outputPath The path to which the response should be saved
+	 * @param copyOptions Options specifying how the response should be saved
+	 * @return {@link CompletableFuture} that completes once the response has been saved
+	 */
+	public CompletableFuture<Void> executeRequestAndSaveResponseAsync(String httpMethod, WebTarget webTarget, Path outputPath, CopyOption... copyOptions) {
+		return supplyAsync(()->{
+			executeRequestAndSaveResponse(httpMethod, webTarget, outputPath, copyOptions);
+			return null;
+		});
+	}
+	
+	/**
+	 * Run the given {@link Supplier} on the executor returned by {@link #getAsyncExecutor()}.
+	 * The number of suppliers running concurrently is limited to the maximum number of 
+	 * pooled connections, such that threads will never be blocked while waiting for a 
+	 * pooled connection. This is especially important for virtual threads, which would 
+	 * otherwise get pinned to their carrier thread while waiting for a connection.
+	 */
+	private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+		if ( !isMultiThreaded() ) {
+			throw new IllegalStateException("Asynchronous requests require a multi-threaded connection");
+		}
+		return CompletableFuture.supplyAsync(()->{
+			try {
+				asyncRequestPermits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting to execute asynchronous request", e);
+			}
+			try {
+				return supplier.get();
+			} finally {
+				asyncRequestPermits.release();
+			}
+		}, getAsyncExecutor());
+	}
+	
+	/**
+	 * @return Maximum number of requests that can be executed concurrently, based on connection pool settings
+	 */
+	private int getMaxConcurrentRequests() {
+		return Math.max(1, Math.min(maxConnectionsTotal, maxConnectionsPerRoute));
+	}
+	
+	/**
+	 * Get the {@link Executor} for executing asynchronous requests. If an executor was
+	 * configured through {@link AbstractRestConnectionConfig#asyncExecutor(Executor)},
+	 * that executor is returned. Otherwise, a default executor is created on first use,
+	 * and shut down when this connection is closed.
+	 * @return {@link Executor} for executing asynchronous requests
+	 */
+	protected Executor getAsyncExecutor() {
+		if ( configuredAsyncExecutor != null ) { return configuredAsyncExecutor; }
+		ExecutorService result = defaultAsyncExecutor;
+		if ( result == null ) {
+			synchronized (this) {
+				result = defaultAsyncExecutor;
+				if ( result == null ) {
+					defaultAsyncExecutor = result = createDefaultAsyncExecutor();
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Create the default {@link ExecutorService} for executing asynchronous requests.
+	 * If configured through {@link AbstractRestConnectionConfig#useVirtualThreads(boolean)} 
+	 * and supported by the current JVM, this returns an executor that runs each request in 
+	 * a new virtual thread. Otherwise, this returns a fixed thread pool with daemon threads, 
+	 * sized according to the maximum number of pooled connections per route, as any additional 
+	 * threads would just be waiting for a connection to become available.
+	 * @return {@link ExecutorService} for executing asynchronous requests
+	 */
+	protected ExecutorService createDefaultAsyncExecutor() {
+		if ( useVirtualThreads ) {
+			try {
+				return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException e) {
+				log.warn("Virtual threads are not supported by this JVM, falling back to platform threads");
+			}
+		}
+		AtomicInteger threadCounter = new AtomicInteger();
+		return Executors.newFixedThreadPool(getMaxConcurrentRequests(), r->{
+			Thread thread = new Thread(r, "fortify-client-api-async-"+threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
 	public void executeRequestAndSaveResponse(String httpMethod, WebTarget webTarget, Path outputPath, CopyOption... copyOptions) {
 		Response response = executeRequest(httpMethod, webTarget, Response.class);
 		try {
@@ -406,14 +590,21 @@ public abstract class AbstractRestConnection implements IRestConnection {
 	 * Get the cached client for executing requests. If the client
 	 * has not been previously cached, this method will call 
 	 * {@link #createClient()} to create a new client and then
-	 * cache it.
+	 * cache it. This method is thread-safe, to make sure that multi-threaded
+	 * connections share a single client and connection pool.
 	 * @return Cached {@link Client} instance if available, new {@link Client} instance otherwise
 	 */
 	public final Client getClient() {
-		if ( client == null ) {
-			client = createClient();
+		Client result = client;
+		if ( result == null ) {
+			synchronized (this) {
+				result = client;
+				if ( result == null ) {
+					client = result = createClient();
+				}
+			}
 		}
-		return client;
+		return result;
 	}
 	
 	/**
@@ -422,10 +613,26 @@ public abstract class AbstractRestConnection implements IRestConnection {
 	 */
 	public void close() {
 		Connections.unRegister(this);
+		if ( defaultAsyncExecutor != null ) { defaultAsyncExecutor.shutdownNow(); }
 		getClient().close();
 		apis.clear();
 	}
 	
+	/**
+	 * Get statistics for the connection pool used by this connection. If no requests
+	 * have been executed yet, or if subclasses have disabled connection pooling by
+	 * overriding {@link #createConnectionManager(Client)}, all statistics except for the 
+	 * maximum number of connections will be zero.
+	 * @return {@link ConnectionPoolStats} instance
+	 */
+	public ConnectionPoolStats getConnectionPoolStats() {
+		if ( connectionManager == null ) {
+			return new ConnectionPoolStats(0, 0, 0, maxConnectionsTotal);
+		}
+		PoolStats stats = connectionManager.getTotalStats();
+		return new ConnectionPoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+	}
+	
 	public String getBaseUrlStringWithoutTrailingSlash() {
 		return StringUtils.removeEnd(getBaseUrl().toASCIIString(), "/");
 	}
@@ -457,6 +664,10 @@ public abstract class AbstractRestConnection implements IRestConnection {
 	protected Client createClient() {
 		ClientConfig config = createClientConfig();
 		Client client = ClientBuilder.newClient(config);
+		connectionManager = createConnectionManager(client);
+		if ( connectionManager != null ) {
+			client.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+		}
 		return client;
 	}
 	
@@ -480,10 +691,41 @@ public abstract class AbstractRestConnection implements IRestConnection {
 		clientConfig.register(new HttpClientBuilderConfigurator());
 		clientConfig.register(JacksonFeature.class);
 		clientConfig.register(MultiPartFeature.class);
+		clientConfig.register(ResponseByteCounter.class);
+		if ( revalidationStore != null ) {
+			clientConfig.register(new ConditionalRequestFilter(revalidationStore));
+		}
 		clientConfig.register(new LoggingFeature(Logger.getLogger(LoggingFeature.DEFAULT_LOGGER_NAME), Level.FINE, LoggingFeature.Verbosity.PAYLOAD_ANY, 10000));
 		return clientConfig;
 	}
 	
+	/**
+	 * Create the {@link PoolingHttpClientConnectionManager} to be used by the Apache
+	 * HttpClient connector, configured according to the connection pool settings in 
+	 * {@link AbstractRestConnectionConfig}. As the Apache HttpClient connector doesn't
+	 * apply the SSL settings of the given {@link Client} to a custom connection manager,
+	 * HTTPS connections are set up using the {@link SSLContext} and {@link HostnameVerifier}
+	 * configured on the given {@link Client}. Subclasses can override this method to 
+	 * further customize the connection manager, or return null to use the default
+	 * Jersey connection manager.
+	 * @param client {@link Client} for which to create the connection manager
+	 * @return {@link PoolingHttpClientConnectionManager} instance
+	 */
+	protected PoolingHttpClientConnectionManager createConnectionManager(Client client) {
+		HostnameVerifier hostnameVerifier = client.getHostnameVerifier();
+		Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory())
+				.register("https", hostnameVerifier == null 
+					? new SSLConnectionSocketFactory(client.getSslContext())
+					: new SSLConnectionSocketFactory(client.getSslContext(), hostnameVerifier))
+				.build();
+		PoolingHttpClientConnectionManager result = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+		result.setMaxTotal(maxConnectionsTotal);
+		result.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		result.setValidateAfterInactivity(validateAfterInactivityMillis);
+		return result;
+	}
+	
 	/**
 	 * This {@link ApacheHttpClientBuilderConfigurator} implementation simply calls
 	 * {@link AbstractRestConnection#updateHttpClientBuilder(HttpClientBuilder)} to
@@ -609,6 +851,10 @@ public abstract class AbstractRestConnection implements IRestConnection {
 	protected void updateHttpClientBuilder(HttpClientBuilder httpClientBuilder) {
 		httpClientBuilder.setDefaultRequestConfig(getRequestConfig());
 		httpClientBuilder.setServiceUnavailableRetryStrategy(getServiceUnavailableRetryStrategy());
+		if ( maxIdleTimeMillis > 0 ) {
+			httpClientBuilder.evictExpiredConnections();
+			httpClientBuilder.evictIdleConnections(maxIdleTimeMillis, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	protected RequestConfig getRequestConfig() {
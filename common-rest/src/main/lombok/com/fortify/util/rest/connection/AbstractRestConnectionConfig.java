@@ -29,6 +29,7 @@ import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -59,6 +60,14 @@ public abstract class AbstractRestConnectionConfig<T extends AbstractRestConnect
 	private ProxyConfig proxy = new ProxyConfig();
 	private Map<String, Object> connectionProperties;
 	private String connectionId = UUID.randomUUID().toString();
+	private int maxConnectionsTotal = 20;
+	private int maxConnectionsPerRoute = 20;
+	private int validateAfterInactivityMillis = 2000;
+	private long maxIdleTimeMillis = -1;
+	private Executor asyncExecutor = null;
+	private boolean useVirtualThreads = false;
+	private int responseCacheMaxEntries = 100;
+	private IRevalidationStore revalidationStore = null;
 	
 	public T baseUrl(String baseUrl) {
 		setBaseUrl(baseUrl);
@@ -85,6 +94,113 @@ public abstract class AbstractRestConnectionConfig<T extends AbstractRestConnect
 		return getThis();
 	}
 	
+	/**
+	 * Configure the maximum total number of connections in the connection pool; 
+	 * default is 20. 
+	 * @param maxConnectionsTotal maximum total number of pooled connections
+	 * @return Self for chaining
+	 */
+	public T maxConnectionsTotal(int maxConnectionsTotal) {
+		setMaxConnectionsTotal(maxConnectionsTotal);
+		return getThis();
+	}
+	
+	/**
+	 * Configure the maximum number of connections per route in the connection pool;
+	 * default is 20. As most connections only access a single host, this usually 
+	 * determines the maximum number of concurrent requests for multi-threaded
+	 * connections.
+	 * @param maxConnectionsPerRoute maximum number of pooled connections per route
+	 * @return Self for chaining
+	 */
+	public T maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+		return getThis();
+	}
+	
+	/**
+	 * Configure the period of inactivity in milliseconds after which pooled connections 
+	 * must be re-validated before being re-used; default is 2000. A negative value 
+	 * disables validation.
+	 * @param validateAfterInactivityMillis period of inactivity in milliseconds
+	 * @return Self for chaining
+	 */
+	public T validateAfterInactivityMillis(int validateAfterInactivityMillis) {
+		setValidateAfterInactivityMillis(validateAfterInactivityMillis);
+		return getThis();
+	}
+	
+	/**
+	 * Configure the maximum time in milliseconds that pooled connections may be idle 
+	 * before being evicted from the connection pool by a background thread. By default 
+	 * (or when set to a non-positive value), idle connections are not evicted. 
+	 * @param maxIdleTimeMillis maximum idle time in milliseconds
+	 * @return Self for chaining
+	 */
+	public T maxIdleTimeMillis(long maxIdleTimeMillis) {
+		setMaxIdleTimeMillis(maxIdleTimeMillis);
+		return getThis();
+	}
+	
+	/**
+	 * Configure the {@link Executor} to be used for executing asynchronous requests,
+	 * like {@link AbstractRestConnection#executeRequestAsync(String, javax.ws.rs.client.WebTarget, Class)}.
+	 * The given executor will not be shut down when the connection is closed. If no executor
+	 * is configured, the connection will create a default executor as described in
+	 * {@link #useVirtualThreads(boolean)}.
+	 * @param asyncExecutor {@link Executor} for executing asynchronous requests
+	 * @return Self for chaining
+	 */
+	public T asyncExecutor(Executor asyncExecutor) {
+		setAsyncExecutor(asyncExecutor);
+		return getThis();
+	}
+	
+	/**
+	 * If no executor has been configured through {@link #asyncExecutor(Executor)}, 
+	 * asynchronous requests are by default executed on a fixed thread pool sized 
+	 * according to {@link #maxConnectionsTotal(int)} and {@link #maxConnectionsPerRoute(int)}. If this flag is set to true
+	 * and the JVM supports virtual threads, asynchronous requests will instead
+	 * be executed on a new virtual thread per request. 
+	 * @param useVirtualThreads indicates whether virtual threads should be used if available
+	 * @return Self for chaining
+	 */
+	public T useVirtualThreads(boolean useVirtualThreads) {
+		setUseVirtualThreads(useVirtualThreads);
+		return getThis();
+	}
+	
+	/**
+	 * Configure the maximum number of responses held by the connection-scoped
+	 * {@link ResponseCache}, default is 100. Responses are only cached for queries
+	 * that have been configured with a {@link ResponseCachePolicy}. Set to zero to 
+	 * disable response caching for this connection altogether.
+	 * @param responseCacheMaxEntries Maximum number of cached responses
+	 * @return Self for chaining
+	 */
+	public T responseCacheMaxEntries(int responseCacheMaxEntries) {
+		setResponseCacheMaxEntries(responseCacheMaxEntries);
+		return getThis();
+	}
+	
+	/**
+	 * Enable conditional GET requests by configuring an {@link IRevalidationStore} for
+	 * storing response validators (ETag, Last-Modified) and response bodies. If configured,
+	 * GET requests for previously loaded URI's will include the corresponding If-None-Match
+	 * and/or If-Modified-Since headers, and the stored response body will be returned
+	 * if the server indicates that the resource hasn't been modified. This reduces both
+	 * server load and network traffic for repeated polling of the same data. By default,
+	 * no revalidation store is configured.
+	 * @see InMemoryRevalidationStore
+	 * @see FileSystemRevalidationStore
+	 * @param revalidationStore {@link IRevalidationStore} to be used, or null to disable conditional requests
+	 * @return Self for chaining
+	 */
+	public T revalidationStore(IRevalidationStore revalidationStore) {
+		setRevalidationStore(revalidationStore);
+		return getThis();
+	}
+	
 	/**
 	 * @see #setConnectionId(String)
 	 * @param connectionId to be used for the connection
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+
+import org.springframework.util.StreamUtils;
+
+/**
+ * <p>This filter implements conditional GET requests based on the validators and response bodies
+ * stored in an {@link IRevalidationStore}. For every GET request for which the store contains an 
+ * entry, this filter adds the corresponding If-None-Match and/or If-Modified-Since headers. If the
+ * server responds with 304 Not Modified, the response is replaced with a 200 OK response containing
+ * the stored response body, so this is fully transparent for callers. Any successful GET response 
+ * that contains an ETag or Last-Modified header is stored in the {@link IRevalidationStore}, unless 
+ * the response specifies Cache-Control: no-store.</p>
+ * 
+ * <p>{@link AbstractRestConnection} registers this filter if an {@link IRevalidationStore} has been 
+ * configured through {@link AbstractRestConnectionConfig#revalidationStore(IRevalidationStore)}.</p>
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class ConditionalRequestFilter implements ClientRequestFilter, ClientResponseFilter {
+	private static final String PROPERTY_APPLICABLE = ConditionalRequestFilter.class.getName()+".applicable";
+	private static final String PROPERTY_ENTRY = ConditionalRequestFilter.class.getName()+".entry";
+	private final IRevalidationStore store;
+	
+	public ConditionalRequestFilter(IRevalidationStore store) {
+		this.store = store;
+	}
+	
+	@Override
+	public void filter(ClientRequestContext requestContext) throws IOException {
+		if ( isApplicable(requestContext) ) {
+			requestContext.setProperty(PROPERTY_APPLICABLE, Boolean.TRUE);
+			RevalidationEntry entry = store.get(requestContext.getUri());
+			if ( entry != null ) {
+				requestContext.setProperty(PROPERTY_ENTRY, entry);
+				if ( entry.getEtag() != null ) {
+					requestContext.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+				}
+				if ( entry.getLastModified() != null ) {
+					requestContext.getHeaders().putSingle(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+				}
+			}
+		}
+	}
+	
+	@Override
+	public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+		if ( Boolean.TRUE.equals(requestContext.getProperty(PROPERTY_APPLICABLE)) ) {
+			RevalidationEntry entry = (RevalidationEntry)requestContext.getProperty(PROPERTY_ENTRY);
+			if ( entry != null && responseContext.getStatus() == Status.NOT_MODIFIED.getStatusCode() ) {
+				serveStoredEntry(responseContext, entry);
+			} else if ( responseContext.getStatus() == Status.OK.getStatusCode() && isStorable(responseContext) ) {
+				storeEntry(requestContext, responseContext);
+			}
+		}
+	}
+	
+	/**
+	 * Conditional requests are only applicable to GET requests for which the 
+	 * caller didn't already specify any conditional headers.
+	 */
+	private boolean isApplicable(ClientRequestContext requestContext) {
+		return HttpMethod.GET.equals(requestContext.getMethod()) 
+				&& !requestContext.getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH)
+				&& !requestContext.getHeaders().containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+	}
+	
+	private boolean isStorable(ClientResponseContext responseContext) {
+		String cacheControl = responseContext.getHeaderString(HttpHeaders.CACHE_CONTROL);
+		return responseContext.hasEntity()
+				&& (responseContext.getHeaderString(HttpHeaders.ETAG) != null || responseContext.getHeaderString(HttpHeaders.LAST_MODIFIED) != null)
+				&& (cacheControl == null || !cacheControl.toLowerCase().contains("no-store"));
+	}
+	
+	private void serveStoredEntry(ClientResponseContext responseContext, RevalidationEntry entry) throws IOException {
+		responseContext.getEntityStream().close();
+		responseContext.setStatus(Status.OK.getStatusCode());
+		if ( entry.getContentType() != null ) {
+			responseContext.getHeaders().putSingle(HttpHeaders.CONTENT_TYPE, entry.getContentType());
+		}
+		responseContext.getHeaders().putSingle(HttpHeaders.CONTENT_LENGTH, String.valueOf(entry.getBody().length));
+		responseContext.setEntityStream(new ByteArrayInputStream(entry.getBody()));
+	}
+	
+	private void storeEntry(ClientRequestContext requestContext, ClientResponseContext responseContext) throws IOException {
+		byte[] body;
+		try ( InputStream in = responseContext.getEntityStream() ) {
+			body = StreamUtils.copyToByteArray(in);
+		}
+		responseContext.setEntityStream(new ByteArrayInputStream(body));
+		store.put(requestContext.getUri(), new RevalidationEntry(
+				responseContext.getHeaderString(HttpHeaders.ETAG), 
+				responseContext.getHeaderString(HttpHeaders.LAST_MODIFIED), 
+				responseContext.getHeaderString(HttpHeaders.CONTENT_TYPE), 
+				body));
+	}
+}
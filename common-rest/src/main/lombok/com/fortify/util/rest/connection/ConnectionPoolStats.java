@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import lombok.Data;
+
+/**
+ * This class holds connection pool statistics for an {@link AbstractRestConnection}
+ * instance, as returned by {@link AbstractRestConnection#getConnectionPoolStats()}.
+ * This allows for sizing connection pools using the various connection pool settings
+ * on {@link AbstractRestConnectionConfig}.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Data
+public final class ConnectionPoolStats {
+	/** Number of connections currently being used to execute requests */
+	private final int leased;
+	/** Number of idle connections that are available for executing requests */
+	private final int available;
+	/** Number of requests that are waiting for a connection to become available */
+	private final int pending;
+	/** Maximum number of connections in the pool */
+	private final int max;
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.util.DigestUtils;
+
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * {@link IRevalidationStore} implementation that stores each {@link RevalidationEntry} 
+ * in a separate file in a given directory, allowing validators and response bodies to be 
+ * re-used across JVM invocations, for example by polling jobs that run periodically. 
+ * Entries are never evicted; clients are responsible for cleaning up the directory if 
+ * necessary. As stored response bodies may contain sensitive data, the directory should 
+ * only be accessible by the current user, and should not be shared between connections
+ * that use different credentials.
+ * 
+ * @author Ruud Senden
+ *
+ */
+@CommonsLog
+public final class FileSystemRevalidationStore implements IRevalidationStore {
+	private final Path directory;
+	
+	/**
+	 * Create a {@link FileSystemRevalidationStore} instance that stores entries in the given directory,
+	 * creating the directory if it doesn't exist yet
+	 * @param directory in which to store entries
+	 */
+	public FileSystemRevalidationStore(Path directory) {
+		try {
+			this.directory = Files.createDirectories(directory);
+		} catch ( IOException e ) {
+			throw new RuntimeException("Error creating revalidation store directory "+directory, e);
+		}
+	}
+	
+	@Override
+	public RevalidationEntry get(URI uri) {
+		Path file = getFile(uri);
+		try ( DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))) ) {
+			if ( !uri.toString().equals(in.readUTF()) ) {
+				return null;
+			}
+			String etag = readNullableString(in);
+			String lastModified = readNullableString(in);
+			String contentType = readNullableString(in);
+			byte[] body = new byte[in.readInt()];
+			in.readFully(body);
+			return new RevalidationEntry(etag, lastModified, contentType, body);
+		} catch ( NoSuchFileException e ) {
+			return null;
+		} catch ( IOException e ) {
+			log.warn("Error reading revalidation entry from "+file+", ignoring", e);
+			return null;
+		}
+	}
+	
+	@Override
+	public void put(URI uri, RevalidationEntry entry) {
+		Path file = getFile(uri);
+		Path tempFile = null;
+		try {
+			tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile))) ) {
+				out.writeUTF(uri.toString());
+				writeNullableString(out, entry.getEtag());
+				writeNullableString(out, entry.getLastModified());
+				writeNullableString(out, entry.getContentType());
+				out.writeInt(entry.getBody().length);
+				out.write(entry.getBody());
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch ( IOException e ) {
+			log.warn("Error writing revalidation entry to "+file+", ignoring", e);
+			if ( tempFile != null ) {
+				try { Files.deleteIfExists(tempFile); } catch ( IOException ignore ) {}
+			}
+		}
+	}
+	
+	private Path getFile(URI uri) {
+		return directory.resolve(DigestUtils.md5DigestAsHex(uri.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if ( value != null ) { out.writeUTF(value); }
+	}
+	
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -25,6 +25,7 @@
 package com.fortify.util.rest.connection;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation.Builder;
@@ -45,4 +46,47 @@ public interface IRestConnection extends AutoCloseable {
 	public abstract WebTarget getResource(String url);
 	public abstract String getConnectionId();
 	public abstract void close();
+	
+	/**
+	 * Asynchronously execute the given request. This default implementation simply
+	 * executes {@link #executeRequest(String, Builder, Entity, Class)} using
+	 * {@link CompletableFuture#supplyAsync(java.util.function.Supplier)}.
+	 */
+	public default <T> CompletableFuture<T> executeRequestAsync(String httpMethod, Builder builder, Entity<?> entity, Class<T> returnType) {
+		return CompletableFuture.supplyAsync(() -> executeRequest(httpMethod, builder, entity, returnType));
+	}
+	
+	/**
+	 * Asynchronously execute the given request. This default implementation simply
+	 * executes {@link #executeRequest(String, WebTarget, Class)} using
+	 * {@link CompletableFuture#supplyAsync(java.util.function.Supplier)}.
+	 */
+	public default <T> CompletableFuture<T> executeRequestAsync(String httpMethod, WebTarget webResource, Class<T> returnType) {
+		return CompletableFuture.supplyAsync(() -> executeRequest(httpMethod, webResource, returnType));
+	}
+	
+	/**
+	 * Asynchronously execute the given request. This default implementation simply
+	 * executes {@link #executeRequest(String, WebTarget, Entity, Class)} using
+	 * {@link CompletableFuture#supplyAsync(java.util.function.Supplier)}.
+	 */
+	public default <T> CompletableFuture<T> executeRequestAsync(String httpMethod, WebTarget webResource, Entity<?> entity, Class<T> returnType) {
+		return CompletableFuture.supplyAsync(() -> executeRequest(httpMethod, webResource, entity, returnType));
+	}
+	
+	/**
+	 * @return true if this connection may be used by multiple threads concurrently,
+	 *         false (default) otherwise
+	 */
+	public default boolean isMultiThreaded() {
+		return false;
+	}
+	
+	/**
+	 * @return {@link ResponseCache} shared by queries executed through this connection, 
+	 *         or null (default) if response caching is not enabled
+	 */
+	public default ResponseCache getResponseCache() {
+		return null;
+	}
 }
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.net.URI;
+
+/**
+ * This interface defines a store for response validators (ETag, Last-Modified) and corresponding 
+ * response bodies, as used by {@link ConditionalRequestFilter} to send conditional GET requests and 
+ * to serve the stored response body if the server responds with 304 Not Modified. Implementations 
+ * must be thread-safe. Standard implementations are provided by {@link InMemoryRevalidationStore}
+ * and {@link FileSystemRevalidationStore}.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public interface IRevalidationStore {
+	/**
+	 * @param uri Request URI
+	 * @return {@link RevalidationEntry} for the given URI, or null if not available
+	 */
+	public RevalidationEntry get(URI uri);
+	
+	/**
+	 * Store the given {@link RevalidationEntry} for the given URI, replacing any existing entry
+	 * @param uri Request URI
+	 * @param entry {@link RevalidationEntry} to be stored
+	 */
+	public void put(URI uri, RevalidationEntry entry);
+}
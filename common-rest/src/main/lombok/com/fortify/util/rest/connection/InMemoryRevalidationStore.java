@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link IRevalidationStore} implementation that keeps up to a configurable number of 
+ * {@link RevalidationEntry} instances in memory, evicting the least recently used entry
+ * if this maximum is exceeded.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class InMemoryRevalidationStore implements IRevalidationStore {
+	private final Map<URI, RevalidationEntry> entries;
+	
+	/**
+	 * Create an {@link InMemoryRevalidationStore} instance that holds at most the given number of entries
+	 * @param maxEntries Maximum number of entries
+	 */
+	public InMemoryRevalidationStore(final int maxEntries) {
+		this.entries = new LinkedHashMap<URI, RevalidationEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<URI, RevalidationEntry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+	
+	@Override
+	public RevalidationEntry get(URI uri) {
+		synchronized (entries) {
+			return entries.get(uri);
+		}
+	}
+	
+	@Override
+	public void put(URI uri, RevalidationEntry entry) {
+		synchronized (entries) {
+			entries.put(uri, entry);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * This class holds an access token obtained from a token endpoint, for use by
+ * token factories. The current token is published through a volatile field,
+ * so callers can read a valid token without any locking. Only if there is no
+ * token yet, or if the current token has actually expired, callers will block
+ * while a new token is being requested.
+ * 
+ * Optionally, a refresh-ahead interval can be configured through 
+ * {@link #refreshAheadMillis(long)}. If configured, a background thread
+ * will request a new token the given number of milliseconds before the 
+ * current token expires, such that callers never need to wait for a token
+ * refresh during normal operation. The new token is requested without
+ * holding any locks, so callers can continue using the current token while
+ * the refresh is in progress. If such a background refresh fails, the 
+ * current token will be used until it expires, after which the next 
+ * caller will refresh the token. Tokens replaced by a background refresh
+ * may still be in use by in-flight requests, so these are left to expire
+ * naturally. Token factories can configure a handler through 
+ * {@link #unusedTokenHandler(Consumer)} for revoking tokens that were
+ * requested in the background but never published.
+ * 
+ * @author Ruud Senden
+ *
+ * @param <T> Type of the token data held by this instance
+ */
+public final class RefreshingTokenHolder<T> implements Closeable {
+	private static final Log LOG = LogFactory.getLog(RefreshingTokenHolder.class);
+	private final Object lock = new Object();
+	private final Supplier<T> tokenLoader;
+	private final ToLongFunction<T> expiresAtFunction;
+	private String logPrefix = "";
+	private long refreshAheadMillis = 0;
+	private Consumer<T> unusedTokenHandler = null;
+	private ScheduledExecutorService scheduler = null;
+	private volatile boolean closed = false;
+	private volatile T token = null;
+	
+	/**
+	 * Create a new {@link RefreshingTokenHolder} instance.
+	 * @param tokenLoader is invoked to request a new token
+	 * @param expiresAtFunction returns the time in milliseconds since epoch at which the given token expires
+	 */
+	public RefreshingTokenHolder(Supplier<T> tokenLoader, ToLongFunction<T> expiresAtFunction) {
+		this.tokenLoader = tokenLoader;
+		this.expiresAtFunction = expiresAtFunction;
+	}
+	
+	public RefreshingTokenHolder<T> logPrefix(String logPrefix) {
+		this.logPrefix = logPrefix+" ";
+		return this;
+	}
+	
+	/**
+	 * Configure the number of milliseconds before token expiry at which the token 
+	 * should be refreshed in the background. Refresh-ahead is disabled if this is
+	 * 0 or negative (default).
+	 * @param refreshAheadMillis number of milliseconds
+	 * @return Self for chaining
+	 */
+	public RefreshingTokenHolder<T> refreshAheadMillis(long refreshAheadMillis) {
+		this.refreshAheadMillis = refreshAheadMillis;
+		return this;
+	}
+	
+	/**
+	 * Configure a handler that is invoked with every token that was requested by
+	 * a background refresh but never published, for example for revoking that 
+	 * token. This happens if this instance was closed or cleared, or the previous 
+	 * token was replaced by a concurrent refresh, while the new token was being 
+	 * requested. The handler is invoked on the background refresh thread, without 
+	 * holding any locks. Tokens that have been published are never passed to this 
+	 * handler, as these may still be in use by in-flight requests.
+	 * @param unusedTokenHandler {@link Consumer} for handling unused tokens
+	 * @return Self for chaining
+	 */
+	public RefreshingTokenHolder<T> unusedTokenHandler(Consumer<T> unusedTokenHandler) {
+		this.unusedTokenHandler = unusedTokenHandler;
+		return this;
+	}
+	
+	/**
+	 * Get a valid token, requesting a new token if there is no current
+	 * token or if the current token has expired. This method is thread-safe;
+	 * no locking is involved if the current token is still valid.
+	 * @return Valid token
+	 * @throws IllegalStateException if this instance has been closed
+	 */
+	public T get() {
+		checkNotClosed();
+		T result = token;
+		if ( !isValid(result) ) {
+			synchronized (lock) {
+				checkNotClosed();
+				result = token;
+				if ( !isValid(result) ) {
+					result = refresh();
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Clear the current token without requesting a new token, for
+	 * example for revoking the current token. A new token will be
+	 * requested upon the next call to {@link #get()}.
+	 * @return Cleared token, or null if there was no current token
+	 */
+	public T clear() {
+		synchronized (lock) {
+			T result = token;
+			token = null;
+			return result;
+		}
+	}
+	
+	/**
+	 * Stop any background token refresh. This doesn't revoke the
+	 * current token; token factories can use {@link #clear()}
+	 * to revoke the current token if necessary. Once closed, 
+	 * {@link #get()} no longer returns or requests any tokens.
+	 */
+	@Override
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			if ( scheduler != null ) {
+				scheduler.shutdownNow();
+				scheduler = null;
+			}
+		}
+	}
+	
+	private void checkNotClosed() {
+		if ( closed ) {
+			throw new IllegalStateException(logPrefix+"Access token holder has been closed");
+		}
+	}
+	
+	private boolean isValid(T token) {
+		return token != null && System.currentTimeMillis() <= expiresAtFunction.applyAsLong(token);
+	}
+	
+	/**
+	 * Request a new token, publish it and schedule the next background
+	 * refresh if applicable. Callers must hold the lock.
+	 */
+	private T refresh() {
+		T result = tokenLoader.get();
+		publish(result);
+		return result;
+	}
+	
+	/**
+	 * Publish the given token and schedule the next background refresh
+	 * if applicable. Callers must hold the lock.
+	 */
+	private void publish(T newToken) {
+		token = newToken;
+		scheduleRefresh(newToken);
+	}
+	
+	/**
+	 * Schedule a background refresh for the given token, if refresh-ahead
+	 * is enabled. If the remaining token lifetime is shorter than the 
+	 * refresh-ahead interval, the refresh is scheduled halfway the remaining
+	 * lifetime to avoid continuously requesting new tokens.
+	 */
+	private void scheduleRefresh(T newToken) {
+		if ( refreshAheadMillis > 0 && !closed ) {
+			long remainingMillis = expiresAtFunction.applyAsLong(newToken) - System.currentTimeMillis();
+			if ( remainingMillis > 0 ) {
+				long delayMillis = remainingMillis > refreshAheadMillis ? remainingMillis - refreshAheadMillis : remainingMillis/2;
+				getScheduler().schedule(() -> refreshAhead(newToken), delayMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+	
+	/**
+	 * Refresh the given token in the background, unless this instance has been
+	 * closed or the token has already been replaced in the meantime. The new 
+	 * token is requested outside of the lock, and only published if the given 
+	 * token is still current at that time; otherwise it is passed to the 
+	 * configured unused token handler.
+	 */
+	private void refreshAhead(T scheduledToken) {
+		if ( !isCurrent(scheduledToken) ) { return; }
+		T newToken;
+		try {
+			newToken = tokenLoader.get();
+		} catch ( RuntimeException e ) {
+			LOG.warn(logPrefix+"Error refreshing access token in background, current token will be refreshed on expiry");
+			LOG.debug("Background token refresh exception details", e);
+			return;
+		}
+		synchronized (lock) {
+			if ( !closed && token == scheduledToken ) {
+				publish(newToken);
+				return;
+			}
+		}
+		handleUnusedToken(newToken);
+	}
+	
+	private boolean isCurrent(T scheduledToken) {
+		synchronized (lock) {
+			return !closed && token == scheduledToken;
+		}
+	}
+	
+	private void handleUnusedToken(T unusedToken) {
+		if ( unusedTokenHandler != null ) {
+			try {
+				unusedTokenHandler.accept(unusedToken);
+			} catch ( RuntimeException e ) {
+				LOG.warn(logPrefix+"Error handling unused access token");
+				LOG.debug("Unused token handler exception details", e);
+			}
+		}
+	}
+	
+	private ScheduledExecutorService getScheduler() {
+		if ( scheduler == null ) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "fortify-client-api-token-refresh");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return scheduler;
+	}
+}
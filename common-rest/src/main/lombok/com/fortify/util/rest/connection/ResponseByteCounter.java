@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+
+/**
+ * This {@link ReaderInterceptor} implementation counts the number of bytes
+ * read from each response entity. As response entities are read on the thread
+ * that executed the request, the number of bytes read for the last response
+ * entity on the current thread can be retrieved using {@link #getLastResponseBytes()}.
+ * This is for example used by {@link com.fortify.util.rest.query.AdaptivePageSizePolicy}
+ * to adjust page sizes based on response size. {@link AbstractRestConnection} registers
+ * this interceptor on every client it creates.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class ResponseByteCounter implements ReaderInterceptor {
+	private static final ThreadLocal<Long> LAST_RESPONSE_BYTES = new ThreadLocal<>();
+	
+	@Override
+	public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+		CountingInputStream is = new CountingInputStream(context.getInputStream());
+		context.setInputStream(is);
+		try {
+			return context.proceed();
+		} finally {
+			LAST_RESPONSE_BYTES.set(is.getCount());
+		}
+	}
+	
+	/**
+	 * Reset the number of bytes read on the current thread, to be
+	 * called before executing a request for which the response size 
+	 * should be determined.
+	 */
+	public static void reset() {
+		LAST_RESPONSE_BYTES.remove();
+	}
+	
+	/**
+	 * @return Number of bytes read for the last response entity on the current thread,
+	 *         or -1 if no response entity has been read since the last call to {@link #reset()}
+	 */
+	public static long getLastResponseBytes() {
+		Long result = LAST_RESPONSE_BYTES.get();
+		return result==null ? -1 : result;
+	}
+	
+	/**
+	 * {@link FilterInputStream} implementation that counts the number of bytes read.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+		private long count = 0;
+		
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+			if ( result != -1 ) { count++; }
+			return result;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = super.read(b, off, len);
+			if ( result > 0 ) { count += result; }
+			return result;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long result = super.skip(n);
+			count += result;
+			return result;
+		}
+		
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+		
+		long getCount() {
+			return count;
+		}
+	}
+}
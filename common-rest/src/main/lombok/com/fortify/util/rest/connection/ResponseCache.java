@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+
+/**
+ * <p>This class implements a simple, size-bounded LRU cache for response bodies, 
+ * keyed by HTTP method and fully resolved request URI. Each {@link AbstractRestConnection}
+ * instance owns a single {@link ResponseCache} instance, which is used by queries that have 
+ * been configured with a {@link ResponseCachePolicy}, and by embedders that have been configured
+ * with a cache time-to-live.</p>
+ * 
+ * <p>Responses are cached as raw bytes, such that every cache hit results in a newly 
+ * deserialized response object; callers can freely modify the returned objects without
+ * affecting other users of the cache. Whether a cached response is still fresh is determined 
+ * by the time-to-live passed by the caller, allowing different endpoints to use different 
+ * time-to-live settings. All methods are thread-safe; concurrent requests for the same URI
+ * that both miss the cache will both load the response.</p>
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class ResponseCache {
+	@Getter private final int maxEntries;
+	private final Map<String, CachedResponse> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	
+	/**
+	 * Create a {@link ResponseCache} instance that holds at most the given number of entries
+	 * @param maxEntries Maximum number of entries; if exceeded, the least recently used entry is evicted
+	 */
+	public ResponseCache(int maxEntries) {
+		if ( maxEntries <= 0 ) {
+			throw new IllegalArgumentException("Maximum number of response cache entries must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > ResponseCache.this.maxEntries;
+			}
+		};
+	}
+	
+	/**
+	 * Get the response body for the given HTTP method and URI from the cache if available
+	 * and not older than the given time-to-live, otherwise load the response body using the
+	 * given loader and store it in the cache.
+	 * @param httpMethod HTTP method of the request
+	 * @param uri Fully resolved request URI
+	 * @param timeToLiveMillis Maximum age in milliseconds of a cached response body
+	 * @param loader {@link Supplier} for loading the response body if not available in the cache
+	 * @return Response body, either from the cache or from the given loader
+	 */
+	public byte[] get(String httpMethod, URI uri, long timeToLiveMillis, Supplier<byte[]> loader) {
+		byte[] body = getIfFresh(httpMethod, uri, timeToLiveMillis);
+		if ( body == null ) {
+			body = loader.get();
+			if ( body == null ) { body = new byte[0]; }
+			put(httpMethod, uri, body);
+		}
+		return body;
+	}
+	
+	/**
+	 * Get the response body for the given HTTP method and URI from the cache if available
+	 * and not older than the given time-to-live. This is useful for callers that load
+	 * responses in some other way than a single request per URI, for example in batches. 
+	 * @param httpMethod HTTP method of the request
+	 * @param uri Fully resolved request URI
+	 * @param timeToLiveMillis Maximum age in milliseconds of a cached response body
+	 * @return Cached response body, or null if not available in the cache
+	 */
+	public byte[] getIfFresh(String httpMethod, URI uri, long timeToLiveMillis) {
+		String key = getKey(httpMethod, uri);
+		long now = System.nanoTime();
+		synchronized (entries) {
+			CachedResponse cached = entries.get(key);
+			if ( cached != null ) {
+				if ( now - cached.getCreatedNanos() < TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis) ) {
+					hits.increment();
+					return cached.getBody();
+				}
+				entries.remove(key);
+			}
+		}
+		misses.increment();
+		return null;
+	}
+	
+	/**
+	 * Store the given response body for the given HTTP method and URI in the cache,
+	 * replacing any previously cached response body for the same request.
+	 * @param httpMethod HTTP method of the request
+	 * @param uri Fully resolved request URI
+	 * @param body Response body to be cached
+	 */
+	public void put(String httpMethod, URI uri, byte[] body) {
+		String key = getKey(httpMethod, uri);
+		synchronized (entries) {
+			entries.put(key, new CachedResponse(body, System.nanoTime()));
+		}
+	}
+	
+	private String getKey(String httpMethod, URI uri) {
+		return httpMethod+" "+uri;
+	}
+	
+	/**
+	 * Remove all entries from this cache
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+	
+	/**
+	 * @return Current number of entries in this cache
+	 */
+	public int getSize() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+	
+	/**
+	 * @return Number of requests that were served from this cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+	
+	/**
+	 * @return Number of requests that could not be served from this cache
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return "ResponseCache(size="+getSize()+", maxEntries="+maxEntries+", hits="+getHitCount()+", misses="+getMissCount()+")";
+	}
+	
+	@Getter
+	private static final class CachedResponse {
+		private final byte[] body;
+		private final long createdNanos;
+		
+		private CachedResponse(byte[] body, long createdNanos) {
+			this.body = body;
+			this.createdNanos = createdNanos;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.connection;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.HttpMethod;
+
+import lombok.Data;
+
+/**
+ * <p>This immutable class defines which responses may be served from the {@link ResponseCache}
+ * of a connection, and for how long. Policies are usually configured on individual query builders,
+ * for example using <code>ResponseCachePolicy.timeToLive(10, TimeUnit.MINUTES)</code> for 
+ * queries that load rarely changing reference data. Different time-to-live values for 
+ * individual endpoints can be configured using {@link #withTimeToLive(String, long, TimeUnit)}.</p>
+ * 
+ * <p>Only GET requests are ever cached.</p>
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class ResponseCachePolicy {
+	private final long defaultTimeToLiveMillis;
+	private final List<PathTimeToLive> pathTimeToLives;
+	
+	private ResponseCachePolicy(long defaultTimeToLiveMillis, List<PathTimeToLive> pathTimeToLives) {
+		this.defaultTimeToLiveMillis = defaultTimeToLiveMillis;
+		this.pathTimeToLives = pathTimeToLives;
+	}
+	
+	/**
+	 * Create a {@link ResponseCachePolicy} that allows all GET responses to be
+	 * served from the cache for the given duration.
+	 * @param duration Time-to-live for cached responses
+	 * @param unit {@link TimeUnit} for the given duration
+	 * @return New {@link ResponseCachePolicy} instance
+	 */
+	public static final ResponseCachePolicy timeToLive(long duration, TimeUnit unit) {
+		return new ResponseCachePolicy(unit.toMillis(duration), Collections.emptyList());
+	}
+	
+	/**
+	 * Create a new {@link ResponseCachePolicy} based on the current policy, using the given
+	 * time-to-live for requests with a URI path that matches the given regular expression.
+	 * Path-specific settings are evaluated in the order they have been added, falling back
+	 * to the default time-to-live if none of the path expressions match. A time-to-live of
+	 * zero disables caching for matching paths.
+	 * @param pathRegex Regular expression to be matched against the request URI path
+	 * @param duration Time-to-live for cached responses with a matching URI path
+	 * @param unit {@link TimeUnit} for the given duration
+	 * @return New {@link ResponseCachePolicy} instance
+	 */
+	public ResponseCachePolicy withTimeToLive(String pathRegex, long duration, TimeUnit unit) {
+		List<PathTimeToLive> newPathTimeToLives = new ArrayList<>(pathTimeToLives);
+		newPathTimeToLives.add(new PathTimeToLive(Pattern.compile(pathRegex), unit.toMillis(duration)));
+		return new ResponseCachePolicy(defaultTimeToLiveMillis, Collections.unmodifiableList(newPathTimeToLives));
+	}
+	
+	/**
+	 * Get the time-to-live for the given request.
+	 * @param httpMethod HTTP method of the request
+	 * @param uri Fully resolved request URI
+	 * @return Time-to-live in milliseconds, or 0 if the response should not be cached
+	 */
+	public long getTimeToLiveMillis(String httpMethod, URI uri) {
+		if ( !HttpMethod.GET.equals(httpMethod) ) {
+			return 0;
+		}
+		String path = uri.getPath();
+		for ( PathTimeToLive pathTimeToLive : pathTimeToLives ) {
+			if ( path != null && pathTimeToLive.getPathPattern().matcher(path).matches() ) {
+				return pathTimeToLive.getTimeToLiveMillis();
+			}
+		}
+		return defaultTimeToLiveMillis;
+	}
+	
+	@Data
+	private static final class PathTimeToLive {
+		private final Pattern pathPattern;
+		private final long timeToLiveMillis;
+	}
+}
@@ -0,0 +1,463 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * This package-private class provides a memory-efficient {@link JSONMap} 
+ * implementation for large numbers of JSON objects with identical keys,
+ * like the records on a page of SSC issues or FoD vulnerabilities. Instead
+ * of storing an entry object and key reference for every value, keys are
+ * stored once in a {@link JSONMapShape} that is shared by all instances with 
+ * the same keys, and values are stored in a flat array. Instances of this 
+ * class are created by the {@link JSONObjectMapperSupplier} {@link com.fasterxml.jackson.databind.ObjectMapper}
+ * if {@link JSONObjectMapperSupplier.DeserializationFeature#COMPACT_JSON_MAPS}
+ * is enabled.
+ * 
+ * If a key cannot be added to the current shape (for example if shape limits
+ * have been reached, or when adding a null key), this instance falls back to 
+ * the standard {@link java.util.LinkedHashMap} storage provided by the 
+ * super class. All {@link Map} methods provide the same semantics as 
+ * {@link JSONMap}, including on-demand loading of values and key ordering,
+ * except for the sequenced map methods introduced in Java 21.
+ * 
+ * @author Ruud Senden
+ *
+ */
+final class CompactJSONMap extends JSONMap {
+	private static final long serialVersionUID = 1L;
+	private static final Object[] EMPTY_VALUES = new Object[0];
+	private static final int MIN_CAPACITY = 4;
+	/** Shape describing the keys of this map, or null if this map is using super class storage */
+	private transient JSONMapShape shape = JSONMapShape.EMPTY;
+	private transient Object[] values = EMPTY_VALUES;
+	/** Incremented on every structural modification, for fail-fast iterators */
+	private transient int version = 0;
+	
+	CompactJSONMap() {
+		super();
+	}
+	
+	@Override
+	public int size() {
+		return shape==null ? super.size() : shape.size();
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return size()==0;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return shape==null ? super.containsKey(key) : shape.indexOf(key)>=0;
+	}
+	
+	@Override
+	public boolean containsValue(Object value) {
+		if ( shape==null ) { return super.containsValue(value); }
+		for ( int i = 0 ; i < shape.size() ; i++ ) {
+			if ( Objects.equals(value, values[i]) ) { return true; }
+		}
+		return false;
+	}
+	
+	@Override
+	public Object get(Object key) {
+		return shape==null ? super.get(key) : getOnDemandValue(key, getRaw(key, null));
+	}
+	
+	@Override
+	public Object getOrDefault(Object key, Object defaultValue) {
+		return shape==null ? super.getOrDefault(key, defaultValue) : getOnDemandValue(key, getRaw(key, defaultValue));
+	}
+	
+	@Override
+	public Object put(String key, Object value) {
+		if ( shape==null ) { return super.put(key, value); }
+		int index = shape.indexOf(key);
+		if ( index>=0 ) {
+			Object oldValue = values[index];
+			values[index] = value;
+			return oldValue;
+		}
+		JSONMapShape newShape = key==null ? null : shape.with(key);
+		if ( newShape==null ) {
+			inflate();
+			return super.put(key, value);
+		}
+		int size = shape.size();
+		if ( size==values.length ) {
+			values = Arrays.copyOf(values, Math.max(MIN_CAPACITY, size*2));
+		}
+		values[size] = value;
+		shape = newShape;
+		version++;
+		return null;
+	}
+	
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> m) {
+		if ( shape==null ) { super.putAll(m); return; }
+		for ( Map.Entry<? extends String, ? extends Object> entry : m.entrySet() ) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	@Override
+	public Object remove(Object key) {
+		if ( shape==null ) { return super.remove(key); }
+		int index = shape.indexOf(key);
+		return index<0 ? null : removeAt(index);
+	}
+	
+	@Override
+	public boolean remove(Object key, Object value) {
+		if ( shape==null ) { return super.remove(key, value); }
+		int index = shape.indexOf(key);
+		if ( index>=0 && Objects.equals(values[index], value) ) {
+			removeAt(index);
+			return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public void clear() {
+		if ( shape==null ) { super.clear(); return; }
+		shape = JSONMapShape.EMPTY;
+		values = EMPTY_VALUES;
+		version++;
+	}
+	
+	@Override
+	public Object putIfAbsent(String key, Object value) {
+		if ( shape==null ) { return super.putIfAbsent(key, value); }
+		Object oldValue = getRaw(key, null);
+		if ( oldValue==null ) { put(key, value); }
+		return oldValue;
+	}
+	
+	@Override
+	public boolean replace(String key, Object oldValue, Object newValue) {
+		if ( shape==null ) { return super.replace(key, oldValue, newValue); }
+		int index = shape.indexOf(key);
+		if ( index>=0 && Objects.equals(values[index], oldValue) ) {
+			values[index] = newValue;
+			return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public Object replace(String key, Object value) {
+		if ( shape==null ) { return super.replace(key, value); }
+		int index = shape.indexOf(key);
+		if ( index<0 ) { return null; }
+		Object oldValue = values[index];
+		values[index] = value;
+		return oldValue;
+	}
+	
+	@Override
+	public Object computeIfAbsent(String key, Function<? super String, ? extends Object> mappingFunction) {
+		if ( shape==null ) { return super.computeIfAbsent(key, mappingFunction); }
+		Object oldValue = getRaw(key, null);
+		if ( oldValue!=null ) { return oldValue; }
+		Object newValue = mappingFunction.apply(key);
+		if ( newValue!=null ) { put(key, newValue); }
+		return newValue;
+	}
+	
+	@Override
+	public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		if ( shape==null ) { return super.computeIfPresent(key, remappingFunction); }
+		Object oldValue = getRaw(key, null);
+		if ( oldValue==null ) { return null; }
+		return putOrRemove(key, remappingFunction.apply(key, oldValue));
+	}
+	
+	@Override
+	public Object compute(String key, BiFunction<? super String, ? super Object, ? extends Object> remappingFunction) {
+		if ( shape==null ) { return super.compute(key, remappingFunction); }
+		return putOrRemove(key, remappingFunction.apply(key, getRaw(key, null)));
+	}
+	
+	@Override
+	public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ? extends Object> remappingFunction) {
+		if ( shape==null ) { return super.merge(key, value, remappingFunction); }
+		Objects.requireNonNull(value);
+		Object oldValue = getRaw(key, null);
+		return putOrRemove(key, oldValue==null ? value : remappingFunction.apply(oldValue, value));
+	}
+	
+	@Override
+	public void forEach(BiConsumer<? super String, ? super Object> action) {
+		if ( shape==null ) { super.forEach(action); return; }
+		int expectedVersion = version;
+		JSONMapShape currentShape = shape;
+		for ( int i = 0 ; i < currentShape.size() ; i++ ) {
+			action.accept(currentShape.getKey(i), values[i]);
+			if ( version!=expectedVersion ) { throw new ConcurrentModificationException(); }
+		}
+	}
+	
+	@Override
+	public void replaceAll(BiFunction<? super String, ? super Object, ? extends Object> function) {
+		if ( shape==null ) { super.replaceAll(function); return; }
+		int expectedVersion = version;
+		JSONMapShape currentShape = shape;
+		for ( int i = 0 ; i < currentShape.size() ; i++ ) {
+			Object newValue = function.apply(currentShape.getKey(i), values[i]);
+			if ( version!=expectedVersion ) { throw new ConcurrentModificationException(); }
+			values[i] = newValue;
+		}
+	}
+	
+	@Override
+	public Set<String> keySet() {
+		return new KeySet();
+	}
+	
+	@Override
+	public Collection<Object> values() {
+		return new Values();
+	}
+	
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		return new EntrySet();
+	}
+	
+	@Override
+	public Object clone() {
+		if ( shape==null ) { return super.clone(); }
+		CompactJSONMap result = new CompactJSONMap();
+		result.shape = shape;
+		result.values = Arrays.copyOf(values, shape.size());
+		return result;
+	}
+	
+	/**
+	 * Serialize as a standard {@link JSONMap} instance.
+	 */
+	private Object writeReplace() {
+		return new JSONMap(this);
+	}
+	
+	private Object getRaw(Object key, Object defaultValue) {
+		int index = shape.indexOf(key);
+		return index<0 ? defaultValue : values[index];
+	}
+	
+	private Object putOrRemove(String key, Object newValue) {
+		if ( newValue==null ) {
+			remove(key);
+		} else {
+			put(key, newValue);
+		}
+		return newValue;
+	}
+	
+	private Object removeAt(int index) {
+		Object oldValue = values[index];
+		int size = shape.size();
+		System.arraycopy(values, index+1, values, index, size-index-1);
+		values[size-1] = null;
+		shape = shape.without(index);
+		version++;
+		return oldValue;
+	}
+	
+	/**
+	 * Switch to the standard {@link java.util.LinkedHashMap} storage 
+	 * provided by the super class.
+	 */
+	private void inflate() {
+		JSONMapShape oldShape = shape;
+		Object[] oldValues = values;
+		shape = null;
+		values = null;
+		version++;
+		for ( int i = 0 ; i < oldShape.size() ; i++ ) {
+			super.put(oldShape.getKey(i), oldValues[i]);
+		}
+	}
+	
+	/**
+	 * Fail-fast iterator over the compact storage of this map.
+	 */
+	private abstract class CompactIterator<T> implements Iterator<T> {
+		private int next = 0;
+		private int last = -1;
+		private int expectedVersion = version;
+		
+		@Override
+		public boolean hasNext() {
+			return shape!=null && next < shape.size();
+		}
+		
+		@Override
+		public T next() {
+			checkForComodification();
+			if ( next >= shape.size() ) { throw new NoSuchElementException(); }
+			last = next++;
+			return get(last);
+		}
+		
+		@Override
+		public void remove() {
+			if ( last<0 ) { throw new IllegalStateException(); }
+			checkForComodification();
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedVersion = version;
+		}
+		
+		private void checkForComodification() {
+			if ( shape==null || version!=expectedVersion ) { throw new ConcurrentModificationException(); }
+		}
+		
+		protected abstract T get(int index);
+	}
+	
+	/**
+	 * Entry that writes updated values through to this map.
+	 */
+	private final class Entry extends AbstractMap.SimpleEntry<String, Object> {
+		private static final long serialVersionUID = 1L;
+
+		public Entry(String key, Object value) {
+			super(key, value);
+		}
+		
+		@Override
+		public Object setValue(Object value) {
+			super.setValue(value);
+			return put(getKey(), value);
+		}
+	}
+	
+	private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+		@Override
+		public Iterator<Map.Entry<String, Object>> iterator() {
+			if ( shape==null ) { return CompactJSONMap.super.entrySet().iterator(); }
+			return new CompactIterator<Map.Entry<String, Object>>() {
+				@Override
+				protected Map.Entry<String, Object> get(int index) {
+					return new Entry(shape.getKey(index), values[index]);
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return CompactJSONMap.this.size();
+		}
+		
+		@Override
+		public void clear() {
+			CompactJSONMap.this.clear();
+		}
+	}
+	
+	private final class KeySet extends AbstractSet<String> {
+		@Override
+		public Iterator<String> iterator() {
+			if ( shape==null ) { return CompactJSONMap.super.keySet().iterator(); }
+			return new CompactIterator<String>() {
+				@Override
+				protected String get(int index) {
+					return shape.getKey(index);
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return CompactJSONMap.this.size();
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+		
+		@Override
+		public boolean remove(Object o) {
+			if ( !containsKey(o) ) { return false; }
+			CompactJSONMap.this.remove(o);
+			return true;
+		}
+		
+		@Override
+		public void clear() {
+			CompactJSONMap.this.clear();
+		}
+	}
+	
+	private final class Values extends AbstractCollection<Object> {
+		@Override
+		public Iterator<Object> iterator() {
+			if ( shape==null ) { return CompactJSONMap.super.values().iterator(); }
+			return new CompactIterator<Object>() {
+				@Override
+				protected Object get(int index) {
+					return values[index];
+				}
+			};
+		}
+		
+		@Override
+		public int size() {
+			return CompactJSONMap.this.size();
+		}
+		
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+		
+		@Override
+		public void clear() {
+			CompactJSONMap.this.clear();
+		}
+	}
+}
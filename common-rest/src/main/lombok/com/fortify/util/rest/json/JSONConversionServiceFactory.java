@@ -30,20 +30,34 @@ import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.support.DefaultConversionService;
 
 public class JSONConversionServiceFactory {
-	private static final ConversionService INSTANCE = getDefaultConversionService();
 	private static DateTimeFormatter fmtDateTime = null;
+	private static int dateTimeCacheSize = 0;
+	private static volatile ConversionService instance = getDefaultConversionService();
 	
 	public static final ConversionService getConversionService() {
-		return INSTANCE;
+		return instance;
 	}
 
 	public static final ConversionService getDefaultConversionService() {
 		DefaultConversionService result = new DefaultConversionService();
-		result.addConverter(new JSONDateTimeConverter(fmtDateTime));
+		result.addConverter(new JSONDateTimeConverter(fmtDateTime, dateTimeCacheSize));
 		return result;
 	}
 	
-	public static final void setDateTimePattern(String pattern) {
+	public static final synchronized void setDateTimePattern(String pattern) {
 		fmtDateTime = DateTimeFormatter.ofPattern(pattern);
+		instance = getDefaultConversionService();
+	}
+	
+	/**
+	 * Configure the number of date/time parse results to be cached by the
+	 * {@link JSONDateTimeConverter} used by the default {@link ConversionService}.
+	 * This can improve performance if the same date/time strings are converted
+	 * over and over again. Caching is disabled by default. 
+	 * @param cacheSize Maximum number of parse results to be cached, or 0 to disable caching
+	 */
+	public static final synchronized void setDateTimeCacheSize(int cacheSize) {
+		dateTimeCacheSize = cacheSize;
+		instance = getDefaultConversionService();
 	}
 }
@@ -24,25 +24,54 @@
  ******************************************************************************/
 package com.fortify.util.rest.json;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 import java.util.Date;
 
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.ConcurrentLruCache;
 
+/**
+ * {@link Converter} implementation for converting JSON date/time strings
+ * to {@link Date} instances. If no custom {@link DateTimeFormatter} is
+ * specified, the common date/time formats returned by SSC and FoD, like
+ * <code>2017-09-12T11:24:28.000+0000</code> or <code>2019-11-26T15:01:01.45</code>,
+ * are parsed by a hand-written parser, falling back to a {@link DateTimeFormatter} 
+ * for any other formats. Optionally, parse results can be cached to avoid having
+ * to repeatedly parse identical date/time strings.
+ * 
+ * @author Ruud Senden
+ *
+ */
 public final class JSONDateTimeConverter implements Converter<String,Date> {
+	private static final int[] NANOS_MULTIPLIERS = {0, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1};
 	private final DateTimeFormatter fmtDateTime;
+	private final boolean useFastParser;
+	private final ConcurrentLruCache<String, TemporalAccessor> cache;
 	
 	public JSONDateTimeConverter() {
 		this(null);
 	}
 	
 	public JSONDateTimeConverter(DateTimeFormatter fmtDateTime) {
+		this(fmtDateTime, 0);
+	}
+	
+	/**
+	 * Create a new {@link JSONDateTimeConverter} instance.
+	 * @param fmtDateTime Custom {@link DateTimeFormatter}, or null to use the default date/time formats
+	 * @param cacheSize Maximum number of parse results to be cached, or 0 to disable caching
+	 */
+	public JSONDateTimeConverter(DateTimeFormatter fmtDateTime, int cacheSize) {
 		this.fmtDateTime = fmtDateTime!=null ? fmtDateTime : createDefaultDateTimeFormatter();
+		this.useFastParser = fmtDateTime==null;
+		this.cache = cacheSize<=0 ? null : new ConcurrentLruCache<>(cacheSize, this::parseTemporalAccessorUncached);
 	}
 	
 	private static final DateTimeFormatter createDefaultDateTimeFormatter() {
@@ -69,7 +98,97 @@ public final class JSONDateTimeConverter implements Converter<String,Date> {
 		return ((LocalDate) temporalAccessor).atStartOfDay(ZoneId.systemDefault());
 	}
 
+	/**
+	 * Parse the given date/time string into either a {@link ZonedDateTime} (if 
+	 * the given string contains a time zone offset), {@link LocalDateTime} (if
+	 * the given string contains a time but no time zone offset), or 
+	 * {@link LocalDate} (if the given string contains only a date).
+	 * @param source Date/time string to be parsed
+	 * @return {@link TemporalAccessor} representing the given date/time string
+	 */
 	public TemporalAccessor parseTemporalAccessor(String source) {
-		return fmtDateTime.parseBest(source, ZonedDateTime::from, LocalDateTime::from, LocalDate::from);
+		return cache==null ? parseTemporalAccessorUncached(source) : cache.get(source);
+	}
+	
+	private TemporalAccessor parseTemporalAccessorUncached(String source) {
+		TemporalAccessor result = useFastParser ? parseFast(source) : null;
+		return result!=null ? result : fmtDateTime.parseBest(source, ZonedDateTime::from, LocalDateTime::from, LocalDate::from);
+	}
+	
+	/**
+	 * Parse date/time strings in the format <code>yyyy-MM-dd[('T'|' ')HH:mm:ss[.S{1,9}][offset]]</code>, 
+	 * where offset is either <code>Z</code>, <code>+HH</code>, <code>+HHMM</code> or <code>+HH:MM</code>.
+	 * @param source Date/time string to be parsed
+	 * @return Parsed {@link TemporalAccessor}, or null if the given string cannot be parsed by this method
+	 */
+	static final TemporalAccessor parseFast(String source) {
+		int length = source.length();
+		if ( length<10 || source.charAt(4)!='-' || source.charAt(7)!='-' ) { return null; }
+		int year = parseDigits(source, 0, 4);
+		int month = parseDigits(source, 5, 2);
+		int day = parseDigits(source, 8, 2);
+		if ( year<0 || month<0 || day<0 ) { return null; }
+		try {
+			if ( length==10 ) { return LocalDate.of(year, month, day); }
+			int pos = 10;
+			char separator = source.charAt(pos);
+			if ( separator=='T' || separator==' ' ) { pos++; }
+			if ( length<pos+8 || source.charAt(pos+2)!=':' || source.charAt(pos+5)!=':' ) { return null; }
+			int hour = parseDigits(source, pos, 2);
+			int minute = parseDigits(source, pos+3, 2);
+			int second = parseDigits(source, pos+6, 2);
+			if ( hour<0 || minute<0 || second<0 ) { return null; }
+			pos += 8;
+			int nanos = 0;
+			if ( pos<length && source.charAt(pos)=='.' ) {
+				int start = ++pos;
+				while ( pos<length && isDigit(source.charAt(pos)) ) { pos++; }
+				int digits = pos-start;
+				if ( digits<1 || digits>9 ) { return null; }
+				nanos = parseDigits(source, start, digits) * NANOS_MULTIPLIERS[digits];
+			}
+			LocalDateTime localDateTime = LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+			if ( pos==length ) { return localDateTime; }
+			ZoneOffset offset = parseOffset(source, pos);
+			return offset==null ? null : ZonedDateTime.of(localDateTime, offset);
+		} catch ( DateTimeException e ) {
+			// Let the formatter handle (or report) any invalid field values 
+			return null;
+		}
+	}
+	
+	private static final ZoneOffset parseOffset(String source, int pos) {
+		int length = source.length();
+		char sign = source.charAt(pos);
+		if ( sign=='Z' ) { return pos+1==length ? ZoneOffset.UTC : null; }
+		if ( (sign!='+' && sign!='-') || length<pos+3 ) { return null; }
+		int hours = parseDigits(source, pos+1, 2);
+		int minutes = 0;
+		pos += 3;
+		if ( pos<length ) {
+			if ( source.charAt(pos)==':' ) { pos++; }
+			if ( length!=pos+2 ) { return null; }
+			minutes = parseDigits(source, pos, 2);
+		}
+		if ( hours<0 || minutes<0 ) { return null; }
+		return sign=='+' ? ZoneOffset.ofHoursMinutes(hours, minutes) : ZoneOffset.ofHoursMinutes(-hours, -minutes);
+	}
+	
+	/**
+	 * Parse the given number of ASCII digits starting at the given position.
+	 * @return Parsed number, or -1 if any of the characters is not an ASCII digit
+	 */
+	private static final int parseDigits(String source, int pos, int count) {
+		int result = 0;
+		for ( int i = pos ; i < pos+count ; i++ ) {
+			char c = source.charAt(i);
+			if ( !isDigit(c) ) { return -1; }
+			result = result*10 + (c-'0');
+		}
+		return result;
+	}
+	
+	private static final boolean isDigit(char c) {
+		return c>='0' && c<='9';
 	}
-}
\ No newline at end of file
+}
@@ -26,6 +26,7 @@ package com.fortify.util.rest.json;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,11 +34,8 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.springframework.core.convert.support.DefaultConversionService;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fortify.util.spring.expression.helper.InternalExpressionHelper;
 
 /**
@@ -163,7 +161,7 @@ public class JSONList extends ArrayList<Object> {
 		if ( matchExpression == null ) { return null; }
 		for ( Object value : this ) {
 			if ( isMatching(value, matchExpression, matchValue) ) {
-				return new DefaultConversionService().convert(value, type);
+				return JSONValueConverter.convert(value, type);
 			}
 		}
 		return null;
@@ -261,7 +259,7 @@ public class JSONList extends ArrayList<Object> {
 	@Override
 	public String toString() {
 		try {
-			return new ObjectMapper().writeValueAsString(this);
+			return JSONObjectMapperSupplier.getObjectWriter().writeValueAsString(this);
 		} catch (JsonProcessingException e) {
 			return super.toString();
 		}
@@ -276,7 +274,7 @@ public class JSONList extends ArrayList<Object> {
 	 */
 	public String toIndentedString() {
 		try {
-			return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(this);
+			return JSONObjectMapperSupplier.getIndentedObjectWriter().writeValueAsString(this);
 		} catch (JsonProcessingException e) {
 			return super.toString();
 		}
@@ -292,7 +290,58 @@ public class JSONList extends ArrayList<Object> {
 	 * @return Value located at the given index in this {@link JSONList}, possibly converted to the give type
 	 */
 	public <T> T get(int index, Class<T> type) {
-		return JSONConversionServiceFactory.getConversionService().convert(get(index), type);
+		return JSONValueConverter.convert(get(index), type);
+	}
+	
+	/**
+	 * Get the value at the given index as a {@link String}, converting
+	 * the value if necessary.
+	 * @param index from which to retrieve a value from this {@link JSONList}
+	 * @return {@link String} value at the given index
+	 */
+	public String getString(int index) {
+		return get(index, String.class);
+	}
+	
+	/**
+	 * Get the value at the given index as an {@link Integer}, converting
+	 * the value if necessary.
+	 * @param index from which to retrieve a value from this {@link JSONList}
+	 * @return {@link Integer} value at the given index
+	 */
+	public Integer getInt(int index) {
+		return get(index, Integer.class);
+	}
+	
+	/**
+	 * Get the value at the given index as a {@link Long}, converting
+	 * the value if necessary.
+	 * @param index from which to retrieve a value from this {@link JSONList}
+	 * @return {@link Long} value at the given index
+	 */
+	public Long getLong(int index) {
+		return get(index, Long.class);
+	}
+	
+	/**
+	 * Get the value at the given index as a {@link Boolean}, converting
+	 * the value if necessary.
+	 * @param index from which to retrieve a value from this {@link JSONList}
+	 * @return {@link Boolean} value at the given index
+	 */
+	public Boolean getBoolean(int index) {
+		return get(index, Boolean.class);
+	}
+	
+	/**
+	 * Get the value at the given index as a {@link Date}, converting
+	 * the value if necessary. String values are parsed using 
+	 * {@link JSONDateTimeConverter}.
+	 * @param index from which to retrieve a value from this {@link JSONList}
+	 * @return {@link Date} value at the given index
+	 */
+	public Date getDate(int index) {
+		return get(index, Date.class);
 	}
 	
 	public <T> T getOrDefault(int index, T defaultValue, Class<T> type) {
@@ -24,10 +24,9 @@
  ******************************************************************************/
 package com.fortify.util.rest.json;
 
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -35,10 +34,9 @@ import java.util.regex.Pattern;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
+import org.springframework.util.ConcurrentLruCache;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fortify.util.rest.json.ondemand.IJSONMapOnDemandLoader;
 import com.fortify.util.spring.expression.helper.InternalExpressionHelper;
 
@@ -51,8 +49,8 @@ import com.fortify.util.spring.expression.helper.InternalExpressionHelper;
  */
 public class JSONMap extends LinkedHashMap<String, Object> {
 	private static final long serialVersionUID = 1L;
-	private final Pattern patternArraySegment = Pattern.compile("(?<name>.*)\\[(?<index>\\d*)\\]$");
-	
+	private static final Pattern PATTERN_ARRAY_SEGMENT = Pattern.compile("(?<name>.*)\\[(?<index>\\d*)\\]$");
+	private static final ConcurrentLruCache<String, PathSegment[]> PUT_PATH_CACHE = new ConcurrentLruCache<>(1000, JSONMap::parsePutPath);
 
 	/**
 	 * @see LinkedHashMap#LinkedHashMap()
@@ -140,7 +138,7 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 	 * @return Potentially converted value for the given key
 	 */
 	public <T> T getOrDefault(Object key, T defaultValue, Class<T> type) {
-		return JSONConversionServiceFactory.getConversionService().convert(getOrDefault(key, defaultValue), type);
+		return JSONValueConverter.convert(getOrDefault(key, defaultValue), type);
 	}
 
 	/**
@@ -152,7 +150,58 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 	 * @return Potentially converted value for the given key
 	 */
 	public <T> T get(Object key, Class<T> type) {
-		return JSONConversionServiceFactory.getConversionService().convert(get(key), type);
+		return JSONValueConverter.convert(get(key), type);
+	}
+	
+	/**
+	 * Get the value for the given key as a {@link String}, converting
+	 * the value if necessary.
+	 * @param key for which to get the value from this {@link JSONMap}
+	 * @return {@link String} value for the given key, or null if not available
+	 */
+	public String getString(Object key) {
+		return get(key, String.class);
+	}
+	
+	/**
+	 * Get the value for the given key as an {@link Integer}, converting
+	 * the value if necessary.
+	 * @param key for which to get the value from this {@link JSONMap}
+	 * @return {@link Integer} value for the given key, or null if not available
+	 */
+	public Integer getInt(Object key) {
+		return get(key, Integer.class);
+	}
+	
+	/**
+	 * Get the value for the given key as a {@link Long}, converting
+	 * the value if necessary.
+	 * @param key for which to get the value from this {@link JSONMap}
+	 * @return {@link Long} value for the given key, or null if not available
+	 */
+	public Long getLong(Object key) {
+		return get(key, Long.class);
+	}
+	
+	/**
+	 * Get the value for the given key as a {@link Boolean}, converting
+	 * the value if necessary.
+	 * @param key for which to get the value from this {@link JSONMap}
+	 * @return {@link Boolean} value for the given key, or null if not available
+	 */
+	public Boolean getBoolean(Object key) {
+		return get(key, Boolean.class);
+	}
+	
+	/**
+	 * Get the value for the given key as a {@link Date}, converting
+	 * the value if necessary. String values are parsed using 
+	 * {@link JSONDateTimeConverter}.
+	 * @param key for which to get the value from this {@link JSONMap}
+	 * @return {@link Date} value for the given key, or null if not available
+	 */
+	public Date getDate(Object key) {
+		return get(key, Date.class);
 	}
 	
 	/**
@@ -164,16 +213,22 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 	 * @return Potentially converted value for the given path
 	 */
 	public <T> T getPath(String path, Class<T> type) {
-		return JSONConversionServiceFactory.getConversionService().convert(getPath(path), type);
+		return JSONValueConverter.convert(getPath(path), type);
 	}
 	
 	/**
 	 * This method allows for getting the value for the given property
-	 * path.
+	 * path. Simple paths consisting of property names and list indexes,
+	 * like <code>data.token</code> or <code>items[0].name</code>, are 
+	 * resolved directly; any other path is evaluated as a SpEL expression.
 	 * @param path for which to get the value from this {@link JSONMap}
 	 * @return Value for the given path
 	 */
 	public Object getPath(String path) {
+		if ( path!=null ) {
+			Object result = JSONMapPath.get(path).getValue(this);
+			if ( result!=JSONMapPath.UNRESOLVED ) { return result; }
+		}
 		return InternalExpressionHelper.get().evaluateSimpleExpression(this, path, Object.class);
 	}
 	
@@ -252,35 +307,38 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 	 * @param ignoreNullOrEmptyValues Don't add null or empty value if set to true 
 	 */
 	public void putPath(String path, Object value, boolean ignoreNullOrEmptyValues) {
-		putPath(Arrays.asList(path.split("\\.")), value, ignoreNullOrEmptyValues);
+		PathSegment[] segments = PUT_PATH_CACHE.get(path);
+		if ( segments.length>0 && !ignoreValue(value, ignoreNullOrEmptyValues) ) {
+			JSONMap current = this;
+			for ( int i = 0 ; i < segments.length-1 ; i++ ) {
+				current = segments[i].getOrCreateIntermediate(current);
+			}
+			current.put(segments[segments.length-1].name, value);
+		}
 	}
 	
-	private void putPath(List<String> path, Object value, boolean ignoreNullOrEmptyValues) {
-		if ( !ignoreValue(value, ignoreNullOrEmptyValues) ) {
-			if ( path.size()==1 ) {
-				put(path.get(0), value);
-			} else if ( path.size()>1 ){
-				String currentSegment = path.get(0);
-				JSONMap intermediate;
-				Matcher arrayMatcher = patternArraySegment.matcher(currentSegment);
-				if ( arrayMatcher.matches() ) {
-					JSONList list = getOrCreateJSONList(arrayMatcher.group("name"));
-					if ( StringUtils.isBlank(arrayMatcher.group("index")) ) { 
-						intermediate = new JSONMap();
-						list.add(intermediate);
-					} else {
-						int index = Integer.valueOf(arrayMatcher.group("index"));
-						intermediate = list.getOrCreateJSONMap(index);
-					}
-				} else {
-					intermediate = getOrCreateJSONMap(currentSegment);
-				}
-				intermediate.putPath(path.subList(1, path.size()), value, ignoreNullOrEmptyValues);
+	/**
+	 * Parse the given path as used by {@link #putPath(String, Object, boolean)}
+	 * into an array of {@link PathSegment} instances. Only intermediate segments
+	 * are checked for array syntax; the last segment is always used as a plain
+	 * property name.
+	 */
+	private static final PathSegment[] parsePutPath(String path) {
+		String[] names = path.split("\\.");
+		PathSegment[] result = new PathSegment[names.length];
+		for ( int i = 0 ; i < names.length ; i++ ) {
+			Matcher arrayMatcher = i<names.length-1 ? PATTERN_ARRAY_SEGMENT.matcher(names[i]) : null;
+			if ( arrayMatcher!=null && arrayMatcher.matches() ) {
+				String index = arrayMatcher.group("index");
+				result[i] = new PathSegment(arrayMatcher.group("name"), true, StringUtils.isBlank(index) ? -1 : Integer.valueOf(index));
+			} else {
+				result[i] = new PathSegment(names[i], false, -1);
 			}
 		}
+		return result;
 	}
 	
-	private Object getOnDemandValue(Object key, Object object) {
+	Object getOnDemandValue(Object key, Object object) {
 		if ( object instanceof IJSONMapOnDemandLoader ) {
 			object = ((IJSONMapOnDemandLoader)object).getAndStoreOnDemand((String)key, this);
 		}
@@ -302,7 +360,7 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 	@Override
 	public String toString() {
 		try {
-			return new ObjectMapper().writeValueAsString(this);
+			return JSONObjectMapperSupplier.getObjectWriter().writeValueAsString(this);
 		} catch (JsonProcessingException e) {
 			return super.toString();
 		}
@@ -316,7 +374,7 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 	 */
 	public String toIndentedString() {
 		try {
-			return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(this);
+			return JSONObjectMapperSupplier.getIndentedObjectWriter().writeValueAsString(this);
 		} catch (JsonProcessingException e) {
 			return super.toString();
 		}
@@ -329,6 +387,36 @@ public class JSONMap extends LinkedHashMap<String, Object> {
 		return true;
 	}
 	
+	/**
+	 * Parsed segment of a path passed to {@link JSONMap#putPath(String, Object, boolean)}.
+	 * For array segments, an index of -1 indicates that a new entry should be added
+	 * to the array.
+	 */
+	private static final class PathSegment {
+		private final String name;
+		private final boolean isArray;
+		private final int index;
+		
+		public PathSegment(String name, boolean isArray, int index) {
+			this.name = name;
+			this.isArray = isArray;
+			this.index = index;
+		}
+		
+		public JSONMap getOrCreateIntermediate(JSONMap parent) {
+			if ( !isArray ) {
+				return parent.getOrCreateJSONMap(name);
+			} else {
+				JSONList list = parent.getOrCreateJSONList(name);
+				if ( index<0 ) {
+					return list.addNewJSONMap();
+				} else {
+					return list.getOrCreateJSONMap(index);
+				}
+			}
+		}
+	}
+	
 	public void resolveOnDemandValues() {
 		keySet().stream().map(this::get).forEach(this::resolveOnDemandValues);
 	}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.StringUtils;
+
+/**
+ * This package-private class is used by {@link JSONMap#getPath(String)} to
+ * quickly resolve simple property paths like <code>data.token</code> or 
+ * <code>items[0].name</code> by directly walking nested {@link Map} and 
+ * {@link List} instances, without going through the full SpEL machinery. 
+ * Parsed paths are cached, so each path only needs to be parsed once.
+ * 
+ * Only paths consisting of plain property names and non-negative integer
+ * indexes are handled by this class; any other path is reported as not
+ * being simple. Likewise, if the path cannot be resolved directly (for
+ * example because an intermediate value is null, not a {@link Map} or
+ * {@link List}, an index is out of bounds, or a property name may be 
+ * resolved through a getter method or field of the {@link Map} class by 
+ * SpEL's reflective property accessor), {@link #UNRESOLVED} is returned. 
+ * In both cases, callers should fall back to SpEL evaluation to get the 
+ * standard SpEL behavior.
+ * 
+ * @author Ruud Senden
+ *
+ */
+final class JSONMapPath {
+	/** Returned by {@link #getValue(Map)} if the path cannot be resolved directly */
+	static final Object UNRESOLVED = new Object();
+	private static final int CACHE_SIZE = 1000;
+	private static final int MAX_INDEX_LENGTH = 9;
+	private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+			"and", "or", "not", "div", "mod", "eq", "ne", "lt", "gt", "le", "ge", 
+			"between", "instanceof", "matches", "true", "false", "null", "new", "t"));
+	private static final JSONMapPath NOT_SIMPLE = new JSONMapPath(null);
+	private static final ConcurrentLruCache<String, JSONMapPath> CACHE = new ConcurrentLruCache<>(CACHE_SIZE, JSONMapPath::parse);
+	private static final ClassValue<Set<String>> REFLECTIVE_NAMES = new ClassValue<Set<String>>() {
+		@Override
+		protected Set<String> computeValue(Class<?> type) {
+			return getReflectiveNames(type);
+		}
+	};
+	
+	/** Property names ({@link PropertySegment}) and list indexes ({@link Integer}) */
+	private final Object[] segments;
+	
+	private JSONMapPath(Object[] segments) {
+		this.segments = segments;
+	}
+	
+	/**
+	 * Get the (cached) {@link JSONMapPath} instance for the given path.
+	 * @param path to be parsed
+	 * @return {@link JSONMapPath} instance for the given path
+	 */
+	static JSONMapPath get(String path) {
+		return CACHE.get(path);
+	}
+	
+	/**
+	 * @return true if this path can be resolved by {@link #getValue(Map)}, 
+	 *         false if the path needs to be evaluated using SpEL
+	 */
+	boolean isSimple() {
+		return segments!=null;
+	}
+	
+	/**
+	 * Get the value for this path from the given root {@link Map}.
+	 * @param root {@link Map} from which to retrieve the value
+	 * @return Value for this path, or {@link #UNRESOLVED} if the path cannot be resolved directly
+	 */
+	Object getValue(Map<?,?> root) {
+		if ( segments==null ) { return UNRESOLVED; }
+		Object current = root;
+		for ( Object segment : segments ) {
+			if ( segment instanceof PropertySegment ) {
+				PropertySegment property = (PropertySegment)segment;
+				if ( !(current instanceof Map) || property.isReflective(current.getClass()) ) { return UNRESOLVED; }
+				current = ((Map<?,?>)current).get(property.name);
+			} else {
+				int index = (Integer)segment;
+				if ( !(current instanceof List) || index >= ((List<?>)current).size() ) { return UNRESOLVED; }
+				current = ((List<?>)current).get(index);
+			}
+		}
+		return current;
+	}
+	
+	/**
+	 * Parse the given path into property names and list indexes,
+	 * returning {@link #NOT_SIMPLE} if the given path contains
+	 * anything else.
+	 */
+	private static final JSONMapPath parse(String path) {
+		List<Object> segments = new ArrayList<>();
+		int length = path.length();
+		int pos = 0;
+		while ( pos < length ) {
+			int start = pos;
+			if ( !isIdentifierStart(path.charAt(pos)) ) { return NOT_SIMPLE; }
+			while ( pos < length && isIdentifierPart(path.charAt(pos)) ) { pos++; }
+			String name = path.substring(start, pos);
+			if ( RESERVED_WORDS.contains(name.toLowerCase()) ) { return NOT_SIMPLE; }
+			segments.add(new PropertySegment(name));
+			while ( pos < length && path.charAt(pos)=='[' ) {
+				int indexStart = ++pos;
+				while ( pos < length && isDigit(path.charAt(pos)) ) { pos++; }
+				int indexLength = pos-indexStart;
+				if ( pos==length || path.charAt(pos)!=']' || indexLength==0 || indexLength>MAX_INDEX_LENGTH 
+						|| (indexLength>1 && path.charAt(indexStart)=='0') ) { 
+					return NOT_SIMPLE; 
+				}
+				segments.add(Integer.valueOf(path.substring(indexStart, pos++)));
+			}
+			if ( pos < length ) {
+				// Next character must be a dot, followed by another property name
+				if ( path.charAt(pos++)!='.' || pos==length ) { return NOT_SIMPLE; }
+			}
+		}
+		return segments.isEmpty() ? NOT_SIMPLE : new JSONMapPath(segments.toArray());
+	}
+	
+	private static final boolean isIdentifierStart(char c) {
+		return (c>='a' && c<='z') || (c>='A' && c<='Z') || c=='_' || c=='$';
+	}
+	
+	private static final boolean isIdentifierPart(char c) {
+		return isIdentifierStart(c) || isDigit(c);
+	}
+	
+	private static final boolean isDigit(char c) {
+		return c>='0' && c<='9';
+	}
+	
+	/**
+	 * Get the names of all public fields and no-argument methods of the given 
+	 * class; SpEL's reflective property accessor takes precedence over the map
+	 * accessor for any property name that matches one of these names (directly,
+	 * or prefixed with get or is).
+	 */
+	private static final Set<String> getReflectiveNames(Class<?> type) {
+		Set<String> result = new HashSet<>();
+		for ( Method method : type.getMethods() ) {
+			if ( method.getParameterCount()==0 ) { result.add(method.getName()); }
+		}
+		for ( Field field : type.getFields() ) {
+			result.add(field.getName());
+		}
+		return result;
+	}
+	
+	/**
+	 * Property name segment, holding the names that would cause SpEL to
+	 * resolve this property through reflection rather than {@link Map#get(Object)}.
+	 */
+	private static final class PropertySegment {
+		private final String name;
+		private final String getterName;
+		private final String isName;
+		/** Last {@link Map} type for which this property was found to be non-reflective; benign data race */
+		private Class<?> nonReflectiveMapType;
+		
+		public PropertySegment(String name) {
+			this.name = name;
+			String capitalizedName = StringUtils.capitalize(name);
+			this.getterName = "get"+capitalizedName;
+			this.isName = "is"+capitalizedName;
+		}
+		
+		public boolean isReflective(Class<?> mapType) {
+			if ( mapType==nonReflectiveMapType ) { return false; }
+			Set<String> reflectiveNames = REFLECTIVE_NAMES.get(mapType);
+			boolean result = reflectiveNames.contains(name) || reflectiveNames.contains(getterName) || reflectiveNames.contains(isName);
+			if ( !result ) { nonReflectiveMapType = mapType; }
+			return result;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This package-private class is used by {@link CompactJSONMap} to describe
+ * the ordered set of keys of a JSON object. Shapes are organized as a tree
+ * of transitions starting at {@link #EMPTY}; adding a key to a given shape 
+ * always results in the same child shape, so all JSON objects with identical
+ * keys (in identical order) share a single {@link JSONMapShape} instance.
+ * 
+ * To avoid unbounded memory usage for JSON objects with arbitrary keys, 
+ * the number of keys per shape and the total number of shared shapes is
+ * limited; {@link #with(String)} returns null once these limits have been
+ * reached.
+ * 
+ * @author Ruud Senden
+ *
+ */
+final class JSONMapShape {
+	private static final int MAX_KEYS = 256;
+	private static final int MAX_SHARED_SHAPES = 10000;
+	private static final AtomicInteger SHARED_SHAPE_COUNT = new AtomicInteger();
+	static final JSONMapShape EMPTY = new JSONMapShape(new String[0], true);
+	
+	private final String[] keys;
+	private final Map<String, Integer> indexes;
+	/** Child shapes by added key; null for shapes that are not shared */ 
+	private final ConcurrentMap<String, JSONMapShape> transitions;
+	
+	private JSONMapShape(String[] keys, boolean shared) {
+		this.keys = keys;
+		this.indexes = new HashMap<>(keys.length*4/3+1);
+		for ( int i = 0 ; i < keys.length ; i++ ) {
+			indexes.put(keys[i], i);
+		}
+		this.transitions = shared ? new ConcurrentHashMap<>() : null;
+	}
+	
+	/**
+	 * @return Number of keys in this shape
+	 */
+	int size() {
+		return keys.length;
+	}
+	
+	/**
+	 * @param index of the key to be returned
+	 * @return Key at the given index
+	 */
+	String getKey(int index) {
+		return keys[index];
+	}
+	
+	/**
+	 * @param key for which to return the index
+	 * @return Index of the given key, or -1 if this shape doesn't contain the given key
+	 */
+	int indexOf(Object key) {
+		Integer result = indexes.get(key);
+		return result==null ? -1 : result;
+	}
+	
+	/**
+	 * Get the shape that results from adding the given key to this shape.
+	 * The given key must not yet be contained in this shape.
+	 * @param key to be added
+	 * @return Shape including the given key, or null if shape limits have been reached 
+	 */
+	JSONMapShape with(String key) {
+		if ( transitions==null || keys.length>=MAX_KEYS ) { return null; }
+		JSONMapShape result = transitions.get(key);
+		if ( result==null && SHARED_SHAPE_COUNT.get()<MAX_SHARED_SHAPES ) {
+			result = transitions.computeIfAbsent(key, k->{
+				SHARED_SHAPE_COUNT.incrementAndGet();
+				String[] newKeys = Arrays.copyOf(keys, keys.length+1);
+				newKeys[keys.length] = k;
+				return new JSONMapShape(newKeys, true);
+			});
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the shape that results from removing the key at the given index.
+	 * If possible, this returns a shared shape; if shape limits have been 
+	 * reached, a new, non-shared shape is returned.
+	 * @param index of the key to be removed
+	 * @return Shape without the key at the given index
+	 */
+	JSONMapShape without(int index) {
+		JSONMapShape result = EMPTY;
+		for ( int i = 0 ; result!=null && i < keys.length ; i++ ) {
+			if ( i!=index ) { result = result.with(keys[i]); }
+		}
+		if ( result==null ) {
+			String[] newKeys = new String[keys.length-1];
+			System.arraycopy(keys, 0, newKeys, 0, index);
+			System.arraycopy(keys, index+1, newKeys, index, keys.length-index-1);
+			result = new JSONMapShape(newKeys, false);
+		}
+		return result;
+	}
+}
@@ -26,18 +26,81 @@ package com.fortify.util.rest.json;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.ValueInstantiator;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
 public class JSONObjectMapperSupplier implements Supplier<ObjectMapper> {
+	private static final Set<DeserializationFeature> ENABLED_FEATURES = ConcurrentHashMap.newKeySet();
 	private static final ObjectMapper MAPPER = createObjectMapper();
+	private static final ObjectWriter WRITER = MAPPER.writer();
+	private static final ObjectWriter INDENTED_WRITER = MAPPER.writer(SerializationFeature.INDENT_OUTPUT);
+	
+	/**
+	 * Features that can be enabled or disabled through 
+	 * {@link JSONObjectMapperSupplier#configure(DeserializationFeature, boolean)}
+	 * to control how JSON data is being deserialized by the {@link ObjectMapper}
+	 * returned by this class. All features are disabled by default.
+	 */
+	public static enum DeserializationFeature {
+		/**
+		 * Deserialize JSON objects into a compact {@link JSONMap} implementation
+		 * that stores keys only once for all JSON objects with identical keys,
+		 * significantly reducing memory usage when loading large numbers of
+		 * similar records.
+		 */
+		COMPACT_JSON_MAPS
+	}
+	
+	/**
+	 * Enable or disable the given {@link DeserializationFeature}. This
+	 * affects any JSON data deserialized after this method has been called.
+	 * @param feature to be enabled or disabled
+	 * @param enabled true to enable the given feature, false to disable
+	 */
+	public static final void configure(DeserializationFeature feature, boolean enabled) {
+		if ( enabled ) {
+			ENABLED_FEATURES.add(feature);
+		} else {
+			ENABLED_FEATURES.remove(feature);
+		}
+	}
+	
+	/**
+	 * @param feature to be checked
+	 * @return true if the given {@link DeserializationFeature} is enabled, false otherwise
+	 */
+	public static final boolean isEnabled(DeserializationFeature feature) {
+		return ENABLED_FEATURES.contains(feature);
+	}
 	
 	public static final ObjectMapper getObjectMapper() {
 		return MAPPER;
 	}
 	
+	/**
+	 * @return Shared {@link ObjectWriter} for serializing {@link JSONMap}, {@link JSONList} 
+	 *         and other objects to JSON
+	 */
+	public static final ObjectWriter getObjectWriter() {
+		return WRITER;
+	}
+	
+	/**
+	 * @return Shared {@link ObjectWriter} for serializing {@link JSONMap}, {@link JSONList} 
+	 *         and other objects to indented JSON
+	 */
+	public static final ObjectWriter getIndentedObjectWriter() {
+		return INDENTED_WRITER;
+	}
+	
 	public final ObjectMapper get() {
 		return getObjectMapper();
 	}
@@ -47,7 +110,29 @@ public class JSONObjectMapperSupplier implements Supplier<ObjectMapper> {
         final SimpleModule module = new SimpleModule("JSONMap");
         module.addAbstractTypeMapping(Map.class, JSONMap.class);
         module.addAbstractTypeMapping(List.class, JSONList.class);
+        module.addValueInstantiator(JSONMap.class, new JSONMapInstantiator());
         result.registerModule(module);
         return result;
 	}
+	
+	/**
+	 * {@link ValueInstantiator} for creating either standard or compact 
+	 * {@link JSONMap} instances, depending on whether the 
+	 * {@link DeserializationFeature#COMPACT_JSON_MAPS} feature is enabled.
+	 */
+	private static final class JSONMapInstantiator extends ValueInstantiator.Base {
+		public JSONMapInstantiator() {
+			super(JSONMap.class);
+		}
+		
+		@Override
+		public boolean canCreateUsingDefault() {
+			return true;
+		}
+		
+		@Override
+		public Object createUsingDefault(DeserializationContext ctxt) {
+			return isEnabled(DeserializationFeature.COMPACT_JSON_MAPS) ? new CompactJSONMap() : new JSONMap();
+		}
+	}
 }
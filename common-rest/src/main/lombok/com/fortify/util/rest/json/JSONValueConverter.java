@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * This package-private class is used by {@link JSONMap} and {@link JSONList}
+ * for converting JSON values to a given type. Values that already have the
+ * requested type are returned as-is; all other values are converted using the
+ * {@link ConversionService} provided by {@link JSONConversionServiceFactory},
+ * re-using cached {@link TypeDescriptor} instances to avoid having to look up 
+ * type information for every conversion.
+ * 
+ * @author Ruud Senden
+ *
+ */
+final class JSONValueConverter {
+	private static final ClassValue<TypeDescriptor> TYPE_DESCRIPTORS = new ClassValue<TypeDescriptor>() {
+		@Override
+		protected TypeDescriptor computeValue(Class<?> type) {
+			return TypeDescriptor.valueOf(type);
+		}
+	};
+	
+	private JSONValueConverter() {}
+	
+	/**
+	 * Convert the given value to the given type.
+	 * @param <T> Return type
+	 * @param value to be converted
+	 * @param type to which to convert the given value
+	 * @return Given value if it is already an instance of the given type, converted value otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T convert(Object value, Class<T> type) {
+		if ( value!=null && type.isInstance(value) ) { return (T)value; }
+		ConversionService conversionService = JSONConversionServiceFactory.getConversionService();
+		if ( value==null ) { return conversionService.convert(null, type); }
+		return (T)conversionService.convert(value, TYPE_DESCRIPTORS.get(value.getClass()), TYPE_DESCRIPTORS.get(type));
+	}
+}
@@ -51,6 +51,8 @@ public abstract class StandardEmbedConfig implements Serializable {
 	private String resultExpression;
 	private String embedIf;
 	private OnErrorAction onError;
+	/** Time-to-live for embedded data in the connection-scoped response cache, if supported by the embed type; default 0 (disabled) */
+	private Long cacheTimeToLiveMillis;
 	@Singular(ignoreNullCollections=true) private Map<String, Object> params;
 	
 	public StandardEmbedConfig() {}
@@ -79,6 +81,10 @@ public abstract class StandardEmbedConfig implements Serializable {
 		return onError==null ? OnErrorAction.FAIL : onError;
 	}
 	
+	public long getCacheTimeToLiveMillis() {
+		return cacheTimeToLiveMillis==null ? 0 : Math.max(0, cacheTimeToLiveMillis);
+	}
+	
 	protected String getDefaultResultExpression() {
 		return null;
 	}
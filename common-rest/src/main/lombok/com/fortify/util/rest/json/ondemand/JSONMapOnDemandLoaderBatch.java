@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json.ondemand;
+
+import java.util.function.Consumer;
+
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+
+/**
+ * <p>This {@link IJSONMapOnDemandLoader} implementation is shared by a batch of sibling 
+ * {@link JSONMap} instances, usually all {@link JSONMap} instances in a single page of 
+ * results that have been accepted by the configured pre-processors. Upon first access 
+ * to the on-demand property in any of these {@link JSONMap} instances, the configured 
+ * batch loader is invoked once to load and store the property value for all 
+ * {@link JSONMap} instances in the batch, for example using a single bulk request or 
+ * a set of parallel requests.</p>
+ * 
+ * <p>The batch loader is expected to store the loaded values in the given {@link JSONMap}
+ * instances; any {@link JSONMap} instance for which the batch loader doesn't store a value,
+ * for example because the embedded data is not applicable or could not be loaded, will 
+ * have its property value set to null. If the batch loader throws an exception, the 
+ * property values that haven't been loaded yet will be loaded individually upon next 
+ * access, using the configured single-instance {@link IJSONMapOnDemandLoader}. The same
+ * applies if this instance has been serialized and deserialized, as the batch itself is
+ * not serialized. The reference to the batch is released once the batch loader has
+ * been invoked.</p>
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class JSONMapOnDemandLoaderBatch implements IJSONMapOnDemandLoader {
+	private static final long serialVersionUID = 1L;
+	private final IJSONMapOnDemandLoader singleLoader;
+	private transient JSONList batch;
+	private transient Consumer<JSONList> batchLoader;
+	
+	/**
+	 * Create a new {@link JSONMapOnDemandLoaderBatch} instance. Callers are responsible for
+	 * adding this instance to each of the {@link JSONMap} instances in the given batch.
+	 * @param singleLoader {@link IJSONMapOnDemandLoader} for loading values for individual {@link JSONMap} instances
+	 * @param batch {@link JSONList} containing all {@link JSONMap} instances that share this loader
+	 * @param batchLoader {@link Consumer} for loading and storing values for all given {@link JSONMap} instances
+	 */
+	public JSONMapOnDemandLoaderBatch(IJSONMapOnDemandLoader singleLoader, JSONList batch, Consumer<JSONList> batchLoader) {
+		this.singleLoader = singleLoader;
+		this.batch = batch;
+		this.batchLoader = batchLoader;
+	}
+	
+	/**
+	 * Create a batch pre-processor that replaces the given single-instance {@link IJSONMapOnDemandLoader}
+	 * with a new {@link JSONMapOnDemandLoaderBatch} instance in all given {@link JSONMap} instances, under 
+	 * the given property name. {@link JSONMap} instances for which the given property no longer contains 
+	 * the single-instance loader, for example because the value has already been loaded, are left as-is.
+	 * @param propertyName for which to replace the on-demand loader
+	 * @param singleLoader {@link IJSONMapOnDemandLoader} for loading values for individual {@link JSONMap} instances
+	 * @param batchLoader {@link Consumer} for loading and storing values for all given {@link JSONMap} instances
+	 * @return Batch pre-processor
+	 */
+	public static final Consumer<JSONList> batchPreProcessor(String propertyName, IJSONMapOnDemandLoader singleLoader, Consumer<JSONList> batchLoader) {
+		return jsonList -> {
+			JSONList batch = new JSONList(jsonList.size());
+			JSONMapOnDemandLoaderBatch loader = new JSONMapOnDemandLoaderBatch(singleLoader, batch, batchLoader);
+			for ( JSONMap json : jsonList.asValueType(JSONMap.class) ) {
+				Object oldValue = json.put(propertyName, loader);
+				if ( oldValue == singleLoader ) {
+					batch.add(json);
+				} else {
+					json.put(propertyName, oldValue);
+				}
+			}
+		};
+	}
+
+	@Override
+	public Object getAndStoreOnDemand(String propertyName, JSONMap parent) {
+		Consumer<JSONList> loader;
+		JSONList pending;
+		synchronized (this) {
+			loader = batchLoader;
+			pending = takePendingBatch(propertyName);
+		}
+		if ( pending == null ) {
+			return singleLoader.getAndStoreOnDemand(propertyName, parent);
+		}
+		boolean success = false;
+		try {
+			loader.accept(pending);
+			success = true;
+		} finally {
+			if ( !success ) {
+				pending.asValueType(JSONMap.class).forEach(json->json.putIfAbsent(propertyName, singleLoader));
+			}
+		}
+		return containsInstance(pending, parent) ? parent.get(propertyName) : singleLoader.getAndStoreOnDemand(propertyName, parent);
+	}
+	
+	private static final boolean containsInstance(JSONList list, JSONMap json) {
+		for ( Object o : list ) {
+			if ( o == json ) { return true; }
+		}
+		return false;
+	}
+	
+	/**
+	 * Get the {@link JSONMap} instances from the batch that still contain this on-demand loader. 
+	 * In these instances, this on-demand loader is replaced with a null value, which will be 
+	 * overwritten by the batch loader for every {@link JSONMap} instance for which a value is 
+	 * loaded. The references to the batch and the batch loader are released, so any subsequent 
+	 * invocation of this method returns null, and the batch is loaded only once.
+	 */
+	private synchronized JSONList takePendingBatch(String propertyName) {
+		if ( batch == null ) { return null; }
+		JSONList result = new JSONList(batch.size());
+		for ( JSONMap json : batch.asValueType(JSONMap.class) ) {
+			Object oldValue = json.put(propertyName, null);
+			if ( oldValue == this ) {
+				result.add(json);
+			} else {
+				json.put(propertyName, oldValue);
+			}
+		}
+		batch = null;
+		batchLoader = null;
+		return result;
+	}
+}
@@ -24,17 +24,164 @@
  ******************************************************************************/
 package com.fortify.util.rest.json.preprocessor.enrich;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.WebTarget;
 
+import org.apache.commons.lang.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fortify.util.rest.connection.IRestConnection;
+import com.fortify.util.rest.json.JSONList;
 import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
 import com.fortify.util.rest.json.embed.IEmbedDefinition;
 import com.fortify.util.rest.json.ondemand.AbstractJSONMapOnDemandLoaderWithIRestConnection;
+import com.fortify.util.rest.json.ondemand.IJSONMapOnDemandLoader;
+import com.fortify.util.rest.json.ondemand.JSONMapOnDemandLoaderBatch;
 
+/**
+ * This {@link JSONMapEnrichWithOnDemandProperty} extension allows for enriching
+ * a given {@link JSONMap} instance with REST data that is loaded on demand from the
+ * URI described by the configured {@link IEmbedDefinition}. Apart from being used as
+ * a regular pre-processor, this class can provide a batch pre-processor through the
+ * {@link #asBatchPreProcessor()} method; the REST data for all accepted {@link JSONMap} 
+ * instances in a page is then loaded upon first access to the on-demand property
+ * in any of these instances, as described in {@link JSONMapOnDemandLoaderBatch}.
+ * 
+ * @author Ruud Senden
+ *
+ */
 public class JSONMapEnrichWithOnDemandRestData extends JSONMapEnrichWithOnDemandProperty {
+	private final IRestConnection conn;
+	private final IEmbedDefinition embedDefinition;
+	private final IJSONMapOnDemandLoader onDemandLoader;
+	
 	public JSONMapEnrichWithOnDemandRestData(IRestConnection conn, IEmbedDefinition embedDefinition) {
-		super(embedDefinition.getPropertyName(), new JSONMapOnDemandLoaderRestData(conn, true, embedDefinition));
+		this(conn, embedDefinition, new JSONMapOnDemandLoaderRestData(conn, true, embedDefinition));
+	}
+	
+	private JSONMapEnrichWithOnDemandRestData(IRestConnection conn, IEmbedDefinition embedDefinition, IJSONMapOnDemandLoader onDemandLoader) {
+		super(embedDefinition.getPropertyName(), onDemandLoader);
+		this.conn = conn;
+		this.embedDefinition = embedDefinition;
+		this.onDemandLoader = onDemandLoader;
+	}
+	
+	/**
+	 * Return a batch pre-processor that replaces the on-demand loader added by this pre-processor
+	 * with a {@link JSONMapOnDemandLoaderBatch} in all given {@link JSONMap} instances, using 
+	 * {@link #loadBatch(JSONList)} to load the REST data for all these {@link JSONMap} instances 
+	 * upon first access. 
+	 * @return Batch pre-processor
+	 */
+	public Consumer<JSONList> asBatchPreProcessor() {
+		return asBatchPreProcessor(this::loadBatch);
+	}
+	
+	/**
+	 * Return a batch pre-processor that replaces the on-demand loader added by this pre-processor
+	 * with a {@link JSONMapOnDemandLoaderBatch} in all given {@link JSONMap} instances, using the 
+	 * given batch loader to load the REST data for all these {@link JSONMap} instances upon first 
+	 * access. This allows for using system-specific batch loaders, for example based on bulk requests. 
+	 * @param batchLoader {@link Consumer} for loading and storing REST data for all given {@link JSONMap} instances
+	 * @return Batch pre-processor
+	 */
+	public Consumer<JSONList> asBatchPreProcessor(Consumer<JSONList> batchLoader) {
+		return JSONMapOnDemandLoaderBatch.batchPreProcessor(embedDefinition.getPropertyName(), onDemandLoader, batchLoader);
+	}
+	
+	/**
+	 * Load the REST data for all {@link JSONMap} instances in the given {@link JSONList}, and store
+	 * the results in these instances. {@link JSONMap} instances that resolve to the same URI share a 
+	 * single request, and on multi-threaded connections all requests are executed concurrently. 
+	 * @param jsonList {@link JSONList} containing the {@link JSONMap} instances to be enriched
+	 */
+	public void loadBatch(JSONList jsonList) {
+		startBatch(jsonList).run();
+	}
+	
+	/**
+	 * Similar to {@link #loadBatch(JSONList)}, but rather than waiting for the results, this method
+	 * returns a {@link Runnable} that waits for the results and stores them in the given {@link JSONMap}
+	 * instances. On multi-threaded connections, all requests have been started when this method returns,
+	 * allowing callers to start loading the data for multiple embeds before waiting for any results.
+	 * @param jsonList {@link JSONList} containing the {@link JSONMap} instances to be enriched
+	 * @return {@link Runnable} for waiting for and storing the results
+	 */
+	public Runnable startBatch(JSONList jsonList) {
+		Map<String, List<JSONMap>> uriToInputsMap = new LinkedHashMap<>();
+		Map<String, Supplier<JSONMap>> uriToResultMap = new LinkedHashMap<>();
+		for ( JSONMap input : jsonList.asValueType(JSONMap.class) ) {
+			if ( embedDefinition.isEnabled(input) ) {
+				String uri = embedDefinition.buildUri(input);
+				if ( StringUtils.isNotBlank(uri) ) {
+					WebTarget target = conn.getResource(uri);
+					String targetUri = target.getUri().toString();
+					uriToInputsMap.computeIfAbsent(targetUri, k->new ArrayList<>()).add(input);
+					uriToResultMap.computeIfAbsent(targetUri, k->executeRequest(target));
+				}
+			}
+		}
+		return ()->uriToInputsMap.forEach((uri, inputs)->addResult(inputs, uriToResultMap.get(uri)));
+	}
+	
+	/**
+	 * On multi-threaded connections, start executing the request for the given {@link WebTarget} 
+	 * in the background. On other connections, the request is executed once the result is requested. 
+	 * @return {@link Supplier} for the request result
+	 */
+	private Supplier<JSONMap> executeRequest(WebTarget target) {
+		if ( conn.isMultiThreaded() ) {
+			return conn.executeRequestAsync(HttpMethod.GET, target, JSONMap.class)::join;
+		} else {
+			return ()->conn.executeRequest(HttpMethod.GET, target, JSONMap.class);
+		}
+	}
+	
+	/**
+	 * Add the given result to each of the given input objects. The first input object
+	 * receives the loaded result; all other input objects receive their own copy, so 
+	 * that input objects can be modified independently.
+	 */
+	private void addResult(List<JSONMap> inputs, Supplier<JSONMap> result) {
+		String propertyName = embedDefinition.getPropertyName();
+		try {
+			JSONMap body = result.get();
+			byte[] bodyBytes = inputs.size()==1 ? null : serialize(body);
+			for ( JSONMap input : inputs ) {
+				input.put(propertyName, embedDefinition.getResult(body!=null ? body : deserialize(bodyBytes)));
+				body = null;
+			}
+		} catch ( RuntimeException e ) {
+			RuntimeException cause = e instanceof CompletionException && e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause() : e;
+			Object resultOnError = embedDefinition.getResultOnError(cause);
+			inputs.forEach(input->input.put(propertyName, resultOnError));
+		}
+	}
+	
+	private byte[] serialize(JSONMap body) {
+		try {
+			return JSONObjectMapperSupplier.getObjectWriter().writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("Error serializing response body", e);
+		}
+	}
+	
+	private JSONMap deserialize(byte[] bodyBytes) {
+		try {
+			return JSONObjectMapperSupplier.getObjectMapper().readValue(bodyBytes, JSONMap.class);
+		} catch (IOException e) {
+			throw new RuntimeException("Error deserializing response body", e);
+		}
 	}
 
 	private static final class JSONMapOnDemandLoaderRestData extends AbstractJSONMapOnDemandLoaderWithIRestConnection {
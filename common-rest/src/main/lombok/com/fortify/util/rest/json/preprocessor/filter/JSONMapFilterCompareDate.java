@@ -28,6 +28,8 @@ import java.util.Date;
 
 import com.fortify.util.rest.json.JSONMap;
 
+import lombok.Getter;
+
 /**
  * This {@link JSONMapFilterSpEL} implementation allows for filtering {@link JSONMap}
  * instances by comparing the value for the configured JSON property path against a 
@@ -36,13 +38,20 @@ import com.fortify.util.rest.json.JSONMap;
  * @author Ruud Senden
  *
  */
+@Getter
 public class JSONMapFilterCompareDate extends JSONMapFilterSpEL {
 	public static enum DateComparisonOperator {
 		lt, gt, le, ge, eq, ne
 	}
+	private final String fieldPath;
+	private final DateComparisonOperator operator;
+	private final Date compareDate;
 	
 	public JSONMapFilterCompareDate(MatchMode matchMode, String fieldPath, DateComparisonOperator operator, Date compareDate) {
 		super(matchMode, getDateExpression(fieldPath, operator, compareDate));
+		this.fieldPath = fieldPath;
+		this.operator = operator;
+		this.compareDate = compareDate;
 	}
 
 	private static String getDateExpression(String fieldPath, DateComparisonOperator operator, Date compareDate) {
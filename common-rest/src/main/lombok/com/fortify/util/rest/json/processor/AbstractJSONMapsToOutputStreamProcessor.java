@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json.processor;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.query.PagingData;
+
+/**
+ * Abstract base class for {@link IJSONMapProcessor} implementations that write each
+ * {@link JSONMap} instance to an {@link OutputStream} or file as soon as it is being
+ * processed, allowing for exporting large numbers of results using constant memory.
+ * Output is written as UTF-8 through a buffered {@link Writer}, optionally compressed 
+ * using gzip. The output is flushed whenever the next page of results is about to be
+ * loaded, and when this processor is being closed. Instances must be closed after all 
+ * results have been processed, for example using a try-with-resources statement.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public abstract class AbstractJSONMapsToOutputStreamProcessor extends AbstractJSONMapProcessor implements Closeable, Flushable {
+	private static final int BUFFER_SIZE = 64*1024;
+	private final Writer writer;
+	private long count = 0;
+	
+	/**
+	 * Constructor for writing to the given {@link OutputStream}, which will be
+	 * closed when this processor is being closed. 
+	 * @param out {@link OutputStream} to write to
+	 * @param gzip indicates whether output should be compressed using gzip
+	 */
+	protected AbstractJSONMapsToOutputStreamProcessor(OutputStream out, boolean gzip) {
+		this.writer = createWriter(out, gzip);
+	}
+	
+	/**
+	 * Constructor for writing to the given file, replacing any existing file contents.
+	 * @param path of the file to write to
+	 * @param gzip indicates whether output should be compressed using gzip
+	 */
+	protected AbstractJSONMapsToOutputStreamProcessor(Path path, boolean gzip) {
+		this(newOutputStream(path), gzip);
+	}
+	
+	/**
+	 * Write the given {@link JSONMap} to the {@link Writer} returned by {@link #getWriter()}.
+	 * @param json to be written
+	 * @throws IOException if an error occurs while writing
+	 */
+	protected abstract void write(JSONMap json) throws IOException;
+	
+	/**
+	 * @return {@link Writer} to which subclasses should write their output
+	 */
+	protected final Writer getWriter() {
+		return writer;
+	}
+	
+	/**
+	 * @return Number of {@link JSONMap} instances written so far
+	 */
+	public final long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Write the given {@link JSONMap} by calling {@link #write(JSONMap)}.
+	 */
+	@Override
+	public final void process(JSONMap json) {
+		try {
+			write(json);
+			count++;
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing output", e);
+		}
+	}
+	
+	/**
+	 * Flush all results written so far before the next page of results is loaded.
+	 */
+	@Override
+	public void notifyNextPage(PagingData pagingData) {
+		flush();
+	}
+	
+	/**
+	 * Flush all buffered output to the underlying {@link OutputStream}. Subclasses
+	 * that buffer any output themselves should override this method to write any 
+	 * such output to the {@link Writer} returned by {@link #getWriter()} before 
+	 * calling this superclass method.
+	 */
+	@Override
+	public void flush() {
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			throw new RuntimeException("Error flushing output", e);
+		}
+	}
+	
+	/**
+	 * Flush all buffered output, finish gzip compression if applicable, and close 
+	 * the underlying {@link OutputStream}. Subclasses that buffer any output themselves 
+	 * should override this method to write any such output to the {@link Writer} 
+	 * returned by {@link #getWriter()} before calling this superclass method.
+	 */
+	@Override
+	public void close() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Error closing output", e);
+		}
+	}
+	
+	private static final Writer createWriter(OutputStream out, boolean gzip) {
+		try {
+			OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+			return new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+		} catch (IOException e) {
+			throw new RuntimeException("Error initializing output", e);
+		}
+	}
+	
+	private static final OutputStream newOutputStream(Path path) {
+		try {
+			return Files.newOutputStream(path);
+		} catch (IOException e) {
+			throw new RuntimeException("Error opening "+path+" for writing", e);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
+
+/**
+ * This {@link IJSONMapProcessor} implementation writes each {@link JSONMap} instance
+ * passed to the {@link #process(JSONMap)} method as a CSV record, according to RFC 4180.
+ * The output starts with a header record listing the configured columns. Each column is 
+ * a property path that is evaluated using {@link JSONMap#getPath(String)}; use SpEL safe 
+ * navigation like <code>primaryRule?.name</code> for properties that may be missing 
+ * intermediate objects. Column values are written using their {@link String} representation, 
+ * except for nested objects and arrays, which are written as JSON. See 
+ * {@link AbstractJSONMapsToOutputStreamProcessor} for details about buffering, compression 
+ * and closing instances of this class.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public class JSONMapsToCSVProcessor extends AbstractJSONMapsToOutputStreamProcessor {
+	private static final String LINE_SEPARATOR = "\r\n";
+	private final String[] columns;
+	
+	/**
+	 * Constructor for writing the given columns to the given {@link OutputStream}.
+	 * @param out {@link OutputStream} to write to
+	 * @param gzip indicates whether output should be compressed using gzip
+	 * @param columns property paths to be written for each {@link JSONMap} instance
+	 */
+	public JSONMapsToCSVProcessor(OutputStream out, boolean gzip, String... columns) {
+		super(out, gzip);
+		this.columns = columns;
+		writeHeader();
+	}
+	
+	/**
+	 * Constructor for writing the given columns to the given file.
+	 * @param path of the file to write to
+	 * @param gzip indicates whether output should be compressed using gzip
+	 * @param columns property paths to be written for each {@link JSONMap} instance
+	 */
+	public JSONMapsToCSVProcessor(Path path, boolean gzip, String... columns) {
+		super(path, gzip);
+		this.columns = columns;
+		writeHeader();
+	}
+	
+	@Override
+	protected void write(JSONMap json) throws IOException {
+		Writer writer = getWriter();
+		for ( int i = 0 ; i < columns.length ; i++ ) {
+			if ( i > 0 ) { writer.write(','); }
+			writeField(writer, json.getPath(columns[i]));
+		}
+		writer.write(LINE_SEPARATOR);
+	}
+	
+	private void writeHeader() {
+		try {
+			Writer writer = getWriter();
+			for ( int i = 0 ; i < columns.length ; i++ ) {
+				if ( i > 0 ) { writer.write(','); }
+				writeField(writer, columns[i]);
+			}
+			writer.write(LINE_SEPARATOR);
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing output", e);
+		}
+	}
+	
+	private static final void writeField(Writer writer, Object value) throws IOException {
+		if ( value != null ) {
+			String text = isJSON(value) 
+					? JSONObjectMapperSupplier.getObjectWriter().writeValueAsString(value) 
+					: value.toString();
+			if ( !requiresQuotes(text) ) {
+				writer.write(text);
+			} else {
+				writer.write('"');
+				writer.write(text.replace("\"", "\"\""));
+				writer.write('"');
+			}
+		}
+	}
+	
+	private static final boolean isJSON(Object value) {
+		return value instanceof Map || value instanceof Collection || value.getClass().isArray();
+	}
+	
+	private static final boolean requiresQuotes(String text) {
+		for ( int i = 0 ; i < text.length() ; i++ ) {
+			char c = text.charAt(i);
+			if ( c==',' || c=='"' || c=='\n' || c=='\r' ) { return true; }
+		}
+		return false;
+	}
+}
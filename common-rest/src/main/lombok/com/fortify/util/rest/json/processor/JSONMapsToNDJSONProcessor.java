@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.json.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
+
+/**
+ * This {@link IJSONMapProcessor} implementation writes each {@link JSONMap} instance
+ * passed to the {@link #process(JSONMap)} method as a single line of JSON (also known
+ * as newline-delimited JSON or JSON Lines), using a single {@link JsonGenerator} for 
+ * all results. See {@link AbstractJSONMapsToOutputStreamProcessor} for details about
+ * buffering, compression and closing instances of this class.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public class JSONMapsToNDJSONProcessor extends AbstractJSONMapsToOutputStreamProcessor {
+	private static final ObjectWriter WRITER = JSONObjectMapperSupplier.getObjectWriter()
+			.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	private final JsonGenerator generator;
+	
+	/**
+	 * Constructor for writing to the given {@link OutputStream}.
+	 * @param out {@link OutputStream} to write to
+	 * @param gzip indicates whether output should be compressed using gzip
+	 */
+	public JSONMapsToNDJSONProcessor(OutputStream out, boolean gzip) {
+		super(out, gzip);
+		this.generator = createGenerator();
+	}
+	
+	/**
+	 * Constructor for writing to the given file.
+	 * @param path of the file to write to
+	 * @param gzip indicates whether output should be compressed using gzip
+	 */
+	public JSONMapsToNDJSONProcessor(Path path, boolean gzip) {
+		super(path, gzip);
+		this.generator = createGenerator();
+	}
+	
+	@Override
+	protected void write(JSONMap json) throws IOException {
+		WRITER.writeValue(generator, json);
+		generator.writeRaw('\n');
+	}
+	
+	@Override
+	public void flush() {
+		try {
+			generator.flush();
+		} catch (IOException e) {
+			throw new RuntimeException("Error flushing output", e);
+		}
+		super.flush();
+	}
+	
+	@Override
+	public void close() {
+		try {
+			generator.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Error closing output", e);
+		}
+		super.close();
+	}
+	
+	private JsonGenerator createGenerator() {
+		try {
+			JsonGenerator result = WRITER.getFactory().createGenerator(getWriter())
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+					.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+			result.setRootValueSeparator(null);
+			return result;
+		} catch (IOException e) {
+			throw new RuntimeException("Error initializing output", e);
+		}
+	}
+}
@@ -24,23 +24,49 @@
  ******************************************************************************/
 package com.fortify.util.rest.query;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
 
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fortify.util.rest.connection.IRestConnection;
+import com.fortify.util.rest.connection.ResponseByteCounter;
+import com.fortify.util.rest.connection.ResponseCache;
+import com.fortify.util.rest.connection.ResponseCachePolicy;
 import com.fortify.util.rest.json.JSONList;
 import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
 import com.fortify.util.rest.json.preprocessor.IJSONMapPreProcessor;
 import com.fortify.util.rest.json.processor.AbstractJSONMapProcessor;
 import com.fortify.util.rest.json.processor.IJSONMapProcessor;
 import com.fortify.util.rest.json.processor.JSONMapsToJSONListProcessor;
 import com.fortify.util.rest.webtarget.IWebTargetUpdater;
 
+import lombok.extern.apachecommons.CommonsLog;
+
 /**
  * <p>This abstract class provides an implementation for {@link IRestConnectionQuery} to allow for
  * querying REST API's. Usually for each target system, you would have one (or a limited number of) 
@@ -57,13 +83,22 @@ import com.fortify.util.rest.webtarget.IWebTargetUpdater;
  * 
  * @author Ruud Senden
  */
+@CommonsLog
 public abstract class AbstractRestConnectionQuery<ResponseType> implements IRestConnectionQuery {
+	private static final ObjectReader JSON_MAP_READER = JSONObjectMapperSupplier.getObjectMapper().readerFor(JSONMap.class);
 	private final IRestConnection conn;
 	private final List<IWebTargetUpdater> webTargetUpdaters;
 	private final List<BiConsumer<PagingData, JSONList>> pagePreProcessors;
 	private final List<BiConsumer<PagingData, JSONList>> pagePostProcessors;
 	private final List<IJSONMapPreProcessor> preProcessors;
+	private final List<Consumer<JSONList>> batchPreProcessors;
 	private final int maxResults;
+	private final int pageSize;
+	private final AdaptivePageSizePolicy adaptivePageSizePolicy;
+	private final int pagingParallelism;
+	private final int pipelinedPagingCapacity;
+	private final boolean streamingResponseParsing;
+	private final ResponseCachePolicy responseCachePolicy;
 	private final boolean pagingSupported;
 	private final Entity<?> entity;
 	private final String httpMethod;
@@ -75,11 +110,21 @@ public abstract class AbstractRestConnectionQuery<ResponseType> implements IRest
 		this.pagePreProcessors =  Collections.unmodifiableList(config.getPagePreProcessors());
 		this.pagePostProcessors =  Collections.unmodifiableList(config.getPagePostProcessors());
 		this.preProcessors =  Collections.unmodifiableList(config.getPreProcessors());
+		this.batchPreProcessors =  Collections.unmodifiableList(config.getBatchPreProcessors());
 		this.maxResults = config.getMaxResults();
+		this.pageSize = config.getPageSize();
+		this.adaptivePageSizePolicy = config.getAdaptivePageSizePolicy();
+		this.pagingParallelism = config.getPagingParallelism();
+		this.pipelinedPagingCapacity = config.getPipelinedPagingCapacity();
+		this.streamingResponseParsing = config.isStreamingResponseParsing();
+		this.responseCachePolicy = config.getResponseCachePolicy();
 		this.pagingSupported = config.isPagingSupported();
 		this.entity = config.getEntity();
 		this.httpMethod = config.getHttpMethod();
 		this.requestInitializer = config.getRequestInitializer();
+		if ( streamingResponseParsing && !batchPreProcessors.isEmpty() ) {
+			log.debug("Streaming response parsing disabled as batch pre-processors (for example for on-demand embeds) operate on full pages");
+		}
 	}
 	
 	/* (non-Javadoc)
@@ -87,18 +132,89 @@ public abstract class AbstractRestConnectionQuery<ResponseType> implements IRest
 	 */
 	@Override
 	public void processAll(IJSONMapProcessor processor) {
-		processAll(getWebTarget(), new PagingData().maxResults(maxResults), processor);
+		processAll(getWebTarget(), createPagingData(maxResults), processor);
 	}
 	
 	@Override
 	public void processAll(final Consumer<JSONMap> processor) {
-		processAll(new AbstractJSONMapProcessor() {
+		processAll(asJSONMapProcessor(processor));
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.fortify.util.rest.query.IRestConnectionQuery#processAll(java.lang.Class, java.util.function.Consumer)
+	 */
+	@Override
+	public <T> void processAll(Class<T> type, Consumer<T> processor) {
+		if ( !isDirectBindingSupported() ) {
+			processAll(json -> processor.accept(convert(json, type)));
+		} else {
+			processAll(new TypedQueryExecution<>(getWebTarget(), createPagingData(maxResults), type, processor, isPrefetchEnabled()));
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.fortify.util.rest.query.IRestConnectionQuery#stream()
+	 */
+	@Override
+	public Stream<JSONMap> stream() {
+		WebTarget target = getWebTarget();
+		Deque<JSONMap> buffer = new ArrayDeque<>();
+		QueryExecution<?> execution = new JSONMapQueryExecution(target, createPagingData(maxResults), asJSONMapProcessor(buffer::add), false);
+		return stream(buffer, execution, (pagingData, consumer) -> new JSONMapQueryExecution(target, pagingData, asJSONMapProcessor(consumer), false));
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.fortify.util.rest.query.IRestConnectionQuery#stream(java.lang.Class)
+	 */
+	@Override
+	public <T> Stream<T> stream(Class<T> type) {
+		if ( !isDirectBindingSupported() ) {
+			return stream().map(json -> convert(json, type));
+		}
+		WebTarget target = getWebTarget();
+		Deque<T> buffer = new ArrayDeque<>();
+		QueryExecution<?> execution = new TypedQueryExecution<>(target, createPagingData(maxResults), type, buffer::add, false);
+		return stream(buffer, execution, (pagingData, consumer) -> new TypedQueryExecution<>(target, pagingData, type, consumer, false));
+	}
+	
+	/**
+	 * Create a {@link Stream} for the results that the given {@link QueryExecution} adds to the given buffer. 
+	 * The given function is used to create new {@link QueryExecution} instances when splitting the stream.
+	 * Stream executions never load pages in the background, as short-circuited streams are often not
+	 * closed, which would leave any background page loads running.
+	 */
+	private <E> Stream<E> stream(Deque<E> buffer, QueryExecution<?> execution, BiFunction<PagingData, Consumer<E>, QueryExecution<?>> splitExecutionFactory) {
+		return StreamSupport.stream(new QuerySpliterator<>(buffer, execution, splitExecutionFactory), false).onClose(execution::close);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.fortify.util.rest.query.IRestConnectionQuery#publisher()
+	 */
+	@Override
+	public Publisher<JSONMap> publisher() {
+		return subscriber -> {
+			Objects.requireNonNull(subscriber, "Subscriber may not be null");
+			Deque<JSONMap> buffer = new ArrayDeque<>();
+			QueryExecution<?> execution = new JSONMapQueryExecution(getWebTarget(), createPagingData(maxResults), asJSONMapProcessor(buffer::add), isPrefetchEnabled());
+			subscriber.onSubscribe(new QuerySubscription(subscriber, buffer, execution));
+		};
+	}
+	
+	private static final IJSONMapProcessor asJSONMapProcessor(final Consumer<JSONMap> processor) {
+		return new AbstractJSONMapProcessor() {
 			
 			@Override
 			public void process(JSONMap json) {
 				processor.accept(json);
 			}
-		});
+		};
+	}
+	
+	/**
+	 * Convert the given {@link JSONMap} to the given type, used if results cannot be bound directly.
+	 */
+	private static final <T> T convert(JSONMap json, Class<T> type) {
+		return type.isInstance(json) ? type.cast(json) : JSONObjectMapperSupplier.getObjectMapper().convertValue(json, type);
 	}
 
 	/* (non-Javadoc)
@@ -117,7 +233,7 @@ public abstract class AbstractRestConnectionQuery<ResponseType> implements IRest
 	@Override
 	public JSONMap getUnique() {
 		JSONMapsToJSONListProcessor processor = new JSONMapsToJSONListProcessor();
-		processAll(getWebTarget(), new PagingData().maxResults(Math.min(2, maxResults)), processor);
+		processAll(getWebTarget(), createPagingData(Math.min(2, maxResults)), processor);
 		JSONList list = processor.getJsonList();
 		if ( list == null || list.size() == 0 ) {
 			return null;
@@ -128,6 +244,11 @@ public abstract class AbstractRestConnectionQuery<ResponseType> implements IRest
 		return list.asValueType(JSONMap.class).get(0);
 	}
 	
+	private PagingData createPagingData(int maxResults) {
+		PagingData pagingData = new PagingData().maxResults(maxResults);
+		return pageSize > 0 ? pagingData.pageSize(pageSize) : pagingData;
+	}
+	
 	protected final WebTarget getWebTarget() {
 		WebTarget webTarget = conn.getBaseResource();
 		for ( IWebTargetUpdater updater : webTargetUpdaters ) {
@@ -137,7 +258,14 @@ public abstract class AbstractRestConnectionQuery<ResponseType> implements IRest
 	}
 	
 	protected ResponseType executeRequest(WebTarget target) {
-		if ( entity == null ) {
+		byte[] cachedResponse = executeCachedRequest(target);
+		if ( cachedResponse != null ) {
+			try {
+				return cachedResponse.length==0 ? null : JSONObjectMapperSupplier.getObjectMapper().readValue(cachedResponse, getResponseTypeClass());
+			} catch ( IOException e ) {
+				throw new RuntimeException("Error reading cached response from "+target.getUri(), e);
+			}
+		} else if ( entity == null ) {
 			return conn.executeRequest(httpMethod, target, getResponseTypeClass());
 		} else {
 			return conn.executeRequest(httpMethod, target, entity, getResponseTypeClass());
@@ -183,43 +311,699 @@ public abstract class AbstractRestConnectionQuery<ResponseType> implements IRest
 	protected abstract JSONList getJSONListFromResponse(ResponseType responseData);
 	
 	/**
-	 * Process all results returned by the given {@link WebTarget} by calling the given {@link IJSONMapProcessor}.
-	 * Depending on the return value of {@link #pagingSupported}, this method will either directly invoke
-	 * the given web target (paging not supported), or retrieve all data page by page (paging is supported).
-	 * 
+	 * Subclasses for which the response type is {@link JSONMap}, with all results being contained
+	 * in a single response property, can override this method to return the name of that property.
+	 * This allows {@link #processAll(Class, Consumer)} and {@link #stream(Class)} to bind each result
+	 * directly to the requested type, without creating intermediate {@link JSONMap} instances. The
+	 * paging information is still retrieved through {@link #updatePagingDataFromResponse(PagingData, Object)},
+	 * based on a {@link JSONMap} instance that contains all other response properties. This default
+	 * implementation returns null, in which case results are always converted from {@link JSONMap} instances.
+	 * @return Name of the response property containing the results, or null if not applicable
+	 */
+	protected String getResultsPropertyName() {
+		return null;
+	}
+	
+	/**
+	 * Indicate whether results can be bound directly to a given type. This requires that
+	 * {@link #getResultsPropertyName()} returns a property name, and that no {@link JSONMap}-based
+	 * pre-processors or page processors have been configured, as these depend on having
+	 * {@link JSONMap} instances available.
+	 * @return true if results can be bound directly to a given type, false otherwise
+	 */
+	private boolean isDirectBindingSupported() {
+		return isResultsPropertySupported() && preProcessors.isEmpty();
+	}
+	
+	/**
+	 * Indicate whether results should be processed while reading the response, as configured
+	 * through {@link AbstractRestConnectionQueryBuilder#streamingResponseParsing(boolean)}. Apart
+	 * from being enabled, this requires that {@link #getResultsPropertyName()} returns a property 
+	 * name, and that no page processors or batch pre-processors have been configured, as these 
+	 * operate on full pages.
+	 * @return true if results should be processed while reading the response, false otherwise
+	 */
+	private boolean isStreamingSupported() {
+		return streamingResponseParsing && isResultsPropertySupported();
+	}
+	
+	/**
+	 * @return true if {@link #getResultsPropertyName()} returns a property name and no page processors have been configured
+	 */
+	private boolean isResultsPropertySupported() {
+		return getResultsPropertyName() != null && getResponseTypeClass().isAssignableFrom(JSONMap.class)
+				&& pagePreProcessors.isEmpty() && pagePostProcessors.isEmpty() && batchPreProcessors.isEmpty();
+	}
+	
+	/**
+	 * Execute the request for the given {@link WebTarget}, and bind the results contained in the response
+	 * using the given {@link ObjectReader} while reading the response contents. If the given result handler 
+	 * is null, the results are collected in the returned {@link ResultsPage}, otherwise each result is passed
+	 * to the given result handler as soon as it has been read.
+	 */
+	private <T> ResultsPage<T> executeRequest(WebTarget target, ObjectReader resultReader, Predicate<T> resultHandler) {
+		byte[] cachedResponse = executeCachedRequest(target);
+		if ( cachedResponse != null ) {
+			try {
+				return readResultsPage(new ByteArrayInputStream(cachedResponse), resultReader, resultHandler);
+			} catch ( IOException e ) {
+				throw new RuntimeException("Error reading cached response from "+target.getUri(), e);
+			}
+		}
+		Response response = entity == null
+				? conn.executeRequest(httpMethod, target, Response.class)
+				: conn.executeRequest(httpMethod, target, entity, Response.class);
+		try ( InputStream in = response.readEntity(InputStream.class) ) {
+			return readResultsPage(in, resultReader, resultHandler);
+		} catch ( IOException e ) {
+			throw new RuntimeException("Error reading response from "+target.getUri(), e);
+		} finally {
+			response.close();
+		}
+	}
+	
+	private <T> ResultsPage<T> readResultsPage(InputStream in, ObjectReader resultReader, Predicate<T> resultHandler) throws IOException {
+		return resultHandler == null 
+				? ResultsPage.read(in, getResultsPropertyName(), resultReader)
+				: ResultsPage.read(in, getResultsPropertyName(), resultReader, resultHandler);
+	}
+	
+	/**
+	 * If a {@link ResponseCachePolicy} has been configured for this query, the connection
+	 * provides a {@link ResponseCache}, and the policy allows the response for the given
+	 * {@link WebTarget} to be cached, this method returns the response body from the cache,
+	 * loading it from the server on a cache miss. Otherwise, this method returns null, 
+	 * indicating that the request should be executed directly.
+	 */
+	private byte[] executeCachedRequest(WebTarget target) {
+		ResponseCache responseCache = responseCachePolicy==null || entity!=null ? null : conn.getResponseCache();
+		if ( responseCache != null ) {
+			URI uri = target.getUri();
+			long timeToLiveMillis = responseCachePolicy.getTimeToLiveMillis(httpMethod, uri);
+			if ( timeToLiveMillis > 0 ) {
+				return responseCache.get(httpMethod, uri, timeToLiveMillis, ()->conn.executeRequest(httpMethod, target, byte[].class));
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Process all results returned by the given {@link WebTarget} by calling the given {@link IJSONMapProcessor},
+	 * using a {@link QueryExecution} instance to process all pages.
 	 */
 	private void processAll(WebTarget target, PagingData pagingData, IJSONMapProcessor processor) {
-		if ( requestInitializer != null ) { requestInitializer.initRequest(); }
-		processor = new JSONMapProcessorWithPreProcessorsAndPagingSupport(preProcessors, processor, pagingData);
-		if ( !pagingSupported ) {
-			processSingleRequest(target, processor, pagingData);
-		} else {
-			while (pagingData.calculateNextPageSize() > 0) {
-				processor.notifyNextPage(pagingData);
-				WebTarget pagingTarget = updateWebTargetWithPagingData(target, pagingData);
-				processSingleRequest(pagingTarget, processor, pagingData);
+		processAll(new JSONMapQueryExecution(target, pagingData, processor, isPrefetchEnabled()));
+	}
+	
+	/**
+	 * Process all pages using the given {@link QueryExecution} instance.
+	 */
+	private void processAll(QueryExecution<?> execution) {
+		try ( QueryExecution<?> e = execution ) {
+			while ( e.processNextPage() ) {}
+		}
+	}
+	
+	/**
+	 * @return true if either parallel or pipelined paging has been configured, false otherwise
+	 */
+	private boolean isPrefetchEnabled() {
+		return pagingParallelism > 1 || pipelinedPagingCapacity > 0;
+	}
+	
+	/**
+	 * This class holds the state for a single execution of this query, allowing for 
+	 * processing the results returned by the given {@link WebTarget} page by page. 
+	 * Depending on the return value of {@link #pagingSupported}, this class will either 
+	 * directly invoke the given web target (paging not supported), or retrieve all data 
+	 * page by page (paging is supported). If paging is supported and prefetching is enabled,
+	 * pages will be loaded in the background. If parallel paging is enabled, up to 
+	 * {@link #pagingParallelism} pages are loaded concurrently once the total number of 
+	 * available results is known. If pipelined paging is enabled, up to 
+	 * {@link #pipelinedPagingCapacity} pages are loaded ahead of the page currently being 
+	 * processed, even if the total number of available results is not known. In all cases,
+	 * pages are processed in their original order on the thread calling {@link #processNextPage()}. 
+	 */
+	private abstract class QueryExecution<P> implements AutoCloseable {
+		private final WebTarget target;
+		final PagingData pagingData;
+		private final boolean prefetchEnabled;
+		private final boolean streaming;
+		private PagePrefetcher<P> prefetcher;
+		private int nextStart;
+		private boolean started = false;
+		private boolean done = false;
+		
+		/**
+		 * Create a new {@link QueryExecution} instance.
+		 * @param target {@link WebTarget} to be invoked
+		 * @param pagingData {@link PagingData} instance for this execution
+		 * @param prefetchEnabled indicates whether pages may be loaded in the background
+		 */
+		QueryExecution(WebTarget target, PagingData pagingData, boolean prefetchEnabled) {
+			this.target = target;
+			this.pagingData = pagingData;
+			this.prefetchEnabled = prefetchEnabled;
+			this.streaming = isStreamingSupported();
+		}
+		
+		/**
+		 * Execute the request for the given {@link WebTarget}, returning the page contents.
+		 * This method may be invoked by background threads.
+		 */
+		abstract P executeRequest(WebTarget target);
+		
+		/**
+		 * Execute the request for the given {@link WebTarget}, processing each result while the
+		 * response is being read. This method is only invoked if streaming is supported, as 
+		 * indicated by {@link AbstractRestConnectionQuery#isStreamingSupported()}.
+		 */
+		abstract ResultsPage<?> executeStreamingRequest(WebTarget target);
+		
+		/**
+		 * @return Size in bytes of the given page, as loaded by {@link #executeRequest(WebTarget)} 
+		 *         on the current thread, or -1 if unknown
+		 */
+		abstract long getResponseBytes(P page);
+		
+		/**
+		 * Notify any processors that the next page is about to be processed.
+		 */
+		abstract void notifyNextPage(PagingData pagingData);
+		
+		/**
+		 * Process all results contained in the given page.
+		 */
+		abstract void processPage(P page, PagingData pagingData);
+		
+		/**
+		 * Load and process the next page. If paging is not supported, the first invocation
+		 * of this method will process all results.
+		 * @return true if a page was processed, false if there are no more pages
+		 */
+		boolean processNextPage() {
+			return processNextPage(prefetchEnabled);
+		}
+		
+		/**
+		 * Load and process the next page, optionally allowing for pages to be loaded
+		 * in the background. If paging is not supported, the first invocation of this 
+		 * method will process all results.
+		 * @param allowPrefetch indicates whether pages may be loaded in the background
+		 * @return true if a page was processed, false if there are no more pages
+		 */
+		boolean processNextPage(boolean allowPrefetch) {
+			if ( done ) { return false; }
+			if ( !started ) {
+				started = true;
+				if ( requestInitializer != null ) { requestInitializer.initRequest(); }
+			}
+			if ( !pagingSupported ) {
+				done = true;
+				if ( streaming ) {
+					processStreamingRequest(target);
+				} else {
+					processPage(executeRequest(target), pagingData);
+				}
+			} else if ( pagingData.calculateNextPageSize() <= 0 || (allowPrefetch && isTotalAvailableProcessed()) ) {
+				close();
+				return false;
+			} else if ( allowPrefetch ) {
+				processNextPrefetchedPage();
+			} else {
+				processNextLoadedPage();
+			}
+			return true;
+		}
+		
+		/**
+		 * Background page loads are bounded by the total number of available results,
+		 * so the last page is usually smaller than the page size. As such, we can't 
+		 * rely on a short page to detect the last page, and instead check whether
+		 * all available results have been processed.
+		 * @return true if the total number of available results is known, and all of them have been processed
+		 */
+		private boolean isTotalAvailableProcessed() {
+			return pagingData.getTotalAvailable() >= 0 && pagingData.getNextPageStart() >= pagingData.getTotalAvailable();
+		}
+		
+		/**
+		 * Process the next page, loading it in the background if it hasn't been loaded
+		 * yet, and scheduling subsequent pages to be loaded in the background.
+		 */
+		private void processNextPrefetchedPage() {
+			if ( prefetcher == null ) {
+				prefetcher = new PagePrefetcher<>(pagingParallelism, getMaxPending(), this::loadPage);
+			}
+			if ( prefetcher.hasNext() && prefetcher.getNextPageRequest().getNextPageStart() != pagingData.getNextPageStart() ) {
+				// Pages were scheduled based on unexpected start positions, so start over
+				prefetcher.clear();
+			}
+			if ( !prefetcher.hasNext() ) {
+				nextStart = pagingData.getNextPageStart();
+			}
+			schedulePages();
+			if ( prefetcher.hasNext() ) {
+				PagingData pageRequest = prefetcher.getNextPageRequest();
+				P page = prefetcher.next();
+				pagingData.updateFromPageRequest(pageRequest);
+				// Keep loading subsequent pages while we process the current page
+				schedulePages();
+				notifyNextPage(pagingData);
+				processPage(page, pagingData);
+				updatePageSize(pagingData);
+			} else {
+				processNextLoadedPage();
+			}
+		}
+		
+		/**
+		 * Load and process the next page, based on our {@link PagingData} instance.
+		 */
+		private void processNextLoadedPage() {
+			notifyNextPage(pagingData);
+			if ( streaming ) {
+				long start = System.nanoTime();
+				ResultsPage<?> page = processStreamingRequest(updateWebTargetWithPagingData(target, pagingData));
+				// Exclude time spent processing results from the response time
+				pagingData.recordPageMetrics((System.nanoTime()-start-page.getHandlerNanos())/1000000, page.getResponseBytes());
+			} else {
+				processPage(loadPage(pagingData), pagingData);
+			}
+			updatePageSize(pagingData);
+		}
+		
+		/**
+		 * Process all results returned by the given {@link WebTarget} while reading the response,
+		 * and update our {@link PagingData} instance with the other response properties.
+		 */
+		private ResultsPage<?> processStreamingRequest(WebTarget target) {
+			ResultsPage<?> page = executeStreamingRequest(target);
+			updatePagingDataFromResponse(pagingData, getResponseTypeClass().cast(page.getEnvelope()));
+			return page;
+		}
+		
+		/**
+		 * Load the page described by the given {@link PagingData} instance, recording the
+		 * response time and response size in that same {@link PagingData} instance. 
+		 */
+		private P loadPage(PagingData pageRequest) {
+			long start = System.currentTimeMillis();
+			ResponseByteCounter.reset();
+			P page = executeRequest(updateWebTargetWithPagingData(target, pageRequest));
+			pageRequest.recordPageMetrics(System.currentTimeMillis()-start, getResponseBytes(page));
+			return page;
+		}
+		/**
+		 * @return Maximum number of pages to be loaded ahead of the page currently being processed
+		 */
+		private int getMaxPending() {
+			return Math.max(pipelinedPagingCapacity, pagingParallelism > 1 ? 2*pagingParallelism : 0);
+		}
+		
+		/**
+		 * Schedule pages to be loaded in the background, starting at {@link #nextStart}, until
+		 * either the {@link PagePrefetcher} is full or the end position as calculated by
+		 * {@link #getPrefetchEnd()} has been reached.
+		 */
+		private void schedulePages() {
+			int pageSize = pagingData.getPageSize();
+			int end = getPrefetchEnd();
+			while ( nextStart < end && !prefetcher.isFull() ) {
+				int size = Math.min(pageSize, end-nextStart);
+				prefetcher.schedule(pagingData.forPage(nextStart, size));
+				nextStart += size;
 			}
 		}
+		
+		/**
+		 * Calculate the position up to which pages can be loaded in the background. If the total
+		 * number of available results is known, this is used as the end position. Otherwise, we 
+		 * optimistically assume that the current page and, if pipelined paging is enabled, the
+		 * configured number of subsequent pages are available. If no filtering is being applied, the 
+		 * end position is further limited by the maximum number of results to be processed. The end
+		 * position is never beyond the end position configured on our {@link PagingData} instance.
+		 */
+		private int getPrefetchEnd() {
+			int end = pagingData.getTotalAvailable();
+			if ( end < 0 ) {
+				end = pagingData.getNextPageStart() + pagingData.getNextPageSize() + pipelinedPagingCapacity*pagingData.getPageSize();
+			}
+			if ( pagingData.getMaxResults() >= 0 && preProcessors.isEmpty() ) {
+				end = Math.min(end, pagingData.getNextPageStart() + pagingData.getMaxResults() - pagingData.getProcessedTotalAfterFilters());
+			}
+			if ( pagingData.getEndPosition() >= 0 ) {
+				end = Math.min(end, pagingData.getEndPosition());
+			}
+			return end;
+		}
+		
+		/**
+		 * Cancel any pages being loaded in the background, and mark this
+		 * execution as done.
+		 */
+		@Override
+		public void close() {
+			done = true;
+			if ( prefetcher != null ) { prefetcher.close(); }
+		}
 	}
 	
 	/**
-	 * Process all results returned by the given {@link WebTarget} by calling the given {@link IJSONMapProcessor}.
+	 * {@link QueryExecution} implementation that processes the results from each {@link ResponseType}
+	 * page as {@link JSONMap} instances, invoking all configured page processors and {@link IJSONMapPreProcessor}
+	 * instances.
 	 */
-	private void processSingleRequest(WebTarget target, IJSONMapProcessor processor, PagingData pagingData) {
-		ResponseType response = executeRequest(target);
-		updatePagingDataFromResponse(pagingData, response);
-		JSONList list = getJSONListFromResponse(response);
-		for (BiConsumer<PagingData, JSONList> pagePreProcessor : pagePreProcessors ) {
-			pagePreProcessor.accept(pagingData, list);
+	private final class JSONMapQueryExecution extends QueryExecution<ResponseType> {
+		private final JSONMapProcessorWithPreProcessorsAndPagingSupport processor;
+		
+		/**
+		 * Create a new {@link JSONMapQueryExecution} instance.
+		 * @param target {@link WebTarget} to be invoked
+		 * @param pagingData {@link PagingData} instance for this execution
+		 * @param processor for processing the results
+		 * @param prefetchEnabled indicates whether pages may be loaded in the background
+		 */
+		JSONMapQueryExecution(WebTarget target, PagingData pagingData, IJSONMapProcessor processor, boolean prefetchEnabled) {
+			super(target, pagingData, prefetchEnabled);
+			this.processor = new JSONMapProcessorWithPreProcessorsAndPagingSupport(preProcessors, processor, pagingData);
+		}
+		
+		@Override
+		ResponseType executeRequest(WebTarget target) {
+			return AbstractRestConnectionQuery.this.executeRequest(target);
+		}
+		
+		@Override
+		long getResponseBytes(ResponseType page) {
+			return ResponseByteCounter.getLastResponseBytes();
+		}
+		
+		@Override
+		ResultsPage<?> executeStreamingRequest(WebTarget target) {
+			return AbstractRestConnectionQuery.this.executeRequest(target, JSON_MAP_READER, (JSONMap json) -> {
+				processor.process(json);
+				return !pagingData.isMaxResultsReached();
+			});
+		}
+		
+		@Override
+		void notifyNextPage(PagingData pagingData) {
+			processor.notifyNextPage(pagingData);
+		}
+		
+		/**
+		 * Process all results contained in the given response by calling our {@link IJSONMapProcessor}.
+		 */
+		@Override
+		void processPage(ResponseType response, PagingData pagingData) {
+			updatePagingDataFromResponse(pagingData, response);
+			JSONList list = getJSONListFromResponse(response);
+			for (BiConsumer<PagingData, JSONList> pagePreProcessor : pagePreProcessors ) {
+				pagePreProcessor.accept(pagingData, list);
+			}
+			if ( batchPreProcessors.isEmpty() ) {
+				for ( JSONMap obj : list.asValueType(JSONMap.class) ) {
+					if ( pagingData.isMaxResultsReached() ) { break; }
+					processor.process(obj);
+				}
+			} else {
+				processBatch(list, pagingData);
+			}
+			for (BiConsumer<PagingData, JSONList> pagePostProcessor : pagePostProcessors ) {
+				pagePostProcessor.accept(pagingData, list);
+			}
 		}
-		if ( processor != null ) {
+		
+		/**
+		 * Apply the pre-processors to all results in the given page, collecting the accepted results
+		 * in a separate list. The batch pre-processors are then invoked with this list, before any of 
+		 * the accepted results are processed. As such, batch loaders installed by batch pre-processors, 
+		 * for example by {@link AbstractRestConnectionQueryBuilder#embed(com.fortify.util.rest.json.embed.StandardEmbedConfig)},
+		 * only load data for results that are actually processed.
+		 */
+		private void processBatch(JSONList list, PagingData pagingData) {
+			JSONList accepted = new JSONList(list.size());
 			for ( JSONMap obj : list.asValueType(JSONMap.class) ) {
 				if ( pagingData.isMaxResultsReached() ) { break; }
-				processor.process(obj);
+				if ( processor.accept(obj) ) { accepted.add(obj); }
+			}
+			for ( Consumer<JSONList> batchPreProcessor : batchPreProcessors ) {
+				batchPreProcessor.accept(accepted);
+			}
+			for ( JSONMap obj : accepted.asValueType(JSONMap.class) ) {
+				processor.processAccepted(obj);
+			}
+		}
+	}
+	
+	/**
+	 * {@link QueryExecution} implementation that binds the results contained in each page directly
+	 * to the given type, as described in {@link AbstractRestConnectionQuery#getResultsPropertyName()}. 
+	 * This implementation must only be used if {@link AbstractRestConnectionQuery#isDirectBindingSupported()}
+	 * returns true.
+	 */
+	private final class TypedQueryExecution<T> extends QueryExecution<ResultsPage<T>> {
+		private final ObjectReader resultReader;
+		private final Consumer<T> processor;
+		
+		/**
+		 * Create a new {@link TypedQueryExecution} instance.
+		 * @param target {@link WebTarget} to be invoked
+		 * @param pagingData {@link PagingData} instance for this execution
+		 * @param type to which each result should be bound
+		 * @param processor for processing the results
+		 * @param prefetchEnabled indicates whether pages may be loaded in the background
+		 */
+		TypedQueryExecution(WebTarget target, PagingData pagingData, Class<T> type, Consumer<T> processor, boolean prefetchEnabled) {
+			super(target, pagingData, prefetchEnabled);
+			this.resultReader = JSONObjectMapperSupplier.getObjectMapper().readerFor(type);
+			this.processor = processor;
+		}
+		
+		@Override
+		ResultsPage<T> executeRequest(WebTarget target) {
+			return AbstractRestConnectionQuery.this.executeRequest(target, resultReader, null);
+		}
+		
+		@Override
+		ResultsPage<?> executeStreamingRequest(WebTarget target) {
+			return AbstractRestConnectionQuery.this.executeRequest(target, resultReader, this::process);
+		}
+		
+		@Override
+		long getResponseBytes(ResultsPage<T> page) {
+			return page.getResponseBytes();
+		}
+		
+		@Override
+		void notifyNextPage(PagingData pagingData) {}
+		
+		@Override
+		void processPage(ResultsPage<T> page, PagingData pagingData) {
+			updatePagingDataFromResponse(pagingData, getResponseTypeClass().cast(page.getEnvelope()));
+			for ( T result : page.getResults() ) {
+				if ( pagingData.isMaxResultsReached() ) { break; }
+				process(result);
+			}
+		}
+		
+		/**
+		 * Process the given result and update our {@link PagingData} instance accordingly.
+		 * @return true if more results should be processed, false if the maximum number of results has been reached
+		 */
+		private boolean process(T result) {
+			pagingData.addProcessedBeforeFilters(1);
+			pagingData.addProcessedAfterFilters(1);
+			processor.accept(result);
+			return !pagingData.isMaxResultsReached();
+		}
+	}
+	
+	/**
+	 * If an {@link AdaptivePageSizePolicy} has been configured, update the page size 
+	 * for subsequent pages based on the information about the last page.
+	 */
+	private void updatePageSize(PagingData pagingData) {
+		if ( adaptivePageSizePolicy != null ) {
+			int newPageSize = adaptivePageSizePolicy.calculatePageSize(pagingData);
+			if ( newPageSize != pagingData.getPageSize() && log.isDebugEnabled() ) {
+				log.debug(String.format("Adjusting page size from %d to %d (last page: %d results, %d ms, %d bytes)",
+					pagingData.getPageSize(), newPageSize, pagingData.getProcessedCurrentPageBeforeFilters(), 
+					pagingData.getLastPageResponseTimeMillis(), pagingData.getLastPageResponseBytes()));
+			}
+			pagingData.pageSize(newPageSize);
+		}
+	}
+	
+	/**
+	 * {@link Spliterator} implementation that lazily loads pages through a {@link QueryExecution}
+	 * instance whenever more results are needed. If the connection is multi-threaded, the total 
+	 * number of available results is known and no maximum number of results has been configured, 
+	 * this spliterator can be split by page ranges, with each split using its own {@link QueryExecution}
+	 * instance that is bounded by the end position of the corresponding page range.
+	 */
+	private final class QuerySpliterator<E> implements Spliterator<E> {
+		private final BiFunction<PagingData, Consumer<E>, QueryExecution<?>> splitExecutionFactory;
+		private Deque<E> buffer;
+		private QueryExecution<?> execution;
+		
+		/**
+		 * Create a new {@link QuerySpliterator} instance for the given buffer and {@link QueryExecution}.
+		 * The given {@link QueryExecution} is expected to add all processed results to the given buffer. 
+		 * The given function is used to create a new {@link QueryExecution} instance for the given 
+		 * {@link PagingData} and result consumer when splitting this spliterator.
+		 */
+		QuerySpliterator(Deque<E> buffer, QueryExecution<?> execution, BiFunction<PagingData, Consumer<E>, QueryExecution<?>> splitExecutionFactory) {
+			this.buffer = buffer;
+			this.execution = execution;
+			this.splitExecutionFactory = splitExecutionFactory;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			while ( buffer.isEmpty() ) {
+				if ( !execution.processNextPage() ) { return false; }
+			}
+			action.accept(buffer.poll());
+			return true;
+		}
+
+		/**
+		 * Split off the first half of the remaining page range. This loads the first page
+		 * if necessary to determine the total number of available results. The current
+		 * {@link QueryExecution} (together with any buffered results) is handed over to the 
+		 * returned prefix {@link QuerySpliterator}, bounded by the middle of the remaining
+		 * page range, whereas this instance continues with a new {@link QueryExecution}
+		 * starting at that same position.
+		 */
+		@Override
+		public Spliterator<E> trySplit() {
+			if ( !pagingSupported || maxResults >= 0 || !conn.isMultiThreaded() ) { return null; }
+			if ( !execution.started && !execution.processNextPage(false) ) { return null; }
+			PagingData pagingData = execution.pagingData;
+			if ( execution.done || pagingData.getTotalAvailable() < 0 ) { return null; }
+			int start = pagingData.getNextPageStart();
+			int end = pagingData.getEndPosition() >= 0 
+					? Math.min(pagingData.getEndPosition(), pagingData.getTotalAvailable()) 
+					: pagingData.getTotalAvailable();
+			int pageSize = pagingData.getPageSize();
+			int pages = (end - start + pageSize - 1) / pageSize;
+			if ( pages < 2 ) { return null; }
+			int mid = start + (pages/2) * pageSize;
+			pagingData.endPosition(mid);
+			QuerySpliterator<E> prefix = new QuerySpliterator<>(buffer, execution, splitExecutionFactory);
+			this.buffer = new ArrayDeque<>();
+			this.execution = splitExecutionFactory.apply(pagingData.forPage(mid, pageSize).endPosition(end), buffer::add);
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			PagingData pagingData = execution.pagingData;
+			if ( pagingData.getTotalAvailable() < 0 ) { return Long.MAX_VALUE; }
+			int end = pagingData.getEndPosition() >= 0 
+					? Math.min(pagingData.getEndPosition(), pagingData.getTotalAvailable()) 
+					: pagingData.getTotalAvailable();
+			return buffer.size() + Math.max(0, end - pagingData.getNextPageStart());
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
+	}
+	
+	/**
+	 * {@link Subscription} implementation that lazily loads pages through a {@link QueryExecution}
+	 * instance, based on subscriber demand. Pages are loaded and results are emitted by whichever 
+	 * thread calls {@link #request(long)}; concurrent or re-entrant calls (for example from 
+	 * {@link Subscriber#onNext(Object)}) only register additional demand, which is then handled 
+	 * by the thread that is already emitting results. This guarantees that signals to the subscriber
+	 * are never concurrent, and avoids unbounded recursion.
+	 */
+	private final class QuerySubscription implements Subscription {
+		private final Subscriber<? super JSONMap> subscriber;
+		private final Deque<JSONMap> buffer;
+		private final QueryExecution<?> execution;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pendingDrains = new AtomicInteger();
+		private volatile boolean cancelled = false;
+		private volatile Throwable invalidRequest = null;
+		private boolean terminated = false;
+		
+		/**
+		 * Create a new {@link QuerySubscription} instance for the given {@link Subscriber}.
+		 * The given {@link QueryExecution} is expected to add all processed results to the 
+		 * given buffer. 
+		 */
+		QuerySubscription(Subscriber<? super JSONMap> subscriber, Deque<JSONMap> buffer, QueryExecution<?> execution) {
+			this.subscriber = subscriber;
+			this.buffer = buffer;
+			this.execution = execution;
+		}
+
+		@Override
+		public void request(long n) {
+			if ( n <= 0 ) {
+				invalidRequest = new IllegalArgumentException("Number of requested results must be positive, got "+n);
+			} else {
+				demand.getAndUpdate(current -> current+n < 0 ? Long.MAX_VALUE : current+n);
+			}
+			drain();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+		}
+		
+		/**
+		 * Emit results for as long as there is demand, loading the next page whenever
+		 * the buffer is empty. Only a single thread can execute this method at any 
+		 * given time; other threads calling this method will cause the active thread
+		 * to re-check demand and cancellation status.
+		 */
+		private void drain() {
+			if ( pendingDrains.getAndIncrement() != 0 ) { return; }
+			int missed = 1;
+			do {
+				emit();
+				missed = pendingDrains.addAndGet(-missed);
+			} while ( missed != 0 );
+		}
+		
+		private void emit() {
+			try {
+				while ( !terminated ) {
+					if ( cancelled ) {
+						terminate();
+					} else if ( invalidRequest != null ) {
+						terminate();
+						subscriber.onError(invalidRequest);
+					} else if ( demand.get() == 0 ) {
+						return;
+					} else if ( !buffer.isEmpty() ) {
+						demand.decrementAndGet();
+						subscriber.onNext(buffer.poll());
+					} else if ( !execution.processNextPage() ) {
+						terminate();
+						subscriber.onComplete();
+					}
+				}
+			} catch ( RuntimeException e ) {
+				if ( !terminated ) {
+					terminate();
+					subscriber.onError(e);
+				}
 			}
 		}
-		for (BiConsumer<PagingData, JSONList> pagePostProcessor : pagePostProcessors ) {
-			pagePostProcessor.accept(pagingData, list);
+		
+		private void terminate() {
+			terminated = true;
+			buffer.clear();
+			execution.close();
 		}
 	}
 }
@@ -27,9 +27,12 @@ package com.fortify.util.rest.query;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.Entity;
@@ -38,11 +41,18 @@ import org.apache.commons.lang.StringUtils;
 
 import com.fortify.util.applier.ifblank.IfBlankAction;
 import com.fortify.util.rest.connection.IRestConnection;
+import com.fortify.util.rest.connection.ResponseCache;
+import com.fortify.util.rest.connection.ResponseCachePolicy;
 import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
 import com.fortify.util.rest.json.embed.StandardEmbedConfig;
 import com.fortify.util.rest.json.embed.StandardEmbedDefinition;
 import com.fortify.util.rest.json.preprocessor.IJSONMapPreProcessor;
 import com.fortify.util.rest.json.preprocessor.enrich.JSONMapEnrichWithOnDemandRestData;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterCompareDate.DateComparisonOperator;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterRegEx;
 import com.fortify.util.rest.webtarget.IWebTargetUpdater;
 import com.fortify.util.rest.webtarget.IWebTargetUpdaterBuilder;
 import com.fortify.util.rest.webtarget.WebTargetPathUpdaterBuilder;
@@ -52,6 +62,7 @@ import com.fortify.util.rest.webtarget.WebTargetTemplateResolverBuilder;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.apachecommons.CommonsLog;
 
 /**
  * <p>This abstract class allows for configuring an {@link AbstractRestConnectionQuery}
@@ -86,7 +97,7 @@ import lombok.Setter;
  * @param <ConnType> Concrete {@link IRestConnection} type
  * @param <T> Concrete type of this class
  */
-@Getter
+@Getter @CommonsLog
 public abstract class AbstractRestConnectionQueryBuilder<ConnType extends IRestConnection, T extends AbstractRestConnectionQueryBuilder<ConnType, T>> 
 {
 	private final ConnType conn;
@@ -98,7 +109,15 @@ public abstract class AbstractRestConnectionQueryBuilder<ConnType extends IRestC
 	private final List<BiConsumer<PagingData, JSONList>> pagePreProcessors = new ArrayList<>();
 	private final List<BiConsumer<PagingData, JSONList>> pagePostProcessors = new ArrayList<>();
 	private final List<IJSONMapPreProcessor> preProcessors = new ArrayList<>();
+	private final List<Consumer<JSONList>> batchPreProcessors = new ArrayList<>();
+	private final List<String> pushedDownFilters = new ArrayList<>();
 	private int maxResults = -1;
+	private int pageSize = -1;
+	private AdaptivePageSizePolicy adaptivePageSizePolicy = null;
+	private int pagingParallelism = 1;
+	private int pipelinedPagingCapacity = 0;
+	private boolean streamingResponseParsing = false;
+	private ResponseCachePolicy responseCachePolicy = null;
 	private final boolean pagingSupported;
 	@Setter(AccessLevel.PROTECTED) private String httpMethod = HttpMethod.GET;
 	@Setter(AccessLevel.PROTECTED) private Entity<?> entity = null;
@@ -132,20 +151,252 @@ public abstract class AbstractRestConnectionQueryBuilder<ConnType extends IRestC
 		return pagePreProcessor((pagingData,jsonList)->pagePostProcessor.accept(jsonList));
 	}
 	
+	/**
+	 * Add a batch pre-processor, which is invoked with all results in a page that have been 
+	 * accepted by the configured {@link IJSONMapPreProcessor} instances, before any of these
+	 * results are processed. Rejected results and results that exceed the maximum number of
+	 * results are not passed to batch pre-processors. As batch pre-processors operate on 
+	 * full pages, streaming response parsing is disabled if any batch pre-processors have
+	 * been configured.
+	 * @param batchPreProcessor {@link Consumer} to be invoked with the accepted results in each page
+	 * @return Self for chaining
+	 */
+	public T batchPreProcessor(Consumer<JSONList> batchPreProcessor) {
+		this.batchPreProcessors.add(batchPreProcessor);
+		return _this();
+	}
+	
 	@SuppressWarnings("unchecked")
 	public T preProcessor(IJSONMapPreProcessor preProcessor) {
 		if ( preProcessor instanceof IRestConnectionQueryConfigAware ) {
 			((IRestConnectionQueryConfigAware<T>)preProcessor).setRestConnectionQueryConfig(_this());
 		}
 		this.preProcessors.add(preProcessor);
+		pushDown(preProcessor);
 		return _this();
 	}
 	
+	/**
+	 * Try to push down the given pre-processor to the server, by translating equality, prefix 
+	 * and date comparison filters into request parameters through the {@link #pushDownEquals(String, String)},
+	 * {@link #pushDownPrefix(String, String)} and {@link #pushDownDateComparison(String, DateComparisonOperator, Date)}
+	 * methods. Pushed down filters are still evaluated client-side, as the server-side criteria may 
+	 * be less strict than the original filter; pushing down filters only reduces the number of 
+	 * results that need to be loaded from the server.
+	 */
+	private void pushDown(IJSONMapPreProcessor preProcessor) {
+		if ( preProcessor instanceof AbstractJSONMapFilter && ((AbstractJSONMapFilter)preProcessor).isIncludeMatching() ) {
+			if ( preProcessor instanceof JSONMapFilterRegEx ) {
+				for ( Map.Entry<String, Pattern> entry : ((JSONMapFilterRegEx)preProcessor).getFieldPathPatternsMap().entrySet() ) {
+					pushDownPattern(entry.getKey(), entry.getValue());
+				}
+			} else if ( preProcessor instanceof JSONMapFilterCompareDate ) {
+				JSONMapFilterCompareDate filter = (JSONMapFilterCompareDate)preProcessor;
+				addPushedDownFilter(filter.getFieldPath()+" "+filter.getOperator()+" "+filter.getCompareDate(), 
+						pushDownDateComparison(filter.getFieldPath(), filter.getOperator(), filter.getCompareDate()));
+			}
+		}
+	}
+	
+	private void pushDownPattern(String fieldPath, Pattern pattern) {
+		if ( pattern.flags()==0 ) {
+			String regex = pattern.pattern();
+			String literal = getLiteral(regex);
+			if ( StringUtils.isNotEmpty(literal) ) {
+				addPushedDownFilter(fieldPath+" = '"+literal+"'", pushDownEquals(fieldPath, literal));
+			} else if ( regex.endsWith(".*") && StringUtils.isNotEmpty(literal = getLiteral(regex.substring(0, regex.length()-2))) ) {
+				addPushedDownFilter(fieldPath+" starts with '"+literal+"'", pushDownPrefix(fieldPath, literal));
+			}
+		}
+	}
+	
+	/**
+	 * Return the literal value matched by the given regular expression, or null if
+	 * the given regular expression contains any special constructs.
+	 */
+	private static String getLiteral(String regex) {
+		if ( regex.startsWith("\\Q") && regex.indexOf("\\E")==regex.length()-2 ) {
+			return regex.substring(2, regex.length()-2);
+		}
+		return StringUtils.containsNone(regex, "\\[](){}.*+?^$|") ? regex : null;
+	}
+	
+	private void addPushedDownFilter(String filter, String serverSideCriteria) {
+		if ( serverSideCriteria != null ) {
+			String description = filter+" -> "+serverSideCriteria;
+			log.debug("Pushed down filter: "+description);
+			pushedDownFilters.add(description);
+		}
+	}
+	
+	/**
+	 * Get a description of all filters that have been pushed down to the server,
+	 * for example for debugging purposes. Each entry describes the original filter
+	 * and the corresponding server-side criteria.
+	 * @return Descriptions of pushed down filters
+	 */
+	public List<String> getPushedDownFilters() {
+		return Collections.unmodifiableList(pushedDownFilters);
+	}
+	
+	/**
+	 * Subclasses can override this method to push down a client-side filter that requires
+	 * the given field to be equal to the given value, to server-side request parameters. 
+	 * Implementations should only push down filters for which the server-side criteria are
+	 * guaranteed to include all results that match the client-side filter, and should not 
+	 * override any explicitly configured request parameters. This default implementation 
+	 * doesn't push down any filters.
+	 * @param fieldPath Path of the field to be filtered on
+	 * @param value Value to be matched
+	 * @return Description of the server-side criteria, or null if the filter wasn't pushed down
+	 */
+	protected String pushDownEquals(String fieldPath, String value) {
+		return null;
+	}
+	
+	/**
+	 * Subclasses can override this method to push down a client-side filter that requires
+	 * the given field to start with the given prefix; see {@link #pushDownEquals(String, String)}
+	 * for details.
+	 * @param fieldPath Path of the field to be filtered on
+	 * @param prefix Prefix to be matched
+	 * @return Description of the server-side criteria, or null if the filter wasn't pushed down
+	 */
+	protected String pushDownPrefix(String fieldPath, String prefix) {
+		return null;
+	}
+	
+	/**
+	 * Subclasses can override this method to push down a client-side filter that compares
+	 * the given field against the given date; see {@link #pushDownEquals(String, String)}
+	 * for details.
+	 * @param fieldPath Path of the field to be filtered on
+	 * @param operator {@link DateComparisonOperator} to be applied
+	 * @param date to compare against
+	 * @return Description of the server-side criteria, or null if the filter wasn't pushed down
+	 */
+	protected String pushDownDateComparison(String fieldPath, DateComparisonOperator operator, Date date) {
+		return null;
+	}
+	
 	public T maxResults(Integer maxResults) {
 		this.maxResults = maxResults;
 		return _this();
 	}
 	
+	/**
+	 * Configure the (initial) number of results to be loaded per page. If not
+	 * configured, the default page size as defined by {@link PagingData} is used.
+	 * @param pageSize number of results to be loaded per page
+	 * @return Self for chaining
+	 */
+	public T pageSize(int pageSize) {
+		if ( pageSize < 1 ) {
+			throw new IllegalArgumentException("Page size must be at least 1");
+		}
+		this.pageSize = pageSize;
+		return _this();
+	}
+	
+	/**
+	 * Configure an {@link AdaptivePageSizePolicy} for adjusting the page size after
+	 * each page, based on response time and response size. Pass null to disable
+	 * adaptive page sizing.
+	 * @param adaptivePageSizePolicy describing how page sizes should be adjusted
+	 * @return Self for chaining
+	 */
+	public T adaptivePageSize(AdaptivePageSizePolicy adaptivePageSizePolicy) {
+		this.adaptivePageSizePolicy = adaptivePageSizePolicy;
+		return _this();
+	}
+	
+	/**
+	 * Configure the number of pages that may be loaded concurrently. If set to a value larger
+	 * than 1, the first page is loaded as usual, after which the remaining pages (based on the
+	 * total number of available results as returned by the first page) are loaded in parallel. 
+	 * Results are still passed to the configured processor in their original order. This 
+	 * requires a multi-threaded connection.
+	 * @param pagingParallelism maximum number of pages to be loaded concurrently
+	 * @return Self for chaining
+	 */
+	public T pagingParallelism(int pagingParallelism) {
+		if ( pagingParallelism < 1 ) {
+			throw new IllegalArgumentException("Paging parallelism must be at least 1");
+		}
+		if ( pagingParallelism > 1 && !getConn().isMultiThreaded() ) {
+			throw new IllegalStateException("Parallel paging requires a multi-threaded connection");
+		}
+		this.pagingParallelism = pagingParallelism;
+		return _this();
+	}
+	
+	/**
+	 * Enable or disable pipelined paging. If enabled, the next page will be loaded in 
+	 * the background while the current page is being processed, even if the total number 
+	 * of available results is not known. This is equivalent to calling 
+	 * {@link #pipelinedPaging(int)} with a capacity of 1 (enabled) or 0 (disabled).
+	 * @param pipelinedPaging indicates whether pipelined paging should be enabled
+	 * @return Self for chaining
+	 */
+	public T pipelinedPaging(boolean pipelinedPaging) {
+		return pipelinedPaging(pipelinedPaging ? 1 : 0);
+	}
+	
+	/**
+	 * Configure pipelined paging. If the given capacity is larger than 0, up to the given
+	 * number of pages will be loaded in the background while the current page is being 
+	 * processed, even if the total number of available results is not known. Results are 
+	 * still passed to the configured processor in their original order. As requests may
+	 * be executed concurrently with any requests issued by pre-processors, this requires 
+	 * a multi-threaded connection.
+	 * @param capacity maximum number of pages to be loaded ahead of the page currently being processed
+	 * @return Self for chaining
+	 */
+	public T pipelinedPaging(int capacity) {
+		if ( capacity < 0 ) {
+			throw new IllegalArgumentException("Pipelined paging capacity must not be negative");
+		}
+		if ( capacity > 0 && !getConn().isMultiThreaded() ) {
+			throw new IllegalStateException("Pipelined paging requires a multi-threaded connection");
+		}
+		this.pipelinedPagingCapacity = capacity;
+		return _this();
+	}
+	
+	/**
+	 * Enable or disable streaming response parsing. If enabled, the results contained in
+	 * each response are read one at a time from the response stream and passed to the 
+	 * configured pre-processors and processor immediately, rather than first reading the
+	 * full response into a {@link JSONMap} instance. This limits memory usage to a single 
+	 * result rather than a full page, at the cost of keeping the connection open while 
+	 * results are being processed. Streaming is only applied if supported by the concrete 
+	 * query implementation, if no page pre- or post-processors have been configured, and
+	 * for pages that are not being loaded in the background by parallel or pipelined paging.
+	 * @param streamingResponseParsing indicates whether streaming response parsing should be enabled
+	 * @return Self for chaining
+	 */
+	public T streamingResponseParsing(boolean streamingResponseParsing) {
+		this.streamingResponseParsing = streamingResponseParsing;
+		return _this();
+	}
+	
+	/**
+	 * Configure the {@link ResponseCachePolicy} for this query. If configured, responses 
+	 * to requests allowed by the given policy are stored in the connection-scoped 
+	 * {@link ResponseCache}, and subsequent identical requests (same HTTP method and 
+	 * fully resolved URI) issued by any query on the same connection with a response
+	 * cache policy are served from this cache for as long as allowed by the policy. 
+	 * This is mostly useful for queries that load rarely changing reference data. 
+	 * By default, no response cache policy is configured and all requests are sent 
+	 * to the server.
+	 * @param responseCachePolicy {@link ResponseCachePolicy} to be used, or null to disable response caching
+	 * @return Self for chaining
+	 */
+	public T responseCachePolicy(ResponseCachePolicy responseCachePolicy) {
+		this.responseCachePolicy = responseCachePolicy;
+		return _this();
+	}
+	
 	@SuppressWarnings("unchecked")
 	protected T _this() {
 		return (T)this;
@@ -175,8 +426,34 @@ public abstract class AbstractRestConnectionQueryBuilder<ConnType extends IRestC
 		return _this();
 	}
 	
+	/**
+	 * Embed the REST data described by the given {@link StandardEmbedConfig} into the query results.
+	 * The data is loaded on demand upon first access. Pre-processors that access the data load it
+	 * for individual results; once the results in a page have been accepted, first access within 
+	 * that page loads the data for all accepted results in that page using 
+	 * {@link #embedOnDemandBatchLoader(StandardEmbedConfig, JSONMapEnrichWithOnDemandRestData)}.
+	 * Note that this registers a pre-processor and a batch pre-processor, so results cannot be 
+	 * bound directly to a given type, and streaming response parsing is disabled. 
+	 * @param embedConfig describes the data to be embedded in the results
+	 * @return Self for chaining
+	 */
 	public <C extends StandardEmbedConfig> T embed(C embedConfig) {
-		return preProcessor(new JSONMapEnrichWithOnDemandRestData(getConn(), new StandardEmbedDefinition(embedConfig)));
+		JSONMapEnrichWithOnDemandRestData enrich = new JSONMapEnrichWithOnDemandRestData(getConn(), new StandardEmbedDefinition(embedConfig));
+		preProcessor(enrich);
+		return batchPreProcessor(enrich.asBatchPreProcessor(embedOnDemandBatchLoader(embedConfig, enrich)));
+	}
+	
+	/**
+	 * Get the batch loader for loading the on-demand data described by the given {@link StandardEmbedConfig}
+	 * for all results in a page. By default, this returns {@link JSONMapEnrichWithOnDemandRestData#loadBatch(JSONList)},
+	 * which executes individual requests, concurrently on multi-threaded connections. Subclasses can override
+	 * this method to use system-specific batch loaders, for example based on bulk requests.  
+	 * @param embedConfig describes the data to be embedded in the results
+	 * @param enrich {@link JSONMapEnrichWithOnDemandRestData} instance for the given {@link StandardEmbedConfig}
+	 * @return {@link Consumer} for loading and storing the on-demand data for all given results
+	 */
+	protected Consumer<JSONList> embedOnDemandBatchLoader(StandardEmbedConfig embedConfig, JSONMapEnrichWithOnDemandRestData enrich) {
+		return enrich::loadBatch;
 	}
 	
 	protected <B extends IWebTargetUpdaterBuilder> B add(B builder) {
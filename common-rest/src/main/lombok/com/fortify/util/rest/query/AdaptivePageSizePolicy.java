@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.query;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * <p>This class describes a policy for adjusting the page size of paged requests,
+ * based on the response time and response size of previously loaded pages. After
+ * each page, the page size is grown or shrunk such that subsequent pages are expected 
+ * to take about {@link #getTargetResponseTimeMillis()} milliseconds to load, and 
+ * to not exceed {@link #getMaxResponseBytes()} bytes. Page sizes are always kept within 
+ * {@link #getMinPageSize()} and {@link #getMaxPageSize()}, and the page size is never 
+ * grown or shrunk by more than {@link #getMaxAdjustmentFactor()} at once.</p>
+ * 
+ * <p>Instances of this class can be built using {@link #builder()}, and can be 
+ * configured on individual queries through 
+ * {@link AbstractRestConnectionQueryBuilder#adaptivePageSize(AdaptivePageSizePolicy)}.
+ * As the appropriate bounds depend on the endpoint being queried, for example
+ * whether sub-entities are being embedded, there is no single default policy.</p>
+ * 
+ * @author Ruud Senden
+ *
+ */
+@Getter @Builder @ToString
+public final class AdaptivePageSizePolicy {
+	@Builder.Default private final int minPageSize = 10;
+	@Builder.Default private final int maxPageSize = 1000;
+	@Builder.Default private final long targetResponseTimeMillis = 2000;
+	@Builder.Default private final long maxResponseBytes = -1;
+	@Builder.Default private final double maxAdjustmentFactor = 2.0;
+	
+	/**
+	 * Calculate the page size for subsequent pages, based on the requested page size, 
+	 * number of results, response time and response size of the last page as stored 
+	 * in the given {@link PagingData} instance. If the last page returned less results 
+	 * than requested (indicating that this was the last page), or if no response time 
+	 * is available, the current page size is returned, limited by the configured bounds.
+	 * @param pagingData containing information about the last page
+	 * @return New page size
+	 */
+	public int calculatePageSize(PagingData pagingData) {
+		int requested = pagingData.getNextPageSize();
+		long responseTime = pagingData.getLastPageResponseTimeMillis();
+		long responseBytes = pagingData.getLastPageResponseBytes();
+		if ( requested <= 0 || responseTime < 0 || pagingData.getProcessedCurrentPageBeforeFilters() < requested ) {
+			return limit(pagingData.getPageSize());
+		}
+		double factor = maxAdjustmentFactor;
+		if ( targetResponseTimeMillis > 0 ) {
+			factor = Math.min(factor, (double)targetResponseTimeMillis / Math.max(1, responseTime));
+		}
+		if ( maxResponseBytes > 0 && responseBytes > 0 ) {
+			factor = Math.min(factor, (double)maxResponseBytes / responseBytes);
+		}
+		factor = Math.max(factor, 1/maxAdjustmentFactor);
+		return limit((int)Math.round(requested * factor));
+	}
+	
+	/**
+	 * Limit the given page size to the configured minimum and maximum page size
+	 * @param pageSize to be limited
+	 * @return Limited page size
+	 */
+	private int limit(int pageSize) {
+		return Math.max(minPageSize, Math.min(maxPageSize, pageSize));
+	}
+}
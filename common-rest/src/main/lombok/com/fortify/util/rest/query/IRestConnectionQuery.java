@@ -25,6 +25,9 @@
 package com.fortify.util.rest.query;
 
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.reactivestreams.Publisher;
 
 import com.fortify.util.rest.json.JSONList;
 import com.fortify.util.rest.json.JSONMap;
@@ -53,6 +56,20 @@ public interface IRestConnectionQuery {
 	 * @param processor used to process the results
 	 */
 	void processAll(Consumer<JSONMap> processor);
+	
+	/**
+	 * Process all results from the REST API call, with each result being bound 
+	 * to the given type using Jackson. Where supported by the query implementation,
+	 * results are bound directly while reading each page, without creating 
+	 * intermediate {@link JSONMap} instances. If the query has been configured
+	 * with any {@link JSONMap}-based pre-processors or page processors, results 
+	 * are instead converted from the pre-processed {@link JSONMap} instances.
+	 * 
+	 * @param <T> Type to which each result should be bound
+	 * @param type to which each result should be bound
+	 * @param processor used to process the results
+	 */
+	<T> void processAll(Class<T> type, Consumer<T> processor);
 
 	/**
 	 * Get all results from the REST API call
@@ -67,5 +84,40 @@ public interface IRestConnectionQuery {
 	 * @return Unique result from the REST API call
 	 */
 	JSONMap getUnique();
+	
+	/**
+	 * Get a {@link Stream} of all results from the REST API call. Pages are
+	 * loaded lazily as the stream is being consumed, so short-circuiting
+	 * operations like {@link Stream#findFirst()} or {@link Stream#limit(long)}
+	 * will not load any more pages than necessary. Pages are never loaded in
+	 * the background, even if parallel or pipelined paging has been configured.
+	 * Instead, if the connection is multi-threaded and the total number of 
+	 * results is known, parallel streams will split the results by page ranges.
+	 * 
+	 * @return {@link Stream} of all results from the REST API call
+	 */
+	Stream<JSONMap> stream();
+	
+	/**
+	 * Same as {@link #stream()}, but with each result being bound to the given 
+	 * type as described in {@link #processAll(Class, Consumer)}.
+	 * 
+	 * @param <T> Type to which each result should be bound
+	 * @param type to which each result should be bound
+	 * @return {@link Stream} of all results from the REST API call
+	 */
+	<T> Stream<T> stream(Class<T> type);
+	
+	/**
+	 * Get a Reactive Streams {@link Publisher} for all results from the REST API call.
+	 * Each subscription executes the query independently. Pages are only loaded when 
+	 * subscriber demand requires more results, and cancelling a subscription stops 
+	 * loading any further pages. On Java 9 or later, this publisher can be converted 
+	 * to a <code>java.util.concurrent.Flow.Publisher</code> using 
+	 * <code>org.reactivestreams.FlowAdapters</code>.
+	 * 
+	 * @return {@link Publisher} for all results from the REST API call
+	 */
+	Publisher<JSONMap> publisher();
 
 }
\ No newline at end of file
@@ -73,11 +73,38 @@ class JSONMapProcessorWithPreProcessorsAndPagingSupport implements IJSONMapProce
 	 */
 	@Override
 	public void process(JSONMap json) {
+		if ( accept(json) ) {
+			processAccepted(json);
+		}
+	}
+	
+	/**
+	 * Check whether the maximum number of results has not been reached yet, and if so, 
+	 * invoke all configured {@link IJSONMapPreProcessor} instances to pre-process the 
+	 * given {@link JSONMap}, updating the configured {@link PagingData} accordingly. 
+	 * Callers must invoke {@link #processAccepted(JSONMap)} for every {@link JSONMap}
+	 * for which this method returns true. Together, these methods allow for applying
+	 * the pre-processors to all results in a page before processing any of these 
+	 * results. 
+	 * @param json to be pre-processed
+	 * @return true if the given {@link JSONMap} should be processed, false otherwise
+	 */
+	boolean accept(JSONMap json) {
 		pagingData.addProcessedBeforeFilters(1);
 		if ( !pagingData.isMaxResultsReached() && preProcess(json) ) {
 			pagingData.addProcessedAfterFilters(1);
-			processor.process(json);
+			return true;
 		}
+		return false;
+	}
+	
+	/**
+	 * Call the configured {@link IJSONMapProcessor} to process the given {@link JSONMap},
+	 * which must have been accepted by {@link #accept(JSONMap)}.
+	 * @param json to be processed
+	 */
+	void processAccepted(JSONMap json) {
+		processor.process(json);
 	}
 	
 	/**
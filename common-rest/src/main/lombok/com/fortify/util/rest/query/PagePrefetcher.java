@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.query;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import lombok.Data;
+
+/**
+ * This package-private class is used by {@link AbstractRestConnectionQuery} to
+ * load pages in the background. Pages are loaded concurrently by a fixed number
+ * of threads, but are returned by {@link #next()} in the order in which they
+ * were scheduled, allowing the caller to process results in their original order.
+ * The number of scheduled but not yet consumed pages is bounded, to limit the 
+ * amount of memory being used for pages that are waiting to be processed.
+ * 
+ * @author Ruud Senden
+ *
+ * @param <ResponseType> Type of the page responses
+ */
+final class PagePrefetcher<ResponseType> implements AutoCloseable {
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+	private final Deque<ScheduledPage<ResponseType>> pending = new ArrayDeque<>();
+	private final Function<PagingData, ResponseType> pageLoader;
+	private final int maxPending;
+	private final ExecutorService executor;
+	
+	/**
+	 * Constructor for configuring the number of threads used for loading pages,
+	 * the maximum number of pages that can be pending, and the function used to 
+	 * load a single page.
+	 * 
+	 * @param threads number of threads used to load pages
+	 * @param maxPending maximum number of scheduled pages that haven't been returned by {@link #next()} yet
+	 * @param pageLoader loads the page described by the given {@link PagingData} instance
+	 */
+	PagePrefetcher(int threads, int maxPending, Function<PagingData, ResponseType> pageLoader) {
+		this.pageLoader = pageLoader;
+		this.maxPending = maxPending;
+		this.executor = Executors.newFixedThreadPool(threads, new PagingThreadFactory());
+	}
+	
+	/**
+	 * @return true if no more pages can be scheduled until {@link #next()} has been called
+	 */
+	boolean isFull() {
+		return pending.size() >= maxPending;
+	}
+	
+	/**
+	 * @return true if there are any scheduled pages that haven't been returned by {@link #next()} yet
+	 */
+	boolean hasNext() {
+		return !pending.isEmpty();
+	}
+	
+	/**
+	 * Schedule loading the page described by the given {@link PagingData} instance
+	 * @param pageRequest describes the page to be loaded
+	 */
+	void schedule(PagingData pageRequest) {
+		pending.add(new ScheduledPage<>(pageRequest, executor.submit(()->pageLoader.apply(pageRequest))));
+	}
+	
+	/**
+	 * @return {@link PagingData} instance describing the page that will be returned by the next call to {@link #next()}
+	 */
+	PagingData getNextPageRequest() {
+		return pending.element().getPageRequest();
+	}
+	
+	/**
+	 * Get the next scheduled page, waiting for it to be loaded if necessary.
+	 * Any exception thrown while loading the page will be re-thrown by this method.
+	 * @return Next page
+	 */
+	ResponseType next() {
+		try {
+			return pending.remove().getFuture().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for next page", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException ? (RuntimeException)cause : new RuntimeException("Error loading next page", cause);
+		}
+	}
+	
+	/**
+	 * Cancel any pages that haven't been returned by {@link #next()} yet.
+	 */
+	void clear() {
+		pending.forEach(p->p.getFuture().cancel(true));
+		pending.clear();
+	}
+	
+	/**
+	 * Cancel any pages that haven't been returned by {@link #next()} yet,
+	 * and shut down the threads used for loading pages.
+	 */
+	@Override
+	public void close() {
+		clear();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Holds the {@link PagingData} and {@link Future} for a scheduled page.
+	 */
+	@Data
+	private static final class ScheduledPage<ResponseType> {
+		private final PagingData pageRequest;
+		private final Future<ResponseType> future;
+	}
+	
+	/**
+	 * {@link ThreadFactory} implementation that creates named daemon threads,
+	 * to avoid background page loads from keeping the JVM alive.
+	 */
+	private static final class PagingThreadFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "fortify-client-api-paging-"+THREAD_COUNTER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
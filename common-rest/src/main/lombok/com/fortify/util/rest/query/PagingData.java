@@ -44,6 +44,9 @@ public class PagingData {
 	private int pageSize = 50;
 	private int maxResults = -1;
 	private int nextPageSize = -1;
+	private int endPosition = -1;
+	private long lastPageResponseTimeMillis = -1;
+	private long lastPageResponseBytes = -1;
 	
 	/**
 	 * Get the start position for the next page to be loaded.
@@ -107,10 +110,69 @@ public class PagingData {
 			// size.
 			nextPageSize = Math.min(pageSize, maxResults - processedTotalAfterFilters );
 		}
+		if ( endPosition >= 0 && nextPageSize > 0 ) {
+			// If an end position is configured, don't load any results beyond this position
+			nextPageSize = Math.max(0, Math.min(nextPageSize, endPosition - processedTotalBeforeFilters));
+		}
 		processedCurrentPageBeforeFilters = 0;
 		return nextPageSize;
 	}
 	
+	/**
+	 * Package-private method for creating a {@link PagingData} instance
+	 * describing the page with the given start position and size, 
+	 * copying all other settings from the current instance. This is used
+	 * for loading pages in parallel, where each page request needs its own
+	 * paging information.
+	 * @param start position of the page to be loaded
+	 * @param size of the page to be loaded
+	 * @return New {@link PagingData} instance
+	 */
+	PagingData forPage(int start, int size) {
+		PagingData result = new PagingData().pageSize(pageSize).maxResults(maxResults).endPosition(endPosition);
+		result.totalAvailable = totalAvailable;
+		result.processedTotalBeforeFilters = start;
+		result.nextPageSize = size;
+		return result;
+	}
+	
+	/**
+	 * Package-private method for configuring the position up to which
+	 * results should be loaded, used for loading a specific range of 
+	 * results. By default, there is no end position.
+	 * @param endPosition position up to which results should be loaded, or -1 for no end position
+	 * @return Self for chaining
+	 */
+	PagingData endPosition(int endPosition) {
+		this.endPosition = endPosition;
+		return this;
+	}
+	
+	/**
+	 * Package-private method for updating this instance with the
+	 * requested page size and response metrics from the given 
+	 * {@link PagingData} instance, as previously created by 
+	 * {@link #forPage(int, int)}. This is used when processing
+	 * a page that was loaded in the background.
+	 * @param pageRequest {@link PagingData} instance used to load the page
+	 */
+	void updateFromPageRequest(PagingData pageRequest) {
+		this.nextPageSize = pageRequest.nextPageSize;
+		this.lastPageResponseTimeMillis = pageRequest.lastPageResponseTimeMillis;
+		this.lastPageResponseBytes = pageRequest.lastPageResponseBytes;
+	}
+	
+	/**
+	 * Package-private method for recording the response time 
+	 * and response size of the last page.
+	 * @param responseTimeMillis time in milliseconds it took to load the last page
+	 * @param responseBytes size in bytes of the last page, or -1 if unknown
+	 */
+	void recordPageMetrics(long responseTimeMillis, long responseBytes) {
+		this.lastPageResponseTimeMillis = responseTimeMillis;
+		this.lastPageResponseBytes = responseBytes;
+	}
+	
 	/**
 	 * Package-private method for updating the number
 	 * of processed results.
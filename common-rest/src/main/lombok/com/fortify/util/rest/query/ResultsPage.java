@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.rest.query;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
+
+import lombok.Getter;
+
+/**
+ * This package-private class is used by {@link AbstractRestConnectionQuery} to
+ * read a single page of results using a {@link JsonParser}. Each element of the 
+ * results array is bound using a given {@link ObjectReader}, and is either collected
+ * in a {@link List} ({@link #read(InputStream, String, ObjectReader)}) or passed to 
+ * a result handler one at a time while the response is being read 
+ * ({@link #read(InputStream, String, ObjectReader, Predicate)}). All other response 
+ * properties (for example paging information) are collected in a {@link JSONMap} 
+ * instance.
+ * 
+ * @author Ruud Senden
+ *
+ * @param <T> Type of the results
+ */
+@Getter
+final class ResultsPage<T> {
+	private static final ObjectReader PROPERTY_READER = JSONObjectMapperSupplier.getObjectMapper().readerFor(Object.class);
+	/** All response properties except for the results property */
+	private final JSONMap envelope;
+	/** Results collected from the response; empty if results were passed to a result handler */
+	private final List<T> results;
+	/** Number of bytes read from the response, or -1 if unknown */
+	private final long responseBytes;
+	/** Time in nanoseconds spent in the result handler while reading the response */
+	private final long handlerNanos;
+	
+	private ResultsPage(JSONMap envelope, List<T> results, long responseBytes, long handlerNanos) {
+		this.envelope = envelope;
+		this.results = results;
+		this.responseBytes = responseBytes;
+		this.handlerNanos = handlerNanos;
+	}
+	
+	/**
+	 * Read a {@link ResultsPage} from the given {@link InputStream}, collecting all 
+	 * results in the {@link List} returned by {@link #getResults()}. See 
+	 * {@link #read(InputStream, String, ObjectReader, Predicate)} for details.
+	 * 
+	 * @param <T> Type of the results
+	 * @param in {@link InputStream} from which to read the response contents
+	 * @param resultsPropertyName name of the property containing the results
+	 * @param resultReader {@link ObjectReader} for binding each individual result
+	 * @return {@link ResultsPage} instance
+	 * @throws IOException if the response contents cannot be read or parsed
+	 */
+	static <T> ResultsPage<T> read(InputStream in, String resultsPropertyName, ObjectReader resultReader) throws IOException {
+		List<T> results = new ArrayList<>();
+		ResultsPage<T> page = read(in, resultsPropertyName, resultReader, result -> {
+			results.add(result);
+			return true;
+		});
+		return new ResultsPage<>(page.envelope, results, page.responseBytes, page.handlerNanos);
+	}
+	
+	/**
+	 * Read a {@link ResultsPage} from the given {@link InputStream}, passing each result
+	 * to the given result handler as soon as it has been read. The response is expected 
+	 * to contain a JSON object, with the results being contained in the property with the
+	 * given name. This property may contain either an array of results, or a single result.
+	 * Once the given result handler returns false, any remaining results are skipped
+	 * without being bound, but the remainder of the response is still read to collect
+	 * all other response properties. An empty response results in an empty page.
+	 * 
+	 * @param <T> Type of the results
+	 * @param in {@link InputStream} from which to read the response contents
+	 * @param resultsPropertyName name of the property containing the results
+	 * @param resultReader {@link ObjectReader} for binding each individual result
+	 * @param resultHandler for handling each result, returning false if no more results should be handled
+	 * @return {@link ResultsPage} instance without any collected results
+	 * @throws IOException if the response contents cannot be read or parsed
+	 */
+	static <T> ResultsPage<T> read(InputStream in, String resultsPropertyName, ObjectReader resultReader, Predicate<T> resultHandler) throws IOException {
+		try ( JsonParser parser = resultReader.getFactory().createParser(in) ) {
+			JSONMap envelope = new JSONMap();
+			ResultHandler<T> handler = new ResultHandler<>(resultHandler);
+			JsonToken token = parser.nextToken();
+			if ( token == null ) {
+				return new ResultsPage<>(envelope, Collections.emptyList(), 0, 0);
+			}
+			if ( token != JsonToken.START_OBJECT ) {
+				throw new JsonParseException(parser, "Expected JSON object, found "+token);
+			}
+			while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+				String name = parser.getCurrentName();
+				token = parser.nextToken();
+				if ( !resultsPropertyName.equals(name) ) {
+					envelope.put(name, PROPERTY_READER.readValue(parser));
+				} else if ( token == JsonToken.START_ARRAY ) {
+					while ( parser.nextToken() != JsonToken.END_ARRAY ) {
+						handler.handle(parser, resultReader);
+					}
+				} else {
+					handler.handle(parser, resultReader);
+				}
+			}
+			return new ResultsPage<>(envelope, Collections.emptyList(), parser.getCurrentLocation().getByteOffset(), handler.nanos);
+		}
+	}
+	
+	/**
+	 * Invokes the configured result handler for each result until the result handler
+	 * returns false, recording the time spent in the result handler.
+	 */
+	private static final class ResultHandler<T> {
+		private final Predicate<T> resultHandler;
+		private boolean done = false;
+		private long nanos = 0;
+		
+		ResultHandler(Predicate<T> resultHandler) {
+			this.resultHandler = resultHandler;
+		}
+		
+		void handle(JsonParser parser, ObjectReader resultReader) throws IOException {
+			if ( done ) {
+				parser.skipChildren();
+			} else {
+				T result = resultReader.readValue(parser);
+				if ( result != null ) {
+					long start = System.nanoTime();
+					done = !resultHandler.test(result);
+					nanos += System.nanoTime()-start;
+				}
+			}
+		}
+	}
+}
@@ -57,6 +57,14 @@ public class WebTargetQueryParamUpdaterBuilder implements IWebTargetUpdaterBuild
 	public final WebTargetQueryParamUpdaterBuilder queryParam(String paramName, String... paramValues) {
 		this.queryParams.put(paramName, paramValues); return this;
 	}
+	
+	/**
+	 * @param paramName to be checked
+	 * @return true if any values have been configured for the given query parameter name, false otherwise
+	 */
+	public final boolean hasQueryParam(String paramName) {
+		return this.queryParams.containsKey(paramName);
+	}
 
 	/**
 	 * Build a new {@link WebTargetQueryParamUpdater} instance based on the
@@ -0,0 +1,224 @@
+package com.fortify.util.rest.connection;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation.Builder;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class ConditionalRequestFilterTest {
+	private static final String LAST_MODIFIED = "Tue, 15 Nov 1994 12:45:26 GMT";
+	private HttpServer server;
+	private URI baseUri;
+	/** Response body returned by the server; the ETag is derived from the body */
+	private volatile String body = "{\"data\":[1,2,3]}";
+	private volatile boolean sendETag = true;
+	private volatile boolean sendLastModified = false;
+	private volatile String cacheControl = null;
+	/** Status code of each response sent by the server */
+	private final List<Integer> statusCodes = Collections.synchronizedList(new ArrayList<>());
+	/** Conditional headers received by the server for each request */
+	private final List<String> conditionalHeaders = Collections.synchronizedList(new ArrayList<>());
+	private final List<Client> clients = new ArrayList<>();
+	
+	@BeforeEach
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::handle);
+		server.start();
+		baseUri = URI.create("http://"+server.getAddress().getHostString()+":"+server.getAddress().getPort()+"/");
+	}
+	
+	@AfterEach
+	public void stopServer() {
+		clients.forEach(Client::close);
+		server.stop(0);
+	}
+	
+	@Test public void testETagRevalidation() {
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items"), body);
+		assertResponse(get(store, "items"), body);
+		assertResponse(get(store, "items"), body);
+		assertEquals(Arrays.asList(200, 304, 304), statusCodes);
+		String etag = "If-None-Match="+etag(body);
+		assertEquals(Arrays.asList("", etag, etag), conditionalHeaders);
+	}
+	
+	@Test public void testLastModifiedRevalidation() {
+		sendETag = false;
+		sendLastModified = true;
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items"), body);
+		assertResponse(get(store, "items"), body);
+		assertEquals(Arrays.asList(200, 304), statusCodes);
+		assertEquals(Arrays.asList("", "If-Modified-Since="+LAST_MODIFIED), conditionalHeaders);
+	}
+	
+	@Test public void testChangedResponse() {
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items"), body);
+		String oldBody = body;
+		body = "{\"data\":[4]}";
+		assertResponse(get(store, "items"), body);
+		assertResponse(get(store, "items"), body);
+		assertEquals(Arrays.asList(200, 200, 304), statusCodes);
+		assertEquals(Arrays.asList("", "If-None-Match="+etag(oldBody), "If-None-Match="+etag(body)), conditionalHeaders);
+	}
+	
+	@Test public void testNoStore() {
+		cacheControl = "private, no-store";
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items"), body);
+		assertResponse(get(store, "items"), body);
+		assertEquals(Arrays.asList(200, 200), statusCodes);
+		assertEquals(Arrays.asList("", ""), conditionalHeaders);
+		assertNull(store.get(baseUri.resolve("items")));
+	}
+	
+	@Test public void testWithoutValidators() {
+		sendETag = false;
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items"), body);
+		assertResponse(get(store, "items"), body);
+		assertEquals(Arrays.asList(200, 200), statusCodes);
+		assertNull(store.get(baseUri.resolve("items")));
+	}
+	
+	@Test public void testStoredPerUri() {
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items?start=0"), body);
+		assertResponse(get(store, "items?start=50"), body);
+		assertResponse(get(store, "items?start=0"), body);
+		assertEquals(Arrays.asList(200, 200, 304), statusCodes);
+	}
+	
+	@Test public void testNonGetRequestsNotAffected() {
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(target(store, "items").post(Entity.json("{}")), body);
+		assertResponse(target(store, "items").post(Entity.json("{}")), body);
+		assertEquals(Arrays.asList(200, 200), statusCodes);
+		assertEquals(Arrays.asList("", ""), conditionalHeaders);
+		assertNull(store.get(baseUri.resolve("items")));
+	}
+	
+	@Test public void testExplicitConditionalRequestNotAffected() {
+		IRevalidationStore store = new InMemoryRevalidationStore(10);
+		assertResponse(get(store, "items"), body);
+		Response response = target(store, "items").header(HttpHeaders.IF_NONE_MATCH, etag(body)).get();
+		assertEquals(304, response.getStatus());
+		response.close();
+	}
+	
+	@Test public void testFileSystemStoreAcrossClients(@TempDir Path dir) {
+		assertResponse(get(new FileSystemRevalidationStore(dir), "items"), body);
+		assertResponse(get(new FileSystemRevalidationStore(dir), "items"), body);
+		assertEquals(Arrays.asList(200, 304), statusCodes);
+		RevalidationEntry entry = new FileSystemRevalidationStore(dir).get(baseUri.resolve("items"));
+		assertNotNull(entry);
+		assertEquals(etag(body), entry.getEtag());
+		assertNull(entry.getLastModified());
+		assertEquals(MediaType.APPLICATION_JSON, entry.getContentType());
+	}
+	
+	private Response get(IRevalidationStore store, String path) {
+		return target(store, path).get();
+	}
+	
+	private Builder target(IRevalidationStore store, String path) {
+		Client client = ClientBuilder.newClient().register(new ConditionalRequestFilter(store));
+		clients.add(client);
+		return client.target(baseUri.resolve(path)).request();
+	}
+	
+	private void assertResponse(Response response, String expectedBody) {
+		try {
+			assertEquals(200, response.getStatus());
+			assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+			assertEquals(expectedBody, response.readEntity(String.class));
+		} finally {
+			response.close();
+		}
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		String currentBody = body;
+		String etag = etag(currentBody);
+		String ifNoneMatch = exchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+		String ifModifiedSince = exchange.getRequestHeaders().getFirst(HttpHeaders.IF_MODIFIED_SINCE);
+		conditionalHeaders.add((ifNoneMatch==null ? "" : "If-None-Match="+ifNoneMatch)+(ifModifiedSince==null ? "" : "If-Modified-Since="+ifModifiedSince));
+		if ( sendETag ) { exchange.getResponseHeaders().set(HttpHeaders.ETAG, etag); }
+		if ( sendLastModified ) { exchange.getResponseHeaders().set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED); }
+		if ( cacheControl != null ) { exchange.getResponseHeaders().set(HttpHeaders.CACHE_CONTROL, cacheControl); }
+		boolean notModified = "GET".equals(exchange.getRequestMethod()) 
+				&& ((ifNoneMatch != null && ifNoneMatch.equals(etag)) || (ifNoneMatch == null && LAST_MODIFIED.equals(ifModifiedSince)));
+		if ( notModified ) {
+			statusCodes.add(304);
+			exchange.sendResponseHeaders(304, -1);
+		} else {
+			byte[] bytes = currentBody.getBytes(StandardCharsets.UTF_8);
+			statusCodes.add(200);
+			exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try ( OutputStream out = exchange.getResponseBody() ) {
+				out.write(bytes);
+			}
+		}
+		exchange.close();
+	}
+	
+	private static final String etag(String body) {
+		return "\""+Integer.toHexString(body.hashCode())+"\"";
+	}
+}
@@ -0,0 +1,217 @@
+package com.fortify.util.rest.connection;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.RequiredArgsConstructor;
+
+public class RefreshingTokenHolderTest {
+	private final BlockingQueue<Token> unused = new LinkedBlockingQueue<>();
+	private RefreshingTokenHolder<Token> holder;
+	
+	@AfterEach
+	public void close() {
+		if ( holder != null ) { holder.close(); }
+	}
+	
+	@Test public void testGetReusesValidToken() {
+		TokenLoader loader = new TokenLoader(60000);
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt);
+		Token token = holder.get();
+		assertSame(token, holder.get());
+		assertEquals(1, loader.getCount());
+	}
+	
+	@Test public void testGetRefreshesExpiredToken() throws Exception {
+		TokenLoader loader = new TokenLoader(50);
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt).unusedTokenHandler(unused::add);
+		Token token = holder.get();
+		Thread.sleep(100);
+		Token newToken = holder.get();
+		assertEquals(1, token.id);
+		assertEquals(2, newToken.id);
+		assertNull(unused.poll(), "Expired tokens should not be passed to the unused token handler");
+	}
+	
+	@Test public void testClear() {
+		TokenLoader loader = new TokenLoader(60000);
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt);
+		Token token = holder.get();
+		assertSame(token, holder.clear());
+		assertNull(holder.clear());
+		assertEquals(2, holder.get().id);
+	}
+	
+	@Test public void testRefreshAhead() throws Exception {
+		TokenLoader loader = new TokenLoader(2000, 60000);
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt)
+				.refreshAheadMillis(1900).unusedTokenHandler(unused::add);
+		Token token = holder.get();
+		assertEquals(1, token.id);
+		// The first token is refreshed in the background after ~100ms
+		for ( int i = 0 ; i < 50 && holder.get() == token ; i++ ) {
+			Thread.sleep(100);
+		}
+		assertEquals(2, holder.get().id);
+		assertEquals(2, loader.getCount());
+		assertNull(unused.poll(), "Replaced tokens may still be in use, and should not be passed to the unused token handler");
+	}
+	
+	@Test public void testRefreshAheadFailure() throws Exception {
+		CountDownLatch failed = new CountDownLatch(1);
+		TokenLoader loader = new TokenLoader(2000, 60000);
+		holder = new RefreshingTokenHolder<>(() -> {
+			if ( loader.getCount() > 0 ) {
+				failed.countDown();
+				throw new RuntimeException("Simulated token request failure");
+			}
+			return loader.get();
+		}, Token::getExpiresAt).refreshAheadMillis(1900).unusedTokenHandler(unused::add);
+		Token token = holder.get();
+		assertTrue(failed.await(5, TimeUnit.SECONDS));
+		assertSame(token, holder.get(), "Current token should be used until expiry if background refresh fails");
+		assertNull(unused.poll(100, TimeUnit.MILLISECONDS));
+	}
+	
+	@Test public void testRefreshAheadDoesNotHoldLock() throws Exception {
+		BlockingTokenLoader loader = new BlockingTokenLoader();
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt)
+				.refreshAheadMillis(1900).unusedTokenHandler(unused::add);
+		Token token = holder.get();
+		assertTrue(loader.started.await(5, TimeUnit.SECONDS));
+		// While the new token is being requested, other operations must not block
+		assertSame(token, holder.get());
+		assertSame(token, CompletableFuture.supplyAsync(holder::clear).get(1, TimeUnit.SECONDS));
+		loader.release.countDown();
+		// As the previous token was cleared, the new token is not published but passed to the handler instead
+		Token newToken = unused.poll(5, TimeUnit.SECONDS);
+		assertEquals(2, newToken.id);
+		assertEquals(3, holder.get().id);
+	}
+	
+	@Test public void testRefreshAheadAfterClose() throws Exception {
+		BlockingTokenLoader loader = new BlockingTokenLoader();
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt)
+				.refreshAheadMillis(1900).unusedTokenHandler(unused::add);
+		Token token = holder.get();
+		assertTrue(loader.started.await(5, TimeUnit.SECONDS));
+		CompletableFuture.runAsync(holder::close).get(1, TimeUnit.SECONDS);
+		loader.release.countDown();
+		// A token requested while closing must be passed to the handler, and the current token must be retained
+		Token newToken = unused.poll(5, TimeUnit.SECONDS);
+		assertEquals(2, newToken.id);
+		assertSame(token, holder.clear());
+	}
+	
+	@Test public void testGetAfterClose() {
+		TokenLoader loader = new TokenLoader(60000);
+		holder = new RefreshingTokenHolder<>(loader, Token::getExpiresAt);
+		Token token = holder.get();
+		holder.close();
+		assertThrows(IllegalStateException.class, holder::get);
+		assertSame(token, holder.clear());
+		assertThrows(IllegalStateException.class, holder::get, "No new token should be requested once closed");
+		assertEquals(1, loader.getCount());
+	}
+	
+	/**
+	 * Token loader returning tokens with increasing id's; the first token expires after 
+	 * the given initial lifetime, all other tokens after the given next lifetime
+	 */
+	private static final class TokenLoader implements Supplier<Token> {
+		private final AtomicInteger count = new AtomicInteger();
+		private final long initialLifetimeMillis;
+		private final long nextLifetimeMillis;
+		
+		public TokenLoader(long lifetimeMillis) {
+			this(lifetimeMillis, lifetimeMillis);
+		}
+		
+		public TokenLoader(long initialLifetimeMillis, long nextLifetimeMillis) {
+			this.initialLifetimeMillis = initialLifetimeMillis;
+			this.nextLifetimeMillis = nextLifetimeMillis;
+		}
+		
+		@Override
+		public Token get() {
+			int id = count.incrementAndGet();
+			return new Token(id, System.currentTimeMillis()+(id==1 ? initialLifetimeMillis : nextLifetimeMillis));
+		}
+		
+		public int getCount() {
+			return count.get();
+		}
+	}
+	
+	/**
+	 * Token loader that blocks on the second (background) token request until released
+	 */
+	private static final class BlockingTokenLoader implements Supplier<Token> {
+		private final TokenLoader loader = new TokenLoader(2000, 60000);
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		
+		@Override
+		public Token get() {
+			Token result = loader.get();
+			if ( result.id == 2 ) {
+				started.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return result;
+		}
+	}
+	
+	@RequiredArgsConstructor
+	private static final class Token {
+		private final int id;
+		private final long expiresAt;
+		
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+	}
+}
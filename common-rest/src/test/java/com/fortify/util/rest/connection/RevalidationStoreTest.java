@@ -0,0 +1,121 @@
+package com.fortify.util.rest.connection;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RevalidationStoreTest {
+	private static final URI URI1 = URI.create("http://localhost/api/v1/projects?start=0&limit=50");
+	private static final URI URI2 = URI.create("http://localhost/api/v1/projects?start=50&limit=50");
+	private static final URI URI3 = URI.create("http://localhost/api/v1/projects/1");
+	@TempDir Path dir;
+	
+	@Test public void testInMemoryStore() {
+		testStore(new InMemoryRevalidationStore(10));
+	}
+	
+	@Test public void testInMemoryStoreEvictsLeastRecentlyUsed() {
+		IRevalidationStore store = new InMemoryRevalidationStore(2);
+		store.put(URI1, entry("1"));
+		store.put(URI2, entry("2"));
+		assertNotNull(store.get(URI1));
+		store.put(URI3, entry("3"));
+		assertNotNull(store.get(URI1));
+		assertNull(store.get(URI2));
+		assertNotNull(store.get(URI3));
+	}
+	
+	@Test public void testFileSystemStore() {
+		testStore(new FileSystemRevalidationStore(dir));
+	}
+	
+	@Test public void testFileSystemStoreAcrossInstances() throws IOException {
+		new FileSystemRevalidationStore(dir).put(URI1, entry("1"));
+		assertEntry(entry("1"), new FileSystemRevalidationStore(dir).get(URI1));
+		assertNull(new FileSystemRevalidationStore(dir).get(URI2));
+		// Entries are written atomically, so no temporary files should be left behind
+		try ( Stream<Path> files = Files.list(dir) ) {
+			assertEquals(1, files.count());
+		}
+	}
+	
+	@Test public void testFileSystemStoreCreatesDirectory() {
+		IRevalidationStore store = new FileSystemRevalidationStore(dir.resolve("a/b"));
+		store.put(URI1, entry("1"));
+		assertEntry(entry("1"), store.get(URI1));
+	}
+	
+	@Test public void testFileSystemStoreIgnoresCorruptEntries() throws IOException {
+		IRevalidationStore store = new FileSystemRevalidationStore(dir);
+		store.put(URI1, entry("1"));
+		try ( Stream<Path> files = Files.list(dir) ) {
+			Path file = files.findFirst().get();
+			byte[] contents = Files.readAllBytes(file);
+			Files.write(file, Arrays.copyOf(contents, contents.length-5));
+		}
+		assertNull(store.get(URI1));
+		store.put(URI1, entry("2"));
+		assertEntry(entry("2"), store.get(URI1));
+	}
+	
+	private void testStore(IRevalidationStore store) {
+		assertNull(store.get(URI1));
+		store.put(URI1, entry("1"));
+		RevalidationEntry withNulls = new RevalidationEntry(null, null, null, new byte[0]);
+		store.put(URI2, withNulls);
+		assertEntry(entry("1"), store.get(URI1));
+		assertEntry(withNulls, store.get(URI2));
+		assertNull(store.get(URI3));
+		store.put(URI1, entry("3"));
+		assertEntry(entry("3"), store.get(URI1));
+	}
+	
+	private static final RevalidationEntry entry(String version) {
+		return new RevalidationEntry("\"v"+version+"\"", "Tue, 15 Nov 1994 12:45:2"+version+" GMT", "application/json", ("{\"version\":\""+version+"é\"}").getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private static final void assertEntry(RevalidationEntry expected, RevalidationEntry actual) {
+		assertNotNull(actual);
+		assertEquals(expected.getEtag(), actual.getEtag());
+		assertEquals(expected.getLastModified(), actual.getLastModified());
+		assertEquals(expected.getContentType(), actual.getContentType());
+		assertArrayEquals(expected.getBody(), actual.getBody());
+	}
+}
@@ -0,0 +1,249 @@
+package com.fortify.util.rest.connection;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation.Builder;
+import javax.ws.rs.client.WebTarget;
+
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
+
+/**
+ * {@link IRestConnection} implementation for unit tests, returning responses generated
+ * by a given function instead of invoking an actual REST API. This class records all 
+ * requested URIs, and the maximum number of concurrently executing requests.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public class StubRestConnection implements IRestConnection {
+	private static final Client CLIENT = ClientBuilder.newClient();
+	private final Function<URI, JSONMap> responseFunction;
+	private final boolean multiThreaded;
+	private final List<URI> requestedUris = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger activeRequests = new AtomicInteger();
+	private final AtomicInteger maxActiveRequests = new AtomicInteger();
+	private long requestDelayMillis = 0;
+	private ResponseCache responseCache = null;
+	
+	public StubRestConnection(boolean multiThreaded, Function<URI, JSONMap> responseFunction) {
+		this.multiThreaded = multiThreaded;
+		this.responseFunction = responseFunction;
+	}
+	
+	/**
+	 * Create a {@link StubRestConnection} that returns the given total number of results,
+	 * paged based on the <code>start</code> and <code>limit</code> request parameters.
+	 * Each result contains an <code>id</code> property with the index of that result. 
+	 * Results are returned in the <code>data</code> response property, and the total 
+	 * number of results in the <code>count</code> response property.
+	 */
+	public static final StubRestConnection paged(boolean multiThreaded, int total) {
+		return paged(multiThreaded, total, true);
+	}
+	
+	/**
+	 * Same as {@link #paged(boolean, int)}, but optionally omitting the <code>count</code>
+	 * response property, for simulating endpoints that don't return the total number of 
+	 * results.
+	 */
+	public static final StubRestConnection paged(boolean multiThreaded, int total, boolean includeCount) {
+		return new StubRestConnection(multiThreaded, pagedResponse(total, includeCount));
+	}
+	
+	/**
+	 * Get the response function used by {@link #paged(boolean, int, boolean)}, allowing
+	 * tests to combine paged responses with other responses.
+	 */
+	public static final Function<URI, JSONMap> pagedResponse(int total, boolean includeCount) {
+		return uri -> {
+			Map<String, Integer> params = getIntQueryParams(uri);
+			int start = params.getOrDefault("start", 0);
+			int end = Math.min(total, start+params.getOrDefault("limit", total));
+			JSONList data = new JSONList();
+			for ( int i = start ; i < end ; i++ ) {
+				JSONMap result = new JSONMap();
+				result.put("id", i);
+				data.add(result);
+			}
+			JSONMap response = new JSONMap();
+			response.put("data", data);
+			if ( includeCount ) {
+				response.put("count", total);
+			}
+			return response;
+		};
+	}
+	
+	public static final Map<String, Integer> getIntQueryParams(URI uri) {
+		Map<String, Integer> result = new HashMap<>();
+		if ( uri.getQuery() != null ) {
+			for ( String param : uri.getQuery().split("&") ) {
+				String[] nameAndValue = param.split("=");
+				result.put(nameAndValue[0], Integer.parseInt(nameAndValue[1]));
+			}
+		}
+		return result;
+	}
+	
+	public StubRestConnection requestDelayMillis(long requestDelayMillis) {
+		this.requestDelayMillis = requestDelayMillis;
+		return this;
+	}
+	
+	public StubRestConnection responseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+		return this;
+	}
+	
+	public List<URI> getRequestedUris() {
+		synchronized (requestedUris) {
+			return new ArrayList<>(requestedUris);
+		}
+	}
+	
+	public int getRequestCount() {
+		return requestedUris.size();
+	}
+	
+	public int getMaxActiveRequests() {
+		return maxActiveRequests.get();
+	}
+	
+	public void reset() {
+		requestedUris.clear();
+		maxActiveRequests.set(0);
+	}
+	
+	@Override
+	public <T> T executeRequest(String httpMethod, WebTarget webResource, Class<T> returnType) {
+		URI uri = webResource.getUri();
+		requestedUris.add(uri);
+		maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+		try {
+			if ( requestDelayMillis > 0 ) {
+				Thread.sleep(requestDelayMillis);
+			}
+			return convert(responseFunction.apply(uri), returnType);
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while executing request for "+uri, e);
+		} finally {
+			activeRequests.decrementAndGet();
+		}
+	}
+	
+	@Override
+	public <T> T executeRequest(String httpMethod, WebTarget webResource, Entity<?> entity, Class<T> returnType) {
+		return executeRequest(httpMethod, webResource, returnType);
+	}
+	
+	@Override
+	public <T> T executeRequest(String httpMethod, Builder builder, Entity<?> entity, Class<T> returnType) {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public <T> CompletableFuture<T> executeRequestAsync(String httpMethod, WebTarget webResource, Class<T> returnType) {
+		return multiThreaded 
+				? CompletableFuture.supplyAsync(() -> executeRequest(httpMethod, webResource, returnType))
+				: CompletableFuture.completedFuture(executeRequest(httpMethod, webResource, returnType));
+	}
+	
+	@Override
+	public <T> CompletableFuture<T> executeRequestAsync(String httpMethod, WebTarget webResource, Entity<?> entity, Class<T> returnType) {
+		return executeRequestAsync(httpMethod, webResource, returnType);
+	}
+	
+	@Override
+	public <T> CompletableFuture<T> executeRequestAsync(String httpMethod, Builder builder, Entity<?> entity, Class<T> returnType) {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public URI getBaseUrl() {
+		return URI.create("http://localhost/");
+	}
+	
+	@Override
+	public WebTarget getBaseResource() {
+		return CLIENT.target(getBaseUrl());
+	}
+	
+	@Override
+	public WebTarget getResource(String url) {
+		return CLIENT.target(url);
+	}
+	
+	@Override
+	public String getConnectionId() {
+		return "stub";
+	}
+	
+	@Override
+	public boolean isMultiThreaded() {
+		return multiThreaded;
+	}
+	
+	@Override
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+	
+	@Override
+	public void close() {}
+	
+	private static final <T> T convert(JSONMap response, Class<T> returnType) {
+		try {
+			if ( response == null || returnType.isInstance(response) ) {
+				return returnType.cast(response);
+			} else if ( returnType == byte[].class ) {
+				return returnType.cast(JSONObjectMapperSupplier.getObjectWriter().writeValueAsBytes(response));
+			} else if ( returnType == String.class ) {
+				return returnType.cast(JSONObjectMapperSupplier.getObjectWriter().writeValueAsString(response));
+			} else {
+				return JSONObjectMapperSupplier.getObjectMapper().convertValue(response, returnType);
+			}
+		} catch ( IOException e ) {
+			throw new RuntimeException("Error converting response to "+returnType.getName(), e);
+		}
+	}
+}
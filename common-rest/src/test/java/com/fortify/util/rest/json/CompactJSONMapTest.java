@@ -0,0 +1,305 @@
+package com.fortify.util.rest.json;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.util.rest.json.JSONObjectMapperSupplier.DeserializationFeature;
+import com.fortify.util.rest.json.ondemand.IJSONMapOnDemandLoader;
+
+/**
+ * Compare {@link CompactJSONMap} against {@link JSONMap}, which provides the reference
+ * {@link java.util.LinkedHashMap} semantics, for random sequences of {@link Map} operations.
+ * Operations are executed on both instances, after which return values, exceptions and 
+ * map contents (including iteration order) must be identical. 
+ * 
+ * @author Ruud Senden
+ *
+ */
+public class CompactJSONMapTest {
+	/** Small key set, for frequent updates and removals of existing keys */
+	private static final String[] KEYS = {"id", "name", "severity", "category", "status", "primaryTag", "folderId", "x"};
+	/** Number of keys added by {@link #grow(Map, int)}; more than the maximum number of keys per shape */
+	private static final int GROW_KEYS = 300;
+	
+	@Test public void testRandomizedComparison() {
+		Random random = new Random(42);
+		for ( int run = 0 ; run < 300 ; run++ ) {
+			CompactJSONMap actual = new CompactJSONMap();
+			JSONMap expected = new JSONMap();
+			for ( int op = 0 ; op < 200 ; op++ ) {
+				int operation = random.nextInt(25);
+				String key = randomKey(random);
+				Object value = randomValue(random);
+				String description = "run "+run+", op "+op+": operation "+operation+"("+key+", "+value+")";
+				assertEquals(
+					execute(expected, operation, key, value, new Random(op)), 
+					execute(actual, operation, key, value, new Random(op)), description);
+				assertSameContents(expected, actual, description);
+			}
+		}
+	}
+	
+	@Test public void testCrossingMaxKeys() {
+		CompactJSONMap actual = new CompactJSONMap();
+		JSONMap expected = new JSONMap();
+		grow(expected, GROW_KEYS);
+		grow(actual, GROW_KEYS);
+		assertSameContents(expected, actual, "grow");
+		for ( int i = 0 ; i < GROW_KEYS ; i += 7 ) {
+			assertEquals(expected.remove("k"+i), actual.remove("k"+i));
+		}
+		assertSameContents(expected, actual, "remove");
+	}
+	
+	@Test public void testNullKey() {
+		CompactJSONMap actual = new CompactJSONMap();
+		JSONMap expected = new JSONMap();
+		for ( JSONMap map : Arrays.asList(expected, actual) ) {
+			map.put("a", 1);
+			map.put(null, 2);
+			map.put("b", 3);
+		}
+		assertSameContents(expected, actual, "null key");
+		assertEquals(expected.get(null), actual.get(null));
+	}
+	
+	@Test public void testFailFastIterators() {
+		for ( Function<Map<String, Object>, Iterator<?>> iteratorFunction : iteratorFunctions() ) {
+			for ( int initialKeys : new int[] {3, GROW_KEYS} ) {
+				CompactJSONMap map = new CompactJSONMap();
+				grow(map, initialKeys);
+				Iterator<?> iterator = iteratorFunction.apply(map);
+				iterator.next();
+				map.put("new", 1);
+				assertThrows(ConcurrentModificationException.class, iterator::next);
+				
+				Iterator<?> iterator2 = iteratorFunction.apply(map);
+				iterator2.next();
+				map.remove("k1");
+				assertThrows(ConcurrentModificationException.class, iterator2::next);
+			}
+		}
+	}
+	
+	@Test public void testIteratorRemoveInflatesWhileIterating() {
+		CompactJSONMap map = new CompactJSONMap();
+		grow(map, 3);
+		Iterator<String> iterator = map.keySet().iterator();
+		iterator.next();
+		grow(map, GROW_KEYS);
+		// Switching to super class storage must invalidate existing iterators
+		assertThrows(ConcurrentModificationException.class, iterator::next);
+	}
+	
+	@Test public void testEntrySetValue() {
+		CompactJSONMap map = new CompactJSONMap();
+		grow(map, 5);
+		for ( Map.Entry<String, Object> entry : map.entrySet() ) {
+			entry.setValue(entry.getKey()+"!");
+		}
+		assertEquals("k3!", map.get("k3"));
+	}
+	
+	@Test public void testClone() {
+		CompactJSONMap map = new CompactJSONMap();
+		grow(map, 5);
+		JSONMap clone = (JSONMap)map.clone();
+		assertEquals(map, clone);
+		clone.put("k1", "changed");
+		clone.remove("k2");
+		assertEquals("v1", map.get("k1"));
+		assertTrue(map.containsKey("k2"));
+	}
+	
+	@Test public void testSerialization() throws IOException, ClassNotFoundException {
+		CompactJSONMap map = new CompactJSONMap();
+		grow(map, 5);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try ( ObjectOutputStream oos = new ObjectOutputStream(bos) ) {
+			oos.writeObject(map);
+		}
+		try ( ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())) ) {
+			Object result = ois.readObject();
+			assertSame(JSONMap.class, result.getClass());
+			assertEquals(map, result);
+		}
+	}
+	
+	@Test public void testOnDemandValues() {
+		CompactJSONMap map = new CompactJSONMap();
+		map.put("id", 1);
+		map.put("details", (IJSONMapOnDemandLoader)(propertyName, parent) -> { parent.put(propertyName, "loaded"); return "loaded"; });
+		assertEquals("loaded", map.get("details"));
+		assertEquals("loaded", map.getOrDefault("details", null));
+		assertSame(String.class, map.values().toArray()[1].getClass());
+	}
+	
+	@Test public void testDeserialization() throws IOException {
+		String json = "[{\"id\":1,\"name\":\"a\",\"tags\":[{\"k\":\"v\"}]},{\"id\":2,\"name\":\"b\",\"tags\":[]}]";
+		JSONList expected = JSONObjectMapperSupplier.getObjectMapper().readValue(json, JSONList.class);
+		JSONObjectMapperSupplier.configure(DeserializationFeature.COMPACT_JSON_MAPS, true);
+		try {
+			JSONList actual = JSONObjectMapperSupplier.getObjectMapper().readValue(json, JSONList.class);
+			assertSame(CompactJSONMap.class, actual.get(0).getClass());
+			assertSame(CompactJSONMap.class, actual.get(0, JSONMap.class).get("tags", JSONList.class).get(0).getClass());
+			assertEquals(expected, actual);
+			assertEquals(expected.toString(), actual.toString());
+		} finally {
+			JSONObjectMapperSupplier.configure(DeserializationFeature.COMPACT_JSON_MAPS, false);
+		}
+		assertNotSame(CompactJSONMap.class, JSONObjectMapperSupplier.getObjectMapper().readValue(json, JSONList.class).get(0).getClass());
+	}
+	
+	/**
+	 * Execute the given operation on the given map, returning the operation result or
+	 * the type of exception thrown by the operation. The given {@link Random} instance 
+	 * is used for any operation-specific random decisions, and must produce the same 
+	 * sequence for both maps being compared.
+	 */
+	private static final Object execute(Map<String, Object> map, int operation, String key, Object value, Random random) {
+		try {
+			switch ( operation ) {
+			case 0: case 1: case 2: case 3: return map.put(key, value);
+			case 4: case 5: return map.remove(key);
+			case 6: return map.remove(key, value);
+			case 7: return map.putIfAbsent(key, value);
+			case 8: return map.replace(key, value);
+			case 9: return map.replace(key, map.get(key), value);
+			case 10: return map.compute(key, (k, v) -> random.nextInt(3)==0 ? null : k+v);
+			case 11: return map.computeIfAbsent(key, k -> random.nextInt(3)==0 ? null : k);
+			case 12: return map.computeIfPresent(key, (k, v) -> random.nextInt(3)==0 ? null : k+v);
+			case 13: return map.merge(key, value, (v1, v2) -> random.nextInt(3)==0 ? null : ""+v1+v2);
+			case 14: return removeWithIterator(map.keySet().iterator(), random);
+			case 15: return removeWithIterator(map.values().iterator(), random);
+			case 16: return removeWithIterator(map.entrySet().iterator(), random);
+			case 17: 
+				for ( Map.Entry<String, Object> entry : map.entrySet() ) {
+					if ( random.nextInt(3)==0 ) { entry.setValue(value); }
+				}
+				return null;
+			case 18: map.replaceAll((k, v) -> random.nextInt(5)==0 ? null : v); return null;
+			case 19: 
+				Map<String, Object> other = new JSONMap();
+				other.put(key, value);
+				other.put(randomKey(random), value);
+				map.putAll(other);
+				return null;
+			case 20: return map.keySet().remove(key);
+			case 21: return random.nextInt(10)==0 ? grow(map, GROW_KEYS) : grow(map, 10);
+			case 22: if ( random.nextInt(5)==0 ) { map.clear(); } return null;
+			case 23: return map.getOrDefault(key, "default");
+			default: 
+				List<Object> result = new ArrayList<>();
+				map.forEach((k, v) -> result.add(k+"="+v));
+				return result;
+			}
+		} catch ( RuntimeException e ) {
+			return e.getClass();
+		}
+	}
+	
+	private static final List<Object> removeWithIterator(Iterator<?> iterator, Random random) {
+		List<Object> removed = new ArrayList<>();
+		while ( iterator.hasNext() ) {
+			Object next = iterator.next();
+			if ( random.nextInt(3)==0 ) {
+				removed.add(next instanceof Map.Entry ? ((Map.Entry<?,?>)next).getKey() : next);
+				iterator.remove();
+			}
+		}
+		return removed;
+	}
+	
+	private static final Map<String, Object> grow(Map<String, Object> map, int count) {
+		for ( int i = 0 ; i < count ; i++ ) {
+			map.put("k"+i, "v"+i);
+		}
+		return null;
+	}
+	
+	private static final List<Function<Map<String, Object>, Iterator<?>>> iteratorFunctions() {
+		return Arrays.asList(
+			map -> map.keySet().iterator(),
+			map -> map.values().iterator(),
+			map -> map.entrySet().iterator()
+		);
+	}
+	
+	private static final void assertSameContents(JSONMap expected, JSONMap actual, String description) {
+		assertEquals(expected.size(), actual.size(), description);
+		assertEquals(expected.isEmpty(), actual.isEmpty(), description);
+		assertEquals(expected, actual, description);
+		assertEquals(actual, expected, description);
+		assertEquals(expected.hashCode(), actual.hashCode(), description);
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()), description);
+		assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()), description);
+		assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()), description);
+		assertEquals(expected.toString(), actual.toString(), description);
+		for ( String key : KEYS ) {
+			assertEquals(expected.containsKey(key), actual.containsKey(key), description);
+			assertEquals(expected.get(key), actual.get(key), description);
+		}
+		assertEquals(expected.containsValue(null), actual.containsValue(null), description);
+		assertEquals(expected.containsValue("v1"), actual.containsValue("v1"), description);
+	}
+	
+	private static final String randomKey(Random random) {
+		switch ( random.nextInt(50) ) {
+		case 0: return null; // Causes switch to super class storage
+		case 1: case 2: case 3: case 4: case 5: return "k"+random.nextInt(20);
+		default: return KEYS[random.nextInt(KEYS.length)];
+		}
+	}
+	
+	private static final Object randomValue(Random random) {
+		switch ( random.nextInt(4) ) {
+		case 0: return null;
+		case 1: return random.nextInt(5);
+		default: return "v"+random.nextInt(5);
+		}
+	}
+}
@@ -43,7 +43,7 @@ public class JSONConversionServiceFactoryTest {
 	}
 	
 	@Test public void testParseDate4() {
-		//testParseDate("2019-11-26T15:01:01.4"); // This doesn't work yet
+		testParseDate("2019-11-26T15:01:01.4");
 	}
 	
 	@Test public void testParseDate5() {
@@ -0,0 +1,162 @@
+package com.fortify.util.rest.json;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class JSONDateTimeConverterTest {
+	private static final String DATE = "2019-11-26";
+	private static final String TIME = "15:01:01";
+	private static final String[] SEPARATORS = {"T", " ", ""};
+	private static final String[] FRACTIONS = {"", ".4", ".45", ".450", ".4501", ".45012", ".450123", ".4501234", ".45012345", ".450123456"};
+	private static final String[] OFFSETS = {"", "Z", "+02", "+0230", "+02:30", "-05", "-0530", "-05:30", "+00", "+0000", "-00:00", "+18", "-18:00"};
+	
+	/** Same pattern as the default formatter used by {@link JSONDateTimeConverter} */
+	private static final DateTimeFormatter FMT_DEFAULT = DateTimeFormatter.ofPattern("yyyy-MM-dd[['T'][' ']HH:mm:ss[.SSS][.SS]][ZZZZ][Z][XXX][XX][X]");
+	/** Formatter accepting all shapes that are supposed to be handled by {@link JSONDateTimeConverter#parseFast(String)} */
+	private static final DateTimeFormatter FMT_REFERENCE = new DateTimeFormatterBuilder()
+			.appendPattern("yyyy-MM-dd")
+			.optionalStart()
+				.optionalStart().appendLiteral('T').optionalEnd()
+				.optionalStart().appendLiteral(' ').optionalEnd()
+				.appendPattern("HH:mm:ss")
+				.optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 1, 9, true).optionalEnd()
+				.appendPattern("[XXX][XX][X]")
+			.optionalEnd()
+			.toFormatter();
+	
+	private final JSONDateTimeConverter fastConverter = new JSONDateTimeConverter();
+	private final JSONDateTimeConverter cachingConverter = new JSONDateTimeConverter(null, 16);
+	private final JSONDateTimeConverter defaultFormatterConverter = new JSONDateTimeConverter(FMT_DEFAULT);
+	private final JSONDateTimeConverter referenceFormatterConverter = new JSONDateTimeConverter(FMT_REFERENCE);
+	
+	@Test public void testAcceptedShapesMatchFormatter() {
+		for ( String source : getAcceptedShapes() ) {
+			TemporalAccessor fast = JSONDateTimeConverter.parseFast(source);
+			assertNotNull(fast, source);
+			assertEquals(parseOrException(referenceFormatterConverter, source), fast, source);
+			assertEquals(fast, fastConverter.parseTemporalAccessor(source), source);
+			assertEquals(fast, cachingConverter.parseTemporalAccessor(source), source);
+			// Whenever the original default formatter accepts a value, the fast parser must produce the same result
+			Object defaultResult = parseOrException(defaultFormatterConverter, source);
+			if ( !(defaultResult instanceof Class) ) {
+				assertEquals(defaultResult, fast, source);
+			}
+		}
+	}
+	
+	@Test public void testResultTypes() {
+		assertEquals(LocalDate.of(2019, 11, 26), JSONDateTimeConverter.parseFast(DATE));
+		assertEquals(LocalDateTime.of(2019, 11, 26, 15, 1, 1, 450_000_000), JSONDateTimeConverter.parseFast("2019-11-26T15:01:01.45"));
+		assertEquals(ZonedDateTime.parse("2017-09-12T11:24:28Z"), JSONDateTimeConverter.parseFast("2017-09-12T11:24:28.000+0000"));
+		assertEquals(ZonedDateTime.parse("2019-11-26T15:01:01.000000001-05:30"), JSONDateTimeConverter.parseFast("2019-11-26 15:01:01.000000001-0530"));
+	}
+	
+	@Test public void testFallbackShapes() {
+		String[] fallbackShapes = {
+			"2019-13-26", "2019-00-26", "2019-02-30", "2019-11-32", "2019-11-26T24:00:00", "2019-11-26T15:60:01",
+			"2019-11-26T15:01:01+19", "2019-11-26T15:01:01-19:00", "2019-11-26T15:01:01+02:60",
+			"2019-11-26T15:01:01.", "2019-11-26T15:01:01.4501234567", "2019-11-26T15:01:01.45x",
+			"2019-11-26T15:01:01+2", "2019-11-26T15:01:01+023", "2019-11-26T15:01:01+02:3", "2019-11-26T15:01:01Zx",
+			"2019-11-26T15:01:01GMT+01:00", "2019-11-26T15:01", "2019-11-26X15:01:01", "2019-11-26T15-01-01",
+			"2019/11/26", "19-11-26", "2019-1-26", "2O19-11-26", ""
+		};
+		for ( String source : fallbackShapes ) {
+			assertNull(JSONDateTimeConverter.parseFast(source), source);
+			// Values not handled by the fast parser must be handled (or reported) by the default formatter
+			Object expected = parseOrException(defaultFormatterConverter, source);
+			assertEquals(expected, parseOrException(fastConverter, source), source);
+			assertEquals(expected, parseOrException(cachingConverter, source), source);
+		}
+	}
+	
+	@Test public void testCustomFormatterDisablesFastParser() {
+		JSONDateTimeConverter converter = new JSONDateTimeConverter(DateTimeFormatter.ofPattern("yyyy-dd-MM"));
+		assertEquals(LocalDate.of(2019, 11, 10), converter.parseTemporalAccessor("2019-10-11"));
+	}
+	
+	@Test public void testCache() {
+		List<String> sources = getAcceptedShapes();
+		for ( String source : sources ) {
+			TemporalAccessor first = cachingConverter.parseTemporalAccessor(source);
+			assertSame(first, cachingConverter.parseTemporalAccessor(source), source);
+		}
+		// Cache is smaller than the number of inputs, so this also covers evicted entries
+		for ( String source : sources ) {
+			assertEquals(fastConverter.parseTemporalAccessor(source), cachingConverter.parseTemporalAccessor(source), source);
+		}
+		// Parse failures are not cached and must be reported on every call
+		for ( int i = 0 ; i < 2 ; i++ ) {
+			assertEquals(parseOrException(fastConverter, "2019-13-26"), parseOrException(cachingConverter, "2019-13-26"));
+		}
+	}
+	
+	@Test public void testParseDate() {
+		for ( String source : getAcceptedShapes() ) {
+			assertEquals(referenceFormatterConverter.parseDate(source), fastConverter.parseDate(source), source);
+			assertEquals(fastConverter.parseDate(source), cachingConverter.convert(source), source);
+		}
+	}
+	
+	private static final List<String> getAcceptedShapes() {
+		List<String> result = new ArrayList<>();
+		result.add(DATE);
+		for ( String separator : SEPARATORS ) {
+			for ( String fraction : FRACTIONS ) {
+				for ( String offset : OFFSETS ) {
+					result.add(DATE+separator+TIME+fraction+offset);
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Return either the parse result, or the exception class if parsing fails
+	 */
+	private static final Object parseOrException(JSONDateTimeConverter converter, String source) {
+		try {
+			return converter.parseTemporalAccessor(source);
+		} catch ( RuntimeException e ) {
+			return e.getClass();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.fortify.util.rest.json;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.util.spring.expression.helper.InternalExpressionHelper;
+
+public class JSONMapPathTest {
+	private static final String[] NAMES = {"data", "items", "name", "id", "token", "size", "empty", "class", "values", "keySet", "_x", "$y", "a1"};
+	
+	@Test public void testSimplePaths() {
+		for ( String path : new String[] {"data", "data.token", "items[0].name", "items[10][2]", "_x.$y.a1"} ) {
+			assertTrue(JSONMapPath.get(path).isSimple(), path);
+		}
+	}
+	
+	@Test public void testNonSimplePaths() {
+		for ( String path : new String[] {"", "data.", ".data", "data..token", "items[]", "items[01]", "items[-1]", "items[0", 
+				"items['x']", "1data", "data?.token", "data.and", "not", "data == null", "data.size()", "T", "items[1234567890]"} ) {
+			assertFalse(JSONMapPath.get(path).isSimple(), path);
+		}
+	}
+	
+	@Test public void testResolvedValues() {
+		JSONMap json = createSample();
+		assertEquals("abc", json.getPath("data.token"));
+		assertEquals("first", json.getPath("items[0].name"));
+		assertEquals(2, json.getPath("items[1].id"));
+		assertSame(JSONMapPath.UNRESOLVED, JSONMapPath.get("items[5].name").getValue(json));
+		assertSame(JSONMapPath.UNRESOLVED, JSONMapPath.get("data.missing.name").getValue(json));
+		// size is resolved through JSONMap.size() by SpEL, so must not be resolved directly
+		assertSame(JSONMapPath.UNRESOLVED, JSONMapPath.get("data.size").getValue(json));
+		assertEquals(2, json.getPath("data.size"));
+	}
+	
+	@Test public void testRandomizedComparisonWithSpEL() {
+		Random random = new Random(42);
+		for ( int i = 0 ; i < 2000 ; i++ ) {
+			JSONMap json = randomMap(random, 3);
+			for ( int j = 0 ; j < 10 ; j++ ) {
+				String path = randomPath(random);
+				assertSameResult(json, path);
+			}
+		}
+	}
+	
+	private static final void assertSameResult(JSONMap json, String path) {
+		Object expected = evaluate(() -> InternalExpressionHelper.get().evaluateSimpleExpression(json, path, Object.class));
+		Object actual = evaluate(() -> json.getPath(path));
+		assertEquals(expected, actual, path+" on "+json);
+	}
+	
+	private static final Object evaluate(Supplier<Object> supplier) {
+		try {
+			return supplier.get();
+		} catch ( RuntimeException e ) {
+			return e.getClass();
+		}
+	}
+	
+	private static final JSONMap createSample() {
+		JSONMap json = new JSONMap();
+		json.putPath("data.token", "abc");
+		json.putPath("data.size", 123);
+		JSONList items = new JSONList();
+		JSONMap item1 = new JSONMap();
+		item1.put("name", "first");
+		item1.put("id", 1);
+		JSONMap item2 = new JSONMap();
+		item2.put("id", 2);
+		items.add(item1);
+		items.add(item2);
+		json.put("items", items);
+		return json;
+	}
+	
+	private static final JSONMap randomMap(Random random, int depth) {
+		JSONMap result = new JSONMap();
+		int size = random.nextInt(4);
+		for ( int i = 0 ; i < size ; i++ ) {
+			result.put(NAMES[random.nextInt(NAMES.length)], randomValue(random, depth-1));
+		}
+		return result;
+	}
+	
+	private static final Object randomValue(Random random, int depth) {
+		switch ( depth <= 0 ? random.nextInt(3) : random.nextInt(5) ) {
+		case 0: return null;
+		case 1: return "s"+random.nextInt(10);
+		case 2: return random.nextInt(10);
+		case 3: return randomMap(random, depth);
+		default:
+			JSONList list = new JSONList();
+			int size = random.nextInt(3);
+			for ( int i = 0 ; i < size ; i++ ) {
+				list.add(randomValue(random, depth-1));
+			}
+			return list;
+		}
+	}
+	
+	private static final String randomPath(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int segments = 1+random.nextInt(3);
+		for ( int i = 0 ; i < segments ; i++ ) {
+			if ( i > 0 ) { sb.append('.'); }
+			sb.append(NAMES[random.nextInt(NAMES.length)]);
+			while ( random.nextInt(4)==0 ) {
+				sb.append('[').append(random.nextInt(3)).append(']');
+			}
+		}
+		return sb.toString();
+	}
+}
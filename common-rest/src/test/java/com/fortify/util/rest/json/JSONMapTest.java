@@ -0,0 +1,147 @@
+package com.fortify.util.rest.json;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.jupiter.api.Test;
+
+public class JSONMapTest {
+	private static final Pattern PATTERN_ARRAY_SEGMENT = Pattern.compile("(?<name>.*)\\[(?<index>\\d*)\\]$");
+	private static final String[] NAMES = {"a", "b", "issues", "details", "id"};
+	
+	@Test public void testPutPath() {
+		JSONMap json = new JSONMap();
+		json.putPath("data.token", "abc");
+		json.putPath("issues[1].details.id", 5);
+		json.putPath("issues[].id", 6);
+		json.putPath("empty", "", true);
+		json.putPath("null", null, true);
+		assertEquals("{\"data\":{\"token\":\"abc\"},\"issues\":[{},{\"details\":{\"id\":5}},{\"id\":6}]}", json.toString());
+	}
+	
+	@Test public void testGetOrCreateReturnsExistingInstance() {
+		JSONMap json = new JSONMap();
+		JSONMap map = json.getOrCreateJSONMap("map");
+		JSONList list = json.getOrCreateJSONList("list");
+		assertSame(map, json.getOrCreateJSONMap("map"));
+		assertSame(list, json.getOrCreateJSONList("list"));
+		assertSame(list.getOrCreateJSONMap(2), list.getOrCreateJSONMap(2));
+	}
+	
+	@Test public void testGetOrCreateConvertsOtherTypes() {
+		JSONMap json = new JSONMap();
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("x", 1);
+		json.put("map", map);
+		json.put("list", Arrays.asList(1, 2));
+		assertEquals(map, json.getOrCreateJSONMap("map"));
+		assertEquals(Arrays.asList(1, 2), json.getOrCreateJSONList("list"));
+	}
+	
+	/**
+	 * Compare {@link JSONMap#putPath(String, Object, boolean)} with the original, 
+	 * regex-based implementation for random paths, applied in sequence to the same
+	 * {@link JSONMap} instance.
+	 */
+	@Test public void testRandomizedPutPathComparison() {
+		Random random = new Random(42);
+		for ( int i = 0 ; i < 500 ; i++ ) {
+			JSONMap actual = new JSONMap();
+			JSONMap expected = new JSONMap();
+			for ( int j = 0 ; j < 10 ; j++ ) {
+				String path = randomPath(random);
+				Object value = random.nextInt(4)==0 ? "" : random.nextInt(100);
+				boolean ignoreNullOrEmptyValues = random.nextBoolean();
+				// Conflicting paths may result in conversion errors, which should be identical
+				assertEquals(
+					getExceptionType(() -> legacyPutPath(expected, Arrays.asList(path.split("\\.")), value, ignoreNullOrEmptyValues)), 
+					getExceptionType(() -> actual.putPath(path, value, ignoreNullOrEmptyValues)), path);
+				assertEquals(expected, actual, path);
+			}
+		}
+	}
+	
+	private static final Class<?> getExceptionType(Runnable runnable) {
+		try {
+			runnable.run();
+			return null;
+		} catch ( RuntimeException e ) {
+			return e.getClass();
+		}
+	}
+	
+	private static final String randomPath(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int segments = 1+random.nextInt(3);
+		for ( int i = 0 ; i < segments ; i++ ) {
+			if ( i > 0 ) { sb.append('.'); }
+			sb.append(NAMES[random.nextInt(NAMES.length)]);
+			if ( random.nextInt(3)==0 ) {
+				sb.append('[').append(random.nextInt(3)==0 ? "" : String.valueOf(random.nextInt(3))).append(']');
+			}
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Original implementation of {@link JSONMap#putPath(String, Object, boolean)}
+	 */
+	private static final void legacyPutPath(JSONMap json, List<String> path, Object value, boolean ignoreNullOrEmptyValues) {
+		if ( !(ignoreNullOrEmptyValues && (value==null || (value instanceof String && StringUtils.isBlank((String)value)))) ) {
+			if ( path.size()==1 ) {
+				json.put(path.get(0), value);
+			} else if ( path.size()>1 ){
+				String currentSegment = path.get(0);
+				JSONMap intermediate;
+				Matcher arrayMatcher = PATTERN_ARRAY_SEGMENT.matcher(currentSegment);
+				if ( arrayMatcher.matches() ) {
+					JSONList list = json.getOrCreateJSONList(arrayMatcher.group("name"));
+					if ( StringUtils.isBlank(arrayMatcher.group("index")) ) { 
+						intermediate = new JSONMap();
+						list.add(intermediate);
+					} else {
+						int index = Integer.valueOf(arrayMatcher.group("index"));
+						intermediate = list.getOrCreateJSONMap(index);
+					}
+				} else {
+					intermediate = json.getOrCreateJSONMap(currentSegment);
+				}
+				legacyPutPath(intermediate, path.subList(1, path.size()), value, ignoreNullOrEmptyValues);
+			}
+		}
+	}
+}
@@ -0,0 +1,367 @@
+package com.fortify.util.rest.query;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.util.rest.connection.Connections;
+import com.fortify.util.rest.connection.StubRestConnection;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.embed.StandardEmbedConfig;
+import com.fortify.util.rest.json.preprocessor.filter.AbstractJSONMapFilter.MatchMode;
+import com.fortify.util.rest.json.preprocessor.filter.JSONMapFilterSpEL;
+
+import lombok.experimental.SuperBuilder;
+
+public class AbstractRestConnectionQueryTest {
+	@Test public void testParallelPagingOrderAndCompleteness() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1234).requestDelayMillis(5);
+		assertEquals(range(0, 1234, 1), ids(new StubQueryBuilder(conn).pagingParallelism(4).build().getAll()));
+		assertEquals(25, conn.getRequestCount());
+		assertTrue(conn.getMaxActiveRequests() > 1, "Pages should be loaded concurrently");
+	}
+	
+	@Test public void testParallelPagingExactMultipleOfPageSize() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1000);
+		assertEquals(range(0, 1000, 1), ids(new StubQueryBuilder(conn).pagingParallelism(4).build().getAll()));
+		assertEquals(20, conn.getRequestCount());
+	}
+	
+	@Test public void testParallelPagingEmpty() {
+		StubRestConnection conn = StubRestConnection.paged(true, 0);
+		assertEquals(range(0, 0, 1), ids(new StubQueryBuilder(conn).pagingParallelism(4).build().getAll()));
+		assertEquals(1, conn.getRequestCount());
+	}
+	
+	@Test public void testParallelPagingMaxResults() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1234);
+		assertEquals(range(0, 777, 1), ids(new StubQueryBuilder(conn).pagingParallelism(4).maxResults(777).build().getAll()));
+		assertEquals(16, conn.getRequestCount());
+	}
+	
+	@Test public void testParallelPagingFilters() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1234);
+		assertEquals(range(0, 1234, 2), ids(filterEven(new StubQueryBuilder(conn).pagingParallelism(4)).build().getAll()));
+		assertEquals(range(0, 600, 2), ids(filterEven(new StubQueryBuilder(conn).pagingParallelism(4)).maxResults(300).build().getAll()));
+	}
+	
+	@Test public void testParallelPagingUnique() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1);
+		assertEquals(Integer.valueOf(0), new StubQueryBuilder(conn).pagingParallelism(4).build().getUnique().get("id", Integer.class));
+	}
+	
+	@Test public void testParallelPagingRequiresMultiThreadedConnection() {
+		StubRestConnection conn = StubRestConnection.paged(false, 10);
+		assertThrows(IllegalStateException.class, () -> new StubQueryBuilder(conn).pagingParallelism(4));
+	}
+	
+	@Test public void testPipelinedPagingOrderAndCompleteness() {
+		for ( boolean includeCount : new boolean[] {true, false} ) {
+			for ( int capacity : new int[] {1, 3} ) {
+				StubRestConnection conn = StubRestConnection.paged(true, 1234, includeCount);
+				assertEquals(range(0, 1234, 1), ids(new StubQueryBuilder(conn).pipelinedPaging(capacity).build().getAll()));
+				// Without total count, pipelined paging may load up to capacity pages beyond the last page
+				assertTrue(conn.getRequestCount() <= (includeCount ? 25 : 25+capacity), "Unexpected number of requests: "+conn.getRequestCount());
+			}
+		}
+	}
+	
+	@Test public void testPipelinedPagingMaxResultsAndFilters() {
+		for ( boolean includeCount : new boolean[] {true, false} ) {
+			StubRestConnection conn = StubRestConnection.paged(true, 1234, includeCount);
+			assertEquals(range(0, 777, 1), ids(new StubQueryBuilder(conn).pipelinedPaging(3).maxResults(777).build().getAll()));
+			assertEquals(16, conn.getRequestCount());
+			assertEquals(range(0, 1234, 2), ids(filterEven(new StubQueryBuilder(conn).pipelinedPaging(3)).build().getAll()));
+			assertEquals(range(0, 600, 2), ids(filterEven(new StubQueryBuilder(conn).pipelinedPaging(3)).maxResults(300).build().getAll()));
+		}
+	}
+	
+	@Test public void testPipelinedPagingLoadsNextPageWhileProcessing() {
+		StubRestConnection conn = StubRestConnection.paged(true, 500, false);
+		List<Integer> requestsWhileProcessing = new ArrayList<>();
+		new StubQueryBuilder(conn).pipelinedPaging(1).build().processAll(json -> {
+			if ( json.get("id", Integer.class) % 50 == 49 ) {
+				// Give the background thread some time to load the next page
+				sleep(50);
+				requestsWhileProcessing.add(conn.getRequestCount());
+			}
+		});
+		// While processing page N (0-based), page N+1 should have been requested in the background
+		for ( int page = 0 ; page < 9 ; page++ ) {
+			assertTrue(requestsWhileProcessing.get(page) >= page+2, "Next page not loaded while processing page "+page);
+		}
+	}
+	
+	@Test public void testParallelAndPipelinedPaging() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1234).requestDelayMillis(2);
+		assertEquals(range(0, 1234, 1), ids(new StubQueryBuilder(conn).pagingParallelism(3).pipelinedPaging(5).build().getAll()));
+		assertEquals(25, conn.getRequestCount());
+	}
+	
+	@Test public void testPipelinedPagingRequiresMultiThreadedConnection() {
+		StubRestConnection conn = StubRestConnection.paged(false, 10);
+		assertThrows(IllegalStateException.class, () -> new StubQueryBuilder(conn).pipelinedPaging(1));
+	}
+	
+	@Test public void testAdaptivePageSize() {
+		StubRestConnection conn = StubRestConnection.paged(true, 3000);
+		AdaptivePageSizePolicy policy = AdaptivePageSizePolicy.builder().maxPageSize(400).targetResponseTimeMillis(60000).build();
+		assertEquals(range(0, 3000, 1), ids(new StubQueryBuilder(conn).pageSize(50).adaptivePageSize(policy).build().getAll()));
+		List<Integer> limits = getParams(conn, "limit");
+		assertEquals(Arrays.asList(50, 100, 200, 400, 400), limits.subList(0, 5));
+		// Pages must be contiguous, with each page starting where the previous one ended
+		List<Integer> starts = getParams(conn, "start");
+		for ( int i = 1 ; i < starts.size() ; i++ ) {
+			assertEquals(starts.get(i-1)+limits.get(i-1), starts.get(i).intValue());
+		}
+	}
+	
+	@Test public void testAdaptivePageSizeWithBackgroundPaging() {
+		AdaptivePageSizePolicy policy = AdaptivePageSizePolicy.builder().maxPageSize(400).targetResponseTimeMillis(60000).build();
+		StubRestConnection conn = StubRestConnection.paged(true, 3000);
+		assertEquals(range(0, 3000, 1), ids(new StubQueryBuilder(conn).pageSize(50).adaptivePageSize(policy).pagingParallelism(4).build().getAll()));
+		assertAllRequested(conn, 3000);
+		conn = StubRestConnection.paged(true, 3000, false);
+		assertEquals(range(0, 3000, 1), ids(new StubQueryBuilder(conn).pageSize(50).adaptivePageSize(policy).pipelinedPaging(2).build().getAll()));
+	}
+	
+	@Test public void testStreamShortCircuit() {
+		StubRestConnection conn = StubRestConnection.paged(false, 1234);
+		assertEquals(Integer.valueOf(0), new StubQueryBuilder(conn).pageSize(50).build().stream().findFirst().get().get("id", Integer.class));
+		assertEquals(1, conn.getRequestCount());
+		conn.reset();
+		assertEquals(range(0, 120, 1), new StubQueryBuilder(conn).pageSize(50).build().stream().limit(120).map(json -> json.get("id", Integer.class)).collect(Collectors.toList()));
+		assertEquals(3, conn.getRequestCount());
+	}
+	
+	@Test public void testStreamDoesNotLoadPagesInBackground() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1234);
+		// Stream is intentionally not closed, to verify that no background page loads are left running
+		assertTrue(new StubQueryBuilder(conn).pageSize(50).pagingParallelism(4).pipelinedPaging(4).build().stream().anyMatch(json -> json.get("id", Integer.class) == 10));
+		sleep(100);
+		assertEquals(1, conn.getRequestCount());
+	}
+	
+	@Test public void testStreamFilters() {
+		StubRestConnection conn = StubRestConnection.paged(false, 1234);
+		assertEquals(range(0, 1234, 2), filterEven(new StubQueryBuilder(conn).pageSize(50)).build().stream().map(json -> json.get("id", Integer.class)).collect(Collectors.toList()));
+		assertEquals(range(0, 200, 2), filterEven(new StubQueryBuilder(conn).pageSize(50)).maxResults(100).build().stream().map(json -> json.get("id", Integer.class)).collect(Collectors.toList()));
+	}
+	
+	@Test public void testTypedStream() {
+		StubRestConnection conn = StubRestConnection.paged(false, 123);
+		assertEquals(range(0, 123, 1), new StubQueryBuilder(conn).pageSize(50).build().stream(Item.class).map(Item::getId).collect(Collectors.toList()));
+	}
+	
+	@Test public void testParallelStream() {
+		StubRestConnection conn = StubRestConnection.paged(true, 1234).requestDelayMillis(5);
+		assertEquals(range(0, 1234, 1), new StubQueryBuilder(conn).pageSize(50).build().stream().parallel().map(json -> json.get("id", Integer.class)).collect(Collectors.toList()));
+		assertAllRequested(conn, 1234);
+		assertTrue(conn.getMaxActiveRequests() > 1, "Parallel stream should load pages concurrently");
+	}
+	
+	@Test public void testParallelStreamOnSingleThreadedConnection() {
+		StubRestConnection conn = StubRestConnection.paged(false, 1234).requestDelayMillis(5);
+		assertEquals(range(0, 1234, 1), new StubQueryBuilder(conn).pageSize(50).build().stream().parallel().map(json -> json.get("id", Integer.class)).collect(Collectors.toList()));
+		assertEquals(1, conn.getMaxActiveRequests());
+	}
+	
+	@Test public void testEmbedOnDemandLoadsOnlyFilteredResults() {
+		StubRestConnection conn = embedConnection(false);
+		JSONList results = embedSquare(filterEven(new StubQueryBuilder(conn).pageSize(10))).build().getAll();
+		assertEquals(range(0, 30, 2), ids(results));
+		assertEquals(range(0, 0, 1), embedRequestIds(conn), "Embedded data should be loaded on demand");
+		assertEmbeddedSquares(results);
+		assertEquals(range(0, 30, 2), embedRequestIds(conn), "Embedded data should only be loaded for results that passed the filters");
+	}
+	
+	@Test public void testEmbedOnDemandLoadsOnlyMaxResults() {
+		for ( boolean multiThreaded : new boolean[] {true, false} ) {
+			StubRestConnection conn = embedConnection(multiThreaded);
+			JSONList results = embedSquare(new StubQueryBuilder(conn).pageSize(10)).maxResults(15).build().getAll();
+			assertEquals(range(0, 15, 1), ids(results));
+			results.get(0, JSONMap.class).get("square");
+			assertEquals(range(0, 10, 1), embedRequestIds(conn), "Only the first page should be loaded on first access");
+			assertEmbeddedSquares(results);
+			assertEquals(range(0, 15, 1), embedRequestIds(conn), "Embedded data should not be loaded beyond the maximum number of results");
+		}
+	}
+	
+	@Test public void testEmbedOnDemandWithFilterOnEmbeddedData() {
+		StubRestConnection conn = embedConnection(false);
+		JSONList results = embedSquare(new StubQueryBuilder(conn).pageSize(10))
+				.preProcessor(new JSONMapFilterSpEL(MatchMode.INCLUDE, "square % 3 == 0"))
+				.build().getAll();
+		assertEquals(range(0, 30, 3), ids(results));
+		assertEmbeddedSquares(results);
+		assertEquals(range(0, 30, 1), embedRequestIds(conn), "Filter should load embedded data for every result it evaluates");
+	}
+	
+	@Test public void testEmbedOnDemandWithFilterLoadsOnlyResultsPassingPreviousFilters() {
+		StubRestConnection conn = embedConnection(false);
+		JSONList results = embedSquare(new StubQueryBuilder(conn).pageSize(10))
+				.preProcessor(new JSONMapFilterSpEL(MatchMode.INCLUDE, "id % 2 == 1"))
+				.preProcessor(new JSONMapFilterSpEL(MatchMode.INCLUDE, "square % 3 == 0"))
+				.build().getAll();
+		assertEquals(range(3, 30, 6), ids(results));
+		assertEmbeddedSquares(results);
+		assertEquals(range(1, 30, 2), embedRequestIds(conn));
+	}
+	
+	@Test public void testEmbedOnDemandKeepsPageForPostProcessors() {
+		StubRestConnection conn = embedConnection(false);
+		List<Integer> postProcessed = new ArrayList<>();
+		JSONList results = embedSquare(filterEven(new StubQueryBuilder(conn).pageSize(10))).maxResults(12)
+				.pagePostProcessor((pagingData, page) -> postProcessed.addAll(ids(page)))
+				.build().getAll();
+		assertEquals(range(0, 24, 2), ids(results));
+		assertEquals(range(0, 30, 1), postProcessed, "Page post-processors should receive all results in each page");
+	}
+	
+	@Test public void testPreProcessingInterleavedWithProcessingWithoutBatchPreProcessors() {
+		assertEquals(Arrays.asList("pre 0", "process 0", "pre 1", "process 1", "pre 2", "process 2"), 
+				getPreProcessingAndProcessingEvents(new StubQueryBuilder(StubRestConnection.paged(false, 3)).pageSize(10)));
+	}
+	
+	@Test public void testPreProcessingBeforeProcessingWithBatchPreProcessors() {
+		List<String> events = new ArrayList<>();
+		StubQueryBuilder builder = new StubQueryBuilder(StubRestConnection.paged(false, 3)).pageSize(10)
+				.batchPreProcessor(page -> events.add("batch "+ids(page)));
+		assertEquals(Arrays.asList("pre 0", "pre 1", "pre 2", "process 0", "process 1", "process 2"), 
+				getPreProcessingAndProcessingEvents(builder));
+		assertEquals(Arrays.asList("batch "+range(0, 3, 1)), events);
+	}
+	
+	static final List<String> getPreProcessingAndProcessingEvents(StubQueryBuilder builder) {
+		List<String> events = new ArrayList<>();
+		builder.preProcessor(json -> events.add("pre "+json.get("id"))).build()
+			.processAll((JSONMap json) -> events.add("process "+json.get("id")));
+		return events;
+	}
+	
+	static final StubRestConnection embedConnection(boolean multiThreaded) {
+		Function<URI, JSONMap> pagedResponse = StubRestConnection.pagedResponse(30, true);
+		StubRestConnection conn = new StubRestConnection(multiThreaded, uri -> {
+			if ( !uri.getPath().startsWith("/embed/") ) { return pagedResponse.apply(uri); }
+			int id = Integer.parseInt(uri.getPath().substring("/embed/".length()));
+			JSONMap result = new JSONMap();
+			result.put("square", id*id);
+			return result;
+		});
+		// Single-result on-demand loaders look up the connection by id
+		Connections.register(conn);
+		return conn;
+	}
+	
+	static final StubQueryBuilder embedSquare(StubQueryBuilder builder) {
+		return builder.embed(TestEmbedConfig.builder().propertyName("square").uri("http://localhost/embed/${id}").resultExpression("square").build());
+	}
+	
+	static final List<Integer> embedRequestIds(StubRestConnection conn) {
+		return conn.getRequestedUris().stream()
+				.map(URI::getPath).filter(path -> path.startsWith("/embed/"))
+				.map(path -> Integer.parseInt(path.substring("/embed/".length()))).sorted()
+				.collect(Collectors.toList());
+	}
+	
+	static final void assertEmbeddedSquares(JSONList results) {
+		for ( JSONMap json : results.asValueType(JSONMap.class) ) {
+			int id = json.get("id", Integer.class);
+			assertEquals(Integer.valueOf(id*id), json.get("square", Integer.class));
+		}
+	}
+	
+	static final List<Integer> getParams(StubRestConnection conn, String name) {
+		return conn.getRequestedUris().stream().map(uri -> StubRestConnection.getIntQueryParams(uri).get(name)).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Assert that the pages requested by the given connection, in any order, cover all 
+	 * results up to the given total.
+	 */
+	static final void assertAllRequested(StubRestConnection conn, int total) {
+		boolean[] requested = new boolean[total];
+		for ( URI uri : conn.getRequestedUris() ) {
+			Map<String, Integer> params = StubRestConnection.getIntQueryParams(uri);
+			int start = params.get("start");
+			for ( int i = start ; i < Math.min(total, start+params.get("limit")) ; i++ ) {
+				requested[i] = true;
+			}
+		}
+		for ( int i = 0 ; i < total ; i++ ) {
+			assertTrue(requested[i], "Result "+i+" was not requested");
+		}
+	}
+	
+	static final void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	static final StubQueryBuilder filterEven(StubQueryBuilder builder) {
+		return builder.preProcessor(new JSONMapFilterSpEL(MatchMode.INCLUDE, "id % 2 == 0"));
+	}
+	
+	static final List<Integer> ids(JSONList list) {
+		return list.asValueType(JSONMap.class).stream().map(json -> json.get("id", Integer.class)).collect(Collectors.toList());
+	}
+	
+	static final List<Integer> range(int start, int end, int step) {
+		return IntStream.range(start, end).filter(i -> (i-start) % step == 0).boxed().collect(Collectors.toList());
+	}
+	
+	@SuperBuilder
+	private static final class TestEmbedConfig extends StandardEmbedConfig {
+		private static final long serialVersionUID = 1L;
+	}
+	
+	public static final class Item {
+		private int id;
+		public int getId() {
+			return id;
+		}
+		public void setId(int id) {
+			this.id = id;
+		}
+	}
+}
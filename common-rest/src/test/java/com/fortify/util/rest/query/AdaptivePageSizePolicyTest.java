@@ -0,0 +1,70 @@
+package com.fortify.util.rest.query;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptivePageSizePolicyTest {
+	private static final AdaptivePageSizePolicy POLICY = AdaptivePageSizePolicy.builder()
+			.minPageSize(20).maxPageSize(500).targetResponseTimeMillis(1000).maxResponseBytes(100000).build();
+	
+	@Test public void testGrowOnFastResponse() {
+		assertEquals(200, POLICY.calculatePageSize(lastPage(100, 100, 100, 1000)));
+	}
+	
+	@Test public void testShrinkOnSlowResponse() {
+		assertEquals(50, POLICY.calculatePageSize(lastPage(100, 100, 4000, 1000)));
+		assertEquals(80, POLICY.calculatePageSize(lastPage(100, 100, 1250, 1000)));
+	}
+	
+	@Test public void testShrinkOnLargeResponse() {
+		assertEquals(50, POLICY.calculatePageSize(lastPage(100, 100, 100, 200000)));
+		assertEquals(50, POLICY.calculatePageSize(lastPage(100, 100, 100, 1000000)));
+	}
+	
+	@Test public void testBounds() {
+		assertEquals(500, POLICY.calculatePageSize(lastPage(400, 400, 100, 1000)));
+		assertEquals(20, POLICY.calculatePageSize(lastPage(30, 30, 4000, 1000)));
+	}
+	
+	@Test public void testUnchangedOnLastPage() {
+		assertEquals(100, POLICY.calculatePageSize(lastPage(100, 42, 100, 1000)));
+	}
+	
+	@Test public void testUnchangedWithoutResponseTime() {
+		assertEquals(100, POLICY.calculatePageSize(lastPage(100, 100, -1, -1)));
+	}
+	
+	private static final PagingData lastPage(int pageSize, int results, long responseTimeMillis, long responseBytes) {
+		PagingData pagingData = new PagingData().pageSize(pageSize);
+		pagingData.calculateNextPageSize();
+		pagingData.addProcessedBeforeFilters(results);
+		pagingData.recordPageMetrics(responseTimeMillis, responseBytes);
+		return pagingData;
+	}
+}
@@ -0,0 +1,217 @@
+package com.fortify.util.rest.query;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+import com.fortify.util.rest.json.JSONObjectMapperSupplier;
+
+public class ResultsPageTest {
+	private static final ObjectMapper MAPPER = JSONObjectMapperSupplier.getObjectMapper();
+	private static final ObjectReader JSON_MAP_READER = MAPPER.readerFor(JSONMap.class);
+	private static final String RESULTS = "{\"id\":1,\"name\":\"naïve\",\"nested\":{\"values\":[1,2]}},{\"id\":2,\"name\":null,\"nested\":{}},{\"id\":3}";
+	
+	@Test public void testSSCResultsBeforePaging() throws Exception {
+		testSSC("{\"data\":["+RESULTS+"],\"count\":3,\"responseCode\":200}");
+	}
+	
+	@Test public void testSSCResultsAfterPaging() throws Exception {
+		testSSC("{\"count\":3,\"responseCode\":200,\"data\":["+RESULTS+"]}");
+	}
+	
+	@Test public void testSSCResultsBetweenNestedEnvelopeObjects() throws Exception {
+		testSSC("{\"links\":{\"next\":{\"href\":\"http://localhost/api/v1/projects?start=3\"},\"first\":{\"href\":\"x\"}},"
+				+ "\"data\":["+RESULTS+"],\"errors\":[{\"code\":1,\"data\":[]}],\"count\":3}");
+	}
+	
+	@Test public void testSSCWithoutCount() throws Exception {
+		String body = "{\"data\":["+RESULTS+"],\"responseCode\":200}";
+		assertEquals(3, testSSC(body).size());
+		assertFalse(read(body, "data", JSON_MAP_READER).getEnvelope().containsKey("count"));
+	}
+	
+	@Test public void testSSCSingleResult() throws Exception {
+		assertEquals(1, testSSC("{\"data\":{\"id\":1,\"nested\":{\"data\":[1]}},\"responseCode\":200}").size());
+	}
+	
+	@Test public void testFoDResultsBeforePaging() throws Exception {
+		testFoD("{\"items\":["+RESULTS+"],\"totalCount\":3,\"limit\":50,\"offset\":0}");
+	}
+	
+	@Test public void testFoDResultsAfterPaging() throws Exception {
+		testFoD("{\"totalCount\":3,\"limit\":50,\"offset\":0,\"items\":["+RESULTS+"]}");
+	}
+	
+	@Test public void testFoDNestedEnvelopeObjects() throws Exception {
+		testFoD("{\"totalCount\":3,\"meta\":{\"items\":[{\"id\":99}],\"totalCount\":99},\"items\":["+RESULTS+"],\"extra\":[[1],{\"a\":null}]}");
+	}
+	
+	@Test public void testEmptyResults() throws Exception {
+		assertEquals(0, testSSC("{\"data\":[],\"count\":0}").size());
+		assertEquals(0, testFoD("{\"items\":[],\"totalCount\":0}").size());
+	}
+	
+	@Test public void testMissingResults() throws Exception {
+		assertEquals(0, testSSC("{\"count\":0,\"responseCode\":200}").size());
+		assertEquals(0, testFoD("{\"totalCount\":0}").size());
+		assertEquals(0, testFoD("{\"items\":null,\"totalCount\":0}").size());
+	}
+	
+	@Test public void testEmptyResponse() throws Exception {
+		ResultsPage<JSONMap> page = read("", "data", JSON_MAP_READER);
+		assertTrue(page.getEnvelope().isEmpty());
+		assertTrue(page.getResults().isEmpty());
+		assertEquals(0, page.getResponseBytes());
+	}
+	
+	@Test public void testInvalidResponse() {
+		assertThrows(JsonParseException.class, () -> read("[{\"id\":1}]", "data", JSON_MAP_READER));
+	}
+	
+	@Test public void testResponseBytes() throws Exception {
+		String body = "{\"data\":["+RESULTS+"],\"count\":3}";
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		// Non-ASCII characters make sure that bytes rather than characters are counted
+		assertTrue(bytes.length > body.length());
+		assertEquals(bytes.length, read(body, "data", JSON_MAP_READER).getResponseBytes());
+		assertEquals(bytes.length, ResultsPage.read(new ByteArrayInputStream(bytes), "data", JSON_MAP_READER, result -> false).getResponseBytes());
+	}
+	
+	@Test public void testTypedResults() throws Exception {
+		String body = "{\"data\":["+RESULTS+"],\"count\":3}";
+		ResultsPage<Item> page = read(body, "data", MAPPER.readerFor(Item.class));
+		List<Item> expected = getJSONListFromResponse(parseJSONMap(body), "data").asValueType(JSONMap.class).stream()
+				.map(json -> MAPPER.convertValue(json, Item.class)).collect(Collectors.toList());
+		assertEquals(expected, page.getResults());
+		assertEquals(Arrays.asList("naïve", null, null), page.getResults().stream().map(item -> item.name).collect(Collectors.toList()));
+	}
+	
+	@Test public void testResultHandlerStopsBinding() throws Exception {
+		String body = "{\"data\":["+RESULTS+"],\"count\":3,\"responseCode\":200}";
+		List<JSONMap> handled = new ArrayList<>();
+		ResultsPage<JSONMap> page = ResultsPage.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "data", JSON_MAP_READER, result -> {
+			handled.add(result);
+			return handled.size() < 2;
+		});
+		assertEquals(2, handled.size());
+		assertTrue(page.getResults().isEmpty());
+		// Remaining response properties must still be collected after skipping the remaining results
+		assertEquals(Integer.valueOf(3), page.getEnvelope().get("count", Integer.class));
+		assertEquals(Integer.valueOf(200), page.getEnvelope().get("responseCode", Integer.class));
+	}
+	
+	/**
+	 * Read the given SSC-style response, and verify that the results and all properties 
+	 * used by SSCEntityQuery for paging match the original {@link JSONMap}-based approach.
+	 */
+	private List<JSONMap> testSSC(String body) throws IOException {
+		JSONMap json = parseJSONMap(body);
+		ResultsPage<JSONMap> page = testPage(body, "data", json);
+		assertEquals(json.containsKey("count"), page.getEnvelope().containsKey("count"));
+		assertEquals(json.get("count", Integer.class), page.getEnvelope().get("count", Integer.class));
+		return page.getResults();
+	}
+	
+	/**
+	 * Read the given FoD-style response, and verify that the results and all properties 
+	 * used by FoDEntityQuery for paging match the original {@link JSONMap}-based approach.
+	 */
+	private List<JSONMap> testFoD(String body) throws IOException {
+		JSONMap json = parseJSONMap(body);
+		ResultsPage<JSONMap> page = testPage(body, "items", json);
+		assertEquals(json.get("totalCount", Integer.class), page.getEnvelope().get("totalCount", Integer.class));
+		return page.getResults();
+	}
+	
+	private ResultsPage<JSONMap> testPage(String body, String resultsPropertyName, JSONMap json) throws IOException {
+		ResultsPage<JSONMap> page = read(body, resultsPropertyName, JSON_MAP_READER);
+		// The original approach yields a single null entry if the results property is missing or null;
+		// these were never passed on as results, so we only compare non-null entries.
+		List<Object> expectedResults = getJSONListFromResponse(json, resultsPropertyName).stream()
+				.filter(Objects::nonNull).collect(Collectors.toList());
+		assertEquals(expectedResults, page.getResults());
+		
+		JSONMap expectedEnvelope = new JSONMap(json);
+		expectedEnvelope.remove(resultsPropertyName);
+		assertEquals(expectedEnvelope, page.getEnvelope());
+		assertEquals(new ArrayList<>(expectedEnvelope.keySet()), new ArrayList<>(page.getEnvelope().keySet()));
+		assertEquals(body.getBytes(StandardCharsets.UTF_8).length, page.getResponseBytes());
+		return page;
+	}
+	
+	/**
+	 * Same as SSCEntityQuery/FoDEntityQuery getJSONListFromResponse()
+	 */
+	private static final JSONList getJSONListFromResponse(JSONMap json, String resultsPropertyName) {
+		Object data = json.get(resultsPropertyName, Object.class);
+		return (data instanceof JSONList) ? (JSONList)data : new JSONList(Arrays.asList(data));
+	}
+	
+	private static final JSONMap parseJSONMap(String body) throws IOException {
+		return MAPPER.readValue(body, JSONMap.class);
+	}
+	
+	private static final <T> ResultsPage<T> read(String body, String resultsPropertyName, ObjectReader resultReader) throws IOException {
+		return ResultsPage.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), resultsPropertyName, resultReader);
+	}
+	
+	public static final class Item {
+		public int id;
+		public String name;
+		public JSONMap nested;
+		
+		@Override
+		public boolean equals(Object obj) {
+			if ( !(obj instanceof Item) ) { return false; }
+			Item other = (Item)obj;
+			return id==other.id && Objects.equals(name, other.name) && Objects.equals(nested, other.nested);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(id, name, nested);
+		}
+	}
+}
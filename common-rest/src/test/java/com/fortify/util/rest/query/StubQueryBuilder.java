@@ -0,0 +1,79 @@
+package com.fortify.util.rest.query;
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+
+
+import javax.ws.rs.client.WebTarget;
+
+import com.fortify.util.rest.connection.StubRestConnection;
+import com.fortify.util.rest.json.JSONList;
+import com.fortify.util.rest.json.JSONMap;
+
+/**
+ * Query builder for unit tests, building queries for the paged responses returned by
+ * {@link StubRestConnection#paged(boolean, int, boolean)}.
+ * 
+ * @author Ruud Senden
+ *
+ */
+public class StubQueryBuilder extends AbstractRestConnectionQueryBuilder<StubRestConnection, StubQueryBuilder> {
+	public StubQueryBuilder(StubRestConnection conn) {
+		super(conn, true);
+	}
+	
+	@Override
+	public IRestConnectionQuery build() {
+		return new StubQuery(this);
+	}
+	
+	private static final class StubQuery extends AbstractRestConnectionQuery<JSONMap> {
+		public StubQuery(StubQueryBuilder config) {
+			super(config);
+		}
+		
+		@Override
+		protected void updatePagingDataFromResponse(PagingData pagingData, JSONMap response) {
+			Integer count = response.get("count", Integer.class);
+			if ( count != null ) {
+				pagingData.setTotalAvailable(count);
+			}
+		}
+		
+		@Override
+		protected WebTarget updateWebTargetWithPagingData(WebTarget target, PagingData pagingData) {
+			return target.queryParam("start", pagingData.getNextPageStart()).queryParam("limit", pagingData.getNextPageSize());
+		}
+		
+		@Override
+		protected Class<JSONMap> getResponseTypeClass() {
+			return JSONMap.class;
+		}
+		
+		@Override
+		protected JSONList getJSONListFromResponse(JSONMap response) {
+			return response.get("data", JSONList.class);
+		}
+	}
+}
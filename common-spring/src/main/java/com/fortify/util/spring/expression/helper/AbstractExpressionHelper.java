@@ -34,6 +34,7 @@ import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParserContext;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
@@ -49,9 +50,12 @@ import com.fortify.util.spring.expression.TemplateExpression;
  * (template) expressions on input objects.
  */
 public abstract class AbstractExpressionHelper implements IExpressionHelper {
+	/** Default maximum number of parsed expressions held in the {@link ExpressionCache} */
+	public static final int DEFAULT_EXPRESSION_CACHE_SIZE = 1000;
 	private final ExpressionParser expressionParser = createExpressionParser();
 	private final ParserContext templateParserContext = createTemplateParserContext();
 	private final EvaluationContext evaluationContext = createEvaluationContext();
+	private final ExpressionCache expressionCache = createExpressionCache();
 	
 	protected AbstractExpressionHelper() {}
 
@@ -72,12 +76,30 @@ public abstract class AbstractExpressionHelper implements IExpressionHelper {
 	 * Create the {@link SpelParserConfiguration} to be used for creating
 	 * the default {@link SpelExpressionParser} returned by the 
 	 * {@link #createExpressionParser()} method. This default implementation
-	 * returns a default {@link SpelParserConfiguration} instance. Subclasses 
-	 * can override this method to modify the configuration. 
+	 * returns a default {@link SpelParserConfiguration} instance, using the
+	 * {@link SpelCompilerMode} returned by {@link #getSpelCompilerMode()} if 
+	 * not null. Subclasses can override this method to modify the configuration. 
 	 * @return {@link SpelParserConfiguration} instance used for configuring an {@link SpelExpressionParser}
 	 */
 	protected SpelParserConfiguration createSpelParserConfiguration() {
-		return new SpelParserConfiguration();
+		SpelCompilerMode compilerMode = getSpelCompilerMode();
+		return compilerMode==null 
+				? new SpelParserConfiguration() 
+				: new SpelParserConfiguration(compilerMode, getClass().getClassLoader());
+	}
+	
+	/**
+	 * Get the {@link SpelCompilerMode} to be used by the default {@link SpelParserConfiguration}
+	 * returned by {@link #createSpelParserConfiguration()}. This default implementation returns 
+	 * null, meaning that Spring's default compiler mode will be used (which can be configured 
+	 * through the <code>spring.expression.compiler.mode</code> system property). Subclasses can 
+	 * override this method to return {@link SpelCompilerMode#MIXED} or {@link SpelCompilerMode#IMMEDIATE}
+	 * to have frequently evaluated expressions compiled to byte code. As compiled state is stored
+	 * in the parsed expression, this works best in combination with the {@link ExpressionCache}. 
+	 * @return {@link SpelCompilerMode} to be used, or null to use Spring's default compiler mode
+	 */
+	protected SpelCompilerMode getSpelCompilerMode() {
+		return null;
 	}
 	
 	/**
@@ -130,6 +152,26 @@ public abstract class AbstractExpressionHelper implements IExpressionHelper {
 		return result;
 	}
 
+	/**
+	 * Create the {@link ExpressionCache} used to cache parsed expressions. This
+	 * default implementation returns an {@link ExpressionCache} instance that 
+	 * holds at most {@link #DEFAULT_EXPRESSION_CACHE_SIZE} expressions. Subclasses
+	 * can override this method to configure a different cache size.
+	 * @return {@link ExpressionCache} instance
+	 */
+	protected ExpressionCache createExpressionCache() {
+		return new ExpressionCache(DEFAULT_EXPRESSION_CACHE_SIZE, this::parseExpression);
+	}
+	
+	/**
+	 * Get the {@link ExpressionCache} used by this {@link AbstractExpressionHelper}
+	 * instance, for example to retrieve cache statistics.
+	 * @return {@link ExpressionCache} instance
+	 */
+	public final ExpressionCache getExpressionCache() {
+		return expressionCache;
+	}
+
 	/**
 	 * Parse the given string as a SpEL expression.
 	 * @param exprStr to be parsed as a simple expression
@@ -137,7 +179,7 @@ public abstract class AbstractExpressionHelper implements IExpressionHelper {
 	 */
 	@Override
 	public final SimpleExpression parseSimpleExpression(String exprStr) {
-		return exprStr==null ? null : new SimpleExpression(expressionParser.parseExpression(exprStr));
+		return exprStr==null ? null : new SimpleExpression(expressionCache.get(exprStr, null));
 	}
 	
 	/**
@@ -147,7 +189,21 @@ public abstract class AbstractExpressionHelper implements IExpressionHelper {
 	 */
 	@Override
 	public final TemplateExpression parseTemplateExpression(String exprStr) {
-		return exprStr==null ? null : new TemplateExpression(expressionParser.parseExpression(exprStr.replace("\\n", "\n"), templateParserContext));
+		return exprStr==null ? null : new TemplateExpression(expressionCache.get(exprStr, templateParserContext));
+	}
+	
+	/**
+	 * Parse the given expression string using the configured {@link ExpressionParser}.
+	 * This method is invoked by the {@link ExpressionCache} for expressions that
+	 * are not yet available in the cache.
+	 * @param exprStr to be parsed
+	 * @param parserContext null for simple expressions, template parser context for template expressions
+	 * @return Parsed {@link Expression}
+	 */
+	private final Expression parseExpression(String exprStr, ParserContext parserContext) {
+		return parserContext==null 
+				? expressionParser.parseExpression(exprStr)
+				: expressionParser.parseExpression(exprStr.replace("\\n", "\n"), parserContext);
 	}
 	
 	@Override
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates, a Micro Focus company
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.util.spring.expression.helper;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * This class provides a bounded, thread-safe cache for parsed {@link Expression}
+ * instances, keyed by expression string and {@link ParserContext}. This avoids
+ * having to re-parse the same expression string over and over again, for example
+ * when evaluating the same expression on every record of every page returned by 
+ * a REST API. Once the maximum cache size has been reached, the least recently 
+ * used expressions will be evicted from the cache.
+ * 
+ * This class keeps track of cache hits and misses, which can be used to
+ * determine whether the cache size is appropriate for a given application. 
+ * 
+ * @author Ruud Senden
+ *
+ */
+public final class ExpressionCache {
+	private final ConcurrentLruCache<Key, Expression> cache;
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	
+	/**
+	 * Create a new {@link ExpressionCache} instance.
+	 * @param maxSize Maximum number of expressions to be cached; 0 disables caching 
+	 * @param parser {@link BiFunction} for parsing expression strings that are not yet
+	 *        available in the cache, taking the expression string and {@link ParserContext}
+	 *        (null for simple expressions) as input
+	 */
+	public ExpressionCache(int maxSize, BiFunction<String, ParserContext, Expression> parser) {
+		this.cache = new ConcurrentLruCache<>(maxSize, key -> {
+			missCount.increment();
+			return parser.apply(key.exprStr, key.parserContext);
+		});
+	}
+	
+	/**
+	 * Get the parsed {@link Expression} for the given expression string and
+	 * {@link ParserContext}, parsing the expression string if it is not yet 
+	 * available in the cache.
+	 * @param exprStr Expression string to be parsed
+	 * @param parserContext {@link ParserContext} for parsing the expression string, or null for simple expressions
+	 * @return Parsed {@link Expression}
+	 */
+	public Expression get(String exprStr, ParserContext parserContext) {
+		requestCount.increment();
+		return cache.get(new Key(exprStr, parserContext));
+	}
+	
+	/**
+	 * @return Number of expressions that were retrieved from the cache
+	 */
+	public long getHitCount() {
+		return requestCount.sum() - missCount.sum();
+	}
+	
+	/**
+	 * @return Number of expressions that had to be parsed because they were not available in the cache
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+	
+	/**
+	 * @return Number of expressions currently held in the cache
+	 */
+	public int getSize() {
+		return cache.size();
+	}
+	
+	/**
+	 * @return Maximum number of expressions held in the cache
+	 */
+	public int getMaxSize() {
+		return cache.sizeLimit();
+	}
+	
+	/**
+	 * Remove all expressions from the cache, and reset the hit and miss counts.
+	 */
+	public void clear() {
+		cache.clear();
+		requestCount.reset();
+		missCount.reset();
+	}
+	
+	@Override
+	public String toString() {
+		return "ExpressionCache(size="+getSize()+", maxSize="+getMaxSize()+", hits="+getHitCount()+", misses="+getMissCount()+")";
+	}
+	
+	private static final class Key {
+		private final String exprStr;
+		private final ParserContext parserContext;
+		private final int hashCode;
+		
+		public Key(String exprStr, ParserContext parserContext) {
+			this.exprStr = exprStr;
+			this.parserContext = parserContext;
+			this.hashCode = 31*exprStr.hashCode() + Objects.hashCode(parserContext);
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if ( this==obj ) { return true; }
+			if ( !(obj instanceof Key) ) { return false; }
+			Key other = (Key)obj;
+			return exprStr.equals(other.exprStr) && Objects.equals(parserContext, other.parserContext);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}